@@ -0,0 +1,102 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+import java.util.concurrent.TimeUnit;
+
+import org.epochx.epox.math.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the boxed evaluation of a node tree through
+ * <code>Node.evaluate()</code> with the specialised
+ * <code>evaluateDouble()</code> path and with column evaluation by a
+ * <code>ColumnEvaluator</code>. Each benchmark evaluates the quartic
+ * polynomial <code>x^4 + x^3 + x^2 + x</code> over the same set of inputs and
+ * returns the sum of the results.
+ * 
+ * <p>
+ * Run with <code>gradle jmh</code>, or pass JMH options through the
+ * <code>jmhArgs</code> project property.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+	@Param({"100", "1000"})
+	private int noCases;
+
+	private double[] inputs;
+	private Variable x;
+	private Node tree;
+	private ColumnEvaluator evaluator;
+
+	@Setup
+	public void setup() {
+		inputs = new double[noCases];
+		for (int i = 0; i < noCases; i++) {
+			inputs[i] = -1.0 + (2.0 * i) / noCases;
+		}
+
+		x = new Variable("X", Double.class);
+		final Node x2 = new MultiplyFunction(x, x);
+		final Node x3 = new MultiplyFunction(x2, x);
+		final Node x4 = new MultiplyFunction(x3, x);
+		tree = new AddFunction(new AddFunction(x4, x3), new AddFunction(x2, x));
+
+		evaluator = new ColumnEvaluator(noCases);
+		evaluator.bind(x, inputs);
+	}
+
+	@Benchmark
+	public double boxed() {
+		double sum = 0;
+		for (final double input: inputs) {
+			x.setValue(input);
+			sum += (Double) tree.evaluate();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double specialised() {
+		double sum = 0;
+		for (final double input: inputs) {
+			x.setValue(input);
+			sum += tree.evaluateDouble();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double column() {
+		double sum = 0;
+		for (final double result: evaluator.evaluateDouble(tree)) {
+			sum += result;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import static org.epochx.tools.util.IOUtils.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.*;
+
+import org.epochx.representation.CandidateProgram;
+import org.epochx.tools.random.MersenneTwisterFast;
+
+/**
+ * A <code>Checkpoint</code> is the state of a run at the end of a generation,
+ * read from a checkpoint file, from which the run can be continued with
+ * <code>Model.resume</code>. The state is the run and generation numbers, the
+ * population with the fitness of each program, the fittest program of the run
+ * so far and the state of the <code>MersenneTwisterFast</code> random number
+ * generator, so that a resumed run continues exactly as the original would
+ * have.
+ * 
+ * <p>
+ * Checkpoints are written in a compact binary form, without Java
+ * serialisation. Each program is written by its own <code>writeTo</code>
+ * method, and a program that appears more than once in the population is
+ * written once and then referred to by number. The file ends with a CRC32 of
+ * its contents.
+ * 
+ * @see Model#setCheckpointFile(File)
+ * @see Model#resume(File)
+ * @see CandidateProgram#writeTo(DataOutput)
+ */
+public class Checkpoint {
+
+	// Identifies a file written as a checkpoint.
+	private static final int FILE_MAGIC = 0x45584350;
+	private static final int FILE_VERSION = 1;
+
+	private final int runNo;
+	private final int generation;
+	private final List<CandidateProgram> population;
+	private final CandidateProgram fittestProgram;
+	private final double fitness;
+	private final byte[] rngState;
+
+	/*
+	 * Constructs a checkpoint from the state read from a file.
+	 */
+	private Checkpoint(final int runNo, final int generation, final List<CandidateProgram> population,
+			final CandidateProgram fittestProgram, final double fitness, final byte[] rngState) {
+		this.runNo = runNo;
+		this.generation = generation;
+		this.population = population;
+		this.fittestProgram = fittestProgram;
+		this.fitness = fitness;
+		this.rngState = rngState;
+	}
+
+	/**
+	 * Reads a checkpoint from a file, with programs that belong to the given
+	 * model.
+	 * 
+	 * @param file the checkpoint file.
+	 * @param model the model that the programs are read with.
+	 * @return the checkpoint read from the file.
+	 * @throws IOException if there was a problem reading the file, or it is not
+	 *         a valid checkpoint of the model.
+	 */
+	public static Checkpoint read(final File file, final Model model) throws IOException {
+		final byte[] bytes = Files.readAllBytes(file.toPath());
+		if (bytes.length < 12) {
+			throw new IOException("not a checkpoint: " + file);
+		}
+
+		final int length = bytes.length - 4;
+		final CRC32 crc = new CRC32();
+		crc.update(bytes, 0, length);
+
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+		if (in.readInt() != FILE_MAGIC) {
+			throw new IOException("not a checkpoint: " + file);
+		} else if (in.readInt() != FILE_VERSION) {
+			throw new IOException("unsupported checkpoint version: " + file);
+		} else if (ByteBuffer.wrap(bytes, length, 4).getInt() != (int) crc.getValue()) {
+			throw new IOException("corrupt checkpoint: " + file);
+		}
+
+		final int runNo = readVarInt(in);
+		final int generation = readVarInt(in);
+
+		final byte[] rngState = new byte[readVarInt(in)];
+		in.readFully(rngState);
+
+		final double fitness = in.readDouble();
+
+		final List<CandidateProgram> programs = new ArrayList<CandidateProgram>();
+		final int popSize = readVarInt(in);
+		final List<CandidateProgram> population = new ArrayList<CandidateProgram>(popSize);
+		for (int i = 0; i < popSize; i++) {
+			population.add(readProgram(in, model, programs));
+		}
+		final CandidateProgram fittestProgram = readProgram(in, model, programs);
+
+		return new Checkpoint(runNo, generation, population, fittestProgram, fitness, rngState);
+	}
+
+	/*
+	 * Writes the state of a run at the end of a generation.
+	 */
+	static void write(final OutputStream stream, final int runNo, final int generation,
+			final List<CandidateProgram> population, final CandidateProgram fittestProgram, final double fitness,
+			final MersenneTwisterFast rng) throws IOException {
+		final CRC32 crc = new CRC32();
+		final DataOutputStream out = new DataOutputStream(new CheckedOutputStream(stream, crc));
+
+		out.writeInt(FILE_MAGIC);
+		out.writeInt(FILE_VERSION);
+
+		writeVarInt(out, runNo);
+		writeVarInt(out, generation);
+
+		final ByteArrayOutputStream rngState = new ByteArrayOutputStream();
+		rng.writeState(new DataOutputStream(rngState));
+		writeVarInt(out, rngState.size());
+		rngState.writeTo(out);
+
+		out.writeDouble(fitness);
+
+		final Map<CandidateProgram, Integer> programs = new IdentityHashMap<CandidateProgram, Integer>();
+		writeVarInt(out, population.size());
+		for (final CandidateProgram program: population) {
+			writeProgram(out, program, programs);
+		}
+		writeProgram(out, fittestProgram, programs);
+
+		out.flush();
+		new DataOutputStream(stream).writeInt((int) crc.getValue());
+	}
+
+	/*
+	 * Writes a reference to a program which has already been written, or 0
+	 * followed by the program.
+	 */
+	private static void writeProgram(final DataOutput out, final CandidateProgram program,
+			final Map<CandidateProgram, Integer> programs) throws IOException {
+		final Integer number = programs.get(program);
+		if (number != null) {
+			writeVarInt(out, number);
+		} else {
+			writeVarInt(out, 0);
+			program.writeTo(out);
+			programs.put(program, programs.size() + 1);
+		}
+	}
+
+	/*
+	 * Reads a program written by writeProgram.
+	 */
+	private static CandidateProgram readProgram(final DataInput in, final Model model,
+			final List<CandidateProgram> programs) throws IOException {
+		final int number = readVarInt(in);
+		if (number == 0) {
+			final CandidateProgram program = model.readProgram(in);
+			programs.add(program);
+
+			return program;
+		} else if ((number > 0) && (number <= programs.size())) {
+			return programs.get(number - 1);
+		} else {
+			throw new IOException("invalid program reference: " + number);
+		}
+	}
+
+	/**
+	 * Returns the number of the run that the checkpoint was taken in.
+	 * 
+	 * @return the run number, from 0.
+	 */
+	public int getRunNo() {
+		return runNo;
+	}
+
+	/**
+	 * Returns the number of the generation at the end of which the checkpoint
+	 * was taken.
+	 * 
+	 * @return the generation number.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Returns the population at the end of the generation.
+	 * 
+	 * @return the population, in order.
+	 */
+	public List<CandidateProgram> getPopulation() {
+		return population;
+	}
+
+	/**
+	 * Returns the fittest program of the run up to the end of the generation.
+	 * 
+	 * @return the fittest program so far.
+	 */
+	public CandidateProgram getFittestProgram() {
+		return fittestProgram;
+	}
+
+	/**
+	 * Returns the fitness of the fittest program of the run up to the end of
+	 * the generation.
+	 * 
+	 * @return the lowest fitness score so far.
+	 */
+	public double getFitness() {
+		return fitness;
+	}
+
+	/**
+	 * Puts the given random number generator into the state that the model's
+	 * random number generator was in when the checkpoint was taken.
+	 * 
+	 * @param rng the random number generator to restore.
+	 */
+	public void restoreRNG(final MersenneTwisterFast rng) {
+		try {
+			rng.readState(new DataInputStream(new ByteArrayInputStream(rngState)));
+		} catch (final IOException e) {
+			throw new IllegalStateException("invalid random number generator state", e);
+		}
+	}
+}
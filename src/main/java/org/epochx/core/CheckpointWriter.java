@@ -0,0 +1,146 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.epochx.representation.CandidateProgram;
+import org.epochx.tools.random.MersenneTwisterFast;
+
+/*
+ * Writes checkpoints of a run to a file without holding up the generations.
+ * Each checkpoint is encoded into memory on the calling thread, since the
+ * population may change as soon as the call returns, and the file is then
+ * written and forced to the storage device on a background thread. Two
+ * buffers are used in turn, so the next checkpoint is encoded while the last
+ * is being written, and a checkpoint only waits if the one before it has not
+ * yet been written. Each checkpoint is written alongside the file and moved
+ * over it, so the file always holds a complete checkpoint.
+ */
+class CheckpointWriter {
+
+	private final File file;
+
+	private final MersenneTwisterFast rng;
+
+	// The buffers, used in turn.
+	private final ByteArrayOutputStream[] buffers;
+	private int next;
+
+	private final ExecutorService executor;
+
+	// The write of the last checkpoint.
+	private Future<?> pending;
+
+	/*
+	 * Constructs a writer of checkpoints to the given file, which include the
+	 * state of the given random number generator.
+	 */
+	public CheckpointWriter(final File file, final MersenneTwisterFast rng) {
+		this.file = file;
+		this.rng = rng;
+
+		buffers = new ByteArrayOutputStream[]{new ByteArrayOutputStream(), new ByteArrayOutputStream()};
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	/*
+	 * Encodes a checkpoint and starts writing it to the file, after waiting
+	 * for the last checkpoint to be written.
+	 */
+	public void write(final int runNo, final int generation, final List<CandidateProgram> population,
+			final CandidateProgram fittestProgram, final double fitness) {
+		final ByteArrayOutputStream buffer = buffers[next];
+		next = 1 - next;
+
+		buffer.reset();
+		try {
+			Checkpoint.write(buffer, runNo, generation, population, fittestProgram, fitness, rng);
+		} catch (final IOException e) {
+			throw new IllegalStateException("could not encode checkpoint", e);
+		}
+
+		// The other buffer may still be being written.
+		await();
+
+		pending = executor.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws IOException {
+				writeFile(buffer);
+				return null;
+			}
+		});
+	}
+
+	/*
+	 * Waits for the last checkpoint to be written and stops the background
+	 * thread.
+	 */
+	public void close() {
+		try {
+			await();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/*
+	 * Waits for the last checkpoint to be written, rethrowing any failure.
+	 */
+	private void await() {
+		if (pending == null) {
+			return;
+		}
+
+		try {
+			pending.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while writing checkpoint " + file, e);
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException("could not write checkpoint " + file, e.getCause());
+		} finally {
+			pending = null;
+		}
+	}
+
+	/*
+	 * Writes the buffer alongside the file and moves it over the file.
+	 */
+	private void writeFile(final ByteArrayOutputStream buffer) throws IOException {
+		final File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+
+		final FileOutputStream out = new FileOutputStream(temp);
+		try {
+			buffer.writeTo(out);
+			out.getChannel().force(true);
+		} finally {
+			out.close();
+		}
+
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -71,6 +71,10 @@ public class CrossoverManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// The selector for choosing parents.
 	private ProgramSelector programSelector;
 
@@ -90,9 +94,11 @@ public class CrossoverManager implements ConfigListener {
 	 */
 	public CrossoverManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -135,7 +141,7 @@ public class CrossoverManager implements ConfigListener {
 		}
 
 		// Inform everyone we're about to start crossover.
-		Life.get().fireCrossoverStartEvent();
+		life.fireCrossoverStartEvent();
 
 		// Record the start time.
 		final long crossoverStartTime = System.nanoTime();
@@ -169,7 +175,7 @@ public class CrossoverManager implements ConfigListener {
 			}
 
 			// Ask life cycle listener to confirm the crossover.
-			children = Life.get().runCrossoverHooks(parents, children);
+			children = life.runCrossoverHooks(parents, children);
 
 			// If reverted then increment reversion counter.
 			if (children == null) {
@@ -179,12 +185,12 @@ public class CrossoverManager implements ConfigListener {
 
 		final long runtime = System.nanoTime() - crossoverStartTime;
 
-		Stats.get().addData(XO_PARENTS, parents);
-		Stats.get().addData(XO_CHILDREN, children);
-		Stats.get().addData(XO_REVERSIONS, reversions);
-		Stats.get().addData(XO_TIME, runtime);
+		stats.addData(XO_PARENTS, parents);
+		stats.addData(XO_CHILDREN, children);
+		stats.addData(XO_REVERSIONS, reversions);
+		stats.addData(XO_TIME, runtime);
 
-		Life.get().fireCrossoverEndEvent();
+		life.fireCrossoverEndEvent();
 
 		assert (children != null);
 
@@ -71,6 +71,10 @@ public class ElitismManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// The number of elites to be used.
 	private int noElites;
 
@@ -83,9 +87,11 @@ public class ElitismManager implements ConfigListener {
 	 */
 	public ElitismManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -131,7 +137,7 @@ public class ElitismManager implements ConfigListener {
 			throw new IllegalStateException("no elites is less than 0");
 		}
 
-		Life.get().fireElitismStartEvent();
+		life.fireElitismStartEvent();
 
 		// Record the start time.
 		final long startTime = System.nanoTime();
@@ -152,13 +158,13 @@ public class ElitismManager implements ConfigListener {
 		final long runtime = System.nanoTime() - startTime;
 
 		// Store the stats from the reproduction.
-		Stats.get().addData(ELITE_PROGRAMS, elites);
-		Stats.get().addData(ELITE_TIME, runtime);
+		stats.addData(ELITE_PROGRAMS, elites);
+		stats.addData(ELITE_TIME, runtime);
 
 		// Allow life cycle listener to confirm or modify.
-		elites = Life.get().runElitismHooks(elites);
+		elites = life.runElitismHooks(elites);
 
-		Life.get().fireElitismEndEvent();
+		life.fireElitismEndEvent();
 
 		return elites;
 	}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import static org.epochx.stats.StatField.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.epochx.life.*;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.stats.Stats;
+
+/**
+ * This component is responsible for evaluating the fitness of every program in
+ * a population as a single stage, once the population has been filled and
+ * before it is handed on to the generation hooks, elitism and selection.
+ * 
+ * <p>
+ * If the model supplies an <code>ExecutorService</code> through its
+ * <code>getEvaluationExecutor()</code> method then the programs are scored
+ * concurrently on that executor, otherwise they are scored one after another
+ * on the calling thread. In both cases the result is identical: each program's
+ * fitness only depends upon the program itself, no random numbers are consumed
+ * by this stage and the population order is left untouched. Programs which
+ * appear in the population more than once (for example as a result of
+ * reproduction) are only submitted for evaluation once.
+ * 
+ * <p>
+ * The stage relies upon each program caching its fitness, so when the model's
+ * <code>cacheFitness()</code> method returns <code>false</code> it is skipped
+ * and programs are scored whenever their fitness is requested instead.
+ * 
+ * <p>
+ * When an executor is in use, the model's <code>getFitness</code> method will
+ * be called from multiple threads at the same time, so it must be thread-safe.
+ * The model's context is bound to the executor's thread for each evaluation,
+ * so <code>Life.get()</code> and <code>Stats.get()</code> return the same
+ * components as they would on the calling thread.
+ * 
+ * @see Model#cacheFitness()
+ * @see Model#getEvaluationExecutor()
+ * @see Model#getFitness(CandidateProgram)
+ */
+public class EvaluationManager implements ConfigListener {
+
+	// The controlling model.
+	private final Model model;
+
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
+	// The executor to evaluate on, or null for sequential evaluation.
+	private ExecutorService executor;
+
+	// Whether programs keep their fitness once it has been calculated.
+	private boolean cacheFitness;
+
+	/**
+	 * Constructs an instance of <code>EvaluationManager</code> which will
+	 * evaluate populations according to the settings of the given model.
+	 * 
+	 * @param model the model which provides the fitness function and the
+	 *        executor to perform the evaluations on.
+	 */
+	public EvaluationManager(final Model model) {
+		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
+
+		// Configure parameters from the model.
+		life.addConfigListener(this, false);
+	}
+
+	/*
+	 * Configure component with parameters from the model.
+	 */
+	@Override
+	public void onConfigure() {
+		executor = model.getEvaluationExecutor();
+		cacheFitness = model.cacheFitness();
+	}
+
+	/**
+	 * Calculates the fitness of each of the programs in the given population,
+	 * so that subsequent calls to <code>getFitness()</code> on those programs
+	 * can be answered from their fitness cache. The time taken is recorded in
+	 * the stats as the <code>GEN_EVAL_TIME</code> field. If fitness caching is
+	 * disabled then nothing is evaluated, since the results would be
+	 * discarded.
+	 * 
+	 * @param pop the population of programs to be evaluated.
+	 */
+	public void evaluate(final List<CandidateProgram> pop) {
+		if (!cacheFitness) {
+			return;
+		}
+
+		final long startTime = System.nanoTime();
+
+		// Each distinct program only needs scoring once.
+		final Set<CandidateProgram> seen = Collections.newSetFromMap(new IdentityHashMap<CandidateProgram, Boolean>());
+		final List<CandidateProgram> programs = new ArrayList<CandidateProgram>(pop.size());
+		for (final CandidateProgram program: pop) {
+			if (seen.add(program)) {
+				programs.add(program);
+			}
+		}
+
+		if (executor == null) {
+			for (final CandidateProgram program: programs) {
+				program.getFitness();
+			}
+		} else {
+			evaluateConcurrently(programs);
+		}
+
+		stats.addData(GEN_EVAL_TIME, (System.nanoTime() - startTime));
+	}
+
+	/*
+	 * Submits each program to the executor and blocks until they have all been
+	 * scored.
+	 */
+	private void evaluateConcurrently(final List<CandidateProgram> programs) {
+		final EvolutionContext context = model.getContext();
+		final List<Future<Double>> results = new ArrayList<Future<Double>>(programs.size());
+		try {
+			for (final CandidateProgram program: programs) {
+				results.add(executor.submit(new Callable<Double>() {
+
+					@Override
+					public Double call() {
+						final EvolutionContext previous = context.bind();
+						try {
+							return program.getFitness();
+						} finally {
+							EvolutionContext.restore(previous);
+						}
+					}
+				}));
+			}
+
+			for (final Future<Double> result: results) {
+				result.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted during fitness evaluation", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("fitness evaluation failed", cause);
+		} finally {
+			// Do not leave work running if we are bailing out early.
+			for (final Future<Double> result: results) {
+				result.cancel(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import org.epochx.life.Life;
+import org.epochx.stats.Stats;
+
+/**
+ * An <code>EvolutionContext</code> owns the life cycle listeners and the
+ * statistics of the models that belong to it. Every model belongs to a
+ * context, which is passed to its managers and operators, so models with
+ * different contexts share no mutable state and may be run at once on
+ * different threads.
+ * 
+ * <p>
+ * Each thread has a current context, which is the shared default context
+ * unless another has been bound to the thread with <code>bind</code>. A model
+ * belongs to the context that is current on the thread that constructs it,
+ * and binds its context to the thread that runs it for the duration of the
+ * run, so that <code>Life.get()</code> and <code>Stats.get()</code> return
+ * the life cycle and stats of the model being run. To construct a model with
+ * a context of its own:
+ * 
+ * <pre>
+ * final EvolutionContext context = new EvolutionContext();
+ * final EvolutionContext previous = context.bind();
+ * try {
+ * 	model = new SomeModel();
+ * 	context.getLife().addGenerationListener(...);
+ * } finally {
+ * 	EvolutionContext.restore(previous);
+ * }
+ * </pre>
+ * 
+ * @see Model#getContext()
+ */
+public class EvolutionContext {
+
+	// The context of threads which have not bound another.
+	private static final EvolutionContext DEFAULT = new EvolutionContext();
+
+	// The contexts bound to threads.
+	private static final ThreadLocal<EvolutionContext> current = new ThreadLocal<EvolutionContext>();
+
+	private final Life life;
+	private final Stats stats;
+
+	/**
+	 * Constructs a new context with its own life cycle and stats.
+	 */
+	public EvolutionContext() {
+		life = new Life();
+		stats = new Stats(this);
+	}
+
+	/**
+	 * Returns the current context of the calling thread.
+	 * 
+	 * @return the context bound to the calling thread, or the default context
+	 *         if none is bound.
+	 */
+	public static EvolutionContext get() {
+		final EvolutionContext context = current.get();
+
+		return (context == null) ? DEFAULT : context;
+	}
+
+	/**
+	 * Makes this the current context of the calling thread, until
+	 * <code>restore</code> is called with the returned value.
+	 * 
+	 * @return the context that was previously bound to the calling thread, or
+	 *         <code>null</code> if none was.
+	 */
+	public EvolutionContext bind() {
+		final EvolutionContext previous = current.get();
+		current.set(this);
+
+		return previous;
+	}
+
+	/**
+	 * Restores the context of the calling thread that was replaced by a call
+	 * to <code>bind</code>.
+	 * 
+	 * @param previous the value returned by <code>bind</code>.
+	 */
+	public static void restore(final EvolutionContext previous) {
+		if (previous == null) {
+			current.remove();
+		} else {
+			current.set(previous);
+		}
+	}
+
+	/**
+	 * Returns the life cycle of this context, with which the listeners and
+	 * hooks of its models are registered.
+	 * 
+	 * @return the life cycle of this context.
+	 */
+	public Life getLife() {
+		return life;
+	}
+
+	/**
+	 * Returns the stats of this context, into which its models record data.
+	 * 
+	 * @return the stats of this context.
+	 */
+	public Stats getStats() {
+		return stats;
+	}
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import java.io.*;
+import java.lang.ref.*;
+import java.util.*;
+
+/**
+ * A <code>FitnessCache</code> remembers the fitness scores of programs by
+ * their source code, so that a program which is identical to one that has
+ * already been evaluated does not need evaluating again, even if it was
+ * created independently. A single cache may be set on a model with
+ * <code>Model.setFitnessCache</code>, where it is shared by every program of
+ * every generation and run of that model.
+ * 
+ * <p>
+ * Programs are identified by a 64-bit hash of their source code rather than by
+ * the source itself, so that the cache is cheap to hold and to persist. The
+ * chance of two different programs colliding in a cache of a million entries is
+ * less than one in ten million. When the cache is full, either the least
+ * recently used or the least frequently used entry is evicted to make room,
+ * according to the <code>Policy</code> it was constructed with. Fitness values
+ * may optionally be held by soft references, so that they are discarded by the
+ * garbage collector rather than causing the heap to be exhausted.
+ * 
+ * <p>
+ * The contents of a cache may be written to a file with <code>save</code> and
+ * read back with <code>load</code>, so that later runs of the same model can
+ * reuse the scores. As with <code>Model.cacheFitness()</code>, a cache should
+ * only be used where a program's fitness depends upon nothing other than its
+ * source code. All methods are thread-safe.
+ * 
+ * @see Model#setFitnessCache(FitnessCache)
+ */
+public class FitnessCache {
+
+	/**
+	 * The strategies available for choosing which entry to evict when the
+	 * cache is full.
+	 */
+	public enum Policy {
+		/**
+		 * Evict the entry that was least recently looked up or stored.
+		 */
+		LRU,
+
+		/**
+		 * Evict the entry that has been looked up the fewest times, with ties
+		 * broken by least recent use.
+		 */
+		LFU
+	}
+
+	// Identifies a file written by save.
+	private static final int FILE_MAGIC = 0x45584643;
+	private static final int FILE_VERSION = 1;
+
+	// The maximum number of entries.
+	private final int capacity;
+
+	private final Policy policy;
+
+	private final boolean softValues;
+
+	// The entries by hash, ordered by access for the LRU policy.
+	private final LinkedHashMap<Long, Entry> entries;
+
+	// The hashes of the entries by number of uses, for the LFU policy.
+	private final Map<Integer, LinkedHashSet<Long>> frequencies;
+	private int minFrequency;
+
+	// Soft references that have been cleared by the garbage collector.
+	private final ReferenceQueue<Double> clearedValues;
+
+	// Cumulative counts.
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructs a <code>FitnessCache</code> which holds up to the given number
+	 * of fitness values, evicting the least recently used when full.
+	 * 
+	 * @param capacity the maximum number of fitness values to hold.
+	 */
+	public FitnessCache(final int capacity) {
+		this(capacity, Policy.LRU, false);
+	}
+
+	/**
+	 * Constructs a <code>FitnessCache</code> which holds up to the given number
+	 * of fitness values.
+	 * 
+	 * @param capacity the maximum number of fitness values to hold.
+	 * @param policy the strategy for choosing which entry to evict when the
+	 *        cache is full.
+	 * @param softValues whether the fitness values should be held by soft
+	 *        references, so that they may be discarded when memory is low.
+	 */
+	public FitnessCache(final int capacity, final Policy policy, final boolean softValues) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be 1 or greater");
+		} else if (policy == null) {
+			throw new IllegalArgumentException("policy must not be null");
+		}
+
+		this.capacity = capacity;
+		this.policy = policy;
+		this.softValues = softValues;
+
+		entries = new LinkedHashMap<Long, Entry>(16, 0.75f, policy == Policy.LRU);
+		frequencies = new HashMap<Integer, LinkedHashSet<Long>>();
+		clearedValues = new ReferenceQueue<Double>();
+	}
+
+	/**
+	 * Returns the fitness value stored for the program with the given source
+	 * code.
+	 * 
+	 * @param source the source code of the program.
+	 * @return the stored fitness value, or <code>null</code> if there is none.
+	 */
+	public synchronized Double get(final String source) {
+		purge();
+
+		final long key = hash(source);
+		final Entry entry = entries.get(key);
+		final Double fitness = (entry == null) ? null : entry.getFitness();
+
+		if (fitness == null) {
+			misses++;
+		} else {
+			hits++;
+			touch(key, entry);
+		}
+
+		return fitness;
+	}
+
+	/**
+	 * Stores the fitness value of the program with the given source code,
+	 * evicting another entry if the cache is full.
+	 * 
+	 * @param source the source code of the program.
+	 * @param fitness the fitness value of the program.
+	 */
+	public synchronized void put(final String source, final double fitness) {
+		purge();
+		store(hash(source), fitness, 1);
+	}
+
+	/**
+	 * Removes all entries from the cache. The hit, miss and eviction counts are
+	 * not reset.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		frequencies.clear();
+		minFrequency = 0;
+
+		// The cleared references no longer refer to any entry.
+		while (clearedValues.poll() != null) {
+			continue;
+		}
+	}
+
+	/**
+	 * Returns the number of entries currently held.
+	 * 
+	 * @return the number of fitness values in the cache.
+	 */
+	public synchronized int size() {
+		purge();
+
+		return entries.size();
+	}
+
+	/**
+	 * Returns the maximum number of entries that may be held.
+	 * 
+	 * @return the capacity of the cache.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the strategy used to choose which entry to evict.
+	 * 
+	 * @return the eviction policy of the cache.
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Returns whether the fitness values are held by soft references.
+	 * 
+	 * @return true if the values may be discarded when memory is low, false
+	 *         otherwise.
+	 */
+	public boolean isSoftValues() {
+		return softValues;
+	}
+
+	/**
+	 * Returns the number of lookups that have found a fitness value since the
+	 * cache was constructed.
+	 * 
+	 * @return the cumulative number of cache hits.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups that have not found a fitness value since
+	 * the cache was constructed.
+	 * 
+	 * @return the cumulative number of cache misses.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of entries that have been removed since the cache was
+	 * constructed, either to make room for others or because their soft
+	 * references were cleared.
+	 * 
+	 * @return the cumulative number of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Writes the entries of this cache to the given file, replacing any
+	 * existing content.
+	 * 
+	 * @param file the file to write to.
+	 * @throws IOException if there was a problem writing the file.
+	 */
+	public void save(final File file) throws IOException {
+		final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			synchronized (this) {
+				purge();
+
+				output.writeInt(FILE_MAGIC);
+				output.writeInt(FILE_VERSION);
+
+				// Write the values that are still held, least recently used first.
+				final List<Map.Entry<Long, Entry>> held = new ArrayList<Map.Entry<Long, Entry>>(entries.size());
+				for (final Map.Entry<Long, Entry> e: entries.entrySet()) {
+					if (e.getValue().getFitness() != null) {
+						held.add(e);
+					}
+				}
+
+				output.writeInt(held.size());
+				for (final Map.Entry<Long, Entry> e: held) {
+					output.writeLong(e.getKey());
+					output.writeDouble(e.getValue().getFitness());
+					output.writeInt(e.getValue().frequency);
+				}
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Reads entries previously written by <code>save</code> into this cache.
+	 * The entries are added to any already held, subject to the capacity of
+	 * this cache.
+	 * 
+	 * @param file the file to read from.
+	 * @throws IOException if there was a problem reading the file or it was
+	 *         not written by a <code>FitnessCache</code>.
+	 */
+	public void load(final File file) throws IOException {
+		final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (input.readInt() != FILE_MAGIC) {
+				throw new IOException("not a fitness cache file: " + file);
+			} else if (input.readInt() != FILE_VERSION) {
+				throw new IOException("unsupported fitness cache version: " + file);
+			}
+
+			final int noEntries = input.readInt();
+			synchronized (this) {
+				purge();
+
+				for (int i = 0; i < noEntries; i++) {
+					final long key = input.readLong();
+					final double fitness = input.readDouble();
+					final int frequency = input.readInt();
+
+					store(key, fitness, Math.max(1, frequency));
+				}
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Returns the 64-bit hash used to identify the program with the given
+	 * source code. This is the FNV-1a hash of the characters of the source,
+	 * with the bits of the result mixed so that they are evenly distributed.
+	 * 
+	 * @param source the source code of a program.
+	 * @return a 64-bit hash of the source code.
+	 */
+	public static long hash(final String source) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < source.length(); i++) {
+			h ^= source.charAt(i);
+			h *= 0x100000001b3L;
+		}
+
+		// Final mixing step of MurmurHash3.
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+
+		return h;
+	}
+
+	/*
+	 * Adds or replaces an entry, evicting another if the cache is over
+	 * capacity.
+	 */
+	private void store(final long key, final double fitness, final int frequency) {
+		final Entry existing = entries.remove(key);
+		if (existing != null) {
+			removeFrequency(key, existing.frequency);
+		}
+
+		final Entry entry = new Entry(key, fitness, frequency);
+		entries.put(key, entry);
+		addFrequency(key, frequency);
+
+		if (frequency < minFrequency || entries.size() == 1) {
+			minFrequency = frequency;
+		}
+
+		while (entries.size() > capacity) {
+			evict();
+		}
+	}
+
+	/*
+	 * Records a use of an entry. The access ordered map records its recency.
+	 */
+	private void touch(final long key, final Entry entry) {
+		if (policy == Policy.LFU) {
+			final int frequency = entry.frequency;
+			if (removeFrequency(key, frequency) && (minFrequency == frequency)) {
+				minFrequency = frequency + 1;
+			}
+
+			entry.frequency = frequency + 1;
+			addFrequency(key, entry.frequency);
+		}
+	}
+
+	/*
+	 * Removes the entry that the policy chooses.
+	 */
+	private void evict() {
+		final long key;
+		if (policy == Policy.LRU) {
+			key = entries.keySet().iterator().next();
+		} else {
+			LinkedHashSet<Long> keys = frequencies.get(minFrequency);
+			if (keys == null) {
+				// Entries removed by the garbage collector can leave this stale.
+				minFrequency = Collections.min(frequencies.keySet());
+				keys = frequencies.get(minFrequency);
+			}
+			key = keys.iterator().next();
+		}
+
+		remove(key);
+	}
+
+	/*
+	 * Removes the entry with the given hash.
+	 */
+	private void remove(final long key) {
+		final Entry entry = entries.remove(key);
+		removeFrequency(key, entry.frequency);
+		evictions++;
+	}
+
+	/*
+	 * Removes any entries whose values have been cleared by the garbage
+	 * collector.
+	 */
+	private void purge() {
+		Reference<? extends Double> ref;
+		while ((ref = clearedValues.poll()) != null) {
+			final long key = ((SoftValue) ref).key;
+			final Entry entry = entries.get(key);
+
+			// The entry may have since been replaced.
+			if ((entry != null) && (entry.value == ref)) {
+				remove(key);
+			}
+		}
+	}
+
+	/*
+	 * Adds the hash to the set of entries with the given number of uses. Only
+	 * the LFU policy needs these sets.
+	 */
+	private void addFrequency(final long key, final int frequency) {
+		if (policy == Policy.LFU) {
+			LinkedHashSet<Long> keys = frequencies.get(frequency);
+			if (keys == null) {
+				keys = new LinkedHashSet<Long>();
+				frequencies.put(frequency, keys);
+			}
+			keys.add(key);
+		}
+	}
+
+	/*
+	 * Removes the hash from the set of entries with the given number of uses,
+	 * returning true if no entries with that number remain.
+	 */
+	private boolean removeFrequency(final long key, final int frequency) {
+		if (policy == Policy.LFU) {
+			final LinkedHashSet<Long> keys = frequencies.get(frequency);
+			keys.remove(key);
+			if (keys.isEmpty()) {
+				frequencies.remove(frequency);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * A fitness value and its number of uses.
+	 */
+	private class Entry {
+
+		// Either a Double or a SoftValue.
+		private final Object value;
+
+		private int frequency;
+
+		private Entry(final long key, final double fitness, final int frequency) {
+			if (softValues) {
+				value = new SoftValue(key, fitness, clearedValues);
+			} else {
+				value = fitness;
+			}
+			this.frequency = frequency;
+		}
+
+		private Double getFitness() {
+			if (value instanceof SoftValue) {
+				return ((SoftValue) value).get();
+			} else {
+				return (Double) value;
+			}
+		}
+	}
+
+	/*
+	 * A soft reference to a fitness value which remembers the hash of its
+	 * entry, so the entry can be removed once the value is cleared.
+	 */
+	private static class SoftValue extends SoftReference<Double> {
+
+		private final long key;
+
+		private SoftValue(final long key, final Double fitness, final ReferenceQueue<Double> queue) {
+			super(fitness, queue);
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A <code>FitnessStore</code> keeps the fitness scores of programs in a file,
+ * so that they survive the end of a run, a restart or a crash. It is intended
+ * for problems where evaluating a program is expensive, so that repeated
+ * experiments never score the same program on the same data twice. A store
+ * may be set on a model with <code>Model.setFitnessStore</code>.
+ * 
+ * <p>
+ * Each score is identified by the 64-bit hash of the program's source code
+ * used by <code>FitnessCache</code>, together with a hash of an identifier for
+ * the dataset that the program was scored against, so one file may hold the
+ * scores for several datasets. The file is only ever appended to, with each
+ * score written as a fixed size record that carries its own checksum. Records
+ * are read in chunks of a bounded size, whatever the size of the file, and
+ * reading continues with the next valid record after any bytes which are not
+ * one, so a corrupt record costs
+ * only its own score. An incomplete record left at the end by a crash is
+ * discarded when the file is opened or appended to. Later records for the
+ * same program and dataset replace earlier ones, and <code>compact</code>
+ * rewrites the file with only the latest records.
+ * 
+ * <p>
+ * Appends are made under an exclusive lock on the file, so several processes
+ * may share one store, and each reads the records added by the others when it
+ * fails to find a score. Compaction replaces the file, so should only be
+ * performed when no other process has it open. Within a process, there should
+ * be only one store for each file, which may be used from any number of
+ * threads.
+ * 
+ * @see Model#setFitnessStore(FitnessStore)
+ * @see FitnessCache#hash(String)
+ */
+public class FitnessStore {
+
+	// Identifies a file written by a store.
+	private static final int FILE_MAGIC = 0x45584653;
+	private static final int FILE_VERSION = 1;
+
+	// The sizes of the file header and of each record.
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_SIZE = 32;
+
+	// The number of bytes read from the file at a time.
+	private static final int CHUNK_SIZE = RECORD_SIZE << 15;
+
+	private final File file;
+
+	private final long datasetHash;
+
+	// Whether each append is forced to the storage device.
+	private final boolean sync;
+
+	private RandomAccessFile raf;
+	private FileChannel channel;
+
+	// The scores of the records for this store's dataset.
+	private final Map<Long, Double> index;
+
+	// The offset of the first byte that has not been read into the index.
+	private long scanned;
+
+	/**
+	 * Constructs a <code>FitnessStore</code> for scores against the given
+	 * dataset, opening or creating the given file. Every score is forced to
+	 * the storage device as it is added.
+	 * 
+	 * @param file the file that the scores are stored in.
+	 * @param datasetId an identifier for the data that the programs are
+	 *        scored against.
+	 * @throws IOException if there was a problem reading the file or it is
+	 *         not a fitness store.
+	 */
+	public FitnessStore(final File file, final String datasetId) throws IOException {
+		this(file, datasetId, true);
+	}
+
+	/**
+	 * Constructs a <code>FitnessStore</code> for scores against the given
+	 * dataset, opening or creating the given file.
+	 * 
+	 * @param file the file that the scores are stored in.
+	 * @param datasetId an identifier for the data that the programs are
+	 *        scored against.
+	 * @param sync whether each score should be forced to the storage device
+	 *        as it is added. If not, scores added shortly before a system
+	 *        failure may be lost, but not those of earlier programs.
+	 * @throws IOException if there was a problem reading the file or it is
+	 *         not a fitness store.
+	 */
+	public FitnessStore(final File file, final String datasetId, final boolean sync) throws IOException {
+		if (datasetId == null) {
+			throw new IllegalArgumentException("datasetId must not be null");
+		}
+
+		this.file = file;
+		this.sync = sync;
+
+		datasetHash = FitnessCache.hash(datasetId);
+		index = new ConcurrentHashMap<Long, Double>();
+
+		open();
+	}
+
+	/**
+	 * Returns the stored fitness value of the program with the given source
+	 * code, reading any records that have been appended by other processes
+	 * if it is not yet known.
+	 * 
+	 * @param source the source code of the program.
+	 * @return the stored fitness value, or <code>null</code> if there is none.
+	 * @throws IllegalStateException if the file could not be read.
+	 */
+	public Double get(final String source) {
+		final long key = FitnessCache.hash(source);
+
+		Double fitness = index.get(key);
+		if (fitness == null) {
+			synchronized (this) {
+				try {
+					if (channel.size() > scanned) {
+						scan(channel.size());
+					}
+				} catch (final IOException e) {
+					throw new IllegalStateException("could not read fitness store " + file, e);
+				}
+			}
+			fitness = index.get(key);
+		}
+
+		return fitness;
+	}
+
+	/**
+	 * Appends the fitness value of the program with the given source code to
+	 * the file.
+	 * 
+	 * @param source the source code of the program.
+	 * @param fitness the fitness value of the program.
+	 * @throws IllegalStateException if the file could not be written.
+	 */
+	public synchronized void put(final String source, final double fitness) {
+		final long key = FitnessCache.hash(source);
+
+		final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		writeRecord(record, key, datasetHash, fitness);
+		record.flip();
+
+		try {
+			final FileLock lock = channel.lock();
+			try {
+				// Pick up what others have appended, so we do not overwrite it.
+				scan(channel.size());
+
+				// Discard a record left incomplete by a process which failed,
+				// rather than appending after it.
+				if (channel.size() > scanned) {
+					channel.truncate(scanned);
+				}
+
+				long position = scanned;
+				while (record.hasRemaining()) {
+					position += channel.write(record, position);
+				}
+				if (sync) {
+					channel.force(false);
+				}
+				scanned = position;
+			} finally {
+				lock.release();
+			}
+		} catch (final IOException e) {
+			throw new IllegalStateException("could not write fitness store " + file, e);
+		}
+
+		index.put(key, fitness);
+	}
+
+	/**
+	 * Returns the number of scores known for this store's dataset.
+	 * 
+	 * @return the number of programs with a stored fitness value.
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * Rewrites the file so that it holds only the latest record for each
+	 * program and dataset. The new file is written alongside the old one and
+	 * then moved over it, so the store is intact if the process fails part
+	 * way through.
+	 * 
+	 * @throws IOException if there was a problem rewriting the file.
+	 */
+	public synchronized void compact() throws IOException {
+		final FileLock lock = channel.lock();
+		final Map<List<Long>, Double> latest;
+		try {
+			scan(channel.size());
+			latest = readAll();
+		} finally {
+			lock.release();
+		}
+
+		final File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".compact");
+		final FileChannel out = new RandomAccessFile(temp, "rw").getChannel();
+		try {
+			out.truncate(0);
+
+			final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (latest.size() * RECORD_SIZE));
+			buffer.putInt(FILE_MAGIC);
+			buffer.putInt(FILE_VERSION);
+			for (final Map.Entry<List<Long>, Double> e: latest.entrySet()) {
+				writeRecord(buffer, e.getKey().get(0), e.getKey().get(1), e.getValue());
+			}
+			buffer.flip();
+
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+			out.force(true);
+		} finally {
+			out.close();
+		}
+
+		close();
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		open();
+	}
+
+	/**
+	 * Closes the file. The store must not be used afterwards.
+	 * 
+	 * @throws IOException if there was a problem closing the file.
+	 */
+	public synchronized void close() throws IOException {
+		raf.close();
+	}
+
+	/*
+	 * Opens the file, creating it if necessary, and reads its records.
+	 */
+	private void open() throws IOException {
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		index.clear();
+
+		final FileLock lock = channel.lock();
+		try {
+			if (channel.size() < HEADER_SIZE) {
+				// New, or the header was never completely written.
+				final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(FILE_MAGIC);
+				header.putInt(FILE_VERSION);
+				header.flip();
+
+				channel.truncate(0);
+				while (header.hasRemaining()) {
+					channel.write(header, header.position());
+				}
+				channel.force(true);
+			} else {
+				final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				while (header.hasRemaining()) {
+					channel.read(header, header.position());
+				}
+				header.flip();
+
+				if (header.getInt() != FILE_MAGIC) {
+					raf.close();
+					throw new IOException("not a fitness store: " + file);
+				} else if (header.getInt() != FILE_VERSION) {
+					raf.close();
+					throw new IOException("unsupported fitness store version: " + file);
+				}
+			}
+
+			scanned = HEADER_SIZE;
+			scan(channel.size());
+
+			// Discard a record that was being written when a process failed.
+			if (channel.size() > scanned) {
+				channel.truncate(scanned);
+				channel.force(true);
+			}
+		} finally {
+			lock.release();
+		}
+	}
+
+	/*
+	 * Reads the records between the end of those already read and the given
+	 * offset into the index. Anything after the last valid record is left
+	 * unread, since it may be a record that is still being written.
+	 */
+	private void scan(final long end) throws IOException {
+		scanned = readRecords(scanned, end, null);
+	}
+
+	/*
+	 * Reads the latest valid record for each program and dataset in the file,
+	 * keyed by the program hash and the dataset hash.
+	 */
+	private Map<List<Long>, Double> readAll() throws IOException {
+		final Map<List<Long>, Double> latest = new LinkedHashMap<List<Long>, Double>();
+		readRecords(HEADER_SIZE, scanned, latest);
+
+		return latest;
+	}
+
+	/*
+	 * Reads the valid records between the given offsets into the given map
+	 * or, if it is null, into the index. Where the bytes at an offset are not
+	 * a valid record, the search for the next one continues from the
+	 * following byte. Returns the offset after the last valid record, or the
+	 * start offset if there were none.
+	 */
+	private long readRecords(final long start, final long end, final Map<List<Long>, Double> latest)
+			throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		buffer.limit(0);
+
+		// The file offset of the start of the buffer.
+		long offset = start;
+
+		long next = start;
+		while (true) {
+			if (buffer.remaining() < RECORD_SIZE) {
+				// Keep the unread bytes, and read the next chunk after them.
+				offset += buffer.position();
+				buffer.compact();
+				if (!fill(buffer, offset, end)) {
+					break;
+				}
+			}
+
+			final int position = buffer.position();
+			final long key = buffer.getLong(position);
+			final long dataset = buffer.getLong(position + 8);
+			final long bits = buffer.getLong(position + 16);
+			final long checksum = buffer.getLong(position + 24);
+
+			if (checksum != checksum(key, dataset, bits)) {
+				buffer.position(position + 1);
+				continue;
+			}
+
+			if (latest != null) {
+				latest.put(Arrays.asList(key, dataset), Double.longBitsToDouble(bits));
+			} else if (dataset == datasetHash) {
+				index.put(key, Double.longBitsToDouble(bits));
+			}
+			buffer.position(position + RECORD_SIZE);
+			next = offset + buffer.position();
+		}
+
+		return next;
+	}
+
+	/*
+	 * Reads from the file into the compacted buffer, whose start is at the
+	 * given offset, up to the end offset, and flips it for reading. Returns
+	 * false if there is not then a whole record to read.
+	 */
+	private boolean fill(final ByteBuffer buffer, final long offset, final long end) throws IOException {
+		final long available = end - (offset + buffer.position());
+		if (available < buffer.remaining()) {
+			buffer.limit(buffer.position() + (int) Math.max(0, available));
+		}
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				break;
+			}
+		}
+		buffer.flip();
+
+		return buffer.remaining() >= RECORD_SIZE;
+	}
+
+	/*
+	 * Puts a record into the buffer.
+	 */
+	private static void writeRecord(final ByteBuffer buffer, final long key, final long dataset, final double fitness) {
+		final long bits = Double.doubleToRawLongBits(fitness);
+
+		buffer.putLong(key);
+		buffer.putLong(dataset);
+		buffer.putLong(bits);
+		buffer.putLong(checksum(key, dataset, bits));
+	}
+
+	/*
+	 * Calculates the checksum of the fields of a record.
+	 */
+	private static long checksum(final long key, final long dataset, final long bits) {
+		long h = FILE_MAGIC;
+		h = mix(h ^ key);
+		h = mix(h ^ dataset);
+		h = mix(h ^ bits);
+
+		return h;
+	}
+
+	/*
+	 * The final mixing step of MurmurHash3.
+	 */
+	private static long mix(final long value) {
+		long h = value;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+
+		return h;
+	}
+}
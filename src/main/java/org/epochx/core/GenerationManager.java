@@ -80,12 +80,17 @@ public class GenerationManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// Components.
 	private final ElitismManager elitism;
 	private final PoolSelectionManager poolSelection;
 	private final CrossoverManager crossover;
 	private final MutationManager mutation;
 	private final ReproductionManager reproduction;
+	private final EvaluationManager evaluation;
 
 	// Operators.
 	private ProgramSelector programSelector;
@@ -98,6 +103,8 @@ public class GenerationManager implements ConfigListener {
 	private double mutationProbability;
 	private double crossoverProbability;
 
+	private FitnessCache fitnessCache;
+
 	// Count of generation reversions.
 	private int reversions;
 
@@ -111,6 +118,8 @@ public class GenerationManager implements ConfigListener {
 	 */
 	public GenerationManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
 
 		// Components.
 		elitism = new ElitismManager(model);
@@ -118,11 +127,12 @@ public class GenerationManager implements ConfigListener {
 		crossover = new CrossoverManager(model);
 		mutation = new MutationManager(model);
 		reproduction = new ReproductionManager(model);
+		evaluation = new EvaluationManager(model);
 
 		reversions = 0;
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -135,6 +145,7 @@ public class GenerationManager implements ConfigListener {
 		popSize = model.getPopulationSize();
 		mutationProbability = model.getMutationProbability();
 		crossoverProbability = model.getCrossoverProbability();
+		fitnessCache = model.getFitnessCache();
 	}
 
 	/**
@@ -157,6 +168,7 @@ public class GenerationManager implements ConfigListener {
 	 * </li>
 	 * <li>Insert the result of the operator into the next population.</li>
 	 * <li>Start back at 3. until the next population is full.</li>
+	 * <li>Evaluate the fitness of the new population.</li>
 	 * <li>Return the new population.</li>
 	 * </ol>
 	 * 
@@ -190,14 +202,24 @@ public class GenerationManager implements ConfigListener {
 		}
 
 		// Inform all listeners that a generation is starting.
-		Life.get().fireGenerationStartEvent();
+		life.fireGenerationStartEvent();
 
 		// Setup the generation manager for a new generation.
 		reversions = 0;
 		final long startTime = System.nanoTime();
 
 		// Record the generation number in the stats data.
-		Stats.get().addData(GEN_NUMBER, generationNo);
+		stats.addData(GEN_NUMBER, generationNo);
+
+		// Note the fitness cache counts, to report this generation's share.
+		long hits = 0;
+		long misses = 0;
+		long evictions = 0;
+		if (fitnessCache != null) {
+			hits = fitnessCache.getHits();
+			misses = fitnessCache.getMisses();
+			evictions = fitnessCache.getEvictions();
+		}
 
 		List<CandidateProgram> pop;
 
@@ -236,8 +258,11 @@ public class GenerationManager implements ConfigListener {
 				}
 			}
 
+			// Score the new population ready for the hooks and selection.
+			evaluation.evaluate(pop);
+
 			// Request confirmation of generation.
-			pop = Life.get().runGenerationHooks(pop);
+			pop = life.runGenerationHooks(pop);
 
 			// If reverted, increment reversions count.
 			if (pop == null) {
@@ -246,12 +271,17 @@ public class GenerationManager implements ConfigListener {
 		} while (pop == null);
 
 		// Store the stats data from the generation.
-		Stats.get().addData(GEN_REVERSIONS, reversions);
-		Stats.get().addData(GEN_POP, pop);
-		Stats.get().addData(GEN_TIME, (System.nanoTime() - startTime));
+		stats.addData(GEN_REVERSIONS, reversions);
+		stats.addData(GEN_POP, pop);
+		stats.addData(GEN_TIME, (System.nanoTime() - startTime));
+		if (fitnessCache != null) {
+			stats.addData(GEN_FITNESS_CACHE_HITS, fitnessCache.getHits() - hits);
+			stats.addData(GEN_FITNESS_CACHE_MISSES, fitnessCache.getMisses() - misses);
+			stats.addData(GEN_FITNESS_CACHE_EVICTIONS, fitnessCache.getEvictions() - evictions);
+		}
 
 		// Tell everyone the generation has ended.
-		Life.get().fireGenerationEndEvent();
+		life.fireGenerationEndEvent();
 
 		assert (pop != null);
 
@@ -312,4 +342,15 @@ public class GenerationManager implements ConfigListener {
 	public ReproductionManager getReproductionManager() {
 		return reproduction;
 	}
+
+	/**
+	 * Retrieves this generation manager's evaluation manager that will
+	 * evaluate the fitness of each new population.
+	 * 
+	 * @return the evaluation manager that is responsible for the task of
+	 *         evaluating the population of each generation.
+	 */
+	public EvaluationManager getEvaluationManager() {
+		return evaluation;
+	}
 }
@@ -119,9 +119,18 @@ public class InitialisationManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// The initialisation operator.
 	private Initialiser initialiser;
 
+	// The component that scores the initial population.
+	private final EvaluationManager evaluation;
+
+	private FitnessCache fitnessCache;
+
 	// The number of times the initialisation was rejected.
 	private int reversions;
 
@@ -135,9 +144,13 @@ public class InitialisationManager implements ConfigListener {
 	 */
 	public InitialisationManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
+
+		evaluation = new EvaluationManager(model);
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -146,6 +159,7 @@ public class InitialisationManager implements ConfigListener {
 	@Override
 	public void onConfigure() {
 		initialiser = model.getInitialiser();
+		fitnessCache = model.getFitnessCache();
 	}
 
 	/**
@@ -162,33 +176,46 @@ public class InitialisationManager implements ConfigListener {
 	 */
 	public List<CandidateProgram> initialise() {
 		// Trigger life cycle events for both generation and initialisation.
-		Life.get().fireConfigureEvent();
+		life.fireConfigureEvent();
 
 		if (initialiser == null) {
 			throw new IllegalStateException("no initialiser set");
 		}
 
-		Life.get().fireGenerationStartEvent();
-		Life.get().fireInitialisationStartEvent();
+		life.fireGenerationStartEvent();
+		life.fireInitialisationStartEvent();
 
 		// Record the start time.
 		final long startTime = System.nanoTime();
 
 		// Record the generation number as zero in the stats data.
-		Stats.get().addData(GEN_NUMBER, 0);
+		stats.addData(GEN_NUMBER, 0);
 
 		// Reset the number of reversions.
 		reversions = 0;
 
+		// Note the fitness cache counts, to report the initialisation's share.
+		long hits = 0;
+		long misses = 0;
+		long evictions = 0;
+		if (fitnessCache != null) {
+			hits = fitnessCache.getHits();
+			misses = fitnessCache.getMisses();
+			evictions = fitnessCache.getEvictions();
+		}
+
 		List<CandidateProgram> pop = null;
 		do {
 			// Perform initialisation.
 			pop = initialiser.getInitialPopulation();
 
+			// Score the population ready for the hooks and selection.
+			evaluation.evaluate(pop);
+
 			// Allow life cycle manager to confirm or modify. (init has final
 			// say).
-			pop = Life.get().runGenerationHooks(pop);
-			pop = Life.get().runInitialisationHooks(pop);
+			pop = life.runGenerationHooks(pop);
+			pop = life.runInitialisationHooks(pop);
 
 			// If reverted then increment reversion count.
 			if (pop == null) {
@@ -197,13 +224,18 @@ public class InitialisationManager implements ConfigListener {
 		} while (pop == null);
 
 		// Store the stats data from the initialisation.
-		Stats.get().addData(INIT_REVERSIONS, reversions);
-		Stats.get().addData(GEN_POP, pop);
-		Stats.get().addData(GEN_TIME, (System.nanoTime() - startTime));
+		stats.addData(INIT_REVERSIONS, reversions);
+		stats.addData(GEN_POP, pop);
+		stats.addData(GEN_TIME, (System.nanoTime() - startTime));
+		if (fitnessCache != null) {
+			stats.addData(GEN_FITNESS_CACHE_HITS, fitnessCache.getHits() - hits);
+			stats.addData(GEN_FITNESS_CACHE_MISSES, fitnessCache.getMisses() - misses);
+			stats.addData(GEN_FITNESS_CACHE_EVICTIONS, fitnessCache.getEvictions() - evictions);
+		}
 
 		// Trigger life cycle events for end of initialisation and generation 0.
-		Life.get().fireInitialisationEndEvent();
-		Life.get().fireGenerationEndEvent();
+		life.fireInitialisationEndEvent();
+		life.fireGenerationEndEvent();
 
 		return pop;
 	}
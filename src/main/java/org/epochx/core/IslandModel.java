@@ -0,0 +1,425 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import static org.epochx.stats.StatField.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.epochx.life.*;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.stats.*;
+import org.epochx.stats.Stats.ExpiryEvent;
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * An <code>IslandModel</code> evolves several sub-populations, or islands, at
+ * once, each on its own thread, and periodically migrates copies of the best
+ * programs of each island to another. Each island is a complete
+ * <code>Model</code>, constructed by a factory on the island's own thread.
+ * 
+ * <p>
+ * Every island is constructed in a new {@link EvolutionContext}, so that the
+ * islands share no listeners or statistics, and any listeners that should
+ * report on an island must be added by the factory, through
+ * <code>Life.get()</code> or the model's context. The fitness function of an
+ * island is only called from that island's thread, unless the island has its
+ * own evaluation executor. Islands should not share a random number
+ * generator, and are normally configured for a single run.
+ * 
+ * <p>
+ * Every <code>migrationInterval</code> generations, the end of an island's
+ * generation copies its <code>noMigrants</code> best programs to the next
+ * island in the ring, or to a randomly chosen island, and replaces its worst
+ * programs with any migrants that have arrived from other islands. The
+ * migrants are passed through lock-free queues, so islands never wait for
+ * each other, and which migrants an island receives depends on how far the
+ * other islands have progressed.
+ * 
+ * @see CandidateProgram#copyTo(Model)
+ */
+public class IslandModel {
+
+	/**
+	 * Requests an <code>Integer</code> which is the number of programs that
+	 * migrated into an island's population at the end of the generation.
+	 */
+	public static final Stat GEN_IMMIGRANTS = new AbstractStat(ExpiryEvent.GENERATION) {};
+
+	/**
+	 * Constructs the model for each island.
+	 */
+	public interface Factory {
+
+		/**
+		 * Constructs the model for the island with the given number. This is
+		 * called on the thread that will run the island.
+		 * 
+		 * @param islandNo the index of the island, from 0.
+		 * @return a new model, which is not shared with any other island.
+		 */
+		public Model newIsland(int islandNo);
+	}
+
+	/**
+	 * The possible choices of the island that migrants are sent to.
+	 */
+	public enum Topology {
+
+		/**
+		 * Each island sends its migrants to the island with the next number,
+		 * and the last island to the first.
+		 */
+		RING,
+
+		/**
+		 * Each island sends its migrants to another island chosen at random on
+		 * each migration.
+		 */
+		RANDOM
+	}
+
+	private final Factory factory;
+
+	// Control parameters.
+	private int noIslands;
+	private Topology topology;
+	private int migrationInterval;
+	private int noMigrants;
+
+	// The models and the fittest program of each island in the last run.
+	private Model[] islands;
+	private CandidateProgram[] fittestPrograms;
+
+	/**
+	 * Constructs an <code>IslandModel</code> with a set of sensible defaults.
+	 * See the appropriate accessor method for information of each default
+	 * value.
+	 * 
+	 * @param noIslands the number of islands.
+	 * @param factory the factory that constructs the model of each island.
+	 */
+	public IslandModel(final int noIslands, final Factory factory) {
+		if (factory == null) {
+			throw new IllegalArgumentException("factory must not be null");
+		}
+
+		this.factory = factory;
+
+		setNoIslands(noIslands);
+		topology = Topology.RING;
+		migrationInterval = 5;
+		noMigrants = 1;
+	}
+
+	/**
+	 * Constructs and runs every island, each on its own thread, and returns
+	 * when all of them have finished.
+	 * 
+	 * @throws IllegalStateException if the thread is interrupted while
+	 *         waiting for the islands.
+	 */
+	public void run() {
+		final int n = noIslands;
+
+		final List<Queue<CandidateProgram>> inboxes = new ArrayList<Queue<CandidateProgram>>(n);
+		for (int i = 0; i < n; i++) {
+			inboxes.add(new ConcurrentLinkedQueue<CandidateProgram>());
+		}
+
+		islands = new Model[n];
+		fittestPrograms = new CandidateProgram[n];
+
+		final ExecutorService executor = Executors.newFixedThreadPool(n);
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>(n);
+			for (int i = 0; i < n; i++) {
+				futures.add(executor.submit(new Island(i, inboxes)));
+			}
+
+			for (final Future<?> future: futures) {
+				future.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the islands", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("an island failed", cause);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the model of each island in the last call to <code>run</code>.
+	 * 
+	 * @return the island models, indexed by island number, or
+	 *         <code>null</code> if the islands have not been run.
+	 */
+	public List<Model> getIslands() {
+		return (islands == null) ? null : Collections.unmodifiableList(Arrays.asList(islands));
+	}
+
+	/**
+	 * Returns the fittest program found by each island in its last run.
+	 * 
+	 * @return the fittest programs, indexed by island number, or
+	 *         <code>null</code> if the islands have not been run.
+	 */
+	public List<CandidateProgram> getFittestPrograms() {
+		return (fittestPrograms == null) ? null : Collections.unmodifiableList(Arrays.asList(fittestPrograms));
+	}
+
+	/**
+	 * Returns the fittest program found by any island in its last run.
+	 * 
+	 * @return the fittest program, or <code>null</code> if the islands have
+	 *         not been run.
+	 */
+	public CandidateProgram getFittestProgram() {
+		CandidateProgram fittest = null;
+		if (fittestPrograms != null) {
+			for (final CandidateProgram program: fittestPrograms) {
+				if ((fittest == null) || ((program != null) && (program.getFitness() < fittest.getFitness()))) {
+					fittest = program;
+				}
+			}
+		}
+
+		return fittest;
+	}
+
+	/**
+	 * Returns the number of islands.
+	 * 
+	 * @return the number of sub-populations evolved at once.
+	 */
+	public int getNoIslands() {
+		return noIslands;
+	}
+
+	/**
+	 * Sets the number of islands.
+	 * 
+	 * @param noIslands the number of sub-populations to evolve at once.
+	 */
+	public void setNoIslands(final int noIslands) {
+		if (noIslands >= 1) {
+			this.noIslands = noIslands;
+		} else {
+			throw new IllegalArgumentException("noIslands must be greater than 0");
+		}
+
+		assert (this.noIslands >= 1);
+	}
+
+	/**
+	 * Returns the choice of island that migrants are sent to.
+	 * 
+	 * <p>
+	 * Defaults to <code>Topology.RING</code>.
+	 * 
+	 * @return the migration topology.
+	 */
+	public Topology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * Sets the choice of island that migrants are sent to.
+	 * 
+	 * @param topology the migration topology.
+	 */
+	public void setTopology(final Topology topology) {
+		if (topology != null) {
+			this.topology = topology;
+		} else {
+			throw new IllegalArgumentException("topology must not be null");
+		}
+	}
+
+	/**
+	 * Returns the number of generations between migrations.
+	 * 
+	 * <p>
+	 * Defaults to 5.
+	 * 
+	 * @return the migration interval.
+	 */
+	public int getMigrationInterval() {
+		return migrationInterval;
+	}
+
+	/**
+	 * Sets the number of generations between migrations.
+	 * 
+	 * @param migrationInterval the migration interval.
+	 */
+	public void setMigrationInterval(final int migrationInterval) {
+		if (migrationInterval >= 1) {
+			this.migrationInterval = migrationInterval;
+		} else {
+			throw new IllegalArgumentException("migrationInterval must be greater than 0");
+		}
+
+		assert (this.migrationInterval >= 1);
+	}
+
+	/**
+	 * Returns the number of the best programs that each island sends on each
+	 * migration.
+	 * 
+	 * <p>
+	 * Defaults to 1.
+	 * 
+	 * @return the number of migrants.
+	 */
+	public int getNoMigrants() {
+		return noMigrants;
+	}
+
+	/**
+	 * Sets the number of the best programs that each island sends on each
+	 * migration.
+	 * 
+	 * @param noMigrants the number of migrants, or 0 for no migration.
+	 */
+	public void setNoMigrants(final int noMigrants) {
+		if (noMigrants >= 0) {
+			this.noMigrants = noMigrants;
+		} else {
+			throw new IllegalArgumentException("noMigrants must not be negative");
+		}
+
+		assert (this.noMigrants >= 0);
+	}
+
+	/*
+	 * Constructs and runs one island in its own context.
+	 */
+	private class Island extends AbstractHook implements Runnable {
+
+		private final int islandNo;
+		private final List<Queue<CandidateProgram>> inboxes;
+
+		// Control parameters, fixed for the run.
+		private final Topology topology;
+		private final int migrationInterval;
+		private final int noMigrants;
+
+		private Model model;
+
+		public Island(final int islandNo, final List<Queue<CandidateProgram>> inboxes) {
+			this.islandNo = islandNo;
+			this.inboxes = inboxes;
+
+			topology = IslandModel.this.topology;
+			migrationInterval = IslandModel.this.migrationInterval;
+			noMigrants = IslandModel.this.noMigrants;
+		}
+
+		@Override
+		public void run() {
+			// The island is constructed in the context it belongs to.
+			final EvolutionContext previous = new EvolutionContext().bind();
+			try {
+				model = factory.newIsland(islandNo);
+				islands[islandNo] = model;
+
+				model.getContext().getLife().addHook(this);
+
+				model.run();
+
+				fittestPrograms[islandNo] = (CandidateProgram) model.getContext().getStats().getStat(
+						RUN_FITTEST_PROGRAM);
+			} finally {
+				EvolutionContext.restore(previous);
+			}
+		}
+
+		/*
+		 * Sends this island's best programs and takes in those that have
+		 * arrived.
+		 */
+		@Override
+		public List<CandidateProgram> generationHook(final List<CandidateProgram> pop) {
+			final int generation = (Integer) model.getContext().getStats().getStat(GEN_NUMBER);
+			if ((generation % migrationInterval != 0) || (inboxes.size() == 1)) {
+				return pop;
+			}
+
+			// Sort best first.
+			final List<CandidateProgram> sorted = new ArrayList<CandidateProgram>(pop);
+			Collections.sort(sorted, new Comparator<CandidateProgram>() {
+
+				@Override
+				public int compare(final CandidateProgram p1, final CandidateProgram p2) {
+					return Double.compare(p1.getFitness(), p2.getFitness());
+				}
+			});
+
+			// Emigrants are copied here, as this island may modify its own.
+			final Queue<CandidateProgram> outbox = inboxes.get(getDestination());
+			for (int i = 0; i < Math.min(noMigrants, sorted.size()); i++) {
+				outbox.offer(sorted.get(i).copyTo(model));
+			}
+
+			// Immigrants are copied again to belong to this island's model.
+			final Queue<CandidateProgram> inbox = inboxes.get(islandNo);
+			int noImmigrants = 0;
+			CandidateProgram immigrant;
+			while ((immigrant = inbox.poll()) != null) {
+				if (noImmigrants < sorted.size()) {
+					sorted.set(sorted.size() - 1 - noImmigrants, immigrant.copyTo(model));
+					noImmigrants++;
+				}
+			}
+
+			model.getContext().getStats().addData(GEN_IMMIGRANTS, noImmigrants);
+
+			return (noImmigrants == 0) ? pop : sorted;
+		}
+
+		/*
+		 * Chooses the island to send migrants to.
+		 */
+		private int getDestination() {
+			final int n = inboxes.size();
+
+			if (topology == Topology.RING) {
+				return (islandNo + 1) % n;
+			} else {
+				final RandomNumberGenerator rng = model.getRNG();
+				final int destination = rng.nextInt(n - 1);
+
+				return (destination >= islandNo) ? destination + 1 : destination;
+			}
+		}
+	}
+}
@@ -21,8 +21,12 @@
  */
 package org.epochx.core;
 
+import java.io.*;
+import java.util.concurrent.ExecutorService;
+
 import org.epochx.life.Life;
 import org.epochx.op.*;
+import org.epochx.op.replacement.WorstReplacementSelector;
 import org.epochx.op.selection.TournamentSelector;
 import org.epochx.representation.CandidateProgram;
 import org.epochx.stats.Stats;
@@ -43,7 +47,7 @@ import org.epochx.tools.random.*;
  * events such as a generation starting, or crossover being carried out, to be
  * handled and responded to. This is commonly combined with the
  * <code>Stats</code> to output statistics each generation or run. Instances of
- * both these class are obtainable from a model.
+ * both these class are obtainable from a model's {@link EvolutionContext}.
  * 
  * <p>
  * The Model class implements <code>Runnable</code>. Because of this, it is
@@ -55,13 +59,18 @@ import org.epochx.tools.random.*;
  * <p>
  * Despite this, the current version of the <code>Model</code> class is not
  * threadsafe, so it is not advisable to start the same model multiple times
- * concurrently.
+ * concurrently. Different models may be run concurrently if they belong to
+ * different contexts.
  * 
  * @see Stats
  * @see Life
+ * @see EvolutionContext
  */
 public abstract class Model {
 
+	// The life cycle and stats of this model.
+	private final EvolutionContext context;
+
 	// Components.
 	private RunManager run;
 
@@ -75,6 +84,7 @@ public abstract class Model {
 
 	// Control parameters.
 	private RandomNumberGenerator randomNumberGenerator;
+	private Long seed;
 
 	private int noRuns;
 	private int noGenerations;
@@ -89,11 +99,28 @@ public abstract class Model {
 
 	// Caching.
 	private boolean cacheFitness;
+	private FitnessCache fitnessCache;
+	private FitnessStore fitnessStore;
+
+	// Evaluation.
+	private ExecutorService evaluationExecutor;
+
+	// Steady-state evolution.
+	private boolean steadyState;
+	private int noEvaluationsInFlight;
+	private ReplacementSelector replacementSelector;
+
+	// Checkpointing.
+	private File checkpointFile;
+	private int checkpointInterval;
 
 	/**
 	 * Construct the model with defaults.
 	 */
 	public Model() {
+		// Belong to the context of the constructing thread.
+		context = EvolutionContext.get();
+
 		// Control parameters.
 		noRuns = 1;
 		noGenerations = 50;
@@ -112,6 +139,15 @@ public abstract class Model {
 
 		// Caching.
 		cacheFitness = true;
+
+		// Steady-state evolution.
+		steadyState = false;
+		noEvaluationsInFlight = 1;
+		replacementSelector = new WorstReplacementSelector();
+
+		// Checkpointing.
+		checkpointFile = null;
+		checkpointInterval = 1;
 	}
 
 	/**
@@ -128,10 +164,85 @@ public abstract class Model {
 	 * runnable state then an <code>IllegalStateException</code> is thrown.
 	 */
 	public void run() {
+		// Listeners and stats requested during the run are this model's.
+		final EvolutionContext previous = context.bind();
+		try {
+			prepare();
+
+			// Execute all the runs.
+			for (int i = 0; i < getNoRuns(); i++) {
+				run.run(i);
+			}
+		} finally {
+			EvolutionContext.restore(previous);
+		}
+	}
+
+	/**
+	 * Executes only the run with the given number out of the series of runs
+	 * that would be performed by <code>run()</code>. If a seed is set, the run
+	 * is identical to the run of that number performed by <code>run()</code>,
+	 * so the runs of a series may be divided between several models, as by
+	 * <code>ParallelRuns</code>.
+	 * 
+	 * @param runNo the number of the run to perform, from 0.
+	 * @see #setSeed(Long)
+	 * @see ParallelRuns
+	 */
+	public void run(final int runNo) {
+		if (runNo < 0) {
+			throw new IllegalArgumentException("runNo must be zero or more");
+		}
+
+		final EvolutionContext previous = context.bind();
+		try {
+			prepare();
+
+			run.run(runNo);
+		} finally {
+			EvolutionContext.restore(previous);
+		}
+	}
+
+	/**
+	 * Continues a series of runs from a checkpoint written by an earlier
+	 * execution of this model. The run that the checkpoint was taken in is
+	 * continued from the end of its generation, and then the remaining runs
+	 * are performed. Provided that the model is configured as it was when the
+	 * checkpoint was taken, with a <code>MersenneTwisterFast</code> random
+	 * number generator and a deterministic fitness function, the runs are
+	 * identical to those of an execution that was never interrupted.
+	 * 
+	 * @param file the checkpoint file.
+	 * @throws IOException if there was a problem reading the checkpoint, or it
+	 *         is not a valid checkpoint of this model.
+	 * @see #setCheckpointFile(File)
+	 */
+	public void resume(final File file) throws IOException {
+		final EvolutionContext previous = context.bind();
+		try {
+			prepare();
+
+			final Checkpoint checkpoint = Checkpoint.read(file, this);
+			run.resume(checkpoint);
+
+			// Perform the remaining runs.
+			for (int i = checkpoint.getRunNo() + 1; i < getNoRuns(); i++) {
+				run.run(i);
+			}
+		} finally {
+			EvolutionContext.restore(previous);
+		}
+	}
+
+	/*
+	 * Sets up a new run manager and validates the model.
+	 */
+	private void prepare() {
 		run = new RunManager(this);
 
 		// Fire config event.
-		Life.get().fireConfigureEvent();
+		context.getLife().fireConfigureEvent();
 
 		// Validate that the model is in a runnable state.
 		if (initialiser == null) {
@@ -140,12 +251,27 @@ public abstract class Model {
 			throw new IllegalStateException("no crossover set");
 		} else if ((mutation == null) && (mutationProbability != 0.0)) {
 			throw new IllegalStateException("no mutation set");
+		} else if (steadyState && (replacementSelector == null)) {
+			throw new IllegalStateException("no replacement selector set");
+		} else if ((checkpointFile != null) && steadyState) {
+			throw new IllegalStateException("checkpoints cannot be taken in steady-state mode");
+		} else if ((checkpointFile != null) && !(randomNumberGenerator instanceof MersenneTwisterFast)) {
+			throw new IllegalStateException("checkpoints require a MersenneTwisterFast random number generator");
 		}
+	}
 
-		// Execute all the runs.
-		for (int i = 0; i < getNoRuns(); i++) {
-			run.run(i);
-		}
+	/**
+	 * Returns the context that this model belongs to, which owns the life
+	 * cycle that its components are registered with and the stats that they
+	 * record data into. This is the context that was current on the thread
+	 * that constructed the model, and it is bound to the thread that runs the
+	 * model for the duration of the run.
+	 * 
+	 * @return the context of this model.
+	 * @see EvolutionContext
+	 */
+	public EvolutionContext getContext() {
+		return context;
 	}
 
 	/**
@@ -164,11 +290,37 @@ public abstract class Model {
 	 * essential that this method is implemented to provide a measure of how
 	 * good the given program solution is.
 	 * 
+	 * <p>
+	 * If an evaluation executor has been set on this model then this method
+	 * will be called concurrently from the threads of that executor, and so
+	 * implementations must then be thread-safe. Any state shared between calls,
+	 * such as an interpreter, must either be safe for concurrent use or be
+	 * confined to the calling thread, for example with a
+	 * <code>ThreadLocal</code>.
+	 * 
 	 * @param program the candidate program to be evaluated.
 	 * @return a fitness score for the program given as a parameter.
+	 * @see #setEvaluationExecutor(ExecutorService)
 	 */
 	public abstract double getFitness(CandidateProgram program);
 
+	/**
+	 * Reads a program written by the <code>writeTo</code> method of a program
+	 * of this model's representation. Models must override this method to
+	 * support checkpointing.
+	 * 
+	 * @param in the input to read from.
+	 * @return the program that was read, which belongs to this model.
+	 * @throws IOException if there was a problem reading from the input, or it
+	 *         does not hold a program of this model.
+	 * @throws UnsupportedOperationException if this model's representation
+	 *         cannot be read.
+	 * @see CandidateProgram#writeTo(DataOutput)
+	 */
+	public CandidateProgram readProgram(final DataInput in) throws IOException {
+		throw new UnsupportedOperationException("programs of " + getClass().getName() + " cannot be read");
+	}
+
 	/**
 	 * Retrieves the operator that is currently set to perform the operation of
 	 * initialisation.
@@ -260,6 +412,249 @@ public abstract class Model {
 		this.cacheFitness = cacheFitness;
 	}
 
+	/**
+	 * Returns the fitness cache that is shared by all the programs of this
+	 * model. When fitness caching is enabled and a fitness cache is set,
+	 * a program whose own cached fitness is out of date will look up its
+	 * source code in the shared cache before the fitness is calculated, so
+	 * identical programs are only evaluated once across all generations and
+	 * runs of this model. A <code>null</code> value indicates that each
+	 * program should only use its own cache.
+	 * 
+	 * <p>
+	 * Defaults to <code>null</code>.
+	 * 
+	 * @return the fitness cache shared by the programs of this model, or
+	 *         <code>null</code> if there is none.
+	 * @see #cacheFitness()
+	 */
+	public FitnessCache getFitnessCache() {
+		return fitnessCache;
+	}
+
+	/**
+	 * Overwrites the default fitness cache shared by the programs of this
+	 * model.
+	 * 
+	 * @param fitnessCache the fitness cache to share between programs, or
+	 *        <code>null</code> for none.
+	 */
+	public void setFitnessCache(final FitnessCache fitnessCache) {
+		this.fitnessCache = fitnessCache;
+	}
+
+	/**
+	 * Returns the persistent fitness store that the programs of this model
+	 * record their fitness in. When fitness caching is enabled and a fitness
+	 * store is set, a program that is not found in its own cache or the
+	 * shared fitness cache will look up its source code in the store before
+	 * the fitness is calculated, and any fitness that is calculated is added
+	 * to the store. A <code>null</code> value indicates that fitness values
+	 * should not be persisted.
+	 * 
+	 * <p>
+	 * Defaults to <code>null</code>.
+	 * 
+	 * @return the fitness store used by the programs of this model, or
+	 *         <code>null</code> if there is none.
+	 * @see #cacheFitness()
+	 * @see #getFitnessCache()
+	 */
+	public FitnessStore getFitnessStore() {
+		return fitnessStore;
+	}
+
+	/**
+	 * Overwrites the default fitness store used by the programs of this
+	 * model. The store is not closed by the model, its lifecycle remains the
+	 * responsibility of the caller.
+	 * 
+	 * @param fitnessStore the fitness store to persist fitness values in, or
+	 *        <code>null</code> for none.
+	 */
+	public void setFitnessStore(final FitnessStore fitnessStore) {
+		this.fitnessStore = fitnessStore;
+	}
+
+	/**
+	 * Returns the executor service that populations will be evaluated on. If
+	 * an executor is set, the fitness of all programs in each new population
+	 * will be calculated concurrently on it before the population is passed
+	 * on, and so the <code>getFitness</code> method of this model must be
+	 * thread-safe. A <code>null</code> value indicates that programs should be
+	 * evaluated sequentially on the thread executing the run.
+	 * 
+	 * <p>
+	 * Defaults to <code>null</code>.
+	 * 
+	 * @return the executor service to evaluate populations on, or
+	 *         <code>null</code> for sequential evaluation.
+	 */
+	public ExecutorService getEvaluationExecutor() {
+		return evaluationExecutor;
+	}
+
+	/**
+	 * Overwrites the default executor service used to evaluate populations.
+	 * The executor is not shut down by the model, its lifecycle remains the
+	 * responsibility of the caller.
+	 * 
+	 * @param evaluationExecutor the executor service to evaluate populations
+	 *        on, or <code>null</code> for sequential evaluation.
+	 */
+	public void setEvaluationExecutor(final ExecutorService evaluationExecutor) {
+		this.evaluationExecutor = evaluationExecutor;
+	}
+
+	/**
+	 * Returns whether runs should use steady-state rather than generational
+	 * evolution. In steady-state evolution, each new program is inserted into
+	 * the population as soon as it has been evaluated, in place of a program
+	 * chosen by the replacement selector, and another program is bred from
+	 * the population straight away. Every population size evaluations are
+	 * reported as a generation, so the number of generations and the
+	 * generation statistics have the same meaning in both modes.
+	 * 
+	 * <p>
+	 * Defaults to <code>false</code>.
+	 * 
+	 * @return true if runs should use steady-state evolution, false otherwise.
+	 * @see SteadyStateManager
+	 */
+	public boolean isSteadyState() {
+		return steadyState;
+	}
+
+	/**
+	 * Overwrites the default setting of whether runs should use steady-state
+	 * evolution.
+	 * 
+	 * @param steadyState whether runs should use steady-state evolution.
+	 */
+	public void setSteadyState(final boolean steadyState) {
+		this.steadyState = steadyState;
+	}
+
+	/**
+	 * Returns the number of programs that are kept being evaluated at once on
+	 * the evaluation executor in steady-state evolution. It has no effect
+	 * without an executor, when each program is evaluated as soon as it is
+	 * bred.
+	 * 
+	 * <p>
+	 * Defaults to <code>1</code>.
+	 * 
+	 * @return the number of evaluations to keep in flight.
+	 */
+	public int getNoEvaluationsInFlight() {
+		return noEvaluationsInFlight;
+	}
+
+	/**
+	 * Overwrites the default number of programs kept being evaluated at once
+	 * in steady-state evolution.
+	 * 
+	 * @param noEvaluationsInFlight the number of evaluations to keep in
+	 *        flight.
+	 */
+	public void setNoEvaluationsInFlight(final int noEvaluationsInFlight) {
+		if (noEvaluationsInFlight >= 1) {
+			this.noEvaluationsInFlight = noEvaluationsInFlight;
+		} else {
+			throw new IllegalArgumentException("noEvaluationsInFlight must be greater than 0");
+		}
+
+		assert (this.noEvaluationsInFlight >= 1);
+	}
+
+	/**
+	 * Returns the component which chooses the program that each new program
+	 * replaces in steady-state evolution.
+	 * 
+	 * <p>
+	 * Defaults to an instance of {@link WorstReplacementSelector}.
+	 * 
+	 * @return the <code>ReplacementSelector</code> that will choose the
+	 *         programs to be replaced.
+	 */
+	public ReplacementSelector getReplacementSelector() {
+		return replacementSelector;
+	}
+
+	/**
+	 * Overwrites the default replacement selector.
+	 * 
+	 * @param replacementSelector the new ReplacementSelector to be used to
+	 *        choose the programs to be replaced.
+	 */
+	public void setReplacementSelector(final ReplacementSelector replacementSelector) {
+		if (replacementSelector != null) {
+			this.replacementSelector = replacementSelector;
+		} else {
+			throw new IllegalArgumentException("replacement selector must not be null");
+		}
+
+		assert (this.replacementSelector != null);
+	}
+
+	/**
+	 * Returns the file that a checkpoint of each run is written to, from which
+	 * the run can be continued with <code>resume</code> if it is interrupted.
+	 * Each checkpoint replaces the last.
+	 * 
+	 * <p>
+	 * Defaults to <code>null</code>, in which case no checkpoints are written.
+	 * 
+	 * @return the checkpoint file, or <code>null</code> if none is set.
+	 * @see Checkpoint
+	 */
+	public File getCheckpointFile() {
+		return checkpointFile;
+	}
+
+	/**
+	 * Sets the file that a checkpoint of each run is written to. Checkpoints
+	 * are written on a background thread, so do not hold up the generations.
+	 * They can only be taken in generational mode, with a
+	 * <code>MersenneTwisterFast</code> random number generator and programs
+	 * whose representation supports <code>CandidateProgram.writeTo</code>.
+	 * 
+	 * @param checkpointFile the checkpoint file, or <code>null</code> for no
+	 *        checkpoints.
+	 */
+	public void setCheckpointFile(final File checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	/**
+	 * Returns the number of generations between checkpoints. A checkpoint is
+	 * taken at the end of each generation whose number is a multiple of the
+	 * interval, unless the run has terminated.
+	 * 
+	 * <p>
+	 * Defaults to 1.
+	 * 
+	 * @return the checkpoint interval.
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	/**
+	 * Sets the number of generations between checkpoints.
+	 * 
+	 * @param checkpointInterval the checkpoint interval.
+	 */
+	public void setCheckpointInterval(final int checkpointInterval) {
+		if (checkpointInterval >= 1) {
+			this.checkpointInterval = checkpointInterval;
+		} else {
+			throw new IllegalArgumentException("checkpointInterval must be greater than 0");
+		}
+
+		assert (this.checkpointInterval >= 1);
+	}
+
 	/**
 	 * Returns the number of separate runs that will be carried out with this
 	 * model.
@@ -621,4 +1016,32 @@ public abstract class Model {
 
 		assert (randomNumberGenerator != null);
 	}
+
+	/**
+	 * Returns the master seed that the random number generator is reseeded
+	 * from at the start of each run. Each run is given its own seed, derived
+	 * from the master seed and the run number, so the result of a run does not
+	 * depend on the runs performed before it.
+	 * 
+	 * <p>
+	 * Defaults to <code>null</code>, in which case the random number generator
+	 * is not reseeded and each run continues the sequence of the last.
+	 * 
+	 * @return the master seed, or <code>null</code> if runs are not seeded.
+	 * @see RunManager#getRunSeed(long, int)
+	 */
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the master seed that the random number generator is reseeded from
+	 * at the start of each run.
+	 * 
+	 * @param seed the master seed, or <code>null</code> to leave the random
+	 *        number generator unseeded.
+	 */
+	public void setSeed(final Long seed) {
+		this.seed = seed;
+	}
 }
@@ -71,6 +71,10 @@ public class MutationManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// The selector for choosing the individual to mutate.
 	private ProgramSelector programSelector;
 
@@ -93,9 +97,11 @@ public class MutationManager implements ConfigListener {
 	 */
 	public MutationManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -137,7 +143,7 @@ public class MutationManager implements ConfigListener {
 		}
 
 		// Inform everyone we're about to start crossover.
-		Life.get().fireMutationStartEvent();
+		life.fireMutationStartEvent();
 
 		// Record the start time.
 		final long mutationStartTime = System.nanoTime();
@@ -163,7 +169,7 @@ public class MutationManager implements ConfigListener {
 			}
 
 			// Allow the life cycle listener to confirm or modify.
-			child = Life.get().runMutationHooks(parent, child);
+			child = life.runMutationHooks(parent, child);
 
 			if (child == null) {
 				reversions++;
@@ -173,12 +179,12 @@ public class MutationManager implements ConfigListener {
 		final long runtime = System.nanoTime() - mutationStartTime;
 
 		// Store the stats from the mutation.
-		Stats.get().addData(MUT_PARENT, parent);
-		Stats.get().addData(MUT_CHILD, child);
-		Stats.get().addData(MUT_TIME, runtime);
-		Stats.get().addData(MUT_REVERSIONS, reversions);
+		stats.addData(MUT_PARENT, parent);
+		stats.addData(MUT_CHILD, child);
+		stats.addData(MUT_TIME, runtime);
+		stats.addData(MUT_REVERSIONS, reversions);
 
-		Life.get().fireMutationEndEvent();
+		life.fireMutationEndEvent();
 
 		assert (child != null);
 
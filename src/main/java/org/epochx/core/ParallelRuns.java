@@ -0,0 +1,370 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import static org.epochx.stats.StatField.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.epochx.representation.CandidateProgram;
+import org.epochx.stats.Stats;
+
+/**
+ * A <code>ParallelRuns</code> performs a series of independent runs at once,
+ * on a bounded number of threads. Runs performed by <code>Model.run()</code>
+ * share the model's operators and random number generator, so here each run
+ * is performed by its own model, constructed by a factory on the thread that
+ * performs the run.
+ * 
+ * <p>
+ * Every run is constructed in a new {@link EvolutionContext}, so that the runs
+ * share no listeners or statistics, and any listeners that should report on a
+ * run must be added by the factory. If a seed is set, then it is set on every
+ * model, and the result of each run is identical to the run of the same number
+ * performed one after another by <code>Model.run()</code> with that seed,
+ * whatever the number of threads and the order in which the runs finish. The
+ * factory must then give each model its own random number generator.
+ * 
+ * <p>
+ * A summary of each run is recorded as it finishes, and may be read from any
+ * thread while the runs are in progress.
+ * 
+ * @see Model#run(int)
+ * @see Model#setSeed(Long)
+ */
+public class ParallelRuns {
+
+	/**
+	 * Constructs the model for each run.
+	 */
+	public interface Factory {
+
+		/**
+		 * Constructs the model for the run with the given number. This is
+		 * called on the thread that will perform the run.
+		 * 
+		 * @param runNo the number of the run, from 0.
+		 * @return a new model, which is not shared with any other run.
+		 */
+		public Model newRun(int runNo);
+	}
+
+	/**
+	 * The summary of a single run. A result is immutable, so may be shared
+	 * between threads.
+	 */
+	public static class Result {
+
+		private final int runNo;
+		private final CandidateProgram fittestProgram;
+		private final double fitness;
+		private final int noGenerations;
+		private final long runtime;
+
+		/*
+		 * Constructs the summary of a run from the stats that it recorded.
+		 */
+		private Result(final int runNo, final Stats stats) {
+			this.runNo = runNo;
+
+			fittestProgram = (CandidateProgram) stats.getStat(RUN_FITTEST_PROGRAM);
+			fitness = (Double) stats.getStat(RUN_FITNESS_MIN);
+			noGenerations = (Integer) stats.getStat(GEN_NUMBER);
+			runtime = (Long) stats.getStat(RUN_TIME);
+		}
+
+		/**
+		 * Returns the number of the run.
+		 * 
+		 * @return the run number, from 0.
+		 */
+		public int getRunNo() {
+			return runNo;
+		}
+
+		/**
+		 * Returns the fittest program found in the run.
+		 * 
+		 * @return the fittest program.
+		 */
+		public CandidateProgram getFittestProgram() {
+			return fittestProgram;
+		}
+
+		/**
+		 * Returns the fitness of the fittest program found in the run.
+		 * 
+		 * @return the lowest fitness score of the run.
+		 */
+		public double getFitness() {
+			return fitness;
+		}
+
+		/**
+		 * Returns the number of the last generation of the run, where
+		 * generation 0 is the initialisation.
+		 * 
+		 * @return the number of generations performed.
+		 */
+		public int getNoGenerations() {
+			return noGenerations;
+		}
+
+		/**
+		 * Returns the length of time that the run took to complete.
+		 * 
+		 * @return the run time in nanoseconds.
+		 */
+		public long getRuntime() {
+			return runtime;
+		}
+	}
+
+	private final Factory factory;
+
+	// Control parameters.
+	private int noRuns;
+	private int noThreads;
+	private Long seed;
+
+	// The summary of each run in the last series, once it has finished.
+	private volatile AtomicReferenceArray<Result> results;
+
+	/**
+	 * Constructs a <code>ParallelRuns</code> with a set of sensible defaults.
+	 * See the appropriate accessor method for information of each default
+	 * value.
+	 * 
+	 * @param noRuns the number of runs.
+	 * @param factory the factory that constructs the model of each run.
+	 */
+	public ParallelRuns(final int noRuns, final Factory factory) {
+		if (factory == null) {
+			throw new IllegalArgumentException("factory must not be null");
+		}
+
+		this.factory = factory;
+
+		setNoRuns(noRuns);
+		noThreads = Runtime.getRuntime().availableProcessors();
+		seed = null;
+	}
+
+	/**
+	 * Performs every run, using at most <code>noThreads</code> threads, and
+	 * returns when all of them have finished. If a run fails, the runs that
+	 * have not yet started are abandoned.
+	 * 
+	 * @return the summary of each run, indexed by run number.
+	 * @throws IllegalStateException if the thread is interrupted while
+	 *         waiting for the runs.
+	 */
+	public List<Result> run() {
+		final int n = noRuns;
+
+		results = new AtomicReferenceArray<Result>(n);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(noThreads, Math.max(n, 1)));
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>(n);
+			for (int i = 0; i < n; i++) {
+				futures.add(executor.submit(new Run(i, seed, results)));
+			}
+
+			for (final Future<?> future: futures) {
+				future.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the runs", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("a run failed", cause);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return getResults();
+	}
+
+	/**
+	 * Returns the summary of each run of the current or last series that has
+	 * finished, in order of run number. This may be called while the runs are
+	 * in progress.
+	 * 
+	 * @return the summaries of the finished runs, or <code>null</code> if no
+	 *         runs have been started.
+	 */
+	public List<Result> getResults() {
+		final AtomicReferenceArray<Result> results = this.results;
+		if (results == null) {
+			return null;
+		}
+
+		final List<Result> finished = new ArrayList<Result>(results.length());
+		for (int i = 0; i < results.length(); i++) {
+			final Result result = results.get(i);
+			if (result != null) {
+				finished.add(result);
+			}
+		}
+
+		return Collections.unmodifiableList(finished);
+	}
+
+	/**
+	 * Returns the fittest program found by any finished run of the current or
+	 * last series. Where runs found programs of equal fitness, the program of
+	 * the lowest numbered run is returned.
+	 * 
+	 * @return the fittest program, or <code>null</code> if no runs have
+	 *         finished.
+	 */
+	public CandidateProgram getFittestProgram() {
+		Result fittest = null;
+		final List<Result> finished = getResults();
+		if (finished != null) {
+			for (final Result result: finished) {
+				if ((fittest == null) || (result.getFitness() < fittest.getFitness())) {
+					fittest = result;
+				}
+			}
+		}
+
+		return (fittest == null) ? null : fittest.getFittestProgram();
+	}
+
+	/**
+	 * Returns the number of runs.
+	 * 
+	 * @return the number of runs performed by each call to <code>run</code>.
+	 */
+	public int getNoRuns() {
+		return noRuns;
+	}
+
+	/**
+	 * Sets the number of runs.
+	 * 
+	 * @param noRuns the number of runs to perform.
+	 */
+	public void setNoRuns(final int noRuns) {
+		if (noRuns >= 0) {
+			this.noRuns = noRuns;
+		} else {
+			throw new IllegalArgumentException("noRuns must be zero or more");
+		}
+
+		assert (this.noRuns >= 0);
+	}
+
+	/**
+	 * Returns the maximum number of runs that are performed at once.
+	 * 
+	 * <p>
+	 * Defaults to the number of available processors.
+	 * 
+	 * @return the number of threads.
+	 */
+	public int getNoThreads() {
+		return noThreads;
+	}
+
+	/**
+	 * Sets the maximum number of runs that are performed at once.
+	 * 
+	 * @param noThreads the number of threads.
+	 */
+	public void setNoThreads(final int noThreads) {
+		if (noThreads >= 1) {
+			this.noThreads = noThreads;
+		} else {
+			throw new IllegalArgumentException("noThreads must be greater than 0");
+		}
+
+		assert (this.noThreads >= 1);
+	}
+
+	/**
+	 * Returns the master seed that is set on the model of every run.
+	 * 
+	 * <p>
+	 * Defaults to <code>null</code>, in which case the models are left as the
+	 * factory constructed them.
+	 * 
+	 * @return the master seed, or <code>null</code> if none is set.
+	 */
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the master seed that is set on the model of every run, from which
+	 * each run derives its own seed.
+	 * 
+	 * @param seed the master seed, or <code>null</code> for none.
+	 */
+	public void setSeed(final Long seed) {
+		this.seed = seed;
+	}
+
+	/*
+	 * Constructs and performs one run in its own context.
+	 */
+	private class Run implements Runnable {
+
+		private final int runNo;
+		private final Long seed;
+		private final AtomicReferenceArray<Result> results;
+
+		public Run(final int runNo, final Long seed, final AtomicReferenceArray<Result> results) {
+			this.runNo = runNo;
+			this.seed = seed;
+			this.results = results;
+		}
+
+		@Override
+		public void run() {
+			// The run's model is constructed in the context it belongs to.
+			final EvolutionContext previous = new EvolutionContext().bind();
+			try {
+				final Model model = factory.newRun(runNo);
+				if (seed != null) {
+					model.setSeed(seed);
+				}
+
+				model.run(runNo);
+
+				results.set(runNo, new Result(runNo, model.getContext().getStats()));
+			} finally {
+				EvolutionContext.restore(previous);
+			}
+		}
+	}
+}
@@ -85,6 +85,10 @@ public class PoolSelectionManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// The pool selector to use to generate the breeding pool.
 	private PoolSelector poolSelector;
 
@@ -105,9 +109,11 @@ public class PoolSelectionManager implements ConfigListener {
 	 */
 	public PoolSelectionManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -141,7 +147,7 @@ public class PoolSelectionManager implements ConfigListener {
 		}
 
 		// Inform all listeners that pool selection is starting.
-		Life.get().firePoolSelectionStartEvent();
+		life.firePoolSelectionStartEvent();
 
 		// Record the start time.
 		final long startTime = System.nanoTime();
@@ -160,7 +166,7 @@ public class PoolSelectionManager implements ConfigListener {
 			}
 
 			// Allow life cycle listener to confirm or modify.
-			pool = Life.get().runPoolSelectionHooks(pool);
+			pool = life.runPoolSelectionHooks(pool);
 
 			// If reverted then increment reversion counter.
 			if (pool == null) {
@@ -171,12 +177,12 @@ public class PoolSelectionManager implements ConfigListener {
 		final long runtime = System.nanoTime() - startTime;
 
 		// Store the stats from the pool selection.
-		Stats.get().addData(POOL_REVERSIONS, reversions);
-		Stats.get().addData(POOL_PROGRAMS, pool);
-		Stats.get().addData(POOL_TIME, runtime);
+		stats.addData(POOL_REVERSIONS, reversions);
+		stats.addData(POOL_PROGRAMS, pool);
+		stats.addData(POOL_TIME, runtime);
 
 		// Inform all listeners that pool selection has ended.
-		Life.get().firePoolSelectionEndEvent();
+		life.firePoolSelectionEndEvent();
 
 		assert (pool != null);
 
@@ -69,6 +69,10 @@ public class ReproductionManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// The selector to use to choose the program to reproduce.
 	private ProgramSelector programSelector;
 
@@ -86,9 +90,11 @@ public class ReproductionManager implements ConfigListener {
 	 */
 	public ReproductionManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -112,7 +118,7 @@ public class ReproductionManager implements ConfigListener {
 		}
 
 		// Inform all listeners we're about to start.
-		Life.get().fireReproductionStartEvent();
+		life.fireReproductionStartEvent();
 
 		// Record the start time.
 		final long startTime = System.nanoTime();
@@ -125,7 +131,7 @@ public class ReproductionManager implements ConfigListener {
 			parent = programSelector.getProgram();
 
 			// Allow the life cycle listener to confirm or modify.
-			parent = Life.get().runReproductionHooks(parent);
+			parent = life.runReproductionHooks(parent);
 
 			if (parent == null) {
 				reversions++;
@@ -135,11 +141,11 @@ public class ReproductionManager implements ConfigListener {
 		final long runtime = System.nanoTime() - startTime;
 
 		// Store the stats from the reproduction.
-		Stats.get().addData(REP_REVERSIONS, reversions);
-		Stats.get().addData(REP_TIME, runtime);
+		stats.addData(REP_REVERSIONS, reversions);
+		stats.addData(REP_TIME, runtime);
 
 		// Inform all listeners reproduction has ended.
-		Life.get().fireReproductionEndEvent();
+		life.fireReproductionEndEvent();
 
 		assert (parent != null);
 
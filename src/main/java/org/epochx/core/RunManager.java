@@ -23,11 +23,13 @@ package org.epochx.core;
 
 import static org.epochx.stats.StatField.*;
 
+import java.io.File;
 import java.util.List;
 
 import org.epochx.life.*;
 import org.epochx.representation.CandidateProgram;
 import org.epochx.stats.*;
+import org.epochx.tools.random.*;
 
 /**
  * Instances of this class are responsible for executing single evolutionary
@@ -82,12 +84,22 @@ public class RunManager implements ConfigListener {
 	// The controlling model.
 	private final Model model;
 
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
 	// Core components.
 	private final GenerationManager generation;
 	private final InitialisationManager initialisation;
+	private final SteadyStateManager steadyState;
 
 	private int noGenerations;
+	private boolean useSteadyState;
 	private double terminationFitness;
+	private RandomNumberGenerator rng;
+	private Long seed;
+	private File checkpointFile;
+	private int checkpointInterval;
 
 	// The best program found so far during the run.
 	private CandidateProgram bestProgram;
@@ -105,13 +117,16 @@ public class RunManager implements ConfigListener {
 	 */
 	public RunManager(final Model model) {
 		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
 
 		// Setup core components.
 		generation = new GenerationManager(model);
 		initialisation = new InitialisationManager(model);
+		steadyState = new SteadyStateManager(model);
 
 		// Configure parameters from the model.
-		Life.get().addConfigListener(this, false);
+		life.addConfigListener(this, false);
 	}
 
 	/*
@@ -121,6 +136,11 @@ public class RunManager implements ConfigListener {
 	public void onConfigure() {
 		noGenerations = model.getNoGenerations();
 		terminationFitness = model.getTerminationFitness();
+		useSteadyState = model.isSteadyState();
+		rng = model.getRNG();
+		seed = model.getSeed();
+		checkpointFile = model.getCheckpointFile();
+		checkpointInterval = model.getCheckpointInterval();
 	}
 
 	/**
@@ -142,16 +162,15 @@ public class RunManager implements ConfigListener {
 	 *        set of runs being performed.
 	 */
 	public void run(final int runNo) {
-		// Give final opportunity to configure before starting the run.
-		Life.get().fireConfigureEvent();
+		configure();
 
-		// Validate that the model is in a runnable state.
-		if (noGenerations < -1) {
-			throw new IllegalStateException("number of generations must be -1 or greater: " + noGenerations);
+		// Start this run's own random sequence.
+		if (seed != null) {
+			rng.setSeed(getRunSeed(seed, runNo));
 		}
 
 		// Inform everyone we're starting a run.
-		Life.get().fireRunStartEvent();
+		life.fireRunStartEvent();
 
 		// Setup the run manager for a new run.
 		bestProgram = null;
@@ -159,7 +178,7 @@ public class RunManager implements ConfigListener {
 		final long startTime = System.nanoTime();
 
 		// Add the run number to the available stats data.
-		Stats.get().addData(RUN_NUMBER, runNo);
+		stats.addData(RUN_NUMBER, runNo);
 
 		// Perform initialisation.
 		List<CandidateProgram> pop = initialisation.initialise();
@@ -167,32 +186,150 @@ public class RunManager implements ConfigListener {
 		// Record best program so far and its fitness.
 		updateBestProgram(pop);
 
+		evolve(runNo, 1, pop, startTime);
+	}
+
+	/**
+	 * Continues a run from the end of the generation at which a checkpoint was
+	 * taken. The run continues exactly as it would have from that generation,
+	 * provided the model is configured as it was when the checkpoint was
+	 * taken, and its fitness function is deterministic.
+	 * 
+	 * @param checkpoint the state of the run at the end of a generation.
+	 * @throws IllegalStateException if the model's random number generator is
+	 *         not a <code>MersenneTwisterFast</code>.
+	 * @see Model#resume(java.io.File)
+	 */
+	public void resume(final Checkpoint checkpoint) {
+		configure();
+
+		if (!(rng instanceof MersenneTwisterFast)) {
+			throw new IllegalStateException("resuming requires a MersenneTwisterFast random number generator");
+		}
+
+		// Inform everyone we're starting a run.
+		life.fireRunStartEvent();
+
+		// Setup the run manager from the checkpoint.
+		bestProgram = checkpoint.getFittestProgram();
+		bestFitness = checkpoint.getFitness();
+		final long startTime = System.nanoTime();
+
+		stats.addData(RUN_NUMBER, checkpoint.getRunNo());
+		stats.addData(RUN_FITNESS_MIN, bestFitness);
+		stats.addData(RUN_FITTEST_PROGRAM, bestProgram);
+
+		// Continue the random sequence from where it was.
+		checkpoint.restoreRNG((MersenneTwisterFast) rng);
+
+		evolve(checkpoint.getRunNo(), checkpoint.getGeneration() + 1, checkpoint.getPopulation(), startTime);
+	}
+
+	/*
+	 * Fires the configure event and validates the model.
+	 */
+	private void configure() {
+		// Give final opportunity to configure before starting the run.
+		life.fireConfigureEvent();
+
+		// Validate that the model is in a runnable state.
+		if (noGenerations < -1) {
+			throw new IllegalStateException("number of generations must be -1 or greater: " + noGenerations);
+		}
+	}
+
+	/*
+	 * Performs the generations of a run from the given generation until the
+	 * run terminates, and ends the run.
+	 */
+	private void evolve(final int runNo, final int firstGen, final List<CandidateProgram> initialPop,
+			final long startTime) {
+		final CheckpointWriter checkpoints = (checkpointFile == null) ? null : new CheckpointWriter(checkpointFile,
+				(MersenneTwisterFast) rng);
+
 		// Execute each generation.
-		int gen = 1;
-		while ((gen <= noGenerations) || (noGenerations == -1)) {
-			// Perform the generation.
-			pop = generation.generation(gen, pop);
-
-			// Keep track of the best program and fitness.
-			updateBestProgram(pop);
-
-			// We might be finished?
-			if (bestFitness <= terminationFitness) {
-				Life.get().fireSuccessEvent();
-				break;
+		List<CandidateProgram> pop = initialPop;
+		int gen = firstGen;
+		Throwable failure = null;
+		try {
+			while ((gen <= noGenerations) || (noGenerations == -1)) {
+				// Perform the generation.
+				if (useSteadyState) {
+					pop = steadyState.generation(gen, pop);
+
+					// The best new program may already have been replaced.
+					updateBestProgram(steadyState.getInsertedPrograms());
+				} else {
+					pop = generation.generation(gen, pop);
+				}
+
+				// Keep track of the best program and fitness.
+				updateBestProgram(pop);
+
+				// We might be finished?
+				if (bestFitness <= terminationFitness) {
+					life.fireSuccessEvent();
+					break;
+				}
+
+				// There is nothing to resume after the last generation.
+				final boolean last = (gen == noGenerations);
+				if ((checkpoints != null) && (gen % checkpointInterval == 0) && !last) {
+					checkpoints.write(runNo, gen, pop, bestProgram, bestFitness);
+				}
+
+				gen++;
+			}
+		} catch (final RuntimeException e) {
+			failure = e;
+			throw e;
+		} catch (final Error e) {
+			failure = e;
+			throw e;
+		} finally {
+			// Abandon any steady-state evaluations still in progress.
+			steadyState.reset();
+
+			// Finish writing the last checkpoint, without hiding a failure.
+			if (checkpoints != null) {
+				try {
+					checkpoints.close();
+				} catch (final RuntimeException e) {
+					if (failure == null) {
+						throw e;
+					}
+					failure.addSuppressed(e);
+				}
 			}
-
-			gen++;
 		}
 
 		// Calculate how long the run took.
 		final long runtime = System.nanoTime() - startTime;
 
 		// Add run time to stats data.
-		Stats.get().addData(RUN_TIME, runtime);
+		stats.addData(RUN_TIME, runtime);
 
 		// Inform everyone the run has ended.
-		Life.get().fireRunEndEvent();
+		life.fireRunEndEvent();
+	}
+
+	/**
+	 * Derives the seed of a run from a master seed. The seed of run
+	 * <code>n</code> is the <code>n+1</code>th output of the SplitMix64
+	 * generator started from the master seed, so the seeds of different runs
+	 * are well mixed even if the master seeds of different experiments are
+	 * close together.
+	 * 
+	 * @param seed the master seed.
+	 * @param runNo the number of the run.
+	 * @return the seed for the random number generator in the given run.
+	 */
+	public static long getRunSeed(final long seed, final int runNo) {
+		long z = seed + ((runNo + 1L) * 0x9e3779b97f4a7c15L);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+		return z ^ (z >>> 31);
 	}
 
 	/*
@@ -208,8 +345,8 @@ public class RunManager implements ConfigListener {
 				bestProgram = program;
 
 				// Update the stats.
-				Stats.get().addData(RUN_FITNESS_MIN, bestFitness);
-				Stats.get().addData(RUN_FITTEST_PROGRAM, bestProgram);
+				stats.addData(RUN_FITNESS_MIN, bestFitness);
+				stats.addData(RUN_FITTEST_PROGRAM, bestProgram);
 			}
 		}
 
@@ -227,6 +364,18 @@ public class RunManager implements ConfigListener {
 		return generation;
 	}
 
+	/**
+	 * Retrieves this run manager's steady-state manager that will perform the
+	 * evolution in place of the generation manager if the model is set to use
+	 * steady-state evolution.
+	 * 
+	 * @return the steady-state manager that will handle steady-state
+	 *         evolution.
+	 */
+	public SteadyStateManager getSteadyStateManager() {
+		return steadyState;
+	}
+
 	/**
 	 * Retrieves this run manager's initialisation manager that will perform the
 	 * execution of the 0th evolutionary generations, that is generation of an
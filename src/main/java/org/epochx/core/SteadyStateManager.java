@@ -0,0 +1,378 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import static org.epochx.stats.StatField.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.epochx.life.*;
+import org.epochx.op.*;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.stats.Stats;
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * This component is responsible for carrying out steady-state evolution, in
+ * place of the <code>GenerationManager</code> when the model's
+ * <code>isSteadyState</code> method returns true. Rather than breeding a whole
+ * new population and waiting for all of it to be evaluated, each new program
+ * is inserted into the population as soon as its evaluation completes, in
+ * place of a program chosen by the model's <code>ReplacementSelector</code>,
+ * and another program is bred from the updated population and submitted
+ * straight away.
+ * 
+ * <p>
+ * If the model supplies an evaluation executor then the model's
+ * <code>getNoEvaluationsInFlight</code> programs are kept being evaluated on
+ * it at once, and they are inserted in whatever order they complete, so no
+ * worker waits for the slowest evaluation of a generation. Breeding and
+ * insertion take place on the thread executing the run, and the model's
+ * context is bound to the executor's thread for each evaluation. Without an
+ * executor each program is evaluated as soon as it is bred, and the run is
+ * deterministic.
+ * 
+ * <p>
+ * Each call to <code>generation</code> inserts population size new programs
+ * and raises the same events and statistics as a generation of the
+ * <code>GenerationManager</code>, so that existing listeners work unchanged.
+ * There is no elitism or pool selection; parents are selected from the whole
+ * population. The generation hooks are run at the end of each generation, but
+ * since the evaluations cannot be undone, a revert leaves the population
+ * unchanged rather than repeating the generation.
+ * 
+ * @see Model#isSteadyState()
+ * @see ReplacementSelector
+ */
+public class SteadyStateManager implements ConfigListener {
+
+	// The controlling model.
+	private final Model model;
+
+	// The life cycle and stats of the model's context.
+	private final Life life;
+	private final Stats stats;
+
+	// Components.
+	private final CrossoverManager crossover;
+	private final MutationManager mutation;
+	private final ReproductionManager reproduction;
+
+	// Operators.
+	private ProgramSelector programSelector;
+	private ReplacementSelector replacementSelector;
+
+	// Control parameters.
+	private RandomNumberGenerator rng;
+
+	private int popSize;
+	private int noEvaluationsInFlight;
+
+	private double mutationProbability;
+	private double crossoverProbability;
+	private double terminationFitness;
+
+	private ExecutorService executor;
+	private FitnessCache fitnessCache;
+
+	// Programs that have been bred but not yet submitted for evaluation.
+	private final Deque<CandidateProgram> bred;
+
+	// The evaluations in progress, which carry on between generations.
+	private CompletionService<CandidateProgram> completion;
+	private final List<Future<CandidateProgram>> inFlight;
+
+	// The programs inserted during the last generation.
+	private final List<CandidateProgram> inserted;
+
+	/**
+	 * Constructs an instance of <code>SteadyStateManager</code> which will
+	 * evolve populations according to the settings of the given model.
+	 * 
+	 * @param model the model which provides the parameters, operators and
+	 *        fitness function to use.
+	 */
+	public SteadyStateManager(final Model model) {
+		this.model = model;
+		life = model.getContext().getLife();
+		stats = model.getContext().getStats();
+
+		// Components.
+		crossover = new CrossoverManager(model);
+		mutation = new MutationManager(model);
+		reproduction = new ReproductionManager(model);
+
+		bred = new ArrayDeque<CandidateProgram>();
+		inFlight = new ArrayList<Future<CandidateProgram>>();
+		inserted = new ArrayList<CandidateProgram>();
+
+		// Configure parameters from the model.
+		life.addConfigListener(this, false);
+	}
+
+	/*
+	 * Configure component with parameters from the model.
+	 */
+	@Override
+	public void onConfigure() {
+		rng = model.getRNG();
+		programSelector = model.getProgramSelector();
+		replacementSelector = model.getReplacementSelector();
+		popSize = model.getPopulationSize();
+		noEvaluationsInFlight = model.getNoEvaluationsInFlight();
+		mutationProbability = model.getMutationProbability();
+		crossoverProbability = model.getCrossoverProbability();
+		terminationFitness = model.getTerminationFitness();
+		fitnessCache = model.getFitnessCache();
+
+		final ExecutorService newExecutor = model.getEvaluationExecutor();
+		if (newExecutor != executor) {
+			reset();
+			executor = newExecutor;
+			completion = (executor == null) ? null : new ExecutorCompletionService<CandidateProgram>(executor);
+		}
+	}
+
+	/**
+	 * Inserts population size new programs into a copy of the given
+	 * population, one at a time as each is evaluated, and returns it. The
+	 * generation ends early if a program is inserted whose fitness reaches
+	 * the model's termination fitness.
+	 * 
+	 * @param generationNo the number of the generation, for the statistics.
+	 * @param previousPop the population to evolve, in order of insertion with
+	 *        the oldest program first. All its programs must have been
+	 *        evaluated.
+	 * @return the population after the new programs have been inserted, in
+	 *         order of insertion.
+	 */
+	public List<CandidateProgram> generation(final int generationNo, final List<CandidateProgram> previousPop) {
+		// Validate inputs.
+		if ((previousPop == null) || (previousPop.size() < 1)) {
+			throw new IllegalArgumentException("previousPop must not be null and size must be 1 or greater.");
+		}
+
+		// Validate state.
+		if (rng == null) {
+			throw new IllegalStateException("no random number generator set");
+		} else if (programSelector == null) {
+			throw new IllegalStateException("no program selector set");
+		} else if (replacementSelector == null) {
+			throw new IllegalStateException("no replacement selector set");
+		} else if (popSize < 1) {
+			throw new IllegalStateException("pop size should be 1 or greater");
+		} else if ((crossoverProbability < 0.0) || (crossoverProbability > 1.0)) {
+			throw new IllegalStateException("crossover probability should be between 0.0 and 1.0");
+		} else if ((mutationProbability < 0.0) || (mutationProbability > 1.0)) {
+			throw new IllegalStateException("mutation probability should be between 0.0 and 1.0");
+		}
+
+		// Inform all listeners that a generation is starting.
+		life.fireGenerationStartEvent();
+
+		final long startTime = System.nanoTime();
+
+		// Record the generation number in the stats data.
+		stats.addData(GEN_NUMBER, generationNo);
+
+		// Note the fitness cache counts, to report this generation's share.
+		long hits = 0;
+		long misses = 0;
+		long evictions = 0;
+		if (fitnessCache != null) {
+			hits = fitnessCache.getHits();
+			misses = fitnessCache.getMisses();
+			evictions = fitnessCache.getEvictions();
+		}
+
+		List<CandidateProgram> pop = new ArrayList<CandidateProgram>(previousPop);
+		programSelector.setSelectionPool(pop);
+		inserted.clear();
+
+		long evalTime = 0;
+		while (inserted.size() < popSize) {
+			final long evalStartTime = System.nanoTime();
+			final CandidateProgram child = nextEvaluated();
+			evalTime += System.nanoTime() - evalStartTime;
+
+			// Replace a program, keeping the population in insertion order.
+			pop.remove(replacementSelector.getReplacementIndex(pop));
+			pop.add(child);
+			programSelector.setSelectionPool(pop);
+			inserted.add(child);
+
+			// We might be finished?
+			if (child.getFitness() <= terminationFitness) {
+				break;
+			}
+		}
+
+		// Allow the hooks to modify the population, but not to revert it.
+		final List<CandidateProgram> hooked = life.runGenerationHooks(pop);
+		if (hooked != null) {
+			pop = hooked;
+		}
+
+		// Store the stats data from the generation.
+		stats.addData(GEN_REVERSIONS, 0);
+		stats.addData(GEN_POP, pop);
+		stats.addData(GEN_EVAL_TIME, evalTime);
+		stats.addData(GEN_TIME, (System.nanoTime() - startTime));
+		if (fitnessCache != null) {
+			stats.addData(GEN_FITNESS_CACHE_HITS, fitnessCache.getHits() - hits);
+			stats.addData(GEN_FITNESS_CACHE_MISSES, fitnessCache.getMisses() - misses);
+			stats.addData(GEN_FITNESS_CACHE_EVICTIONS, fitnessCache.getEvictions() - evictions);
+		}
+
+		// Tell everyone the generation has ended.
+		life.fireGenerationEndEvent();
+
+		return pop;
+	}
+
+	/**
+	 * Returns the programs inserted into the population during the last
+	 * generation, in order of insertion. Some of them may have since been
+	 * replaced.
+	 * 
+	 * @return the programs inserted during the last generation.
+	 */
+	public List<CandidateProgram> getInsertedPrograms() {
+		return Collections.unmodifiableList(inserted);
+	}
+
+	/**
+	 * Abandons any evaluations in progress and any programs waiting to be
+	 * evaluated. This should be called at the end of each run.
+	 */
+	public void reset() {
+		for (final Future<CandidateProgram> future: inFlight) {
+			future.cancel(true);
+		}
+		inFlight.clear();
+		bred.clear();
+
+		// Discard the results of the cancelled evaluations.
+		if (executor != null) {
+			completion = new ExecutorCompletionService<CandidateProgram>(executor);
+		}
+	}
+
+	/*
+	 * Returns the next program to have been evaluated, after breeding and
+	 * submitting enough programs to keep the executor busy.
+	 */
+	private CandidateProgram nextEvaluated() {
+		if (executor == null) {
+			final CandidateProgram child = breed();
+			child.getFitness();
+
+			return child;
+		}
+
+		final EvolutionContext context = model.getContext();
+		while (inFlight.size() < noEvaluationsInFlight) {
+			final CandidateProgram child = breed();
+			inFlight.add(completion.submit(new Callable<CandidateProgram>() {
+
+				@Override
+				public CandidateProgram call() {
+					final EvolutionContext previous = context.bind();
+					try {
+						child.getFitness();
+					} finally {
+						EvolutionContext.restore(previous);
+					}
+
+					return child;
+				}
+			}));
+		}
+
+		try {
+			final Future<CandidateProgram> result = completion.take();
+			inFlight.remove(result);
+
+			return result.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted during fitness evaluation", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("fitness evaluation failed", cause);
+		}
+	}
+
+	/*
+	 * Returns the next new program, performing a genetic operation if none
+	 * are waiting.
+	 */
+	private CandidateProgram breed() {
+		if (bred.isEmpty()) {
+			// Randomly choose a genetic operator.
+			final double random = rng.nextDouble();
+
+			if (random < crossoverProbability) {
+				bred.addAll(Arrays.asList(crossover.crossover()));
+			} else if (random < crossoverProbability + mutationProbability) {
+				bred.add(mutation.mutate());
+			} else {
+				bred.add(reproduction.reproduce());
+			}
+		}
+
+		return bred.poll();
+	}
+
+	/**
+	 * Returns the crossover manager that performs each crossover.
+	 * 
+	 * @return the crossover manager.
+	 */
+	public CrossoverManager getCrossoverManager() {
+		return crossover;
+	}
+
+	/**
+	 * Returns the mutation manager that performs each mutation.
+	 * 
+	 * @return the mutation manager.
+	 */
+	public MutationManager getMutationManager() {
+		return mutation;
+	}
+
+	/**
+	 * Returns the reproduction manager that performs each reproduction.
+	 * 
+	 * @return the reproduction manager.
+	 */
+	public ReproductionManager getReproductionManager() {
+		return reproduction;
+	}
+}
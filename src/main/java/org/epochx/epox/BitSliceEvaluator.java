@@ -0,0 +1,181 @@
+package org.epochx.epox;
+
+import java.util.*;
+
+/**
+ * A <code>BitSliceEvaluator</code> evaluates boolean node trees over a whole
+ * set of cases at once, 64 cases at a time. Each Boolean variable is bound to
+ * an array of bits with one bit per case, where the value for the nth case is
+ * the bit <code>1L &lt;&lt; (n % 64)</code> of the word at index
+ * <code>n / 64</code>. Each node then combines the words of its children with
+ * bitwise operations, so a tree is only walked once per evaluation and each
+ * machine word operation evaluates 64 cases.
+ * 
+ * <p>
+ * The evaluator retains a pool of scratch words, which are reused by the nodes
+ * at each depth of the tree, so repeated evaluations do not allocate any new
+ * arrays once the pool has grown to the depth of the deepest tree. The array
+ * returned by <code>evaluate</code> belongs to the evaluator and is
+ * overwritten by the next evaluation.
+ * 
+ * <p>
+ * Only node trees which are closed over the Boolean data-type may be
+ * evaluated. Nodes which do not override the <code>evaluateBits</code> method
+ * of <code>Node</code> are evaluated one case at a time, with the variables
+ * assigned the values of that case. Instances are not thread-safe.
+ * 
+ * @see Node#evaluateBits(BitSliceEvaluator, int, long[])
+ * @see org.epochx.tools.util.BoolUtils#generateBitSequences(int)
+ */
+public class BitSliceEvaluator {
+
+	// The number of cases and the number of words to hold them.
+	private final int noCases;
+	private final int noWords;
+
+	// The bound variables and their bits.
+	private final Map<Variable, long[]> bits;
+
+	// Scratch words indexed by depth and then slot.
+	private final List<long[][]> buffers;
+
+	// The words returned as the result.
+	private final long[] result;
+
+	/**
+	 * Constructs a <code>BitSliceEvaluator</code> for the given number of
+	 * cases.
+	 * 
+	 * @param noCases the number of cases to evaluate.
+	 */
+	public BitSliceEvaluator(final int noCases) {
+		if (noCases < 0) {
+			throw new IllegalArgumentException("number of cases must not be negative");
+		}
+
+		this.noCases = noCases;
+
+		noWords = (noCases + 63) / 64;
+		bits = new LinkedHashMap<Variable, long[]>();
+		buffers = new ArrayList<long[][]>();
+		result = new long[noWords];
+	}
+
+	/**
+	 * Binds a Boolean variable to an array of bits. The array is not copied,
+	 * so changes to its values are seen by subsequent evaluations.
+	 * 
+	 * @param variable the variable to bind.
+	 * @param values the values of the variable, one bit for each case.
+	 */
+	public void bind(final Variable variable, final long[] values) {
+		if (variable.getReturnType() != Boolean.class) {
+			throw new IllegalArgumentException("variable must be of data-type Boolean");
+		} else if (values.length != noWords) {
+			throw new IllegalArgumentException("bits must hold exactly the number of cases");
+		}
+
+		bits.put(variable, values);
+	}
+
+	/**
+	 * Removes the bits of all bound variables, so that the evaluator may be
+	 * reused with different variables.
+	 */
+	public void unbindAll() {
+		bits.clear();
+	}
+
+	/**
+	 * Evaluates the node tree over all cases. Bits beyond the last case are
+	 * always zero.
+	 * 
+	 * @param root the root node of the tree to evaluate.
+	 * @return the result for each case, one bit per case. The array is reused
+	 *         by the next evaluation.
+	 */
+	public long[] evaluate(final Node root) {
+		if (!NodeUtils.isClosed(root, Boolean.class)) {
+			throw new IllegalArgumentException("node tree must be closed over Boolean");
+		}
+
+		root.evaluateBits(this, 0, result);
+
+		if ((noCases % 64) != 0) {
+			result[noWords - 1] &= (1L << noCases) - 1;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of cases evaluated.
+	 * 
+	 * @return the number of cases.
+	 */
+	public int getNoCases() {
+		return noCases;
+	}
+
+	/**
+	 * Returns the number of words needed to hold one bit for each case.
+	 * 
+	 * @return the length of each array of bits.
+	 */
+	public int getNoWords() {
+		return noWords;
+	}
+
+	/**
+	 * Returns the bits a variable is bound to.
+	 * 
+	 * @param variable the bound variable.
+	 * @return the variable's values, one bit for each case.
+	 */
+	public long[] getBits(final Variable variable) {
+		final long[] values = bits.get(variable);
+		if (values == null) {
+			throw new IllegalStateException("variable " + variable + " is not bound");
+		}
+		return values;
+	}
+
+	/**
+	 * Returns scratch words for a node at the given depth to evaluate one of
+	 * its children into. Each node may use a different slot for each of its
+	 * children whose results it needs at the same time. The words are only
+	 * valid until the node at that depth returns.
+	 * 
+	 * @param depth the depth of the node requesting the words.
+	 * @param slot the index of the words at that depth.
+	 * @return an array of words with one bit for each case.
+	 */
+	public long[] getBuffer(final int depth, final int slot) {
+		while (buffers.size() <= depth) {
+			buffers.add(new long[0][]);
+		}
+
+		long[][] words = buffers.get(depth);
+		if (words.length <= slot) {
+			words = Arrays.copyOf(words, slot + 1);
+			buffers.set(depth, words);
+		}
+		if (words[slot] == null) {
+			words[slot] = new long[noWords];
+		}
+
+		return words[slot];
+	}
+
+	/**
+	 * Assigns every bound variable the value of its bit for the given case.
+	 * This is used by nodes that are evaluated one case at a time.
+	 * 
+	 * @param row the index of the case.
+	 */
+	public void bindRow(final int row) {
+		for (final Map.Entry<Variable, long[]> entry: bits.entrySet()) {
+			entry.getKey().setValue((entry.getValue()[row >>> 6] & (1L << row)) != 0);
+		}
+	}
+}
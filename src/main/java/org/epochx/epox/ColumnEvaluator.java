@@ -0,0 +1,288 @@
+package org.epochx.epox;
+
+import java.util.*;
+
+/**
+ * A <code>ColumnEvaluator</code> evaluates node trees over a whole set of
+ * cases at once, rather than one case at a time. Each variable is bound to a
+ * column of values, with one value per case, and each node computes its
+ * result for every case before its parent uses it. A node tree is therefore
+ * only walked once per evaluation, and the work of each node is a simple loop
+ * over arrays.
+ * 
+ * <p>
+ * The evaluator retains a pool of scratch columns, which are reused by the
+ * nodes at each depth of the tree, so repeated evaluations do not allocate
+ * any new arrays once the pool has grown to the depth of the deepest tree.
+ * Columns returned by the <code>evaluate</code> methods belong to the
+ * evaluator and are overwritten by the next evaluation.
+ * 
+ * <p>
+ * Only node trees which are closed over the Double and Boolean data-types may
+ * be evaluated. Nodes which do not override the column methods of
+ * <code>Node</code> are evaluated one case at a time, with the variables
+ * assigned the values of that case. A tree is checked when it is prepared,
+ * which happens automatically the first time it is evaluated, and the result
+ * is retained so that later evaluations of the same tree skip the check. A
+ * tree that is modified after it was prepared must be prepared again. Instances
+ * are not thread-safe.
+ * 
+ * @see Node#evaluateDoubleColumn(ColumnEvaluator, int, double[])
+ * @see Node#evaluateBooleanColumn(ColumnEvaluator, int, boolean[])
+ */
+public class ColumnEvaluator {
+
+	// The number of values in each column.
+	private final int noCases;
+
+	// The bound variables and their columns.
+	private final Map<Variable, double[]> doubleColumns;
+	private final Map<Variable, boolean[]> booleanColumns;
+
+	// Scratch columns indexed by depth and then slot.
+	private final List<double[][]> doubleBuffers;
+	private final List<boolean[][]> booleanBuffers;
+
+	// The columns returned as results.
+	private final double[] doubleResult;
+	private final boolean[] booleanResult;
+
+	// The tree most recently prepared and the data-type it returns.
+	private Node preparedRoot;
+	private Class<?> preparedType;
+
+	/**
+	 * Constructs a <code>ColumnEvaluator</code> for columns of the given
+	 * number of cases.
+	 * 
+	 * @param noCases the number of values in each column.
+	 */
+	public ColumnEvaluator(final int noCases) {
+		if (noCases < 0) {
+			throw new IllegalArgumentException("number of cases must not be negative");
+		}
+
+		this.noCases = noCases;
+
+		doubleColumns = new LinkedHashMap<Variable, double[]>();
+		booleanColumns = new LinkedHashMap<Variable, boolean[]>();
+		doubleBuffers = new ArrayList<double[][]>();
+		booleanBuffers = new ArrayList<boolean[][]>();
+		doubleResult = new double[noCases];
+		booleanResult = new boolean[noCases];
+	}
+
+	/**
+	 * Binds a Double variable to a column of values. The column is not copied,
+	 * so changes to its values are seen by subsequent evaluations.
+	 * 
+	 * @param variable the variable to bind.
+	 * @param column the values of the variable, one for each case.
+	 */
+	public void bind(final Variable variable, final double[] column) {
+		if (variable.getReturnType() != Double.class) {
+			throw new IllegalArgumentException("variable must be of data-type Double");
+		} else if (column.length != noCases) {
+			throw new IllegalArgumentException("column length must equal the number of cases");
+		}
+
+		doubleColumns.put(variable, column);
+	}
+
+	/**
+	 * Binds a Boolean variable to a column of values. The column is not
+	 * copied, so changes to its values are seen by subsequent evaluations.
+	 * 
+	 * @param variable the variable to bind.
+	 * @param column the values of the variable, one for each case.
+	 */
+	public void bind(final Variable variable, final boolean[] column) {
+		if (variable.getReturnType() != Boolean.class) {
+			throw new IllegalArgumentException("variable must be of data-type Boolean");
+		} else if (column.length != noCases) {
+			throw new IllegalArgumentException("column length must equal the number of cases");
+		}
+
+		booleanColumns.put(variable, column);
+	}
+
+	/**
+	 * Removes the columns of all bound variables, so that the evaluator may be
+	 * reused with different variables.
+	 */
+	public void unbindAll() {
+		doubleColumns.clear();
+		booleanColumns.clear();
+	}
+
+	/**
+	 * Checks that the node tree is closed over the Double and Boolean
+	 * data-types and determines its return type, so that it may be evaluated
+	 * repeatedly without the whole tree being checked each time.
+	 * 
+	 * @param root the root node of the tree to prepare.
+	 */
+	public void prepare(final Node root) {
+		if (!NodeUtils.isClosed(root, Double.class, Boolean.class)) {
+			throw new IllegalArgumentException("node tree must be closed over Double and Boolean");
+		}
+
+		preparedRoot = root;
+		preparedType = root.getReturnType();
+	}
+
+	/**
+	 * Evaluates the node tree over all cases, where the root node returns
+	 * Double. The tree is prepared first unless it was the last tree to be
+	 * prepared.
+	 * 
+	 * @param root the root node of the tree to evaluate.
+	 * @return the result for each case. The array is reused by the next
+	 *         evaluation.
+	 */
+	public double[] evaluateDouble(final Node root) {
+		if (getReturnType(root) != Double.class) {
+			throw new IllegalArgumentException("node tree must return Double");
+		}
+
+		root.evaluateDoubleColumn(this, 0, doubleResult);
+
+		return doubleResult;
+	}
+
+	/**
+	 * Evaluates the node tree over all cases, where the root node returns
+	 * Boolean. The tree is prepared first unless it was the last tree to be
+	 * prepared.
+	 * 
+	 * @param root the root node of the tree to evaluate.
+	 * @return the result for each case. The array is reused by the next
+	 *         evaluation.
+	 */
+	public boolean[] evaluateBoolean(final Node root) {
+		if (getReturnType(root) != Boolean.class) {
+			throw new IllegalArgumentException("node tree must return Boolean");
+		}
+
+		root.evaluateBooleanColumn(this, 0, booleanResult);
+
+		return booleanResult;
+	}
+
+	/*
+	 * Returns the return type of the tree, preparing it if it is not the
+	 * prepared tree.
+	 */
+	private Class<?> getReturnType(final Node root) {
+		if (root != preparedRoot) {
+			prepare(root);
+		}
+		return preparedType;
+	}
+
+	/**
+	 * Returns the number of values in each column.
+	 * 
+	 * @return the number of cases.
+	 */
+	public int getNoCases() {
+		return noCases;
+	}
+
+	/**
+	 * Returns the column a Double variable is bound to.
+	 * 
+	 * @param variable the bound variable.
+	 * @return the variable's values, one for each case.
+	 */
+	public double[] getDoubleColumn(final Variable variable) {
+		final double[] column = doubleColumns.get(variable);
+		if (column == null) {
+			throw new IllegalStateException("variable " + variable + " is not bound");
+		}
+		return column;
+	}
+
+	/**
+	 * Returns the column a Boolean variable is bound to.
+	 * 
+	 * @param variable the bound variable.
+	 * @return the variable's values, one for each case.
+	 */
+	public boolean[] getBooleanColumn(final Variable variable) {
+		final boolean[] column = booleanColumns.get(variable);
+		if (column == null) {
+			throw new IllegalStateException("variable " + variable + " is not bound");
+		}
+		return column;
+	}
+
+	/**
+	 * Returns a scratch column for a node at the given depth to evaluate one of
+	 * its children into. Each node may use a different slot for each of its
+	 * children whose results it needs at the same time. The column is only
+	 * valid until the node at that depth returns.
+	 * 
+	 * @param depth the depth of the node requesting the column.
+	 * @param slot the index of the column at that depth.
+	 * @return a column of length equal to the number of cases.
+	 */
+	public double[] getDoubleBuffer(final int depth, final int slot) {
+		while (doubleBuffers.size() <= depth) {
+			doubleBuffers.add(new double[0][]);
+		}
+
+		double[][] buffers = doubleBuffers.get(depth);
+		if (buffers.length <= slot) {
+			buffers = Arrays.copyOf(buffers, slot + 1);
+			doubleBuffers.set(depth, buffers);
+		}
+		if (buffers[slot] == null) {
+			buffers[slot] = new double[noCases];
+		}
+
+		return buffers[slot];
+	}
+
+	/**
+	 * Returns a scratch column for a node at the given depth to evaluate one of
+	 * its children into. Each node may use a different slot for each of its
+	 * children whose results it needs at the same time. The column is only
+	 * valid until the node at that depth returns.
+	 * 
+	 * @param depth the depth of the node requesting the column.
+	 * @param slot the index of the column at that depth.
+	 * @return a column of length equal to the number of cases.
+	 */
+	public boolean[] getBooleanBuffer(final int depth, final int slot) {
+		while (booleanBuffers.size() <= depth) {
+			booleanBuffers.add(new boolean[0][]);
+		}
+
+		boolean[][] buffers = booleanBuffers.get(depth);
+		if (buffers.length <= slot) {
+			buffers = Arrays.copyOf(buffers, slot + 1);
+			booleanBuffers.set(depth, buffers);
+		}
+		if (buffers[slot] == null) {
+			buffers[slot] = new boolean[noCases];
+		}
+
+		return buffers[slot];
+	}
+
+	/**
+	 * Assigns every bound variable the value from its column for the given
+	 * case. This is used by nodes that are evaluated one case at a time.
+	 * 
+	 * @param row the index of the case.
+	 */
+	public void bindRow(final int row) {
+		for (final Map.Entry<Variable, double[]> entry: doubleColumns.entrySet()) {
+			entry.getKey().setValue(entry.getValue()[row]);
+		}
+		for (final Map.Entry<Variable, boolean[]> entry: booleanColumns.entrySet()) {
+			entry.getKey().setValue(entry.getValue()[row]);
+		}
+	}
+}
@@ -232,6 +232,59 @@ public class EpoxParser {
 		return node;
 	}
 
+	/**
+	 * Constructs a new instance of the function with the given name, with the
+	 * given child nodes, as if an Epox program applying that function to
+	 * those children had been parsed. This allows node trees to be built from
+	 * other representations of a program without rendering them as Epox
+	 * source.
+	 * 
+	 * @param name the identifier of a declared function.
+	 * @param children the child nodes of the new function node.
+	 * @return a new function node with the given children.
+	 * @throws MalformedProgramException if the function is unknown, the
+	 * number of children does not match its arity or their data-types are
+	 * invalid inputs to it.
+	 */
+	public Node newFunction(final String name, final Node ... children) throws MalformedProgramException {
+		final Node node = initialiseFunction(name);
+
+		if (node.getArity() != children.length) {
+			throw new MalformedProgramException("Function " + name + " requires " + node.getArity() + " arguments");
+		}
+		for (int i = 0; i < children.length; i++) {
+			node.setChild(i, children[i]);
+		}
+
+		if (node.getReturnType() == null) {
+			throw new MalformedProgramException("Input data-types for " + node.getIdentifier() + " are invalid");
+		}
+
+		return node;
+	}
+
+	/**
+	 * Returns the node for the given terminal, as if it had been parsed as an
+	 * Epox program. That is the declared variable with the identifier if there
+	 * is one, otherwise a new literal parsed from it.
+	 * 
+	 * @param identifier the name of a variable or the value of a literal.
+	 * @return the node for the terminal.
+	 * @throws MalformedProgramException if the identifier is neither a
+	 * declared variable nor a valid literal.
+	 */
+	public Node newTerminal(final String identifier) throws MalformedProgramException {
+		final Node node = parseTerminal(identifier);
+
+		if (node == null) {
+			throw new MalformedProgramException("Unknown terminal " + identifier + " encountered");
+		} else if (node.getReturnType() == null) {
+			throw new MalformedProgramException("Data-type of terminal " + node.getIdentifier() + " is null");
+		}
+
+		return node;
+	}
+
 	/*
 	 * Constructs and returns an instance of the function which matches the 
 	 * given name. The node collection is searched for an instance first, then 
@@ -1,5 +1,7 @@
 package org.epochx.epox;
 
+import java.util.Arrays;
+
 import org.apache.commons.lang.ObjectUtils;
 
 /**
@@ -39,6 +41,30 @@ public class Literal extends Node {
 		return value;
 	}
 
+	/**
+	 * Fills the result column with the value of this literal.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		Arrays.fill(result, ((Number) value).doubleValue());
+	}
+
+	/**
+	 * Fills the result column with the value of this literal.
+	 */
+	@Override
+	public void evaluateBooleanColumn(final ColumnEvaluator evaluator, final int depth, final boolean[] result) {
+		Arrays.fill(result, ((Boolean) value).booleanValue());
+	}
+
+	/**
+	 * Sets every bit of the result to the value of this literal.
+	 */
+	@Override
+	public void evaluateBits(final BitSliceEvaluator evaluator, final int depth, final long[] result) {
+		Arrays.fill(result, ((Boolean) value).booleanValue() ? -1L : 0L);
+	}
+
 	/**
 	 * Returns this node's string representation, which is the string
 	 * representation of the literal value.
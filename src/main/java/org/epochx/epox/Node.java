@@ -39,6 +39,26 @@ import org.epochx.tools.util.TypeUtils;
  * override the getReturnType(Class&lt;?&gt;) method to indicate their return
  * type. The <code>clone</code> and <code>newInstance</code> methods are also
  * heavily used, so implementations should ensure they are sufficient.
+ * 
+ * <p>
+ * Nodes may also be evaluated to a primitive value with the
+ * <code>evaluateDouble</code>, <code>evaluateInt</code> and
+ * <code>evaluateBoolean</code> methods, which avoid boxing the result. By
+ * default these methods unbox the result of <code>evaluate</code>. Functions
+ * which override them evaluate their children with the typed method that
+ * matches the child's expected data-type, so the typed methods are only
+ * equivalent to <code>evaluate</code> for node trees in which every node
+ * returns either Double or Boolean, or in which every node returns Integer.
+ * <code>NodeUtils.isClosed</code> can be used to check this once before
+ * evaluating a tree many times.
+ * 
+ * <p>
+ * Trees closed over Double and Boolean may also be evaluated over many cases
+ * at once by a <code>ColumnEvaluator</code>, using the
+ * <code>evaluateDoubleColumn</code> and <code>evaluateBooleanColumn</code>
+ * methods. Trees closed over Boolean may be evaluated over 64 cases at a time
+ * by a <code>BitSliceEvaluator</code>, using the <code>evaluateBits</code>
+ * method.
  */
 public abstract class Node implements Cloneable {
 
@@ -65,6 +85,110 @@ public abstract class Node implements Cloneable {
 	 */
 	public abstract Object evaluate();
 
+	/**
+	 * Evaluates this node to a primitive double. The default implementation
+	 * returns the result of <code>evaluate</code>, which must be numeric, as a
+	 * double. Subclasses that return Double should override this method to
+	 * avoid boxing.
+	 * 
+	 * @return the result of evaluating the node tree rooted at this node as a
+	 *         double.
+	 */
+	public double evaluateDouble() {
+		return ((Number) evaluate()).doubleValue();
+	}
+
+	/**
+	 * Evaluates this node to a primitive int. The default implementation
+	 * returns the result of <code>evaluate</code>, which must be numeric, as
+	 * an int. Subclasses that return Integer should override this method to
+	 * avoid boxing.
+	 * 
+	 * @return the result of evaluating the node tree rooted at this node as an
+	 *         int.
+	 */
+	public int evaluateInt() {
+		return ((Number) evaluate()).intValue();
+	}
+
+	/**
+	 * Evaluates this node to a primitive boolean. The default implementation
+	 * returns the result of <code>evaluate</code>, which must be a Boolean.
+	 * Subclasses that return Boolean should override this method to avoid
+	 * boxing.
+	 * 
+	 * @return the result of evaluating the node tree rooted at this node as a
+	 *         boolean.
+	 */
+	public boolean evaluateBoolean() {
+		return ((Boolean) evaluate()).booleanValue();
+	}
+
+	/**
+	 * Evaluates this node for every case of the given column evaluator, where
+	 * this node returns Double. The default implementation evaluates one case
+	 * at a time with <code>evaluateDouble</code>, after assigning the values of
+	 * that case to the variables. Subclasses should override this method to
+	 * evaluate their children column-wise, using the evaluator's buffers at
+	 * this node's depth to hold the children's results.
+	 * 
+	 * @param evaluator the column evaluator which holds the variable columns
+	 *        and scratch buffers.
+	 * @param depth the depth of this node in the tree being evaluated.
+	 * @param result the column to store the result for each case in.
+	 */
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		for (int i = 0; i < result.length; i++) {
+			evaluator.bindRow(i);
+			result[i] = evaluateDouble();
+		}
+	}
+
+	/**
+	 * Evaluates this node for every case of the given column evaluator, where
+	 * this node returns Boolean. The default implementation evaluates one case
+	 * at a time with <code>evaluateBoolean</code>, after assigning the values
+	 * of that case to the variables. Subclasses should override this method to
+	 * evaluate their children column-wise, using the evaluator's buffers at
+	 * this node's depth to hold the children's results.
+	 * 
+	 * @param evaluator the column evaluator which holds the variable columns
+	 *        and scratch buffers.
+	 * @param depth the depth of this node in the tree being evaluated.
+	 * @param result the column to store the result for each case in.
+	 */
+	public void evaluateBooleanColumn(final ColumnEvaluator evaluator, final int depth, final boolean[] result) {
+		for (int i = 0; i < result.length; i++) {
+			evaluator.bindRow(i);
+			result[i] = evaluateBoolean();
+		}
+	}
+
+	/**
+	 * Evaluates this node for every case of the given bit-slice evaluator,
+	 * where this node returns Boolean. The result for the nth case is stored as
+	 * the bit <code>1L &lt;&lt; (n % 64)</code> of the word at index
+	 * <code>n / 64</code>. The default implementation evaluates one case at a
+	 * time with <code>evaluateBoolean</code>, after assigning the values of
+	 * that case to the variables. Subclasses should override this method to
+	 * combine the bits of their children a word at a time, using the
+	 * evaluator's buffers at this node's depth to hold the children's results.
+	 * 
+	 * @param evaluator the bit-slice evaluator which holds the variable bits
+	 *        and scratch buffers.
+	 * @param depth the depth of this node in the tree being evaluated.
+	 * @param result the words to store the result for each case in.
+	 */
+	public void evaluateBits(final BitSliceEvaluator evaluator, final int depth, final long[] result) {
+		Arrays.fill(result, 0L);
+		for (int i = 0; i < evaluator.getNoCases(); i++) {
+			evaluator.bindRow(i);
+			if (evaluateBoolean()) {
+				result[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+
 	/**
 	 * Returns an array of this node's children.
 	 * 
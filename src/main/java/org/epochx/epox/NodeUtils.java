@@ -223,4 +223,47 @@ public final class NodeUtils {
 		return variables;
 	}
 
+	/**
+	 * Tests whether every node in the given node tree has one of the given
+	 * data-types as its return type. A node tree that is closed over Double and
+	 * Boolean, or over Integer, may be evaluated with the primitive typed
+	 * evaluation methods of <code>Node</code>.
+	 * 
+	 * @param root the root node of the node tree to test.
+	 * @param types the allowable return types.
+	 * @return true if the return type of every node in the tree is one of the
+	 *         given types, and false otherwise.
+	 */
+	public static boolean isClosed(final Node root, final Class<?> ... types) {
+		if (root == null) {
+			throw new IllegalArgumentException("root must not be null");
+		}
+
+		return (getClosedType(root, Arrays.asList(types)) != null);
+	}
+
+	/*
+	 * Recursive helper for isClosed, which returns the return type of the node
+	 * or null if it or any node below it is not one of the types.
+	 */
+	private static Class<?> getClosedType(final Node node, final List<Class<?>> types) {
+		final int arity = node.getArity();
+		final Class<?>[] inputTypes = new Class<?>[arity];
+		for (int i = 0; i < arity; i++) {
+			final Node child = node.getChild(i);
+			if (child == null) {
+				return null;
+			}
+
+			inputTypes[i] = getClosedType(child, types);
+			if (inputTypes[i] == null) {
+				return null;
+			}
+		}
+
+		final Class<?> returnType = node.getReturnType(inputTypes);
+
+		return types.contains(returnType) ? returnType : null;
+	}
+
 }
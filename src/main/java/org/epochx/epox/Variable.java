@@ -95,6 +95,32 @@ public class Variable extends Node {
 		return value;
 	}
 
+	/**
+	 * Copies the column of values this variable is bound to in the column
+	 * evaluator.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		System.arraycopy(evaluator.getDoubleColumn(this), 0, result, 0, result.length);
+	}
+
+	/**
+	 * Copies the column of values this variable is bound to in the column
+	 * evaluator.
+	 */
+	@Override
+	public void evaluateBooleanColumn(final ColumnEvaluator evaluator, final int depth, final boolean[] result) {
+		System.arraycopy(evaluator.getBooleanColumn(this), 0, result, 0, result.length);
+	}
+
+	/**
+	 * Copies the bits this variable is bound to in the bit-slice evaluator.
+	 */
+	@Override
+	public void evaluateBits(final BitSliceEvaluator evaluator, final int depth, final long[] result) {
+		System.arraycopy(evaluator.getBits(this), 0, result, 0, result.length);
+	}
+
 	/**
 	 * Returns the name of this variable.
 	 * 
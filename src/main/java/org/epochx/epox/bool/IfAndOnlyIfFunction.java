@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.bool;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.TypeUtils;
 
 /**
@@ -62,6 +62,49 @@ public class IfAndOnlyIfFunction extends Node {
 		return (c1 && c2) || (!c1 && !c2);
 	}
 
+	/**
+	 * Evaluates this function as a primitive boolean, with the child nodes
+	 * evaluated using their <code>evaluateBoolean</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public boolean evaluateBoolean() {
+		final boolean c1 = getChild(0).evaluateBoolean();
+		final boolean c2 = getChild(1).evaluateBoolean();
+
+		return (c1 && c2) || (!c1 && !c2);
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateBooleanColumn(final ColumnEvaluator evaluator, final int depth, final boolean[] result) {
+		getChild(0).evaluateBooleanColumn(evaluator, depth + 1, result);
+		final boolean[] c2 = evaluator.getBooleanBuffer(depth, 0);
+		getChild(1).evaluateBooleanColumn(evaluator, depth + 1, c2);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = result[i] == c2[i];
+		}
+	}
+
+	/**
+	 * Evaluates this function over every case of the bit-slice evaluator, 64
+	 * cases at a time.
+	 */
+	@Override
+	public void evaluateBits(final BitSliceEvaluator evaluator, final int depth, final long[] result) {
+		getChild(0).evaluateBits(evaluator, depth + 1, result);
+		final long[] c2 = evaluator.getBuffer(depth, 0);
+		getChild(1).evaluateBits(evaluator, depth + 1, c2);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = ~(result[i] ^ c2[i]);
+		}
+	}
+
 	/**
 	 * Returns the identifier of this function which is IFF.
 	 */
@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.lang;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.TypeUtils;
 
 /**
@@ -70,6 +70,106 @@ public class IfFunction extends Node {
 		}
 	}
 
+	/**
+	 * Evaluates this function as a primitive double. The condition is evaluated
+	 * with its <code>evaluateBoolean</code> method, and the chosen branch with
+	 * its <code>evaluateDouble</code> method.
+	 */
+	@Override
+	public double evaluateDouble() {
+		if (getChild(0).evaluateBoolean()) {
+			return getChild(1).evaluateDouble();
+		} else {
+			return getChild(2).evaluateDouble();
+		}
+	}
+
+	/**
+	 * Evaluates this function as a primitive int. The condition is evaluated
+	 * with its <code>evaluateBoolean</code> method, and the chosen branch with
+	 * its <code>evaluateInt</code> method.
+	 */
+	@Override
+	public int evaluateInt() {
+		if (getChild(0).evaluateBoolean()) {
+			return getChild(1).evaluateInt();
+		} else {
+			return getChild(2).evaluateInt();
+		}
+	}
+
+	/**
+	 * Evaluates this function as a primitive boolean. The condition is
+	 * evaluated with its <code>evaluateBoolean</code> method, and the chosen
+	 * branch with its <code>evaluateBoolean</code> method.
+	 */
+	@Override
+	public boolean evaluateBoolean() {
+		if (getChild(0).evaluateBoolean()) {
+			return getChild(1).evaluateBoolean();
+		} else {
+			return getChild(2).evaluateBoolean();
+		}
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator. Both
+	 * branches are evaluated column-wise, and the result for each case is taken
+	 * from the branch chosen by the condition.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		final boolean[] condition = evaluator.getBooleanBuffer(depth, 0);
+		final double[] otherwise = evaluator.getDoubleBuffer(depth, 0);
+		getChild(0).evaluateBooleanColumn(evaluator, depth + 1, condition);
+		getChild(1).evaluateDoubleColumn(evaluator, depth + 1, result);
+		getChild(2).evaluateDoubleColumn(evaluator, depth + 1, otherwise);
+
+		for (int i = 0; i < result.length; i++) {
+			if (!condition[i]) {
+				result[i] = otherwise[i];
+			}
+		}
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator. Both
+	 * branches are evaluated column-wise, and the result for each case is taken
+	 * from the branch chosen by the condition.
+	 */
+	@Override
+	public void evaluateBooleanColumn(final ColumnEvaluator evaluator, final int depth, final boolean[] result) {
+		final boolean[] condition = evaluator.getBooleanBuffer(depth, 0);
+		final boolean[] otherwise = evaluator.getBooleanBuffer(depth, 1);
+		getChild(0).evaluateBooleanColumn(evaluator, depth + 1, condition);
+		getChild(1).evaluateBooleanColumn(evaluator, depth + 1, result);
+		getChild(2).evaluateBooleanColumn(evaluator, depth + 1, otherwise);
+
+		for (int i = 0; i < result.length; i++) {
+			if (!condition[i]) {
+				result[i] = otherwise[i];
+			}
+		}
+	}
+
+	/**
+	 * Evaluates this function over every case of the bit-slice evaluator, 64
+	 * cases at a time. Both branches are evaluated, and the bit for each case
+	 * is taken from the branch chosen by the condition.
+	 */
+	@Override
+	public void evaluateBits(final BitSliceEvaluator evaluator, final int depth, final long[] result) {
+		final long[] condition = evaluator.getBuffer(depth, 0);
+		final long[] otherwise = evaluator.getBuffer(depth, 1);
+		getChild(0).evaluateBits(evaluator, depth + 1, condition);
+		getChild(1).evaluateBits(evaluator, depth + 1, result);
+		getChild(2).evaluateBits(evaluator, depth + 1, otherwise);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (condition[i] & result[i]) | (~condition[i] & otherwise[i]);
+		}
+	}
+
 	/**
 	 * Returns the identifier of this function which is IF.
 	 */
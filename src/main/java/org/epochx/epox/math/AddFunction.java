@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.math;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.*;
 
 /**
@@ -100,6 +100,41 @@ public class AddFunction extends Node {
 		return null;
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		return getChild(0).evaluateDouble() + getChild(1).evaluateDouble();
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		getChild(0).evaluateDoubleColumn(evaluator, depth + 1, result);
+		final double[] c2 = evaluator.getDoubleBuffer(depth, 0);
+		getChild(1).evaluateDoubleColumn(evaluator, depth + 1, c2);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = result[i] + c2[i];
+		}
+	}
+
+	/**
+	 * Evaluates this function as a primitive int, with the child nodes
+	 * evaluated using their <code>evaluateInt</code> method. The result is the
+	 * same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public int evaluateInt() {
+		return getChild(0).evaluateInt() + getChild(1).evaluateInt();
+	}
+
 	/**
 	 * Returns the identifier of this function which is ADD.
 	 */
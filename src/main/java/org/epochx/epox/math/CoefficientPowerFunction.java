@@ -82,6 +82,20 @@ public class CoefficientPowerFunction extends Node {
 		return null;
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		final double d1 = getChild(0).evaluateDouble();
+		final double d2 = getChild(1).evaluateDouble();
+		final double d3 = getChild(2).evaluateDouble();
+
+		return d1 * (Math.pow(d2, d3));
+	}
+
 	/**
 	 * Returns the identifier of this function which is CVP.
 	 */
@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.math;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.*;
 
 /**
@@ -72,6 +72,39 @@ public class CubeFunction extends Node {
 		}
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		return Math.pow(getChild(0).evaluateDouble(), 3);
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		getChild(0).evaluateDoubleColumn(evaluator, depth + 1, result);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = Math.pow(result[i], 3);
+		}
+	}
+
+	/**
+	 * Evaluates this function as a primitive int, with the child nodes
+	 * evaluated using their <code>evaluateInt</code> method. The result is the
+	 * same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public int evaluateInt() {
+		return (int) Math.pow(getChild(0).evaluateInt(), 3);
+	}
+
 	/**
 	 * Returns the identifier of this function which is CUBE.
 	 */
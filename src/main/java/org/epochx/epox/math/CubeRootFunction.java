@@ -59,6 +59,16 @@ public class CubeRootFunction extends Node {
 		return Math.cbrt(NumericUtils.asDouble(c));
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		return Math.cbrt(getChild(0).evaluateDouble());
+	}
+
 	/**
 	 * Returns the identifier of this function which is CBRT.
 	 */
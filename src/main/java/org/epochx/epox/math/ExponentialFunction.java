@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.math;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.*;
 
 /**
@@ -60,6 +60,29 @@ public class ExponentialFunction extends Node {
 		return Math.exp(NumericUtils.asDouble(c));
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		return Math.exp(getChild(0).evaluateDouble());
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		getChild(0).evaluateDoubleColumn(evaluator, depth + 1, result);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = Math.exp(result[i]);
+		}
+	}
+
 	/**
 	 * Returns the identifier of this function which is EXP.
 	 */
@@ -75,6 +75,23 @@ public class FactorialFunction extends Node {
 		}
 	}
 
+	/**
+	 * Evaluates this function as a primitive int, with the child nodes
+	 * evaluated using their <code>evaluateInt</code> method. The result is the
+	 * same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public int evaluateInt() {
+		final long cint = Math.abs((long) getChild(0).evaluateInt());
+
+		long factorial = 1;
+		for (long i = 1; i <= cint; i++) {
+			factorial = factorial * i;
+		}
+
+		return (int) factorial;
+	}
+
 	/**
 	 * Returns the identifier of this function which is FACTORIAL.
 	 */
@@ -96,6 +96,22 @@ public class InvertProtectedFunction extends Node {
 		}
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		final double c = getChild(0).evaluateDouble();
+
+		if (c == 0) {
+			return protectionValue;
+		} else {
+			return 1 / c;
+		}
+	}
+
 	/**
 	 * Returns the identifier of this function which is INV.
 	 */
@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.math;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.*;
 
 /**
@@ -67,6 +67,32 @@ public class LessThanFunction extends Node {
 		return (value1 < value2);
 	}
 
+	/**
+	 * Evaluates this function as a primitive boolean, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public boolean evaluateBoolean() {
+		return getChild(0).evaluateDouble() < getChild(1).evaluateDouble();
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateBooleanColumn(final ColumnEvaluator evaluator, final int depth, final boolean[] result) {
+		final double[] c1 = evaluator.getDoubleBuffer(depth, 0);
+		final double[] c2 = evaluator.getDoubleBuffer(depth, 1);
+		getChild(0).evaluateDoubleColumn(evaluator, depth + 1, c1);
+		getChild(1).evaluateDoubleColumn(evaluator, depth + 1, c2);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = c1[i] < c2[i];
+		}
+	}
+
 	/**
 	 * Returns the identifier of this function which is LT.
 	 */
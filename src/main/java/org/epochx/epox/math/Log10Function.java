@@ -60,6 +60,16 @@ public class Log10Function extends Node {
 		return Math.log10(c);
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		return Math.log10(getChild(0).evaluateDouble());
+	}
+
 	/**
 	 * Returns the identifier of this function which is LOG-10.
 	 */
@@ -21,6 +21,8 @@
  */
 package org.epochx.epox.math;
 
+import java.util.Arrays;
+
 import org.epochx.epox.*;
 import org.epochx.tools.util.*;
 
@@ -105,6 +107,56 @@ public class MaxFunction extends Node {
 		}
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		final int arity = getArity();
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < arity; i++) {
+			max = Math.max(getChild(i).evaluateDouble(), max);
+		}
+		return max;
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		final double[] c = evaluator.getDoubleBuffer(depth, 0);
+
+		Arrays.fill(result, Double.NEGATIVE_INFINITY);
+		for (int i = 0; i < getArity(); i++) {
+			getChild(i).evaluateDoubleColumn(evaluator, depth + 1, c);
+
+			for (int j = 0; j < result.length; j++) {
+				result[j] = Math.max(c[j], result[j]);
+			}
+		}
+	}
+
+	/**
+	 * Evaluates this function as a primitive int, with the child nodes
+	 * evaluated using their <code>evaluateInt</code> method. The result is the
+	 * same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public int evaluateInt() {
+		final int arity = getArity();
+
+		int max = Integer.MIN_VALUE;
+		for (int i = 0; i < arity; i++) {
+			max = Math.max(getChild(i).evaluateInt(), max);
+		}
+		return max;
+	}
+
 	/**
 	 * Returns the identifier of this function which is MAX.
 	 */
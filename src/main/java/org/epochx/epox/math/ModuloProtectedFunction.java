@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.math;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.*;
 
 /**
@@ -90,6 +90,47 @@ public class ModuloProtectedFunction extends Node {
 		}
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		final double d1 = getChild(0).evaluateDouble();
+		final double d2 = getChild(1).evaluateDouble();
+
+		return (d2 == 0) ? d1 : (d1 % d2);
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		getChild(0).evaluateDoubleColumn(evaluator, depth + 1, result);
+		final double[] c2 = evaluator.getDoubleBuffer(depth, 0);
+		getChild(1).evaluateDoubleColumn(evaluator, depth + 1, c2);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (c2[i] == 0) ? result[i] : (result[i] % c2[i]);
+		}
+	}
+
+	/**
+	 * Evaluates this function as a primitive int, with the child nodes
+	 * evaluated using their <code>evaluateInt</code> method. The result is the
+	 * same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public int evaluateInt() {
+		final int i1 = getChild(0).evaluateInt();
+		final int i2 = getChild(1).evaluateInt();
+
+		return (i2 == 0) ? i1 : (i1 % i2);
+	}
+
 	/**
 	 * Returns the identifier of this function which is MOD.
 	 */
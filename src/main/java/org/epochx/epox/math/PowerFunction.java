@@ -21,7 +21,7 @@
  */
 package org.epochx.epox.math;
 
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.tools.util.*;
 
 /**
@@ -75,6 +75,37 @@ public class PowerFunction extends Node {
 		}
 	}
 
+	/**
+	 * Evaluates this function as a primitive double, with the child nodes
+	 * evaluated using their <code>evaluateDouble</code> method. The result is
+	 * the same as <code>evaluate</code> but without boxing.
+	 */
+	@Override
+	public double evaluateDouble() {
+		final double c2 = getChild(1).evaluateDouble();
+
+		if (c2 == 0.0) {
+			return 1.0;
+		} else {
+			return Math.pow(getChild(0).evaluateDouble(), c2);
+		}
+	}
+
+	/**
+	 * Evaluates this function over every case of the column evaluator, with the
+	 * children evaluated column-wise.
+	 */
+	@Override
+	public void evaluateDoubleColumn(final ColumnEvaluator evaluator, final int depth, final double[] result) {
+		getChild(0).evaluateDoubleColumn(evaluator, depth + 1, result);
+		final double[] c2 = evaluator.getDoubleBuffer(depth, 0);
+		getChild(1).evaluateDoubleColumn(evaluator, depth + 1, c2);
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (c2[i] == 0.0) ? 1.0 : Math.pow(result[i], c2[i]);
+		}
+	}
+
 	/**
 	 * Returns the identifier of this function which is POW.
 	 */
@@ -0,0 +1,566 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.mapper;
+
+import java.util.*;
+
+import org.epochx.tools.grammar.*;
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * A <code>DepthFirstMapper</code> maps the codons of a grammatical evolution
+ * genome to a derivation of its grammar. The leftmost unresolved non-terminal
+ * is resolved at each step with the production chosen by the next codon,
+ * modulo the number of productions of its rule. No codon is used to resolve a
+ * rule with only one production. If the end of the genome is reached before
+ * the derivation is complete, then the codons are reused from the start, up
+ * to a maximum number of wraps, after which the mapping fails.
+ * 
+ * <p>
+ * The grammar is compiled into tables of integers when the mapper is
+ * constructed, so mapping involves no lookups of grammar objects. Each
+ * terminal which stands for a generated value, such as
+ * <code>RANDFLOAT(0.0,1.0)</code>, takes its value from the generator with the
+ * next codons in place of random numbers. Generators whose range depends on
+ * the dataset, such as <code>RANDINT_TYPE1</code>, are given the numbers of
+ * labels and attributes that the mapper was constructed with.
+ * 
+ * <p>
+ * The result of a mapping is a <code>Derivation</code>, which records the
+ * codons read by each step. A genome whose first codons are the same as those
+ * of a genome that has already been mapped, such as the offspring of a
+ * one-point crossover or a mutation near the end of a genome, may be mapped by
+ * resuming from the last step of the earlier derivation that only read those
+ * codons, so only the changed suffix is mapped again. Instances are
+ * immutable, so may be used by any number of threads.
+ */
+public class DepthFirstMapper {
+
+	private final Grammar grammar;
+
+	// The exclusive upper bound of the codon values.
+	private final int maxCodonSize;
+
+	// The production number of each production.
+	private final GrammarProduction[] productions;
+
+	// The production numbers of each rule, by rule index.
+	private final int[][] ruleProductions;
+
+	// The rules and generated literals of each production, by production
+	// number. A rule is its index and a generated literal is -(index + 1).
+	private final int[][] productionChildren;
+
+	// The generated literals, by index.
+	private final GrammarConstant[] constants;
+
+	// The index of the start rule.
+	private final int startRule;
+
+	// The dataset sizes given to the generators of values.
+	private final int noLabels;
+	private final int noAttributes;
+
+	/**
+	 * Constructs a <code>DepthFirstMapper</code> for the given grammar, whose
+	 * generated values do not depend on the dataset.
+	 * 
+	 * @param grammar the grammar that genomes are mapped to derivations of.
+	 * @param maxCodonSize the exclusive upper bound of the codon values, which
+	 *        is used to scale codons into the range of random doubles for
+	 *        generated values.
+	 */
+	public DepthFirstMapper(final Grammar grammar, final int maxCodonSize) {
+		this(grammar, maxCodonSize, 0, 0);
+	}
+
+	/**
+	 * Constructs a <code>DepthFirstMapper</code> for the given grammar.
+	 * 
+	 * @param grammar the grammar that genomes are mapped to derivations of.
+	 * @param maxCodonSize the exclusive upper bound of the codon values, which
+	 *        is used to scale codons into the range of random doubles for
+	 *        generated values.
+	 * @param noLabels the number of labels of the dataset, for generated
+	 *        values whose range depends on it.
+	 * @param noAttributes the number of attributes of the dataset, for
+	 *        generated values whose range depends on it.
+	 */
+	public DepthFirstMapper(final Grammar grammar, final int maxCodonSize, final int noLabels,
+			final int noAttributes) {
+		if (grammar == null) {
+			throw new IllegalArgumentException("grammar must not be null");
+		} else if (maxCodonSize < 1) {
+			throw new IllegalArgumentException("maxCodonSize must be greater than 0");
+		} else if ((noLabels < 0) || (noAttributes < 0)) {
+			throw new IllegalArgumentException("noLabels and noAttributes must not be negative");
+		}
+
+		this.grammar = grammar;
+		this.maxCodonSize = maxCodonSize;
+		this.noLabels = noLabels;
+		this.noAttributes = noAttributes;
+
+		// Index the rules.
+		final List<GrammarRule> rules = grammar.getGrammarRules();
+		final Map<GrammarRule, Integer> ruleIndexes = new IdentityHashMap<GrammarRule, Integer>();
+		for (int i = 0; i < rules.size(); i++) {
+			ruleIndexes.put(rules.get(i), i);
+		}
+
+		ruleProductions = new int[rules.size()][];
+		for (int i = 0; i < rules.size(); i++) {
+			final GrammarRule rule = rules.get(i);
+			ruleProductions[i] = new int[rule.getNoProductions()];
+			for (int j = 0; j < rule.getNoProductions(); j++) {
+				ruleProductions[i][j] = grammar.getProductionNumber(rule.getProduction(j));
+			}
+		}
+
+		// Compile the productions.
+		final int noProductions = grammar.getNoProductions();
+		final List<GrammarConstant> constantList = new ArrayList<GrammarConstant>();
+		final Map<GrammarConstant, Integer> constantIndexes = new IdentityHashMap<GrammarConstant, Integer>();
+
+		productions = new GrammarProduction[noProductions];
+		productionChildren = new int[noProductions][];
+		for (int i = 0; i < noProductions; i++) {
+			productions[i] = grammar.getProduction(i);
+
+			final List<Integer> children = new ArrayList<Integer>();
+			for (final GrammarNode node: productions[i].getGrammarNodes()) {
+				if (node instanceof GrammarRule) {
+					children.add(ruleIndexes.get(node));
+				} else if (node instanceof GrammarConstant) {
+					Integer index = constantIndexes.get(node);
+					if (index == null) {
+						index = constantList.size();
+						constantList.add((GrammarConstant) node);
+						constantIndexes.put((GrammarConstant) node, index);
+					}
+					children.add(-(index + 1));
+				}
+			}
+
+			productionChildren[i] = new int[children.size()];
+			for (int j = 0; j < children.size(); j++) {
+				productionChildren[i][j] = children.get(j);
+			}
+		}
+
+		constants = constantList.toArray(new GrammarConstant[constantList.size()]);
+		startRule = ruleIndexes.get(grammar.getStartRule());
+	}
+
+	/**
+	 * Maps the given codons to a derivation of the grammar.
+	 * 
+	 * @param codons the genome to map.
+	 * @param maxWraps the maximum number of times the codons may be reused
+	 *        from the start.
+	 * @return the derivation of the codons, which may be incomplete.
+	 * @throws IllegalArgumentException if a generated value has an empty
+	 *         range, such as a <code>RANDINT_TYPE6</code> without labels.
+	 */
+	public Derivation map(final int[] codons, final int maxWraps) {
+		return map(codons, maxWraps, null, 0);
+	}
+
+	/**
+	 * Maps the given codons to a derivation of the grammar, resuming from a
+	 * derivation of another genome which has the same first
+	 * <code>noUnchanged</code> codons. The steps of that derivation which only
+	 * read those codons are reused.
+	 * 
+	 * @param codons the genome to map.
+	 * @param maxWraps the maximum number of times the codons may be reused
+	 *        from the start.
+	 * @param previous a derivation produced by this mapper for a genome with
+	 *        the same first codons, or <code>null</code> to map from the
+	 *        start.
+	 * @param noUnchanged the number of codons at the start of the genome that
+	 *        are the same as those of the previous genome.
+	 * @return the derivation of the codons, which may be incomplete.
+	 * @throws IllegalArgumentException if a generated value has an empty
+	 *         range, such as a <code>RANDINT_TYPE6</code> without labels.
+	 */
+	public Derivation map(final int[] codons, final int maxWraps, final Derivation previous, final int noUnchanged) {
+		if (maxWraps < 0) {
+			throw new IllegalArgumentException("maxWraps must not be negative");
+		} else if ((previous != null) && (previous.mapper != this)) {
+			throw new IllegalArgumentException("previous derivation was not produced by this mapper");
+		}
+
+		final Derivation d = new Derivation(this, codons.length);
+		final long limit = (long) codons.length * (maxWraps + 1);
+
+		int[] stack = new int[16];
+		int top = 0;
+		long count = 0;
+
+		if ((previous != null) && (noUnchanged > 0)) {
+			// Reuse the steps that only read unchanged codons.
+			final int k = previous.getNoStepsBefore(Math.min(noUnchanged, codons.length));
+			d.copySteps(previous, k);
+			count = (k == 0) ? 0 : previous.ends[k - 1];
+
+			// Replay them to find the unresolved symbols.
+			stack[top++] = startRule;
+			for (int i = 0; i < k; i++) {
+				top--;
+				if (previous.steps[i] >= 0) {
+					final int[] children = productionChildren[previous.steps[i]];
+					if (top + children.length > stack.length) {
+						stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + children.length));
+					}
+					for (int j = children.length - 1; j >= 0; j--) {
+						stack[top++] = children[j];
+					}
+				}
+			}
+		} else {
+			stack[top++] = startRule;
+		}
+
+		final CodonRandom rng = new CodonRandom(codons, maxCodonSize);
+
+		boolean failed = false;
+		while ((top > 0) && !failed) {
+			final int item = stack[--top];
+
+			if (item >= 0) {
+				final int[] choices = ruleProductions[item];
+				final int production;
+				if (choices.length == 1) {
+					production = choices[0];
+				} else if ((count >= limit) || (codons.length == 0)) {
+					failed = true;
+					break;
+				} else {
+					production = choices[codons[(int) (count % codons.length)] % choices.length];
+					count++;
+				}
+
+				d.addStep(production, null, count);
+
+				final int[] children = productionChildren[production];
+				if (top + children.length > stack.length) {
+					stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + children.length));
+				}
+				for (int j = children.length - 1; j >= 0; j--) {
+					stack[top++] = children[j];
+				}
+			} else {
+				rng.position = count;
+				rng.limit = limit;
+				final GrammarLiteral literal = constants[-item - 1].generate(rng, noLabels, noAttributes);
+
+				if (rng.position > limit) {
+					failed = true;
+				} else {
+					count = rng.position;
+					d.addStep(-1, literal, count);
+				}
+			}
+		}
+
+		d.complete = !failed;
+
+		return d;
+	}
+
+	/**
+	 * Returns the grammar that this mapper maps genomes to derivations of.
+	 * 
+	 * @return the grammar.
+	 */
+	public Grammar getGrammar() {
+		return grammar;
+	}
+
+	/**
+	 * Returns the exclusive upper bound of the codon values.
+	 * 
+	 * @return the maximum codon size.
+	 */
+	public int getMaxCodonSize() {
+		return maxCodonSize;
+	}
+
+	/**
+	 * Returns the number of labels of the dataset given to generated values.
+	 * 
+	 * @return the number of labels.
+	 */
+	public int getNoLabels() {
+		return noLabels;
+	}
+
+	/**
+	 * Returns the number of attributes of the dataset given to generated
+	 * values.
+	 * 
+	 * @return the number of attributes.
+	 */
+	public int getNoAttributes() {
+		return noAttributes;
+	}
+
+	/**
+	 * The result of mapping a genome. A derivation is a sequence of steps in
+	 * which the leftmost unresolved symbol is resolved, either by choosing a
+	 * production for a non-terminal or by generating a value. Instances are
+	 * immutable.
+	 */
+	public static final class Derivation {
+
+		private final DepthFirstMapper mapper;
+
+		// The production number chosen by each step, or -1 for a step which
+		// generated a value.
+		private int[] steps;
+
+		// The value generated by each step, or null.
+		private GrammarLiteral[] values;
+
+		// The number of codons read by the end of each step.
+		private long[] ends;
+
+		private int noSteps;
+
+		private boolean complete;
+
+		// The parse tree, built when first requested.
+		private FlatParseTree parseTree;
+
+		private Derivation(final DepthFirstMapper mapper, final int noCodons) {
+			this.mapper = mapper;
+
+			final int capacity = Math.max(16, noCodons * 2);
+			steps = new int[capacity];
+			values = new GrammarLiteral[capacity];
+			ends = new long[capacity];
+		}
+
+		/**
+		 * Returns the mapper which produced this derivation.
+		 * 
+		 * @return the mapper of the derivation.
+		 */
+		public DepthFirstMapper getMapper() {
+			return mapper;
+		}
+
+		/**
+		 * Returns whether the derivation resolved every non-terminal before
+		 * the codons ran out.
+		 * 
+		 * @return true if the mapping succeeded, false otherwise.
+		 */
+		public boolean isComplete() {
+			return complete;
+		}
+
+		/**
+		 * Returns the number of codon reads made by the derivation, which
+		 * includes any codons that were read again after wrapping.
+		 * 
+		 * @return the number of codons used.
+		 */
+		public long getNoCodonsUsed() {
+			return (noSteps == 0) ? 0 : ends[noSteps - 1];
+		}
+
+		/**
+		 * Returns the number of steps in the derivation.
+		 * 
+		 * @return the number of productions chosen and values generated.
+		 */
+		public int getNoSteps() {
+			return noSteps;
+		}
+
+		/**
+		 * Returns the parse tree of the derivation, which is built the first
+		 * time it is requested.
+		 * 
+		 * @return the parse tree, or <code>null</code> if the derivation is
+		 *         not complete.
+		 */
+		public FlatParseTree getParseTree() {
+			if (!complete) {
+				return null;
+			}
+
+			if (parseTree == null) {
+				parseTree = buildParseTree();
+			}
+
+			return parseTree;
+		}
+
+		/*
+		 * Returns the number of leading steps that only read codons before
+		 * the given position.
+		 */
+		private int getNoStepsBefore(final int position) {
+			// The ends are non-decreasing, so find the first beyond position.
+			int low = 0;
+			int high = noSteps;
+			while (low < high) {
+				final int mid = (low + high) >>> 1;
+				if (ends[mid] > position) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+
+			return low;
+		}
+
+		/*
+		 * Copies the first steps of another derivation.
+		 */
+		private void copySteps(final Derivation other, final int n) {
+			ensureCapacity(n);
+			System.arraycopy(other.steps, 0, steps, 0, n);
+			System.arraycopy(other.values, 0, values, 0, n);
+			System.arraycopy(other.ends, 0, ends, 0, n);
+			noSteps = n;
+		}
+
+		private void addStep(final int production, final GrammarLiteral value, final long end) {
+			ensureCapacity(noSteps + 1);
+			steps[noSteps] = production;
+			values[noSteps] = value;
+			ends[noSteps] = end;
+			noSteps++;
+		}
+
+		private void ensureCapacity(final int capacity) {
+			if (capacity > steps.length) {
+				final int newCapacity = Math.max(steps.length * 2, capacity);
+				steps = Arrays.copyOf(steps, newCapacity);
+				values = Arrays.copyOf(values, newCapacity);
+				ends = Arrays.copyOf(ends, newCapacity);
+			}
+		}
+
+		/*
+		 * Replays the steps into a flat parse tree.
+		 */
+		private FlatParseTree buildParseTree() {
+			final FlatParseTree.Builder builder = new FlatParseTree.Builder(mapper.grammar);
+
+			// The started non-terminals, their productions and the position of
+			// their next child.
+			int[] indexes = new int[16];
+			int[] productions = new int[16];
+			int[] positions = new int[16];
+			int level = 0;
+
+			int step = 0;
+			indexes[0] = builder.startNonTerminal(mapper.productions[steps[step]]);
+			productions[0] = steps[step++];
+			level = 1;
+
+			while (level > 0) {
+				final int[] children = mapper.productionChildren[productions[level - 1]];
+				final int position = positions[level - 1]++;
+
+				if (position == children.length) {
+					builder.endNonTerminal(indexes[--level]);
+				} else if (children[position] < 0) {
+					builder.addLiteral(values[step++]);
+				} else {
+					if (level == indexes.length) {
+						indexes = Arrays.copyOf(indexes, level * 2);
+						productions = Arrays.copyOf(productions, level * 2);
+						positions = Arrays.copyOf(positions, level * 2);
+					}
+					indexes[level] = builder.startNonTerminal(mapper.productions[steps[step]]);
+					productions[level] = steps[step++];
+					positions[level] = 0;
+					level++;
+				}
+			}
+
+			return builder.build();
+		}
+	}
+
+	/*
+	 * Supplies the next codons in place of random numbers, to generate values.
+	 */
+	private static final class CodonRandom implements RandomNumberGenerator {
+
+		private final int[] codons;
+		private final int maxCodonSize;
+
+		// The number of codons read and the number that may be read.
+		private long position;
+		private long limit;
+
+		public CodonRandom(final int[] codons, final int maxCodonSize) {
+			this.codons = codons;
+			this.maxCodonSize = maxCodonSize;
+		}
+
+		private int next() {
+			if ((position >= limit) || (codons.length == 0)) {
+				// Out of codons, the mapping will fail.
+				position = limit + 1;
+				return 0;
+			}
+			return codons[(int) (position++ % codons.length)];
+		}
+
+		@Override
+		public int nextInt(final int n) {
+			if (n <= 0) {
+				throw new IllegalArgumentException("n must be positive: " + n);
+			}
+			return next() % n;
+		}
+
+		@Override
+		public int nextInt() {
+			return next();
+		}
+
+		@Override
+		public double nextDouble() {
+			return (double) next() / maxCodonSize;
+		}
+
+		@Override
+		public boolean nextBoolean() {
+			return (next() & 1) == 1;
+		}
+
+		@Override
+		public void setSeed(final long seed) {
+			throw new IllegalStateException("method not supported");
+		}
+	}
+}
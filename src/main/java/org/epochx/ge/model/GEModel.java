@@ -0,0 +1,354 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.model;
+
+import java.io.*;
+
+import org.epochx.core.Model;
+import org.epochx.ge.mapper.DepthFirstMapper;
+import org.epochx.ge.op.crossover.OnePointCrossover;
+import org.epochx.ge.op.init.RandomInitialiser;
+import org.epochx.ge.op.mutation.PointMutation;
+import org.epochx.ge.representation.GECandidateProgram;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.tools.grammar.Grammar;
+
+/**
+ * Model implementation for performing grammatical evolution, in which each
+ * program is a linear genome of integer codons that is mapped to a parse tree
+ * of the grammar by a depth-first derivation.
+ */
+public abstract class GEModel extends Model {
+
+	// Control parameters.
+	private Grammar grammar;
+
+	private int maxWraps;
+	private int maxCodonSize;
+	private int initialChromosomeLength;
+	private int maxChromosomeLength;
+	private int maxDepth;
+	private int noLabels;
+	private int noAttributes;
+
+	// The mapper for the current grammar, constructed when first needed.
+	private DepthFirstMapper mapper;
+
+	/**
+	 * Construct a GEModel with a set of sensible defaults. See the appropriate
+	 * accessor method for information of each default value.
+	 */
+	public GEModel() {
+		// Set default parameter values.
+		grammar = null;
+
+		maxWraps = 1;
+		maxCodonSize = Integer.MAX_VALUE;
+		initialChromosomeLength = 100;
+		maxChromosomeLength = -1;
+		maxDepth = 14;
+		noLabels = 0;
+		noAttributes = 0;
+
+		// Operators.
+		setInitialiser(new RandomInitialiser(this));
+		setCrossover(new OnePointCrossover(this));
+		setMutation(new PointMutation(this));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void run() {
+		if (getGrammar() == null) {
+			throw new IllegalStateException("no grammar set");
+		}
+
+		super.run();
+	}
+
+	/**
+	 * Reads a program written by <code>GECandidateProgram.writeTo</code>.
+	 */
+	@Override
+	public CandidateProgram readProgram(final DataInput in) throws IOException {
+		return GECandidateProgram.readFrom(in, this);
+	}
+
+	/**
+	 * Returns the mapper which derives the parse trees of programs from their
+	 * codons, using the current grammar, maximum codon size and numbers of
+	 * labels and attributes.
+	 * 
+	 * @return the genotype to phenotype mapper.
+	 * @throws IllegalStateException if no grammar has been set.
+	 */
+	public DepthFirstMapper getMapper() {
+		if (mapper == null) {
+			if (grammar == null) {
+				throw new IllegalStateException("no grammar set");
+			}
+			mapper = new DepthFirstMapper(grammar, maxCodonSize, noLabels, noAttributes);
+		}
+
+		return mapper;
+	}
+
+	/**
+	 * Returns the grammar instance that determines the structure of the
+	 * programs to be evolved.
+	 * 
+	 * @return the language grammar that defines the syntax of solutions.
+	 */
+	public Grammar getGrammar() {
+		return grammar;
+	}
+
+	/**
+	 * Sets the grammar that defines the valid syntax of the programs to be
+	 * evolves.
+	 * 
+	 * @param grammar the language grammar to use to define the syntax of
+	 *        solutions.
+	 */
+	public void setGrammar(final Grammar grammar) {
+		if (grammar != null) {
+			this.grammar = grammar;
+			mapper = null;
+		} else {
+			throw new IllegalArgumentException("grammar must not be null");
+		}
+
+		assert (this.grammar != null);
+	}
+
+	/**
+	 * Returns the number of times that the mapping of a program may wrap
+	 * around to the start of its codons when it reaches the end of them, after
+	 * which the mapping fails.
+	 * 
+	 * <p>
+	 * Defaults to 1.
+	 * 
+	 * @return the maximum number of wraps allowed in mapping a program.
+	 */
+	public int getMaxWraps() {
+		return maxWraps;
+	}
+
+	/**
+	 * Overwrites the default maximum number of wraps.
+	 * 
+	 * @param maxWraps the maximum number of wraps allowed in mapping a
+	 *        program, or 0 for none.
+	 */
+	public void setMaxWraps(final int maxWraps) {
+		if (maxWraps >= 0) {
+			this.maxWraps = maxWraps;
+		} else {
+			throw new IllegalArgumentException("maxWraps must not be negative");
+		}
+
+		assert (this.maxWraps >= 0);
+	}
+
+	/**
+	 * Returns the exclusive upper bound of the codon values generated by the
+	 * operators.
+	 * 
+	 * <p>
+	 * Defaults to <code>Integer.MAX_VALUE</code>.
+	 * 
+	 * @return the maximum codon size.
+	 */
+	public int getMaxCodonSize() {
+		return maxCodonSize;
+	}
+
+	/**
+	 * Overwrites the default maximum codon size.
+	 * 
+	 * @param maxCodonSize the exclusive upper bound of codon values.
+	 */
+	public void setMaxCodonSize(final int maxCodonSize) {
+		if (maxCodonSize >= 1) {
+			this.maxCodonSize = maxCodonSize;
+			mapper = null;
+		} else {
+			throw new IllegalArgumentException("maxCodonSize must be greater than 0");
+		}
+
+		assert (this.maxCodonSize >= 1);
+	}
+
+	/**
+	 * Returns the number of codons in each program constructed at
+	 * initialisation.
+	 * 
+	 * <p>
+	 * Defaults to 100.
+	 * 
+	 * @return the length of the initial chromosomes.
+	 */
+	public int getInitialChromosomeLength() {
+		return initialChromosomeLength;
+	}
+
+	/**
+	 * Overwrites the default initial chromosome length.
+	 * 
+	 * @param initialChromosomeLength the number of codons in each program
+	 *        constructed at initialisation.
+	 */
+	public void setInitialChromosomeLength(final int initialChromosomeLength) {
+		if (initialChromosomeLength >= 1) {
+			this.initialChromosomeLength = initialChromosomeLength;
+		} else {
+			throw new IllegalArgumentException("initialChromosomeLength must be greater than 0");
+		}
+
+		assert (this.initialChromosomeLength >= 1);
+	}
+
+	/**
+	 * Returns the maximum number of codons allowed in a program. Crossovers
+	 * that result in a longer chromosome will not be allowed.
+	 * 
+	 * <p>
+	 * Defaults to -1, which indicates no limit.
+	 * 
+	 * @return the maximum chromosome length.
+	 */
+	public int getMaxChromosomeLength() {
+		return maxChromosomeLength;
+	}
+
+	/**
+	 * Overwrites the default maximum chromosome length.
+	 * 
+	 * <p>
+	 * Max length of -1 is allowed to indicate no limit.
+	 * 
+	 * @param maxChromosomeLength the maximum number of codons to allow in a
+	 *        program.
+	 */
+	public void setMaxChromosomeLength(final int maxChromosomeLength) {
+		if ((maxChromosomeLength >= 1) || (maxChromosomeLength == -1)) {
+			this.maxChromosomeLength = maxChromosomeLength;
+		} else {
+			throw new IllegalArgumentException("maxChromosomeLength must either be -1 or greater than 0");
+		}
+
+		assert ((this.maxChromosomeLength >= 1) || (this.maxChromosomeLength == -1));
+	}
+
+	/**
+	 * Returns the maximum depth of the parse trees allowed. Programs that map
+	 * to a deeper parse tree are invalid.
+	 * 
+	 * <p>
+	 * Defaults to 14.
+	 * 
+	 * @return the maximum depth of parse trees to allow.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Overwrites the default maximum allowable depth of a program's parse
+	 * tree.
+	 * 
+	 * <p>
+	 * Max depth of -1 is allowed to indicate no limit.
+	 * 
+	 * @param maxDepth the maximum depth to allow a program's parse tree.
+	 */
+	public void setMaxDepth(final int maxDepth) {
+		if ((maxDepth >= 1) || (maxDepth == -1)) {
+			this.maxDepth = maxDepth;
+		} else {
+			throw new IllegalArgumentException("maxDepth must either be -1 or greater than 0");
+		}
+
+		assert ((this.maxDepth >= 1) || (this.maxDepth == -1));
+	}
+
+	/**
+	 * Returns the number of labels of the dataset, from which the range of
+	 * generated values such as <code>RANDINT_TYPE1</code> is calculated.
+	 * 
+	 * <p>
+	 * Defaults to 0.
+	 * 
+	 * @return the number of labels.
+	 */
+	public int getNoLabels() {
+		return noLabels;
+	}
+
+	/**
+	 * Overwrites the default number of labels.
+	 * 
+	 * @param noLabels the number of labels of the dataset.
+	 */
+	public void setNoLabels(final int noLabels) {
+		if (noLabels >= 0) {
+			this.noLabels = noLabels;
+			mapper = null;
+		} else {
+			throw new IllegalArgumentException("noLabels must not be negative");
+		}
+
+		assert (this.noLabels >= 0);
+	}
+
+	/**
+	 * Returns the number of attributes of the dataset, from which the range
+	 * of generated values such as <code>RANDINT_TYPE4</code> is calculated.
+	 * 
+	 * <p>
+	 * Defaults to 0.
+	 * 
+	 * @return the number of attributes.
+	 */
+	public int getNoAttributes() {
+		return noAttributes;
+	}
+
+	/**
+	 * Overwrites the default number of attributes.
+	 * 
+	 * @param noAttributes the number of attributes of the dataset.
+	 */
+	public void setNoAttributes(final int noAttributes) {
+		if (noAttributes >= 0) {
+			this.noAttributes = noAttributes;
+			mapper = null;
+		} else {
+			throw new IllegalArgumentException("noAttributes must not be negative");
+		}
+
+		assert (this.noAttributes >= 0);
+	}
+}
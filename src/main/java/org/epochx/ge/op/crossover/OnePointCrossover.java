@@ -0,0 +1,170 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.op.crossover;
+
+import org.epochx.ge.model.GEModel;
+import org.epochx.ge.representation.GECandidateProgram;
+import org.epochx.op.ConfigOperator;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.stats.*;
+import org.epochx.stats.Stats.ExpiryEvent;
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * Crossover implementation for grammatical evolution which chooses a point in
+ * the codons of each parent and exchanges the codons after those points. The
+ * start of each child is unchanged from its parent, so only the exchanged
+ * codons need to be mapped again.
+ */
+public class OnePointCrossover extends ConfigOperator<GEModel> implements GECrossover {
+
+	/**
+	 * Requests an <code>Integer</code> which is the index of the first codon
+	 * of the first program that was exchanged.
+	 */
+	public static final Stat XO_POINT1 = new AbstractStat(ExpiryEvent.CROSSOVER) {};
+
+	/**
+	 * Requests an <code>Integer</code> which is the index of the first codon
+	 * of the second program that was exchanged.
+	 */
+	public static final Stat XO_POINT2 = new AbstractStat(ExpiryEvent.CROSSOVER) {};
+
+	// The random number generator in use.
+	private RandomNumberGenerator rng;
+
+	// The maximum number of codons in the children, or -1 for no limit.
+	private int maxChromosomeLength;
+
+	/**
+	 * Constructs a <code>OnePointCrossover</code>.
+	 * 
+	 * @param rng the random number generator to use.
+	 */
+	public OnePointCrossover(final RandomNumberGenerator rng) {
+		this((GEModel) null);
+
+		this.rng = rng;
+	}
+
+	/**
+	 * Constructs a <code>OnePointCrossover</code>.
+	 * 
+	 * @param model the model to load parameters from on configure events.
+	 */
+	public OnePointCrossover(final GEModel model) {
+		super(model);
+
+		maxChromosomeLength = -1;
+	}
+
+	/**
+	 * Configures this operator with parameters from the model.
+	 */
+	@Override
+	public void onConfigure() {
+		rng = getModel().getRNG();
+		maxChromosomeLength = getModel().getMaxChromosomeLength();
+	}
+
+	@Override
+	public GECandidateProgram[] crossover(final CandidateProgram p1, final CandidateProgram p2) {
+		final GECandidateProgram child1 = (GECandidateProgram) p1;
+		final GECandidateProgram child2 = (GECandidateProgram) p2;
+
+		final int[] codons1 = child1.getCodons();
+		final int[] codons2 = child2.getCodons();
+
+		final int point1 = rng.nextInt(codons1.length);
+		final int point2 = rng.nextInt(codons2.length);
+
+		final int length1 = point1 + (codons2.length - point2);
+		final int length2 = point2 + (codons1.length - point1);
+
+		if ((maxChromosomeLength != -1) && ((length1 > maxChromosomeLength) || (length2 > maxChromosomeLength))) {
+			// A child would be too long, cancel crossover.
+			return null;
+		}
+
+		final int[] newCodons1 = new int[length1];
+		System.arraycopy(codons1, 0, newCodons1, 0, point1);
+		System.arraycopy(codons2, point2, newCodons1, point1, codons2.length - point2);
+
+		final int[] newCodons2 = new int[length2];
+		System.arraycopy(codons2, 0, newCodons2, 0, point2);
+		System.arraycopy(codons1, point1, newCodons2, point2, codons1.length - point1);
+
+		// The derivation of the codons before each point is kept.
+		child1.setCodons(newCodons1, point1);
+		child2.setCodons(newCodons2, point2);
+
+		// Add crossover points to the stats manager.
+		getContext().getStats().addData(XO_POINT1, point1);
+		getContext().getStats().addData(XO_POINT2, point2);
+
+		return new GECandidateProgram[]{child1, child2};
+	}
+
+	/**
+	 * Returns the maximum number of codons in the children produced.
+	 * Crossovers which would produce a longer child are cancelled.
+	 * 
+	 * @return the maximum chromosome length, or <code>-1</code> if there is
+	 *         no limit.
+	 */
+	public int getMaxChromosomeLength() {
+		return maxChromosomeLength;
+	}
+
+	/**
+	 * Sets the maximum number of codons in the children produced. If a model
+	 * has been set then this parameter will be overwritten with the maximum
+	 * chromosome length from that model on the next configure event.
+	 * 
+	 * @param maxChromosomeLength the maximum chromosome length, or
+	 *        <code>-1</code> for no limit.
+	 */
+	public void setMaxChromosomeLength(final int maxChromosomeLength) {
+		this.maxChromosomeLength = maxChromosomeLength;
+	}
+
+	/**
+	 * Returns the random number generator that this crossover is using or
+	 * <code>null</code> if none has been set.
+	 * 
+	 * @return the rng the currently set random number generator.
+	 */
+	public RandomNumberGenerator getRNG() {
+		return rng;
+	}
+
+	/**
+	 * Sets the random number generator to use. If a model has been set then
+	 * this parameter will be overwritten with the random number generator from
+	 * that model on the next configure event.
+	 * 
+	 * @param rng the random number generator to set.
+	 */
+	public void setRNG(final RandomNumberGenerator rng) {
+		this.rng = rng;
+	}
+}
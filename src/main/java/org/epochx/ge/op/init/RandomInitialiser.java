@@ -0,0 +1,223 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.op.init;
+
+import static org.epochx.stats.StatField.INIT_DUPLICATE_RETRIES;
+
+import java.util.*;
+
+import org.epochx.ge.model.GEModel;
+import org.epochx.ge.representation.GECandidateProgram;
+import org.epochx.op.ConfigOperator;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.tools.grammar.GrammarRule;
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * Initialisation implementation which constructs programs with a fixed number
+ * of random codons, discarding any that do not map to a valid parse tree.
+ * 
+ * <p>
+ * The following parameters are loaded from the model upon every configure
+ * event:
+ * 
+ * <ul>
+ * <li>population size</li>
+ * <li>initial chromosome length</li>
+ * <li>maximum codon size</li>
+ * <li>random number generator</li>
+ * </ul>
+ */
+public class RandomInitialiser extends ConfigOperator<GEModel> implements GEInitialiser {
+
+	private RandomNumberGenerator rng;
+
+	// The size of the populations to construct.
+	private int popSize;
+
+	// The number of codons in each new program.
+	private int chromosomeLength;
+
+	// The exclusive upper bound of the codon values.
+	private int maxCodonSize;
+
+	// Whether programs must be unique in generated populations.
+	private boolean acceptDuplicates;
+
+	/**
+	 * Constructs a <code>RandomInitialiser</code> with the necessary
+	 * parameters loaded from the given model. The parameters are reloaded on
+	 * configure events. Duplicate programs are allowed in the populations that
+	 * are constructed.
+	 * 
+	 * @param model the <code>GEModel</code> instance from which the necessary
+	 *        parameters should be loaded.
+	 */
+	public RandomInitialiser(final GEModel model) {
+		this(model, true);
+	}
+
+	/**
+	 * Constructs a <code>RandomInitialiser</code> with the necessary
+	 * parameters loaded from the given model. The parameters are reloaded on
+	 * configure events.
+	 * 
+	 * @param model the <code>GEModel</code> instance from which the necessary
+	 *        parameters should be loaded.
+	 * @param acceptDuplicates whether duplicates should be allowed in the
+	 *        populations that are generated.
+	 */
+	public RandomInitialiser(final GEModel model, final boolean acceptDuplicates) {
+		super(model);
+
+		this.acceptDuplicates = acceptDuplicates;
+	}
+
+	/*
+	 * Configure component with parameters from the model.
+	 */
+	@Override
+	public void onConfigure() {
+		rng = getModel().getRNG();
+		popSize = getModel().getPopulationSize();
+		chromosomeLength = getModel().getInitialChromosomeLength();
+		maxCodonSize = getModel().getMaxCodonSize();
+	}
+
+	/**
+	 * Generates a population of new <code>GECandidatePrograms</code> with
+	 * random codons. All programs in the population are only guaranteed to be
+	 * unique if duplicates are not accepted.
+	 * 
+	 * @return A <code>List</code> of newly generated
+	 *         <code>GECandidatePrograms</code>.
+	 */
+	@Override
+	public List<CandidateProgram> getInitialPopulation() {
+		if (popSize < 1) {
+			throw new IllegalStateException("Population size must be 1 or greater");
+		}
+
+		// Create population list to be populated.
+		final List<CandidateProgram> firstGen = new ArrayList<CandidateProgram>(popSize);
+
+		// The source of every program so far, to find duplicates in constant
+		// time.
+		final Set<String> sources = new HashSet<String>();
+		int retries = 0;
+
+		// Create and add new programs to the population.
+		for (int i = 0; i < popSize; i++) {
+			GECandidateProgram candidate;
+			boolean duplicate;
+
+			do {
+				candidate = getInitialProgram();
+
+				duplicate = !acceptDuplicates && !sources.add(candidate.getSourceCode());
+				if (duplicate) {
+					retries++;
+				}
+			} while (duplicate);
+
+			// Add to the new population.
+			firstGen.add(candidate);
+		}
+
+		getContext().getStats().addData(INIT_DUPLICATE_RETRIES, retries);
+
+		return firstGen;
+	}
+
+	/**
+	 * Constructs and returns a new <code>GECandidateProgram</code> with random
+	 * codons which map to a valid parse tree.
+	 * 
+	 * @return A new valid <code>GECandidateProgram</code>.
+	 */
+	public GECandidateProgram getInitialProgram() {
+		if (rng == null) {
+			throw new IllegalStateException("No random number generator has been set");
+		}
+
+		final GrammarRule startRule = getModel().getMapper().getGrammar().getStartRule();
+		final int maxDepth = getModel().getMaxDepth();
+
+		// Check the min depth of a valid tree is not more than the max depth.
+		if ((maxDepth != -1) && (startRule.getMinDepth() > maxDepth)) {
+			throw new IllegalStateException("No possible programs within given max depth parameter for this grammar.");
+		}
+
+		GECandidateProgram candidate;
+		do {
+			final int[] codons = new int[chromosomeLength];
+			for (int i = 0; i < chromosomeLength; i++) {
+				codons[i] = rng.nextInt(maxCodonSize);
+			}
+
+			candidate = new GECandidateProgram(codons, getModel());
+		} while (!candidate.isValid());
+
+		return candidate;
+	}
+
+	/**
+	 * Returns whether the initialiser allows duplicate programs in the
+	 * populations it constructs.
+	 * 
+	 * @return true if duplicates are allowed, false otherwise.
+	 */
+	public boolean isDuplicatesEnabled() {
+		return acceptDuplicates;
+	}
+
+	/**
+	 * Sets whether the initialiser allows duplicate programs in the
+	 * populations it constructs.
+	 * 
+	 * @param acceptDuplicates whether duplicates should be allowed.
+	 */
+	public void setDuplicatesEnabled(final boolean acceptDuplicates) {
+		this.acceptDuplicates = acceptDuplicates;
+	}
+
+	/**
+	 * Returns the random number generator that this initialiser is using or
+	 * <code>null</code> if none has been set.
+	 * 
+	 * @return the rng the currently set random number generator.
+	 */
+	public RandomNumberGenerator getRNG() {
+		return rng;
+	}
+
+	/**
+	 * Sets the random number generator to use. This parameter will be
+	 * overwritten with the random number generator from the model on the next
+	 * configure event.
+	 * 
+	 * @param rng the random number generator to set.
+	 */
+	public void setRNG(final RandomNumberGenerator rng) {
+		this.rng = rng;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.op.mutation;
+
+import java.util.*;
+
+import org.epochx.ge.model.GEModel;
+import org.epochx.ge.representation.GECandidateProgram;
+import org.epochx.op.ConfigOperator;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.stats.*;
+import org.epochx.stats.Stats.ExpiryEvent;
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * Mutation implementation for grammatical evolution which replaces each codon
+ * with a new random codon with a fixed probability. The codons before the
+ * first one replaced are unchanged, so only those from that point on need to
+ * be mapped again.
+ */
+public class PointMutation extends ConfigOperator<GEModel> implements GEMutation {
+
+	/**
+	 * Requests a <code>List&lt;Integer&gt;</code> which is the indexes of the
+	 * codons that were replaced, in ascending order.
+	 */
+	public static final Stat MUT_POINTS = new AbstractStat(ExpiryEvent.MUTATION) {};
+
+	// The random number generator in use.
+	private RandomNumberGenerator rng;
+
+	// The exclusive upper bound of the codon values.
+	private int maxCodonSize;
+
+	// The probability of each codon being replaced.
+	private double pointProbability;
+
+	/**
+	 * Constructs a <code>PointMutation</code> with a point probability of
+	 * 0.01.
+	 * 
+	 * @param rng the random number generator to use.
+	 * @param maxCodonSize the exclusive upper bound of the new codon values.
+	 */
+	public PointMutation(final RandomNumberGenerator rng, final int maxCodonSize) {
+		this((GEModel) null);
+
+		this.rng = rng;
+		this.maxCodonSize = maxCodonSize;
+	}
+
+	/**
+	 * Constructs a <code>PointMutation</code> with a point probability of
+	 * 0.01.
+	 * 
+	 * @param model the model to load parameters from on configure events.
+	 */
+	public PointMutation(final GEModel model) {
+		this(model, 0.01);
+	}
+
+	/**
+	 * Constructs a <code>PointMutation</code>.
+	 * 
+	 * @param model the model to load parameters from on configure events.
+	 * @param pointProbability the probability of each codon being replaced.
+	 */
+	public PointMutation(final GEModel model, final double pointProbability) {
+		super(model);
+
+		this.pointProbability = pointProbability;
+	}
+
+	/**
+	 * Configures this operator with parameters from the model.
+	 */
+	@Override
+	public void onConfigure() {
+		rng = getModel().getRNG();
+		maxCodonSize = getModel().getMaxCodonSize();
+	}
+
+	@Override
+	public GECandidateProgram mutate(final CandidateProgram p) {
+		final GECandidateProgram program = (GECandidateProgram) p;
+
+		final int[] codons = program.getCodons();
+		final List<Integer> points = new ArrayList<Integer>();
+
+		// The codons are shared with clones, so are copied on the first change.
+		int[] newCodons = null;
+		for (int i = 0; i < codons.length; i++) {
+			if (rng.nextDouble() < pointProbability) {
+				if (newCodons == null) {
+					newCodons = codons.clone();
+				}
+				newCodons[i] = rng.nextInt(maxCodonSize);
+				points.add(i);
+			}
+		}
+
+		if (newCodons != null) {
+			// The derivation of the codons before the first point is kept.
+			program.setCodons(newCodons, points.get(0));
+		}
+
+		// Add mutation points to the stats manager.
+		getContext().getStats().addData(MUT_POINTS, points);
+
+		return program;
+	}
+
+	/**
+	 * Returns the probability of each codon being replaced.
+	 * 
+	 * @return the point probability.
+	 */
+	public double getPointProbability() {
+		return pointProbability;
+	}
+
+	/**
+	 * Sets the probability of each codon being replaced.
+	 * 
+	 * @param pointProbability the point probability.
+	 */
+	public void setPointProbability(final double pointProbability) {
+		this.pointProbability = pointProbability;
+	}
+
+	/**
+	 * Returns the random number generator that this mutation is using or
+	 * <code>null</code> if none has been set.
+	 * 
+	 * @return the rng the currently set random number generator.
+	 */
+	public RandomNumberGenerator getRNG() {
+		return rng;
+	}
+
+	/**
+	 * Sets the random number generator to use. If a model has been set then
+	 * this parameter will be overwritten with the random number generator from
+	 * that model on the next configure event.
+	 * 
+	 * @param rng the random number generator to set.
+	 */
+	public void setRNG(final RandomNumberGenerator rng) {
+		this.rng = rng;
+	}
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.representation;
+
+import static org.epochx.tools.util.IOUtils.*;
+
+import java.io.*;
+import java.util.Arrays;
+
+import org.epochx.core.*;
+import org.epochx.ge.mapper.DepthFirstMapper;
+import org.epochx.ge.mapper.DepthFirstMapper.Derivation;
+import org.epochx.ge.model.GEModel;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.tools.grammar.FlatParseTree;
+
+/**
+ * A <code>GECandidateProgram</code> is a grammatical evolution individual,
+ * whose genotype is a linear genome of integer codons, which is mapped to a
+ * parse tree of the model's grammar by the model's
+ * <code>DepthFirstMapper</code>. The mapping is performed when the parse tree
+ * is first needed, and the derivation is shared with clones.
+ * 
+ * <p>
+ * Codon arrays are never modified once given to a program, so they are also
+ * shared with clones, and operators must construct a new array for each
+ * change. Operators which keep the start of a genome should pass the number
+ * of unchanged codons to <code>setCodons</code>, so that the derivation of
+ * those codons is reused rather than mapped again.
+ * 
+ * <p>
+ * Note: this class has a natural ordering that is inconsistent with equals.
+ */
+public class GECandidateProgram extends CandidateProgram {
+
+	private GEModel model;
+
+	// The genotype.
+	private int[] codons;
+
+	// The derivation of the codons, or null if not yet mapped.
+	private Derivation derivation;
+
+	// A derivation of a genome with the same first noUnchanged codons.
+	private Derivation previous;
+	private int noUnchanged;
+
+	// The fitness of the phenotype.
+	private double fitness;
+
+	// A stash of the source for testing if fitness cache is up to date.
+	private String sourceCache;
+
+	/**
+	 * Constructs a program with the given codons.
+	 * 
+	 * @param codons the genome of the program, which must not be modified
+	 *        afterwards.
+	 * @param model the model the program belongs to.
+	 */
+	public GECandidateProgram(final int[] codons, final GEModel model) {
+		if (codons == null) {
+			throw new IllegalArgumentException("codons must not be null");
+		}
+
+		this.codons = codons;
+		this.model = model;
+	}
+
+	/**
+	 * Returns the codons of this program. The array must not be modified.
+	 * 
+	 * @return the genome of this program.
+	 */
+	public int[] getCodons() {
+		return codons;
+	}
+
+	/**
+	 * Returns the number of codons in the genome of this program.
+	 * 
+	 * @return the length of the genome.
+	 */
+	public int getNoCodons() {
+		return codons.length;
+	}
+
+	/**
+	 * Replaces the codons of this program, which will be mapped from the
+	 * start.
+	 * 
+	 * @param codons the new genome, which must not be modified afterwards.
+	 */
+	public void setCodons(final int[] codons) {
+		setCodons(codons, 0);
+	}
+
+	/**
+	 * Replaces the codons of this program with a genome which begins with the
+	 * same <code>noUnchanged</code> codons as the current one. The derivation
+	 * of those codons is reused when the new genome is mapped.
+	 * 
+	 * @param codons the new genome, which must not be modified afterwards.
+	 * @param noUnchanged the number of codons at the start of the new genome
+	 *        that are the same as those of the current genome.
+	 */
+	public void setCodons(final int[] codons, final int noUnchanged) {
+		if (codons == null) {
+			throw new IllegalArgumentException("codons must not be null");
+		}
+
+		if (derivation != null) {
+			previous = derivation;
+			this.noUnchanged = noUnchanged;
+		} else {
+			// Still unmapped, so only the codons unchanged by both are kept.
+			this.noUnchanged = Math.min(this.noUnchanged, noUnchanged);
+		}
+		if (this.noUnchanged == 0) {
+			previous = null;
+		}
+
+		this.codons = codons;
+		derivation = null;
+	}
+
+	/**
+	 * Returns the derivation of this program's codons, mapping them if they
+	 * have not yet been mapped.
+	 * 
+	 * @return the derivation of the genome.
+	 */
+	public Derivation getDerivation() {
+		if (derivation == null) {
+			// The model builds a new mapper when its settings change, and a
+			// derivation may only be resumed by the mapper that produced it.
+			final DepthFirstMapper mapper = model.getMapper();
+			if ((previous != null) && (previous.getNoSteps() > 0) && (previous.getMapper() == mapper)) {
+				derivation = mapper.map(codons, model.getMaxWraps(), previous, noUnchanged);
+			} else {
+				derivation = mapper.map(codons, model.getMaxWraps());
+			}
+			previous = null;
+			noUnchanged = 0;
+		}
+
+		return derivation;
+	}
+
+	/**
+	 * Returns the parse tree that this program's codons map to.
+	 * 
+	 * @return the phenotype, or <code>null</code> if the mapping failed.
+	 */
+	public FlatParseTree getParseTree() {
+		return getDerivation().getParseTree();
+	}
+
+	/**
+	 * Returns whether this program's codons map to a complete parse tree.
+	 * 
+	 * @return true if the mapping succeeded, false otherwise.
+	 */
+	public boolean isMapped() {
+		return getDerivation().isComplete();
+	}
+
+	/**
+	 * Returns the source code that this program's codons map to.
+	 * 
+	 * @return the source of the phenotype, or <code>null</code> if the mapping
+	 *         failed.
+	 */
+	public String getSourceCode() {
+		final FlatParseTree parseTree = getParseTree();
+
+		return (parseTree == null) ? null : parseTree.toString();
+	}
+
+	/**
+	 * Returns the depth of the parse tree of this program.
+	 * 
+	 * @return the depth of the phenotype, or -1 if the mapping failed.
+	 */
+	public int getDepth() {
+		final FlatParseTree parseTree = getParseTree();
+
+		return (parseTree == null) ? -1 : parseTree.getDepth();
+	}
+
+	/**
+	 * Calculates the fitness of this program with the model, or returns
+	 * <code>Double.POSITIVE_INFINITY</code> if the codons could not be mapped.
+	 * 
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public double getFitness() {
+		final String source = getSourceCode();
+
+		if (source == null) {
+			fitness = Double.POSITIVE_INFINITY;
+		} else if (!model.cacheFitness()) {
+			fitness = model.getFitness(this);
+		} else if (!source.equals(sourceCache)) {
+			// An identical program may have been evaluated elsewhere.
+			final FitnessCache cache = model.getFitnessCache();
+			final FitnessStore store = model.getFitnessStore();
+			Double cached = (cache == null) ? null : cache.get(source);
+
+			if ((cached == null) && (store != null)) {
+				cached = store.get(source);
+				if ((cached != null) && (cache != null)) {
+					cache.put(source, cached);
+				}
+			}
+
+			if (cached != null) {
+				fitness = cached;
+			} else {
+				fitness = model.getFitness(this);
+				if (cache != null) {
+					cache.put(source, fitness);
+				}
+				if (store != null) {
+					store.put(source, fitness);
+				}
+			}
+			sourceCache = source;
+		}
+
+		return fitness;
+	}
+
+	public double getFitnessValue() {
+		return fitness;
+	}
+
+	public void setFitnessValue(final double fitnessValue) {
+		fitness = fitnessValue;
+	}
+
+	/**
+	 * Tests whether the codons map to a complete parse tree, no deeper than
+	 * the model's maximum depth, and whether the genome is no longer than the
+	 * model's maximum chromosome length.
+	 * 
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public boolean isValid() {
+		final int maxChromosomeLength = model.getMaxChromosomeLength();
+		if ((maxChromosomeLength != -1) && (codons.length > maxChromosomeLength)) {
+			return false;
+		}
+
+		final int depth = getDepth();
+		final int maxDepth = model.getMaxDepth();
+
+		return (depth != -1) && ((maxDepth == -1) || (depth <= maxDepth));
+	}
+
+	/**
+	 * Creates a clone of this program, which shares its codons and
+	 * derivation.
+	 * 
+	 * @return a copy of this program.
+	 */
+	@Override
+	public CandidateProgram clone() {
+		final GECandidateProgram clone = (GECandidateProgram) super.clone();
+
+		// The codons and derivations are never modified, so can be shared.
+		clone.codons = codons;
+		clone.derivation = derivation;
+		clone.previous = previous;
+		clone.noUnchanged = noUnchanged;
+
+		// Copy the caches.
+		clone.sourceCache = sourceCache;
+		clone.fitness = fitness;
+
+		// Shallow copy the model.
+		clone.model = model;
+
+		return clone;
+	}
+
+	/**
+	 * Creates a copy of this program which belongs to the given model. The
+	 * codons are never modified so are shared, but the copy is mapped afresh.
+	 * 
+	 * @param model the <code>GEModel</code> that the copy should belong to.
+	 * @return a copy of this program for the given model.
+	 */
+	@Override
+	public CandidateProgram copyTo(final Model model) {
+		return new GECandidateProgram(codons, (GEModel) model);
+	}
+
+	/**
+	 * Writes this program as its fitness, followed by the number of codons and
+	 * each codon, as variable length ints. The parse tree is not written, as
+	 * it is mapped again from the codons.
+	 * 
+	 * @param out the output to write to.
+	 * @throws IOException if there was a problem writing to the output.
+	 * @see GEModel#readProgram(DataInput)
+	 */
+	@Override
+	public void writeTo(final DataOutput out) throws IOException {
+		// Whether the fitness is up to date, so need not be calculated again.
+		final boolean evaluated = (sourceCache != null) && sourceCache.equals(getSourceCode());
+		out.writeBoolean(evaluated);
+		out.writeDouble(fitness);
+
+		writeVarInt(out, codons.length);
+		for (final int codon: codons) {
+			writeVarInt(out, codon);
+		}
+	}
+
+	/**
+	 * Reads a program written by <code>writeTo</code>.
+	 * 
+	 * @param in the input to read from.
+	 * @param model the model that the program belongs to.
+	 * @return the program that was read.
+	 * @throws IOException if there was a problem reading from the input.
+	 */
+	public static GECandidateProgram readFrom(final DataInput in, final GEModel model) throws IOException {
+		final boolean evaluated = in.readBoolean();
+		final double fitness = in.readDouble();
+
+		final int noCodons = readVarInt(in);
+		if (noCodons < 0) {
+			throw new IOException("negative number of codons: " + noCodons);
+		}
+		final int[] codons = new int[noCodons];
+		for (int i = 0; i < noCodons; i++) {
+			codons[i] = readVarInt(in);
+		}
+
+		final GECandidateProgram program = new GECandidateProgram(codons, model);
+		program.fitness = fitness;
+		if (evaluated) {
+			program.sourceCache = program.getSourceCode();
+		}
+
+		return program;
+	}
+
+	/**
+	 * Returns a string representation of this program, which is the source it
+	 * maps to, or its codons if the mapping failed.
+	 */
+	@Override
+	public String toString() {
+		final String source = getSourceCode();
+
+		return (source == null) ? Arrays.toString(codons) : source;
+	}
+
+	/**
+	 * Compares the given argument for equivalence to this program. Two
+	 * programs are equal if they have the same codons.
+	 * 
+	 * @return true if the object is an equivalent candidate program, false
+	 *         otherwise.
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (o instanceof GECandidateProgram) {
+			return Arrays.equals(codons, ((GECandidateProgram) o).codons);
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns a hash code for this program, which is consistent with
+	 * <code>equals</code>.
+	 * 
+	 * @return a hash code value for this object.
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(codons);
+	}
+
+	/**
+	 * Compares this program to another based upon fitness. Returns a negative
+	 * integer if this program has a worse (larger) fitness value, zero if they
+	 * have equal fitnesses and a positive integer if this program has a
+	 * better (smaller) fitness value.
+	 * 
+	 * @param o the <code>CandidateProgram</code> instance to compare against.
+	 * @return a negative integer, zero, or a positive integer if this program
+	 *         has a worse, equal or better fitness than <code>o</code>
+	 *         respectively.
+	 */
+	@Override
+	public int compareTo(final CandidateProgram o) {
+		if (o == null) {
+			throw new NullPointerException("cannot compare to null");
+		}
+
+		final double thisFitness = getFitnessValue();
+		final double objFitness = ((GECandidateProgram) o).getFitnessValue();
+
+		if (thisFitness < objFitness) {
+			return -1;
+		} else if (thisFitness == objFitness) {
+			return 0;
+		} else {
+			return 1;
+		}
+	}
+}
@@ -21,10 +21,14 @@
  */
 package org.epochx.gr.model;
 
+import java.io.*;
+
 import org.epochx.core.Model;
 import org.epochx.gr.op.crossover.WhighamCrossover;
 import org.epochx.gr.op.init.RampedHalfAndHalfInitialiser;
 import org.epochx.gr.op.mutation.WhighamMutation;
+import org.epochx.gr.representation.GRCandidateProgram;
+import org.epochx.representation.CandidateProgram;
 import org.epochx.tools.grammar.Grammar;
 
 /**
@@ -39,6 +43,8 @@ public abstract class GRModel extends Model {
 	private int maxDepth;
 	private int maxInitialDepth;
 
+	private boolean useFlatParseTrees;
+
 	/**
 	 * Construct a GRModel with a set of sensible defaults. See the appropriate
 	 * accessor method for information of each default value.
@@ -49,6 +55,7 @@ public abstract class GRModel extends Model {
 
 		maxDepth = 14;
 		maxInitialDepth = 8;
+		useFlatParseTrees = false;
 
 		// Operators.
 		setInitialiser(new RampedHalfAndHalfInitialiser(this));
@@ -68,6 +75,19 @@ public abstract class GRModel extends Model {
 		super.run();
 	}
 
+	/**
+	 * Reads a program written by <code>GRCandidateProgram.writeTo</code>,
+	 * whose parse tree is derived from this model's grammar.
+	 */
+	@Override
+	public CandidateProgram readProgram(final DataInput in) throws IOException {
+		if (getGrammar() == null) {
+			throw new IllegalStateException("no grammar set");
+		}
+
+		return GRCandidateProgram.readFrom(in, this);
+	}
+
 	/**
 	 * Returns the grammar instance that determines the structure of the
 	 * programs to be evolved. As well as defining the syntax of solutions, the
@@ -162,4 +182,32 @@ public abstract class GRModel extends Model {
 
 		assert ((this.maxInitialDepth >= 1) || (this.maxInitialDepth == -1));
 	}
+
+	/**
+	 * Returns whether the initialisers should construct programs with a
+	 * <code>FlatParseTree</code> rather than a tree of symbol objects. Flat
+	 * parse trees take a fraction of the memory and are shared rather than
+	 * copied when programs are cloned, which matters most for large
+	 * populations. The crossover and mutation operators work on either form.
+	 * 
+	 * <p>
+	 * Defaults to <code>false</code>.
+	 * 
+	 * @return true if new programs should have flat parse trees, false
+	 *         otherwise.
+	 */
+	public boolean useFlatParseTrees() {
+		return useFlatParseTrees;
+	}
+
+	/**
+	 * Overwrites the default setting of whether new programs should have flat
+	 * parse trees.
+	 * 
+	 * @param useFlatParseTrees whether new programs should have flat parse
+	 *        trees.
+	 */
+	public void setUseFlatParseTrees(final boolean useFlatParseTrees) {
+		this.useFlatParseTrees = useFlatParseTrees;
+	}
 }
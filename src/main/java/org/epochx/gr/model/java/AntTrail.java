@@ -50,13 +50,10 @@ public abstract class AntTrail extends GRModel {
 			+ "<opcode> ::=  ant.turnLeft(); | ant.turnRight(); | ant.move();\n";
 
 	// Java interpreter for performing evaluation.
-	private final JavaInterpreter interpreter;
-
-	// Ant components.
-	private final AntLandscape landscape;
-	private final Ant ant;
+	private final Interpreter interpreter;
 
 	// Trail settings.
+	private final Dimension landscapeSize;
 	private final List<Point> foodLocations;
 	private final int allowedTimeSteps;
 
@@ -76,13 +73,11 @@ public abstract class AntTrail extends GRModel {
 	public AntTrail(final Point[] foodLocations, final Dimension landscapeSize, final int allowedTimeSteps) {
 		this.foodLocations = new ArrayList<Point>(Arrays.asList(foodLocations));
 		this.allowedTimeSteps = allowedTimeSteps;
-
-		landscape = new AntLandscape(landscapeSize, null);
-		ant = new Ant(allowedTimeSteps, landscape);
+		this.landscapeSize = landscapeSize;
 
 		setGrammar(new Grammar(GRAMMAR_STRING));
 
-		interpreter = new JavaInterpreter();
+		interpreter = new CompilingJavaInterpreter();
 	}
 
 	/**
@@ -99,18 +94,20 @@ public abstract class AntTrail extends GRModel {
 	public double getFitness(final CandidateProgram p) {
 		final GRCandidateProgram program = (GRCandidateProgram) p;
 
-		// Reset the ant.
-		landscape.setFoodLocations(foodLocations);
-		ant.reset(allowedTimeSteps, landscape);
+		// Each evaluation has its own ant, since the ant eats its way through
+		// the food and programs may be evaluated concurrently.
+		final AntLandscape landscape = new AntLandscape(landscapeSize, new ArrayList<Point>(foodLocations));
+		final Ant ant = new Ant(allowedTimeSteps, landscape);
 
 		// Construct argument arrays.
 		final String[] argNames = {"ant"};
 		final Object[] argValues = {ant};
+		final PreparedProgram prepared = interpreter.prepare(program.getSourceCode(), argNames);
 
 		// Evaluate multiple times until all time moves used.
 		while (ant.getTimesteps() < ant.getMaxMoves()) {
 			try {
-				interpreter.exec(program.getSourceCode(), argNames, argValues);
+				prepared.exec(argValues);
 			} catch (final MalformedProgramException e) {
 				// Stop evaluation and give a bad score.
 				break;
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.gr.model.java;
+
+import java.util.*;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.epochx.epox.*;
+import org.epochx.epox.bool.*;
+import org.epochx.epox.lang.IfFunction;
+import org.epochx.tools.eval.*;
+import org.epochx.tools.util.BoolUtils;
+
+/**
+ * Scores Java boolean expressions against every combination of their boolean
+ * inputs, for the boolean problems of this package. Rather than interpreting
+ * the source once for each combination, the expression is translated into an
+ * Epox tree of boolean functions which is evaluated over all the combinations
+ * at once by a <code>BitSliceEvaluator</code>, 64 combinations per machine
+ * word. The number of correct responses is then counted with
+ * <code>Long.bitCount</code>.
+ * 
+ * <p>
+ * Expressions made up of the input variables, the literals <code>true</code>
+ * and <code>false</code>, brackets and the operators <code>!</code>,
+ * <code>==</code>, <code>!=</code>, <code>&amp;</code>, <code>^</code>,
+ * <code>|</code>, <code>&amp;&amp;</code>, <code>||</code> and
+ * <code>? :</code> are translated, with the same precedence as in Java. Any
+ * other source is compiled by a <code>CompilingJavaInterpreter</code> and
+ * evaluated one combination at a time instead, so that it is scored exactly
+ * as Java would evaluate it. Source which does not compile is malformed.
+ */
+final class BooleanFitness {
+
+	// The number of input combinations.
+	private final int noCases;
+
+	// The input variables by name.
+	private final Map<String, Variable> variables;
+
+	// The bits of each input variable and of the correct responses.
+	private final long[][] inputs;
+	private final long[] expected;
+
+	// The inputs and correct responses for evaluation by the interpreter.
+	private final String[] argNames;
+	private final Boolean[][] inputValues;
+	private final boolean[] expectedValues;
+
+	// Compiles expressions that cannot be translated, created on first use.
+	private CompilingJavaInterpreter interpreter;
+
+	// The evaluator used by each thread.
+	private final ThreadLocal<BitSliceEvaluator> evaluators;
+
+	/**
+	 * Constructs a <code>BooleanFitness</code> for expressions over the given
+	 * input variables.
+	 * 
+	 * @param argNames the names of the input variables.
+	 * @param expected the correct response for each combination of inputs, in
+	 *        the order of <code>BoolUtils.generateBoolSequences</code>.
+	 */
+	BooleanFitness(final String[] argNames, final boolean[] expected) {
+		noCases = expected.length;
+		if (noCases != (1 << argNames.length)) {
+			throw new IllegalArgumentException("there must be a response for every combination of inputs");
+		}
+
+		variables = new HashMap<String, Variable>();
+		for (final String argName: argNames) {
+			variables.put(argName, new Variable(argName, Boolean.class));
+		}
+
+		this.argNames = argNames.clone();
+		inputValues = new Boolean[noCases][];
+		for (int i = 0; i < noCases; i++) {
+			inputValues[i] = ArrayUtils.toObject(BoolUtils.generateBoolSequence(argNames.length, i));
+		}
+		expectedValues = expected.clone();
+
+		inputs = BoolUtils.generateBitSequences(argNames.length);
+		this.expected = new long[inputs[0].length];
+		for (int i = 0; i < noCases; i++) {
+			if (expected[i]) {
+				this.expected[i >>> 6] |= 1L << i;
+			}
+		}
+
+		evaluators = new ThreadLocal<BitSliceEvaluator>() {
+
+			@Override
+			protected BitSliceEvaluator initialValue() {
+				final BitSliceEvaluator evaluator = new BitSliceEvaluator(noCases);
+				for (int i = 0; i < argNames.length; i++) {
+					evaluator.bind(variables.get(argNames[i]), inputs[i]);
+				}
+				return evaluator;
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of input combinations that the expression gives an
+	 * incorrect response for. A malformed expression is incorrect for all of
+	 * them.
+	 * 
+	 * @param source the Java boolean expression to score.
+	 * @return the number of incorrect responses.
+	 */
+	double getFitness(final String source) {
+		final Node expression;
+		try {
+			expression = new ExpressionParser(source).parse();
+		} catch (final MalformedProgramException e) {
+			return getCompiledFitness(source);
+		}
+
+		final long[] result = evaluators.get().evaluate(expression);
+
+		int noWrong = 0;
+		for (int i = 0; i < result.length; i++) {
+			noWrong += Long.bitCount(result[i] ^ expected[i]);
+		}
+
+		return noWrong;
+	}
+
+	/*
+	 * Scores source which could not be translated by compiling it and
+	 * evaluating it with each combination of inputs in turn.
+	 */
+	private double getCompiledFitness(final String source) {
+		final boolean[] results;
+		try {
+			results = getInterpreter().prepare(source, argNames).evalBoolean(inputValues);
+		} catch (final MalformedProgramException e) {
+			return noCases;
+		}
+
+		int noWrong = 0;
+		for (int i = 0; i < noCases; i++) {
+			if (results[i] != expectedValues[i]) {
+				noWrong++;
+			}
+		}
+
+		return noWrong;
+	}
+
+	/*
+	 * Returns the interpreter, which is only created once it is needed since
+	 * it requires the system Java compiler.
+	 */
+	private synchronized Interpreter getInterpreter() {
+		if (interpreter == null) {
+			interpreter = new CompilingJavaInterpreter();
+		}
+		return interpreter;
+	}
+
+	/**
+	 * Returns the number of input combinations.
+	 * 
+	 * @return the number of combinations of inputs.
+	 */
+	int getNoCases() {
+		return noCases;
+	}
+
+	/*
+	 * Translates the Java source into an Epox tree by recursive descent, with
+	 * one method for each level of operator precedence. On boolean operands
+	 * the bitwise operators are the logical operators without short-circuiting,
+	 * which gives the same results since the operands have no side effects.
+	 */
+	private class ExpressionParser {
+
+		private final List<String> tokens;
+		private int position;
+
+		public ExpressionParser(final String source) throws MalformedProgramException {
+			tokens = tokenise(source);
+		}
+
+		public Node parse() throws MalformedProgramException {
+			final Node expression = parseConditional();
+			if (position != tokens.size()) {
+				throw new MalformedProgramException("unexpected token: " + tokens.get(position));
+			}
+			return expression;
+		}
+
+		private Node parseConditional() throws MalformedProgramException {
+			final Node condition = parseOr();
+			if (accept("?")) {
+				final Node ifStatement = parseConditional();
+				expect(":");
+				final Node elseStatement = parseConditional();
+
+				return new IfFunction(condition, ifStatement, elseStatement);
+			}
+			return condition;
+		}
+
+		private Node parseOr() throws MalformedProgramException {
+			Node expression = parseAnd();
+			while (accept("||")) {
+				expression = new OrFunction(expression, parseAnd());
+			}
+			return expression;
+		}
+
+		private Node parseAnd() throws MalformedProgramException {
+			Node expression = parseBitwiseOr();
+			while (accept("&&")) {
+				expression = new AndFunction(expression, parseBitwiseOr());
+			}
+			return expression;
+		}
+
+		private Node parseBitwiseOr() throws MalformedProgramException {
+			Node expression = parseBitwiseXor();
+			while (accept("|")) {
+				expression = new OrFunction(expression, parseBitwiseXor());
+			}
+			return expression;
+		}
+
+		private Node parseBitwiseXor() throws MalformedProgramException {
+			Node expression = parseBitwiseAnd();
+			while (accept("^")) {
+				expression = new XorFunction(expression, parseBitwiseAnd());
+			}
+			return expression;
+		}
+
+		private Node parseBitwiseAnd() throws MalformedProgramException {
+			Node expression = parseEquality();
+			while (accept("&")) {
+				expression = new AndFunction(expression, parseEquality());
+			}
+			return expression;
+		}
+
+		private Node parseEquality() throws MalformedProgramException {
+			Node expression = parseUnary();
+			while (true) {
+				if (accept("==")) {
+					expression = new IfAndOnlyIfFunction(expression, parseUnary());
+				} else if (accept("!=")) {
+					expression = new XorFunction(expression, parseUnary());
+				} else {
+					return expression;
+				}
+			}
+		}
+
+		private Node parseUnary() throws MalformedProgramException {
+			if (accept("!")) {
+				return new NotFunction(parseUnary());
+			} else if (accept("(")) {
+				final Node expression = parseConditional();
+				expect(")");
+				return expression;
+			} else if (position < tokens.size()) {
+				final String token = tokens.get(position++);
+				final Variable variable = variables.get(token);
+				if (variable != null) {
+					return variable;
+				} else if (token.equals("true") || token.equals("false")) {
+					return new Literal(Boolean.valueOf(token));
+				}
+				throw new MalformedProgramException("unknown identifier: " + token);
+			}
+			throw new MalformedProgramException("unexpected end of expression");
+		}
+
+		private boolean accept(final String token) {
+			if ((position < tokens.size()) && tokens.get(position).equals(token)) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(final String token) throws MalformedProgramException {
+			if (!accept(token)) {
+				throw new MalformedProgramException("expected " + token);
+			}
+		}
+
+		/*
+		 * Splits the source into operators, brackets and identifiers.
+		 */
+		private List<String> tokenise(final String source) throws MalformedProgramException {
+			final List<String> result = new ArrayList<String>();
+			final int length = source.length();
+
+			int i = 0;
+			while (i < length) {
+				final char c = source.charAt(i);
+				if (Character.isWhitespace(c)) {
+					i++;
+				} else if ((c == '(') || (c == ')') || (c == '?') || (c == ':')) {
+					result.add(String.valueOf(c));
+					i++;
+				} else if (source.startsWith("&&", i) || source.startsWith("||", i) || source.startsWith("!=", i)
+						|| source.startsWith("==", i)) {
+					result.add(source.substring(i, i + 2));
+					i += 2;
+				} else if ((c == '!') || (c == '&') || (c == '|') || (c == '^')) {
+					result.add(String.valueOf(c));
+					i++;
+				} else if (Character.isJavaIdentifierStart(c)) {
+					final int start = i;
+					while ((i < length) && Character.isJavaIdentifierPart(source.charAt(i))) {
+						i++;
+					}
+					result.add(source.substring(start, i));
+				} else {
+					throw new MalformedProgramException("unexpected character: " + c);
+				}
+			}
+
+			return result;
+		}
+	}
+}
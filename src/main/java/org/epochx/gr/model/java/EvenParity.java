@@ -21,11 +21,9 @@
  */
 package org.epochx.gr.model.java;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.epochx.gr.model.GRModel;
 import org.epochx.gr.representation.GRCandidateProgram;
 import org.epochx.representation.CandidateProgram;
-import org.epochx.tools.eval.*;
 import org.epochx.tools.grammar.Grammar;
 import org.epochx.tools.util.BoolUtils;
 
@@ -51,15 +49,12 @@ public class EvenParity extends GRModel {
 			+ "<op> ::= \"||\" | && | !=\n"
 			+ "<var> ::= ";
 
-	// Java interpreter for performing evaluation.
-	private final JavaInterpreter interpreter;
+	// Evaluates programs over all the inputValues at once.
+	private final BooleanFitness fitness;
 
 	// The names of the inputValues used in the grammar.
 	private final String[] argNames;
 
-	// The boolean input sequences.
-	private final boolean[][] inputValues;
-
 	/**
 	 * Constructs an EvenParity model for the given number of inputs.
 	 * 
@@ -67,17 +62,19 @@ public class EvenParity extends GRModel {
 	 *        for
 	 */
 	public EvenParity(final int noInputBits) {
-		interpreter = new JavaInterpreter();
-
-		// Generate the input sequences.
-		inputValues = BoolUtils.generateBoolSequences(noInputBits);
-
 		// Determine the input argument names.
 		argNames = new String[noInputBits];
 		for (int i = 0; i < noInputBits; i++) {
 			argNames[i] = "d" + i;
 		}
 
+		// Determine the correct response to every input sequence.
+		final boolean[] correct = new boolean[1 << noInputBits];
+		for (int i = 0; i < correct.length; i++) {
+			correct[i] = isEvenNoTrue(BoolUtils.generateBoolSequence(noInputBits, i));
+		}
+		fitness = new BooleanFitness(argNames, correct);
+
 		// Complete the grammar string and construct grammar instance.
 		setGrammar(new Grammar(getGrammarString()));
 	}
@@ -99,29 +96,7 @@ public class EvenParity extends GRModel {
 	public double getFitness(final CandidateProgram p) {
 		final GRCandidateProgram program = (GRCandidateProgram) p;
 
-		double score = 0;
-
-		// Evaluate all possible inputValues.
-		for (final boolean[] vars: inputValues) {
-			// Convert to object array.
-			final Boolean[] objVars = ArrayUtils.toObject(vars);
-
-			Boolean result = null;
-			try {
-				result = (Boolean) interpreter.eval(program.getSourceCode(), argNames, objVars);
-			} catch (final MalformedProgramException e) {
-				// Assign worst possible fitness and stop evaluating.
-				score = 0;
-				break;
-			}
-
-			// Increment score for a correct response.
-			if ((result != null) && (result == isEvenNoTrue(vars))) {
-				score++;
-			}
-		}
-
-		return inputValues.length - score;
+		return fitness.getFitness(program.getSourceCode());
 	}
 
 	/**
@@ -21,11 +21,9 @@
  */
 package org.epochx.gr.model.java;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.epochx.gr.model.GRModel;
 import org.epochx.gr.representation.GRCandidateProgram;
 import org.epochx.representation.CandidateProgram;
-import org.epochx.tools.eval.*;
 import org.epochx.tools.grammar.Grammar;
 import org.epochx.tools.util.BoolUtils;
 
@@ -51,11 +49,8 @@ public class Multiplexer extends GRModel {
 			+ "<op> ::= \"||\" | &&\n"
 			+ "<var> ::= ";
 
-	// Java interpreter for performing evaluation.
-	private final JavaInterpreter interpreter;
-
-	// The boolean input sequences.
-	private final boolean[][] inputValues;
+	// Evaluates programs over all the inputValues at once.
+	private final BooleanFitness fitness;
 
 	// The names of the inputValues used in the grammar.
 	private String[] argNames;
@@ -71,17 +66,19 @@ public class Multiplexer extends GRModel {
 	 *        for
 	 */
 	public Multiplexer(final int noInputBits) {
-		interpreter = new JavaInterpreter();
-
-		// Generate the input sequences.
-		inputValues = BoolUtils.generateBoolSequences(noInputBits);
-
 		// Calculate number of address/data bits.
 		setBitSizes(noInputBits);
 
 		// Determine the input argument names.
 		setArgNames(noInputBits);
 
+		// Determine the correct response to every input sequence.
+		final boolean[] correct = new boolean[1 << noInputBits];
+		for (int i = 0; i < correct.length; i++) {
+			correct[i] = multiplex(BoolUtils.generateBoolSequence(noInputBits, i));
+		}
+		fitness = new BooleanFitness(argNames, correct);
+
 		// Complete the grammar string and construct grammar instance.
 		setGrammar(new Grammar(getGrammarString()));
 	}
@@ -103,28 +100,7 @@ public class Multiplexer extends GRModel {
 	public double getFitness(final CandidateProgram p) {
 		final GRCandidateProgram program = (GRCandidateProgram) p;
 
-		double score = 0;
-
-		// Evaluate all possible inputValues.
-		for (final boolean[] vars: inputValues) {
-			// Convert to object array.
-			final Boolean[] objVars = ArrayUtils.toObject(vars);
-
-			Boolean result = null;
-			try {
-				result = (Boolean) interpreter.eval(program.getSourceCode(), argNames, objVars);
-			} catch (final MalformedProgramException e) {
-				// Assign worst possible fitness and stop evaluating.
-				score = 0;
-				break;
-			}
-
-			if ((result != null) && (result == multiplex(vars))) {
-				score++;
-			}
-		}
-
-		return inputValues.length - score;
+		return fitness.getFitness(program.getSourceCode());
 	}
 
 	/**
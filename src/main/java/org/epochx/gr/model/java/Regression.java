@@ -21,6 +21,7 @@
  */
 package org.epochx.gr.model.java;
 
+import org.epochx.epox.*;
 import org.epochx.gr.model.GRModel;
 import org.epochx.gr.representation.GRCandidateProgram;
 import org.epochx.representation.CandidateProgram;
@@ -38,26 +39,36 @@ import org.epochx.tools.grammar.Grammar;
  * &lt;op&gt; ::= + | - | *
  * &lt;terminal&gt; ::= X
  * </code></blockquote>
+ * 
+ * <p>
+ * Every expression is bracketed, so the structure of a program's parse tree
+ * is the structure of its Java expression. Rather than the source being
+ * compiled, the productions carry <code>epox</code> attributes so that each
+ * parse tree is translated by an <code>EpoxTranslator</code> into the
+ * equivalent Epox node tree, which is evaluated over all the inputs at once.
  */
 public abstract class Regression extends GRModel {
 
 	/**
 	 * The grammar that defines valid solution space.
 	 */
-	public static final String GRAMMAR_STRING = "<expr> ::= ( <expr> <op> <expr> ) | <terminal>\n"
-			+ "<op>   ::= + | - | * \n"
+	public static final String GRAMMAR_STRING = "<expr> ::= ( <expr> <op> <expr> ) <?epox=$2($1,$3)?> | <terminal>\n"
+			+ "<op>   ::= + <?epox=ADD?> | - <?epox=SUB?> | * <?epox=MUL?> \n"
 			+ "<terminal>  ::= X \n";
 
 	// The error each point must be within.
 	private static final double POINT_ERROR = 0.01;
 
-	// Java interpreter for performing evaluation.
-	private final JavaInterpreter interpreter;
+	// Translates parse trees into Epox node trees for evaluation.
+	private final EpoxTranslator translator;
 
 	// Inputs and associated outputs.
 	private final double[] inputs;
 	private final double[] outputs;
 
+	// The evaluator used by each thread, with X bound to the inputs.
+	private final ThreadLocal<ColumnEvaluator> evaluators;
+
 	/**
 	 * Constructs an instance of the abstract Regression model with 50 input
 	 * points.
@@ -72,7 +83,10 @@ public abstract class Regression extends GRModel {
 	public Regression(final int noPoints) {
 		setGrammar(new Grammar(GRAMMAR_STRING));
 
-		interpreter = new JavaInterpreter();
+		final Variable x = new Variable("X", Double.class);
+		final EpoxParser parser = new EpoxParser();
+		parser.declareVariable(x);
+		translator = new EpoxTranslator(parser);
 
 		// Generate the random inputs and the correct outputs.
 		inputs = new double[noPoints];
@@ -81,6 +95,16 @@ public abstract class Regression extends GRModel {
 			inputs[i] = (getRNG().nextDouble() * 2) - 1.0;
 			outputs[i] = getCorrectResult(inputs[i]);
 		}
+
+		evaluators = new ThreadLocal<ColumnEvaluator>() {
+
+			@Override
+			protected ColumnEvaluator initialValue() {
+				final ColumnEvaluator evaluator = new ColumnEvaluator(inputs.length);
+				evaluator.bind(x, inputs);
+				return evaluator;
+			}
+		};
 	}
 
 	/**
@@ -98,20 +122,24 @@ public abstract class Regression extends GRModel {
 	public double getFitness(final CandidateProgram p) {
 		final GRCandidateProgram program = (GRCandidateProgram) p;
 
+		final Node expression;
+		try {
+			if (program.isFlat()) {
+				expression = translator.translate(program.getFlatParseTree());
+			} else {
+				expression = translator.translate(program.getParseTree());
+			}
+		} catch (final MalformedProgramException e) {
+			// This should not ever happen unless user changes grammar.
+			return inputs.length;
+		}
+
+		final double[] results = evaluators.get().evaluateDouble(expression);
+
 		int noWrong = 0;
 
 		for (int i = 0; i < inputs.length; i++) {
-			Double result = null;
-			try {
-				result = (Double) interpreter.eval(program.getSourceCode(), new String[]{"X"}, new Double[]{inputs[i]});
-			} catch (final MalformedProgramException e) {
-				// This should not ever happen unless user changes grammar.
-				assert false;
-			}
-
-			if (result == null) {
-				noWrong++;
-			} else if (Math.abs(result - outputs[i]) > POINT_ERROR) {
+			if (Math.abs(results[i] - outputs[i]) > POINT_ERROR) {
 				noWrong++;
 			}
 		}
@@ -49,14 +49,12 @@ public abstract class AntTrail extends GRModel {
 			+ "<condition> ::= \"if ant.isFoodAhead()\" \\n <op> \\n else \\n <op> \\n end \n"
 			+ "<op> ::= ant.turnLeft(); | ant.turnRight(); | ant.move();";
 
-	// Ruby interpreter for performing evaluation.
-	private final RubyInterpreter interpreter;
-
-	// Ant components.
-	private final AntLandscape landscape;
-	private final Ant ant;
+	// Ruby interpreter used by each thread, since a script engine is not
+	// safe to share between concurrent evaluations.
+	private final ThreadLocal<RubyInterpreter> interpreters;
 
 	// Trail settings.
+	private final Dimension landscapeSize;
 	private final List<Point> foodLocations;
 	private final int allowedTimeSteps;
 
@@ -76,13 +74,17 @@ public abstract class AntTrail extends GRModel {
 	public AntTrail(final Point[] foodLocations, final Dimension landscapeSize, final int allowedTimeSteps) {
 		this.foodLocations = new ArrayList<Point>(Arrays.asList(foodLocations));
 		this.allowedTimeSteps = allowedTimeSteps;
-
-		landscape = new AntLandscape(landscapeSize, null);
-		ant = new Ant(allowedTimeSteps, landscape);
+		this.landscapeSize = landscapeSize;
 
 		setGrammar(new Grammar(GRAMMAR_STRING));
 
-		interpreter = new RubyInterpreter();
+		interpreters = new ThreadLocal<RubyInterpreter>() {
+
+			@Override
+			protected RubyInterpreter initialValue() {
+				return new RubyInterpreter();
+			}
+		};
 	}
 
 	/**
@@ -99,9 +101,10 @@ public abstract class AntTrail extends GRModel {
 	public double getFitness(final CandidateProgram p) {
 		final GRCandidateProgram program = (GRCandidateProgram) p;
 
-		// Reset the ant.
-		landscape.setFoodLocations(foodLocations);
-		ant.reset(allowedTimeSteps, landscape);
+		// Each evaluation has its own ant, since the ant eats its way through
+		// the food and programs may be evaluated concurrently.
+		final AntLandscape landscape = new AntLandscape(landscapeSize, new ArrayList<Point>(foodLocations));
+		final Ant ant = new Ant(allowedTimeSteps, landscape);
 
 		// Construct argument arrays.
 		final String[] argNames = {"ant"};
@@ -110,7 +113,7 @@ public abstract class AntTrail extends GRModel {
 		// Evaluate multiple times until all time moves used.
 		while (ant.getTimesteps() < ant.getMaxMoves()) {
 			try {
-				interpreter.exec(program.getSourceCode(), argNames, argValues);
+				interpreters.get().exec(program.getSourceCode(), argNames, argValues);
 			} catch (final MalformedProgramException e) {
 				// Stop evaluation and give a bad score.
 				break;
@@ -51,8 +51,9 @@ public class Majority extends GRModel {
 			+ "<op> ::= \"||\" | &&\n"
 			+ "<var> ::= ";
 
-	// Ruby interpreter for performing evaluation.
-	private final RubyInterpreter interpreter;
+	// Ruby interpreter used by each thread, since a script engine is not
+	// safe to share between concurrent evaluations.
+	private final ThreadLocal<RubyInterpreter> interpreters;
 
 	// The names of the inputValues used in the grammar.
 	private final String[] argNames;
@@ -67,7 +68,13 @@ public class Majority extends GRModel {
 	 *        for
 	 */
 	public Majority(final int noInputBits) {
-		interpreter = new RubyInterpreter();
+		interpreters = new ThreadLocal<RubyInterpreter>() {
+
+			@Override
+			protected RubyInterpreter initialValue() {
+				return new RubyInterpreter();
+			}
+		};
 
 		// Generate the input sequences.
 		inputValues = BoolUtils.generateBoolSequences(noInputBits);
@@ -108,7 +115,7 @@ public class Majority extends GRModel {
 
 			Boolean result = null;
 			try {
-				result = (Boolean) interpreter.eval(program.getSourceCode(), argNames, objVars);
+				result = (Boolean) interpreters.get().eval(program.getSourceCode(), argNames, objVars);
 			} catch (final MalformedProgramException e) {
 				// Assign worst possible fitness and stop evaluating.
 				score = 0;
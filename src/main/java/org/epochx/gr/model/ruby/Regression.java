@@ -51,8 +51,9 @@ public abstract class Regression extends GRModel {
 	// The error each point must be within.
 	private static final double POINT_ERROR = 0.01;
 
-	// Ruby interpreter for performing evaluation.
-	private final RubyInterpreter interpreter;
+	// Ruby interpreter used by each thread, since a script engine is not
+	// safe to share between concurrent evaluations.
+	private final ThreadLocal<RubyInterpreter> interpreters;
 
 	// Inputs and associated outputs.
 	private final double[] inputs;
@@ -72,7 +73,13 @@ public abstract class Regression extends GRModel {
 	public Regression(final int noPoints) {
 		setGrammar(new Grammar(GRAMMAR_STRING));
 
-		interpreter = new RubyInterpreter();
+		interpreters = new ThreadLocal<RubyInterpreter>() {
+
+			@Override
+			protected RubyInterpreter initialValue() {
+				return new RubyInterpreter();
+			}
+		};
 
 		// Generate the random inputs and the correct outputs.
 		inputs = new double[noPoints];
@@ -103,7 +110,7 @@ public abstract class Regression extends GRModel {
 		for (int i = 0; i < inputs.length; i++) {
 			Double result = null;
 			try {
-				result = (Double) interpreter.eval(program.getSourceCode(), new String[]{"X"}, new Double[]{inputs[i]});
+				result = (Double) interpreters.get().eval(program.getSourceCode(), new String[]{"X"}, new Double[]{inputs[i]});
 			} catch (final MalformedProgramException e) {
 				// This should not ever happen unless user changes grammar.
 				assert false;
@@ -21,8 +21,6 @@
  */
 package org.epochx.gr.op.crossover;
 
-import java.util.*;
-
 import org.epochx.gr.model.GRModel;
 import org.epochx.gr.representation.GRCandidateProgram;
 import org.epochx.op.ConfigOperator;
@@ -38,33 +36,41 @@ public class WhighamCrossover extends ConfigOperator<GRModel> implements GRCross
 	 * Requests an <code>Integer</code> which is the index of the point chosen
 	 * for the whigham crossover operation. The index is from the list of all
 	 * non-terminal symbols in the parse tree of the first program, as would be
-	 * returned by the <code>getNonTerminalSymbols</code> method.
+	 * returned by the <code>getNonTerminalSymbols</code> method, which is the
+	 * same as the index into a <code>FlatParseTree</code>.
 	 */
 	public static final Stat XO_POINT1 = new AbstractStat(ExpiryEvent.CROSSOVER) {};
 
 	/**
 	 * Requests an <code>Integer</code> which is the index of the point chosen
 	 * for the whigham crossover operation. The index is from the list of all
-	 * non-terminal symbols in the parse tree of the second program, as would be
-	 * returned by the <code>getNonTerminalSymbols</code> method.
+	 * non-terminal symbols in the parse tree of the second program that match
+	 * the first point's grammar rule.
 	 */
 	public static final Stat XO_POINT2 = new AbstractStat(ExpiryEvent.CROSSOVER) {};
 
 	/**
 	 * Requests a <code>NonTerminalSymbol</code> which is the subtree from the
-	 * first parent program which is being exchanged into the second parent.
+	 * first parent program which is being exchanged into the second parent. If
+	 * the programs have flat parse trees then it is a
+	 * <code>FlatParseTree</code>.
 	 */
 	public static final Stat XO_SUBTREE1 = new AbstractStat(ExpiryEvent.CROSSOVER) {};
 
 	/**
 	 * Requests a <code>NonTerminalSymbol</code> which is the subtree from the
-	 * second parent program which is being exchanged into the first parent.
+	 * second parent program which is being exchanged into the first parent. If
+	 * the programs have flat parse trees then it is a
+	 * <code>FlatParseTree</code>.
 	 */
 	public static final Stat XO_SUBTREE2 = new AbstractStat(ExpiryEvent.CROSSOVER) {};
 
 	// The random number generator in use.
 	private RandomNumberGenerator rng;
 
+	// The maximum depth of the children, or -1 for no limit.
+	private int maxDepth;
+
 	/**
 	 * Constructs a <code>WhighamCrossover</code>.
 	 * 
@@ -82,6 +88,8 @@ public class WhighamCrossover extends ConfigOperator<GRModel> implements GRCross
 	 */
 	public WhighamCrossover(final GRModel model) {
 		super(model);
+
+		maxDepth = -1;
 	}
 
 	/**
@@ -90,6 +98,7 @@ public class WhighamCrossover extends ConfigOperator<GRModel> implements GRCross
 	@Override
 	public void onConfigure() {
 		rng = getModel().getRNG();
+		maxDepth = getModel().getMaxDepth();
 	}
 
 	@Override
@@ -98,49 +107,129 @@ public class WhighamCrossover extends ConfigOperator<GRModel> implements GRCross
 		final GRCandidateProgram child1 = (GRCandidateProgram) p1;
 		final GRCandidateProgram child2 = (GRCandidateProgram) p2;
 
+		if (child1.isFlat() && child2.isFlat()) {
+			return crossover(child1, child2, child1.getFlatParseTree(), child2.getFlatParseTree());
+		}
+
 		final NonTerminalSymbol parseTree1 = child1.getParseTree();
 		final NonTerminalSymbol parseTree2 = child2.getParseTree();
 
-		final List<NonTerminalSymbol> nonTerminals1 = parseTree1.getNonTerminalSymbols();
-		final List<NonTerminalSymbol> nonTerminals2 = parseTree2.getNonTerminalSymbols();
+		// The non-terminals are indexed by the trees, and the indexes are kept
+		// by clones, so no traversal is needed for programs already seen.
+		final int point1 = rng.nextInt(parseTree1.getNoNonTerminalSymbols());
 
-		final int point1 = rng.nextInt(nonTerminals1.size());
+		final ParseTreeCursor cursor1 = new ParseTreeCursor(parseTree1);
+		final NonTerminalSymbol subtree1 = cursor1.moveToNthNonTerminal(point1);
 
-		final NonTerminalSymbol subtree1 = nonTerminals1.get(point1);
+		// The matching non-terminals from the second program.
+		final int[] matchingNonTerminals = parseTree2.getNonTerminalIndexes(subtree1.getGrammarRule());
 
-		// Generate a list of matching non-terminals from the second program.
-		final List<NonTerminalSymbol> matchingNonTerminals = new ArrayList<NonTerminalSymbol>();
-		for (final NonTerminalSymbol nt: nonTerminals2) {
-			if (nt.getGrammarRule().equals(subtree1.getGrammarRule())) {
-				matchingNonTerminals.add(nt);
-			}
-		}
-
-		if (matchingNonTerminals.isEmpty()) {
+		if (matchingNonTerminals.length == 0) {
 			// No valid points in second program, cancel crossover.
 			return null;
 		} else {
 			// Randomly choose a second point out of the matching non-terminals.
-			final int point2 = rng.nextInt(matchingNonTerminals.size());
-			final NonTerminalSymbol subtree2 = matchingNonTerminals.get(point2);
+			final int point2 = rng.nextInt(matchingNonTerminals.length);
+
+			final ParseTreeCursor cursor2 = new ParseTreeCursor(parseTree2);
+			final NonTerminalSymbol subtree2 = (NonTerminalSymbol) cursor2.moveToNthSymbol(matchingNonTerminals[point2]);
 
 			// Add crossover points to the stats manager.
-			Stats.get().addData(XO_POINT1, point1);
-			Stats.get().addData(XO_POINT2, point2);
+			getContext().getStats().addData(XO_POINT1, point1);
+			getContext().getStats().addData(XO_POINT2, point2);
+
+			// Cancel crossover before swapping if a child would be too deep.
+			if ((maxDepth != -1)
+					&& (((cursor1.getLevel() + subtree2.getDepth()) > maxDepth) || ((cursor2.getLevel() + subtree1
+							.getDepth()) > maxDepth))) {
+				return null;
+			}
 
-			// Swap the non-terminals' children.
-			final List<Symbol> temp = subtree1.getChildren();
-			subtree1.setChildren(subtree2.getChildren());
-			subtree2.setChildren(temp);
+			// Swap the subtrees, copying only the paths down to them since the
+			// rest of each tree may be shared with its parent program. The
+			// parse trees are copies if the programs have flat parse trees.
+			child1.setParseTree(cursor1.replace(subtree2));
+			child2.setParseTree(cursor2.replace(subtree1));
 
 			// Add subtrees into the stats manager.
-			Stats.get().addData(XO_SUBTREE1, subtree1);
-			Stats.get().addData(XO_SUBTREE2, subtree2);
+			getContext().getStats().addData(XO_SUBTREE1, subtree1);
+			getContext().getStats().addData(XO_SUBTREE2, subtree2);
+		}
+
+		return new GRCandidateProgram[]{child1, child2};
+	}
+
+	/*
+	 * Performs the crossover on programs with flat parse trees, making the
+	 * same random choices as for parse trees of symbol objects. The subtrees
+	 * are located by their indexes, so no symbols need to be listed.
+	 */
+	private GRCandidateProgram[] crossover(final GRCandidateProgram child1, final GRCandidateProgram child2,
+			final FlatParseTree parseTree1, final FlatParseTree parseTree2) {
+		final int point1 = rng.nextInt(parseTree1.getNoNonTerminals());
+		final GrammarRule rule = parseTree1.getGrammarRule(point1);
+
+		// The matching non-terminals from the second program.
+		final int[] matchingNonTerminals = parseTree2.getNonTerminalsWithRule(rule);
+
+		if (matchingNonTerminals.length == 0) {
+			// No valid points in second program, cancel crossover.
+			return null;
+		}
+
+		// Randomly choose a second point out of the matching non-terminals.
+		final int point2 = rng.nextInt(matchingNonTerminals.length);
+
+		// Add crossover points to the stats manager.
+		getContext().getStats().addData(XO_POINT1, point1);
+		getContext().getStats().addData(XO_POINT2, point2);
+
+		// Cancel crossover before swapping if a child would be too deep.
+		final int match = matchingNonTerminals[point2];
+		if ((maxDepth != -1)
+				&& (((parseTree1.getLevel(point1) + parseTree2.getDepth(match)) > maxDepth) || ((parseTree2
+						.getLevel(match) + parseTree1.getDepth(point1)) > maxDepth))) {
+			return null;
 		}
 
+		final FlatParseTree subtree1 = parseTree1.getSubtree(point1);
+		final FlatParseTree subtree2 = parseTree2.getSubtree(match);
+
+		// Swap the subtrees.
+		child1.setFlatParseTree(parseTree1.replaceSubtree(point1, subtree2));
+		child2.setFlatParseTree(parseTree2.replaceSubtree(match, subtree1));
+
+		// Add subtrees into the stats manager.
+		getContext().getStats().addData(XO_SUBTREE1, subtree1);
+		getContext().getStats().addData(XO_SUBTREE2, subtree2);
+
 		return new GRCandidateProgram[]{child1, child2};
 	}
 
+	/**
+	 * Returns the maximum depth of the children produced. Crossovers which
+	 * would produce a deeper child are cancelled before any subtrees are
+	 * swapped.
+	 * 
+	 * @return the maximum depth of the children, or <code>-1</code> if there
+	 *         is no limit.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Sets the maximum depth of the children produced. If a model has been set
+	 * then this parameter will be overwritten with the maximum program depth
+	 * from that model on the next configure event.
+	 * 
+	 * @param maxDepth the maximum depth of the children, or <code>-1</code>
+	 *        for no limit.
+	 */
+	public void setMaxDepth(final int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
 	/**
 	 * Returns the random number generator that this crossover is using or
 	 * <code>null</code> if none has been set.
@@ -21,6 +21,8 @@
  */
 package org.epochx.gr.op.init;
 
+import static org.epochx.stats.StatField.INIT_DUPLICATE_RETRIES;
+
 import java.util.*;
 
 import org.epochx.gr.model.GRModel;
@@ -70,8 +72,16 @@ public class FullInitialiser extends ConfigOperator<GRModel> implements GRInitia
 	private int depth;
 
 	// Whether programs must be unique in generated populations.
-	private boolean acceptDuplicates;        
-                
+	private boolean acceptDuplicates;
+
+	// Whether programs should be constructed with flat parse trees.
+	private boolean useFlatParseTrees;
+
+	// The number of labels of the dataset.
+	private int n_labels;
+
+	// The number of attributes of the dataset.
+	private int n_attributes;
 
 	/**
 	 * Constructs a <code>FullInitialiser</code> with all the necessary
@@ -100,6 +110,9 @@ public class FullInitialiser extends ConfigOperator<GRModel> implements GRInitia
 	 */
 	public FullInitialiser(final GRModel model, final int n_labels, final int n_attributes) {
 		this(model, true);
+
+		this.n_labels = n_labels;
+		this.n_attributes = n_attributes;
 	}
 
 	/**
@@ -127,6 +140,7 @@ public class FullInitialiser extends ConfigOperator<GRModel> implements GRInitia
 		grammar = getModel().getGrammar();
 		popSize = getModel().getPopulationSize();
 		depth = getModel().getMaxInitialDepth();
+		useFlatParseTrees = getModel().useFlatParseTrees();
 	}
 
 	/**
@@ -151,18 +165,31 @@ public class FullInitialiser extends ConfigOperator<GRModel> implements GRInitia
 		// Create population list to be populated.
 		final List<CandidateProgram> firstGen = new ArrayList<CandidateProgram>(popSize);
 
+		// The source of every program so far, to find duplicates in constant
+		// time.
+		final Set<String> sources = new HashSet<String>();
+		int retries = 0;
+
 		// Create and add new programs to the population.
 		for (int i = 0; i < popSize; i++) {
 			GRCandidateProgram candidate;
+			boolean duplicate;
 			do {
 				// Create a new program at the models initial max depth.
 				candidate = getInitialProgram();
-			} while (!acceptDuplicates && firstGen.contains(candidate));
+
+				duplicate = !acceptDuplicates && !sources.add(candidate.toString());
+				if (duplicate) {
+					retries++;
+				}
+			} while (duplicate);
 
 			// Add to the new population.
 			firstGen.add(candidate);
 		}
 
+		getContext().getStats().addData(INIT_DUPLICATE_RETRIES, retries);
+
 		return firstGen;
 	}
 
@@ -189,11 +216,20 @@ public class FullInitialiser extends ConfigOperator<GRModel> implements GRInitia
 			throw new IllegalStateException("No possible programs within given max depth parameter for this grammar.");
 		}
 
+		if (useFlatParseTrees) {
+			final FlatParseTree.Builder builder = new FlatParseTree.Builder(grammar);
+
+			// Build a tree below the root.
+			buildDerivationTree(null, builder, startRule, 0, depth);
+
+			return new GRCandidateProgram(builder.build(), getModel());
+		}
+
 		// Construct the root of the parse tree.
 		final NonTerminalSymbol parseTree = new NonTerminalSymbol(startRule);
 
 		// Build a tree below the root.
-		buildDerivationTree(parseTree, startRule, 0, depth);
+		buildDerivationTree(parseTree, null, startRule, 0, depth);
 
 		// Construct and return the program.
 		return new GRCandidateProgram(parseTree, getModel());
@@ -201,87 +237,73 @@ public class FullInitialiser extends ConfigOperator<GRModel> implements GRInitia
 
 	/*
 	 * Builds a full parse tree from the given non-terminal symbol using the
-	 * grammar rule.
+	 * grammar rule, or with the flat parse tree builder if no symbol is given.
 	 */
-	private void buildDerivationTree(final NonTerminalSymbol parseTree, final GrammarRule rule, final int currentDepth,
-			final int maxDepth) {
+	private void buildDerivationTree(final NonTerminalSymbol parseTree, final FlatParseTree.Builder builder,
+			final GrammarRule rule, final int currentDepth, final int maxDepth) {
 		// Check if theres more than one production.
 		int productionIndex = 0;
 		final int noProductions = rule.getNoProductions();
 		if (noProductions > 1) {
-			final List<Integer> validProductions = getValidProductionIndexes(rule.getProductions(), maxDepth
-					- currentDepth
-					- 1);
+			// Use the recursive productions if there are any, to reach the depth.
+			int[] validProductions = rule.getValidRecursiveProductionIndexes(maxDepth - currentDepth - 1);
+			if (validProductions.length == 0) {
+				validProductions = rule.getValidProductionIndexes(maxDepth - currentDepth - 1);
+			}
 
 			// Choose a production randomly.
-			final int chosenProduction = rng.nextInt(validProductions.size());
-			productionIndex = validProductions.get(chosenProduction);
+			final int chosenProduction = rng.nextInt(validProductions.length);
+			productionIndex = validProductions[chosenProduction];
 		}
 
 		// Drop down the tree at this production.
 		final GrammarProduction p = rule.getProduction(productionIndex);
 
+		int index = -1;
+		if (builder != null) {
+			index = builder.startNonTerminal(p);
+		}
+
 		final List<GrammarNode> grammarNodes = p.getGrammarNodes();
 		for (final GrammarNode node: grammarNodes) {
 			if (node instanceof GrammarRule) {
 				final GrammarRule r = (GrammarRule) node;
 
-				final NonTerminalSymbol nt = new NonTerminalSymbol((GrammarRule) node);
-
-				buildDerivationTree(nt, r, currentDepth + 1, maxDepth);
-
-				parseTree.addChild(nt);
-                        } else {
-                            String nodeStr = node.toString();
-                            if (nodeStr.startsWith("RANDFLOAT(")) {
-                                String[] interval = nodeStr.substring(10, nodeStr.length() - 2).split(",");
-                                double rangeMin = Double.parseDouble(interval[0]);
-                                double rangeMax = Double.parseDouble(interval[1]);
-                                double randomValue = rangeMin + (rangeMax - rangeMin) * rng.nextDouble();
-
-                                parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue + "")));
-                            } else if (nodeStr.startsWith("RANDINT_TYPE0(") || nodeStr.startsWith("RANDINTEGER(")){
-                                   int start = 14;
-                                   if(nodeStr.startsWith("RANDINTEGER("))
-                                       start = 12;
-                                String[] interval = nodeStr.substring(start, nodeStr.length() - 2).split(",");
-                                int rangeMin = Integer.parseInt(interval[0]);
-                                int rangeMax = Integer.parseInt(interval[1]);
-                                int randomValue = rangeMin + rng.nextInt((rangeMax - rangeMin) + 1);
-
-                                parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue + "")));
-
-                            } else {
-                                // Must be a grammar literal.
-                                parseTree.addChild(new TerminalSymbol((GrammarLiteral) node));
-                            }
-                        }
-		}
-	}
+				if (builder != null) {
+					buildDerivationTree(null, builder, r, currentDepth + 1, maxDepth);
+				} else {
+					final NonTerminalSymbol nt = new NonTerminalSymbol(r);
 
-	/*
-	 * Gets a List of indexes to those productions from the List of productions
-	 * given that can be used with the specified maximum depth constraint.
-	 */
-	private List<Integer> getValidProductionIndexes(final List<GrammarProduction> grammarProductions, final int maxDepth) {
-		final List<Integer> validRecursive = new ArrayList<Integer>();
-		final List<Integer> validAll = new ArrayList<Integer>();
+					buildDerivationTree(nt, null, r, currentDepth + 1, maxDepth);
 
-		for (int i = 0; i < grammarProductions.size(); i++) {
-			final GrammarProduction p = grammarProductions.get(i);
-
-			if (p.getMinDepth() <= maxDepth) {
-				validAll.add(i);
+					parseTree.addChild(nt);
+				}
+			} else {
+				final GrammarLiteral literal = getLiteral((GrammarLiteral) node);
 
-				if (p.isRecursive()) {
-					validRecursive.add(i);
+				if (builder == null) {
+					parseTree.addChild(new TerminalSymbol(literal));
+				} else if (((GrammarLiteral) node).isGenerated()) {
+					builder.addLiteral(literal);
 				}
 			}
 		}
 
-		// If there were any valid recursive productions, return them, otherwise
-		// use the others.
-		return validRecursive.isEmpty() ? validAll : validRecursive;
+		if (builder != null) {
+			builder.endNonTerminal(index);
+		}
+	}
+
+	/*
+	 * Returns a literal with a randomly generated value if the given grammar
+	 * literal stands for one, otherwise the grammar literal itself.
+	 */
+	private GrammarLiteral getLiteral(final GrammarLiteral node) {
+		if (node instanceof GrammarConstant) {
+			return ((GrammarConstant) node).generate(rng, n_labels, n_attributes);
+		}
+
+		return node;
 	}
 
 	/**
@@ -307,6 +329,28 @@ public class FullInitialiser extends ConfigOperator<GRModel> implements GRInitia
 		this.acceptDuplicates = acceptDuplicates;
 	}
 
+	/**
+	 * Returns whether the programs constructed have flat parse trees.
+	 * 
+	 * @return true if programs are constructed with a
+	 *         <code>FlatParseTree</code>, false otherwise.
+	 */
+	public boolean useFlatParseTrees() {
+		return useFlatParseTrees;
+	}
+
+	/**
+	 * Sets whether the programs constructed should have flat parse trees. If a
+	 * model has been set then this parameter will be overwritten with the
+	 * setting from that model on the next configure event.
+	 * 
+	 * @param useFlatParseTrees whether programs should be constructed with a
+	 *        <code>FlatParseTree</code>.
+	 */
+	public void setUseFlatParseTrees(final boolean useFlatParseTrees) {
+		this.useFlatParseTrees = useFlatParseTrees;
+	}
+
 	/**
 	 * Returns the random number generator that this initialiser is using or
 	 * <code>null</code> if none has been set.
@@ -21,6 +21,8 @@
  */
 package org.epochx.gr.op.init;
 
+import static org.epochx.stats.StatField.INIT_DUPLICATE_RETRIES;
+
 import java.util.*;
 
 import org.epochx.gr.model.GRModel;
@@ -71,6 +73,9 @@ public class GrowInitialiser extends ConfigOperator<GRModel> implements GRInitia
 
 	// Whether programs must be unique in generated populations.
 	private boolean acceptDuplicates;
+
+	// Whether programs should be constructed with flat parse trees.
+	private boolean useFlatParseTrees;
         
         //The number of labels of the dataset.
         private int n_labels;
@@ -153,6 +158,7 @@ public class GrowInitialiser extends ConfigOperator<GRModel> implements GRInitia
 		grammar = getModel().getGrammar();
 		popSize = getModel().getPopulationSize();
 		maxDepth = getModel().getMaxInitialDepth();
+		useFlatParseTrees = getModel().useFlatParseTrees();
 	}
 
 	/**
@@ -176,19 +182,32 @@ public class GrowInitialiser extends ConfigOperator<GRModel> implements GRInitia
 		// Create population list to be populated.
 		final List<CandidateProgram> firstGen = new ArrayList<CandidateProgram>(popSize);
 
+		// The source of every program so far, to find duplicates in constant
+		// time.
+		final Set<String> sources = new HashSet<String>();
+		int retries = 0;
+
 		// Create and add new programs to the population.
 		for (int i = 0; i < popSize; i++) {
 			GRCandidateProgram candidate;
+			boolean duplicate;
 
 			do {
 				// Create a new program down to the models initial max maxDepth.
 				candidate = getInitialProgram();
-			} while (!acceptDuplicates && firstGen.contains(candidate));
+
+				duplicate = !acceptDuplicates && !sources.add(candidate.toString());
+				if (duplicate) {
+					retries++;
+				}
+			} while (duplicate);
 
 			// Add to the new population.
 			firstGen.add(candidate);
 		}
 
+		getContext().getStats().addData(INIT_DUPLICATE_RETRIES, retries);
+
 		return firstGen;
 	}
 
@@ -210,6 +229,9 @@ public class GrowInitialiser extends ConfigOperator<GRModel> implements GRInitia
 			throw new IllegalStateException("No possible programs within given max depth parameter for this grammar.");
 		}
 
+		if (useFlatParseTrees) {
+			return new GRCandidateProgram(getGrownFlatParseTree(maxDepth, startRule), getModel());
+		}
 		return new GRCandidateProgram(getGrownParseTree(maxDepth, startRule), getModel());
 	}
 
@@ -232,136 +254,104 @@ public class GrowInitialiser extends ConfigOperator<GRModel> implements GRInitia
 
 		final NonTerminalSymbol parseTree = new NonTerminalSymbol(startRule);
 
-		buildDerivationTree(parseTree, startRule, 0, maxDepth);
+		buildDerivationTree(parseTree, null, startRule, 0, maxDepth);
 
 		return parseTree;
 	}
 
+	/**
+	 * Grows and returns a new flat parse tree with a maximum depth of the
+	 * specified maxDepth parameter. The same random choices are made as by
+	 * <code>getGrownParseTree</code>, so given the same random number sequence
+	 * the two methods construct equivalent trees.
+	 * 
+	 * @param maxDepth The maximum depth of the parse tree, where the depth is
+	 *        the number of nodes from the root.
+	 * @param startRule the grammar rule at the root of the tree.
+	 * @return a randomly generated flat parse tree of the requested maxDepth.
+	 */
+	public FlatParseTree getGrownFlatParseTree(final int maxDepth, final GrammarRule startRule) {
+		if (rng == null) {
+			throw new IllegalStateException("No random number generator has been set");
+		} else if (grammar == null) {
+			throw new IllegalStateException("No grammar has been set");
+		} else if (maxDepth < 0) {
+			throw new IllegalStateException("Maximum depth must be 0 or greater");
+		}
+
+		final FlatParseTree.Builder builder = new FlatParseTree.Builder(grammar);
+
+		buildDerivationTree(null, builder, startRule, 0, maxDepth);
+
+		return builder.build();
+	}
+
 	/*
-	 * Recursive helper for the getGrownParseTree method.
+	 * Recursive helper for the getGrownParseTree and getGrownFlatParseTree
+	 * methods. Builds below the parse tree symbol if one is given, otherwise
+	 * with the flat parse tree builder.
 	 */
-	private void buildDerivationTree(final NonTerminalSymbol parseTree, final GrammarRule rule, final int currentDepth,
-			final int maxDepth) {
+	private void buildDerivationTree(final NonTerminalSymbol parseTree, final FlatParseTree.Builder builder,
+			final GrammarRule rule, final int currentDepth, final int maxDepth) {
 		// Check if theres more than one production.
 		int productionIndex = 0;
 		final int noProductions = rule.getNoProductions();
 		if (noProductions > 1) {
-			final List<Integer> validProductions = getValidProductionIndexes(rule.getProductions(), maxDepth
-					- currentDepth
-					- 1);
+			final int[] validProductions = rule.getValidProductionIndexes(maxDepth - currentDepth - 1);
 
 			// Choose a production randomly.
-			final int chosenProduction = rng.nextInt(validProductions.size());
-			productionIndex = validProductions.get(chosenProduction);
+			final int chosenProduction = rng.nextInt(validProductions.length);
+			productionIndex = validProductions[chosenProduction];
 		}
 
 		// Drop down the tree at this production.
 		final GrammarProduction p = rule.getProduction(productionIndex);
 
+		int index = -1;
+		if (builder != null) {
+			index = builder.startNonTerminal(p);
+		}
+
 		final List<GrammarNode> grammarNodes = p.getGrammarNodes();
 		for (final GrammarNode node: grammarNodes) {
-                        
 			if (node instanceof GrammarRule) {
 				final GrammarRule r = (GrammarRule) node;
 
-				final NonTerminalSymbol nt = new NonTerminalSymbol((GrammarRule) node);
+				if (builder != null) {
+					buildDerivationTree(null, builder, r, currentDepth + 1, maxDepth);
+				} else {
+					final NonTerminalSymbol nt = new NonTerminalSymbol(r);
 
-				buildDerivationTree(nt, r, currentDepth + 1, maxDepth);
+					buildDerivationTree(nt, null, r, currentDepth + 1, maxDepth);
 
-				parseTree.addChild(nt);
+					parseTree.addChild(nt);
+				}
 			} else {
-                                String nodeStr = node.toString();
-                                if(nodeStr.startsWith("RANDFLOAT(")){
-                                   String [] interval = nodeStr.substring(10, nodeStr.length()-2).split(",");
-                                   double rangeMin = Double.parseDouble(interval[0]);
-                                   double rangeMax = Double.parseDouble(interval[1]);
-                                   double randomValue = rangeMin + (rangeMax - rangeMin) * rng.nextDouble();                                  
-                                   
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue+"")));
-                                }else if(nodeStr.startsWith("RANDINT_TYPE0(") || nodeStr.startsWith("RANDINTEGER(")){
-                                   int start = 14;
-                                   if(nodeStr.startsWith("RANDINTEGER("))
-                                       start = 12;
-                                   String [] interval = nodeStr.substring(start, nodeStr.length()-2).split(",");
-                                   int rangeMin = Integer.parseInt(interval[0]);                                   
-                                   int rangeMax = Integer.parseInt(interval[1]);        
-                                   int randomValue = rangeMin + rng.nextInt((rangeMax - rangeMin) + 1);
-                                                                      
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue+"")));
-                                    
-                                }else if(nodeStr.startsWith("RANDINT_TYPE1(")){
-                                   String [] interval = nodeStr.substring(14, nodeStr.length()-2).split(",");
-                                   int rangeMin = Integer.parseInt(interval[0]);
-                                   int rangeMax = (int) (Math.round(Math.sqrt(this.n_labels)) + 1);                                   
-                                   int randomValue = rangeMin + rng.nextInt((rangeMax - rangeMin) + 1);                                  
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue+"")));
-                                    
-                                }else if(nodeStr.startsWith("RANDINT_TYPE2(")){
-                                   String [] interval = nodeStr.substring(14, nodeStr.length()-2).split(",");
-                                   int rangeMin = Integer.parseInt(interval[0]);
-                                   int rangeMax = (int) (Math.round(this.n_labels/2));
-                                   int randomValue = rangeMin + rng.nextInt(((rangeMax - rangeMin) + 1));                                  
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue+"")));
-                                    
-                                }else if(nodeStr.startsWith("RANDINT_TYPE3(")){
-                                   String [] interval = nodeStr.substring(14, nodeStr.length()-2).split(",");
-                                   int rangeMin = Integer.parseInt(interval[0]);
-
-                                   int rangeMax = Math.min(100, (2 * this.n_labels));                                 
-                                   int randomValue = rangeMin + rng.nextInt((rangeMax - rangeMin) + 1);                                   
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue+"")));
-                                    
-                                }else if(nodeStr.startsWith("RANDINT_TYPE4(")){
-                                   double rangeMin = 0.2;
-                                   double rangeMax = 1.0;                                   
-                                   double doublerandomValue = rangeMin + (rangeMax - rangeMin) * rng.nextDouble();                                   
-                                   int intrandomvalue = (int) (doublerandomValue * this.n_attributes);
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(intrandomvalue+"")));                          
-                                    
-                                }else if(nodeStr.startsWith("RANDINT_TYPE5(")){
-                                   String [] interval = nodeStr.substring(14, nodeStr.length()-2).split(",");
-                                   int rangeMin = Integer.parseInt(interval[0]);
-                                   int rangeMax = this.n_labels;
-                                   int randomValue = rangeMin + rng.nextInt(((rangeMax - rangeMin) + 1));                                  
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue+"")));
-                                    
-                                }else if(nodeStr.startsWith("RANDINT_TYPE6(")){
-                                   String [] interval = nodeStr.substring(14, nodeStr.length()-2).split(",");
-                                   int rangeMin = Integer.parseInt(interval[0]);
-                                   int rangeMax = this.n_labels - 1;
-                                   int randomValue = rangeMin + rng.nextInt(((rangeMax - rangeMin) + 1));                                  
-                                   parseTree.addChild(new TerminalSymbol(new GrammarLiteral(randomValue+"")));
-                                    
-                                
-                                
-                                }else{
-                                    // Must be a grammar literal.
-                                    parseTree.addChild(new TerminalSymbol((GrammarLiteral) node));
-                                    
-                                }
+				final GrammarLiteral literal = getLiteral((GrammarLiteral) node);
 
+				if (builder == null) {
+					parseTree.addChild(new TerminalSymbol(literal));
+				} else if (((GrammarLiteral) node).isGenerated()) {
+					builder.addLiteral(literal);
+				}
 			}
 		}
+
+		if (builder != null) {
+			builder.endNonTerminal(index);
+		}
 	}
 
 	/*
-	 * Gets a List of indexes to those productions from the List of productions
-	 * given that can be used with the specified maximum maxDepth constraint.
+	 * Returns a literal with a randomly generated value if the given grammar
+	 * literal stands for one, otherwise the grammar literal itself.
 	 */
-	private List<Integer> getValidProductionIndexes(final List<GrammarProduction> grammarProductions, final int maxDepth) {
-		final List<Integer> valid = new ArrayList<Integer>();
-
-		for (int i = 0; i < grammarProductions.size(); i++) {
-			final GrammarProduction p = grammarProductions.get(i);
-
-			if (p.getMinDepth() <= maxDepth) {
-				valid.add(i);
-			}
+	private GrammarLiteral getLiteral(final GrammarLiteral node) {
+		if (node instanceof GrammarConstant) {
+			return ((GrammarConstant) node).generate(rng, n_labels, n_attributes);
 		}
 
-		// If there were any valid recursive productions, return them, otherwise
-		// use the others.
-		return valid;
+		return node;
 	}
 
         public void setNLabels(int n_labels) {
@@ -397,6 +387,28 @@ public class GrowInitialiser extends ConfigOperator<GRModel> implements GRInitia
 		this.acceptDuplicates = acceptDuplicates;
 	}
 
+	/**
+	 * Returns whether the programs constructed have flat parse trees.
+	 * 
+	 * @return true if programs are constructed with a
+	 *         <code>FlatParseTree</code>, false otherwise.
+	 */
+	public boolean useFlatParseTrees() {
+		return useFlatParseTrees;
+	}
+
+	/**
+	 * Sets whether the programs constructed should have flat parse trees. If a
+	 * model has been set then this parameter will be overwritten with the
+	 * setting from that model on the next configure event.
+	 * 
+	 * @param useFlatParseTrees whether programs should be constructed with a
+	 *        <code>FlatParseTree</code>.
+	 */
+	public void setUseFlatParseTrees(final boolean useFlatParseTrees) {
+		this.useFlatParseTrees = useFlatParseTrees;
+	}
+
 	/**
 	 * Returns the random number generator that this initialiser is using or
 	 * <code>null</code> if none has been set.
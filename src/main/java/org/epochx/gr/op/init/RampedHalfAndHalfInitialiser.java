@@ -21,6 +21,8 @@
  */
 package org.epochx.gr.op.init;
 
+import static org.epochx.stats.StatField.INIT_DUPLICATE_RETRIES;
+
 import java.util.*;
 
 import org.epochx.gr.model.GRModel;
@@ -218,12 +220,18 @@ public class RampedHalfAndHalfInitialiser extends ConfigOperator<GRModel> implem
 		// is 0.
 		final double programsPerDepth = (double) popSize / (endMaxDepth - startDepth + 1);
 
+		// The source of every program so far, to find duplicates in constant
+		// time.
+		final Set<String> sources = new HashSet<String>();
+		int retries = 0;
+
 		for (int i = 0; i < popSize; i++) {
 			// Calculate depth
 			final int depth = (int) Math.floor((i / programsPerDepth) + startDepth);
 
 			// Grow on even numbers, full on odd.
 			GRCandidateProgram program;
+			boolean duplicate;
 
 			do {
 				if ((i % 2) == 0) {
@@ -233,11 +241,18 @@ public class RampedHalfAndHalfInitialiser extends ConfigOperator<GRModel> implem
 					full.setDepth(depth);
 					program = full.getInitialProgram();
 				}
-			} while (!acceptDuplicates && firstGen.contains(program));
+
+				duplicate = !acceptDuplicates && !sources.add(program.toString());
+				if (duplicate) {
+					retries++;
+				}
+			} while (duplicate);
 
 			firstGen.add(program);
 		}
 
+		getContext().getStats().addData(INIT_DUPLICATE_RETRIES, retries);
+
 		return firstGen;
 	}
 
@@ -287,6 +302,29 @@ public class RampedHalfAndHalfInitialiser extends ConfigOperator<GRModel> implem
 		full.setRNG(rng);
 	}
 
+	/**
+	 * Returns whether the programs constructed have flat parse trees.
+	 * 
+	 * @return true if programs are constructed with a
+	 *         <code>FlatParseTree</code>, false otherwise.
+	 */
+	public boolean useFlatParseTrees() {
+		return grow.useFlatParseTrees();
+	}
+
+	/**
+	 * Sets whether the programs constructed should have flat parse trees. If a
+	 * model has been set then this parameter will be overwritten with the
+	 * setting from that model on the next configure event.
+	 * 
+	 * @param useFlatParseTrees whether programs should be constructed with a
+	 *        <code>FlatParseTree</code>.
+	 */
+	public void setUseFlatParseTrees(final boolean useFlatParseTrees) {
+		grow.setUseFlatParseTrees(useFlatParseTrees);
+		full.setUseFlatParseTrees(useFlatParseTrees);
+	}
+
 	/**
 	 * Returns the grammar that this initialiser is generating programs to
 	 * satisfy.
@@ -21,8 +21,6 @@
  */
 package org.epochx.gr.op.mutation;
 
-import java.util.List;
-
 import org.epochx.gr.model.GRModel;
 import org.epochx.gr.op.init.GrowInitialiser;
 import org.epochx.gr.representation.GRCandidateProgram;
@@ -37,13 +35,17 @@ public class WhighamMutation extends ConfigOperator<GRModel> implements GRMutati
 
 	/**
 	 * Requests an <code>Integer</code> which is the index of the non-terminal
-	 * which was selected to be modified by the whigham mutation.
+	 * which was selected to be modified by the whigham mutation. For a program
+	 * with a flat parse tree this is the index of the non-terminal in the
+	 * <code>FlatParseTree</code>, otherwise it is the index of the symbol in
+	 * the parse tree.
 	 */
 	public static final Stat MUT_POINT = new AbstractStat(ExpiryEvent.MUTATION) {};
 
 	/**
 	 * Requests a <code>NonTerminalSymbol</code> which is the subtree that was
-	 * inserted in the program undergoing whigham mutation.
+	 * inserted in the program undergoing whigham mutation. If the program has
+	 * a flat parse tree then it is a <code>FlatParseTree</code>.
 	 */
 	public static final Stat MUT_SUBTREE = new AbstractStat(ExpiryEvent.MUTATION) {};
 
@@ -106,33 +108,57 @@ public class WhighamMutation extends ConfigOperator<GRModel> implements GRMutati
 	public GRCandidateProgram mutate(final CandidateProgram program) {
 		final GRCandidateProgram mutatedProgram = (GRCandidateProgram) program.clone();
 
-		final NonTerminalSymbol parseTree = mutatedProgram.getParseTree();
+		if (mutatedProgram.isFlat()) {
+			return mutate(mutatedProgram, mutatedProgram.getFlatParseTree());
+		}
 
-		// This is v.inefficient because we have to fly up and down the tree
-		// lots of times.
-		final List<Integer> nonTerminals = parseTree.getNonTerminalIndexes();
+		final NonTerminalSymbol parseTree = mutatedProgram.getParseTree();
 
-		// Choose a node to change.
-		final int point = nonTerminals.get(rng.nextInt(nonTerminals.size()));
-		final NonTerminalSymbol original = (NonTerminalSymbol) parseTree.getNthSymbol(point);
+		// Choose a node to change, and find it with one descent of the tree.
+		final ParseTreeCursor cursor = new ParseTreeCursor(parseTree);
+		final NonTerminalSymbol original = cursor.moveToNthNonTerminal(rng.nextInt(parseTree
+				.getNoNonTerminalSymbols()));
+		final int point = cursor.getIndex();
 		final int originalDepth = original.getDepth();
 
 		// Add subtree into the stats manager.
-		Stats.get().addData(MUT_POINT, point);
+		getContext().getStats().addData(MUT_POINT, point);
 
 		// Construct a new subtree from that node's grammar rule.
 		final GrammarRule rule = original.getGrammarRule();
 		final NonTerminalSymbol subtree = grower.getGrownParseTree(originalDepth, rule);
 
 		// Add subtree into the stats manager.
-		Stats.get().addData(MUT_SUBTREE, subtree);
+		getContext().getStats().addData(MUT_SUBTREE, subtree);
+
+		// Replace node, copying only the path down to it.
+		mutatedProgram.setParseTree(cursor.replace(subtree));
+
+		return mutatedProgram;
+	}
+
+	/*
+	 * Performs the mutation on a program with a flat parse tree, making the
+	 * same random choices as for a parse tree of symbol objects.
+	 */
+	private GRCandidateProgram mutate(final GRCandidateProgram mutatedProgram, final FlatParseTree parseTree) {
+		// Choose a node to change.
+		final int point = rng.nextInt(parseTree.getNoNonTerminals());
+		final int originalDepth = parseTree.getDepth(point);
+
+		// Add subtree into the stats manager.
+		getContext().getStats().addData(MUT_POINT, point);
+
+		// Construct a new subtree from that node's grammar rule.
+		final GrammarRule rule = parseTree.getGrammarRule(point);
+		grower.setGrammar(parseTree.getGrammar());
+		final FlatParseTree subtree = grower.getGrownFlatParseTree(originalDepth, rule);
+
+		// Add subtree into the stats manager.
+		getContext().getStats().addData(MUT_SUBTREE, subtree);
 
 		// Replace node.
-		if (point == 0) {
-			mutatedProgram.setParseTree(subtree);
-		} else {
-			parseTree.setNthSymbol(point, subtree);
-		}
+		mutatedProgram.setFlatParseTree(parseTree.replaceSubtree(point, subtree));
 
 		return mutatedProgram;
 	}
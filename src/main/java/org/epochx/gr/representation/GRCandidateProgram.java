@@ -21,20 +21,36 @@
  */
 package org.epochx.gr.representation;
 
+import java.io.*;
+
+import org.epochx.core.*;
 import org.epochx.gr.model.GRModel;
 import org.epochx.representation.CandidateProgram;
-import org.epochx.tools.grammar.NonTerminalSymbol;
+import org.epochx.tools.grammar.*;
 
 /**
+ * <p>
+ * A program's parse tree may be held either as a tree of
+ * <code>NonTerminalSymbol</code> objects or as a <code>FlatParseTree</code>,
+ * which takes much less memory and is shared rather than copied when the
+ * program is cloned. Operators should check <code>isFlat()</code> and work on
+ * whichever form the program holds.
+ * 
  * <p>
  * Note: this class has a natural ordering that is inconsistent with equals.
  */
 public class GRCandidateProgram extends CandidateProgram {
 
+	// The forms of parse tree written by writeTo.
+	private static final byte NO_PARSE_TREE = 0;
+	private static final byte PARSE_TREE = 1;
+	private static final byte FLAT_PARSE_TREE = 2;
+
 	private GRModel model;
 
-	// The phenotype.
+	// The phenotype, only one of which is set.
 	private NonTerminalSymbol parseTree;
+	private FlatParseTree flatParseTree;
 
 	// The fitness of the phenotype.
 	private double fitness;
@@ -43,7 +59,7 @@ public class GRCandidateProgram extends CandidateProgram {
 	private String sourceCache;
 
 	public GRCandidateProgram(final GRModel model) {
-		this(null, model);
+		this((NonTerminalSymbol) null, model);
 	}
 
 	public GRCandidateProgram(final NonTerminalSymbol parseTree, final GRModel model) {
@@ -54,21 +70,101 @@ public class GRCandidateProgram extends CandidateProgram {
 		// fitness = 0.0;
 	}
 
+	/**
+	 * Constructs a program with the given flat parse tree.
+	 * 
+	 * @param flatParseTree the parse tree of the program.
+	 * @param model the model the program belongs to.
+	 */
+	public GRCandidateProgram(final FlatParseTree flatParseTree, final GRModel model) {
+		this((NonTerminalSymbol) null, model);
+
+		this.flatParseTree = flatParseTree;
+	}
+
+	/**
+	 * Replaces the parse tree of this program. If the given tree is part of
+	 * another tree, or shared with one, then a copy of it is used, which
+	 * shares its children.
+	 * 
+	 * @param parseTree the root of the new parse tree of this program.
+	 */
 	public void setParseTree(final NonTerminalSymbol parseTree) {
-		this.parseTree = parseTree;
+		if ((parseTree != null) && ((parseTree.getParent() != null) || parseTree.isShared())) {
+			this.parseTree = parseTree.clone();
+		} else {
+			this.parseTree = parseTree;
+		}
+		this.flatParseTree = null;
+	}
+
+	/**
+	 * Replaces the parse tree of this program with the given flat parse tree.
+	 * 
+	 * @param flatParseTree the new parse tree of this program.
+	 */
+	public void setFlatParseTree(final FlatParseTree flatParseTree) {
+		this.flatParseTree = flatParseTree;
+		this.parseTree = null;
+	}
+
+	/**
+	 * Returns the flat parse tree of this program.
+	 * 
+	 * @return the flat parse tree, or <code>null</code> if this program's
+	 *         parse tree is held as symbol objects.
+	 */
+	public FlatParseTree getFlatParseTree() {
+		return this.flatParseTree;
+	}
+
+	/**
+	 * Returns whether this program's parse tree is held as a
+	 * <code>FlatParseTree</code>.
+	 * 
+	 * @return true if the program has a flat parse tree, false otherwise.
+	 */
+	public boolean isFlat() {
+		return this.flatParseTree != null;
 	}
 
 	@Override
 	public double getFitness() {
-		// Only get the source code if caching to avoid overhead otherwise.
+		// Only get the source code if caching to avoid overhead otherwise. The
+		// parse tree caches its source until it is modified, so an unchanged
+		// program returns the same string and the comparison is immediate.
 		String source = null;
 		if (this.model.cacheFitness()) {
 			source = this.getSourceCode();
 		}
 
 		// If we're not caching or the cache is out of date.
-		if (!this.model.cacheFitness() || !source.equals(this.sourceCache)) {
+		if (!this.model.cacheFitness()) {
 			this.fitness = this.model.getFitness(this);
+		} else if (!source.equals(this.sourceCache)) {
+			// An identical program may have been evaluated elsewhere.
+			final FitnessCache cache = this.model.getFitnessCache();
+			final FitnessStore store = this.model.getFitnessStore();
+			Double cached = (cache == null) ? null : cache.get(source);
+
+			if ((cached == null) && (store != null)) {
+				cached = store.get(source);
+				if ((cached != null) && (cache != null)) {
+					cache.put(source, cached);
+				}
+			}
+
+			if (cached != null) {
+				this.fitness = cached;
+			} else {
+				this.fitness = this.model.getFitness(this);
+				if (cache != null) {
+					cache.put(source, this.fitness);
+				}
+				if (store != null) {
+					store.put(source, this.fitness);
+				}
+			}
 			this.sourceCache = source;
 		}
 
@@ -97,14 +193,40 @@ public class GRCandidateProgram extends CandidateProgram {
 	}
 
 	public String getSourceCode() {
+		if (this.flatParseTree != null) {
+			return this.flatParseTree.toString();
+		}
 		return this.parseTree.toString();
 	}
 
+	/**
+	 * Returns the parse tree of this program.
+	 * 
+	 * <p>
+	 * <b>If the program has a flat parse tree then each call constructs a new,
+	 * equivalent tree of symbol objects, and changes made to it are not
+	 * reflected in this program.</b> To modify such a program, make the
+	 * changes to the returned tree and then pass it to
+	 * <code>setParseTree</code>, which converts the program to a tree of
+	 * symbol objects. Use <code>getFlatParseTree</code> to read a flat parse
+	 * tree without constructing a copy.
+	 * 
+	 * @return the root of this program's parse tree, or a copy of it if the
+	 *         program has a flat parse tree.
+	 * @see #isFlat()
+	 * @see #setParseTree(NonTerminalSymbol)
+	 */
 	public NonTerminalSymbol getParseTree() {
+		if (this.flatParseTree != null) {
+			return this.flatParseTree.toNonTerminalSymbol();
+		}
 		return this.parseTree;
 	}
 
 	public int getDepth() {
+		if (this.flatParseTree != null) {
+			return this.flatParseTree.getDepth();
+		}
 		return this.parseTree.getDepth();
 	}
 
@@ -114,7 +236,8 @@ public class GRCandidateProgram extends CandidateProgram {
 
 	/**
 	 * Create a clone of this GECandidateProgram. The list of codons are copied
-	 * as are all caches.
+	 * as are all caches. The parse tree is shared with the clone, other than
+	 * its root, and is copied along the path to any later change.
 	 *
 	 * @return a copy of this GECandidateProgram instance.
 	 */
@@ -130,6 +253,9 @@ public class GRCandidateProgram extends CandidateProgram {
 			clone.parseTree = this.parseTree.clone();
 		}
 
+		// Flat parse trees are immutable so can be shared.
+		clone.flatParseTree = this.flatParseTree;
+
 		// Copy the caches.
 		clone.sourceCache = this.sourceCache;
 		clone.fitness = this.fitness;
@@ -140,6 +266,104 @@ public class GRCandidateProgram extends CandidateProgram {
 		return clone;
 	}
 
+	/**
+	 * Creates a copy of this program which belongs to the given model. The
+	 * parse tree is copied in full, so that it shares no symbols or cached
+	 * values with this program.
+	 * 
+	 * @param model the <code>GRModel</code> that the copy should belong to.
+	 * @return a copy of this program for the given model.
+	 */
+	@Override
+	public CandidateProgram copyTo(final Model model) {
+		if (this.flatParseTree != null) {
+			return new GRCandidateProgram(this.flatParseTree.getSubtree(0), (GRModel) model);
+		} else if (this.parseTree != null) {
+			return new GRCandidateProgram(copy(this.parseTree), (GRModel) model);
+		} else {
+			return new GRCandidateProgram((GRModel) model);
+		}
+	}
+
+	/*
+	 * Copies a parse tree without sharing any of its non-terminals.
+	 */
+	private static NonTerminalSymbol copy(final NonTerminalSymbol symbol) {
+		final NonTerminalSymbol copy = new NonTerminalSymbol(symbol.getGrammarRule());
+
+		final int noChildren = symbol.getNoChildren();
+		for (int i = 0; i < noChildren; i++) {
+			final Symbol child = symbol.getChild(i);
+			if (child instanceof NonTerminalSymbol) {
+				copy.addChild(copy((NonTerminalSymbol) child));
+			} else {
+				copy.addChild(child.clone());
+			}
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Writes this program as its fitness, followed by its parse tree in the
+	 * form written by <code>ParseTreeCodec</code>. A flat parse tree is read
+	 * back as a flat parse tree.
+	 * 
+	 * @param out the output to write to.
+	 * @throws IOException if there was a problem writing to the output.
+	 * @see GRModel#readProgram(DataInput)
+	 */
+	@Override
+	public void writeTo(final DataOutput out) throws IOException {
+		// Whether the fitness is up to date, so need not be calculated again.
+		final boolean evaluated = (this.sourceCache != null) && this.sourceCache.equals(this.getSourceCode());
+		out.writeBoolean(evaluated);
+		out.writeDouble(this.fitness);
+
+		if (this.flatParseTree != null) {
+			out.writeByte(FLAT_PARSE_TREE);
+			ParseTreeCodec.write(out, this.flatParseTree);
+		} else if (this.parseTree != null) {
+			out.writeByte(PARSE_TREE);
+			ParseTreeCodec.write(out, this.parseTree, this.model.getGrammar());
+		} else {
+			out.writeByte(NO_PARSE_TREE);
+		}
+	}
+
+	/**
+	 * Reads a program written by <code>writeTo</code>.
+	 * 
+	 * @param in the input to read from.
+	 * @param model the model that the program belongs to.
+	 * @return the program that was read.
+	 * @throws IOException if there was a problem reading from the input, or it
+	 *         does not hold a program of the model's grammar.
+	 */
+	public static GRCandidateProgram readFrom(final DataInput in, final GRModel model) throws IOException {
+		final boolean evaluated = in.readBoolean();
+		final double fitness = in.readDouble();
+
+		final GRCandidateProgram program;
+		final byte form = in.readByte();
+		if (form == FLAT_PARSE_TREE) {
+			program = new GRCandidateProgram(ParseTreeCodec.readFlatParseTree(in, model.getGrammar()), model);
+		} else if (form == PARSE_TREE) {
+			program = new GRCandidateProgram(ParseTreeCodec.readParseTree(in, model.getGrammar()), model);
+		} else if (form == NO_PARSE_TREE) {
+			program = new GRCandidateProgram(model);
+		} else {
+			throw new IOException("unknown parse tree form: " + form);
+		}
+
+		program.fitness = fitness;
+		if (evaluated) {
+			program.sourceCache = program.getSourceCode();
+		}
+
+		return program;
+	}
+
 	/**
 	 * Returns a string representation of this program. This will be either the
 	 * genotype or the phenotype, depending on whether the program has
@@ -147,7 +371,9 @@ public class GRCandidateProgram extends CandidateProgram {
 	 */
 	@Override
 	public String toString() {
-		if (this.parseTree != null) {
+		if (this.flatParseTree != null) {
+			return this.flatParseTree.toString();
+		} else if (this.parseTree != null) {
 			return this.parseTree.toString();
 		} else {
 			return null;
@@ -174,6 +400,19 @@ public class GRCandidateProgram extends CandidateProgram {
 		}
 	}
 
+	/**
+	 * Returns a hash code for this program, which is consistent with
+	 * <code>equals</code>.
+	 * 
+	 * @return a hash code value for this object.
+	 */
+	@Override
+	public int hashCode() {
+		final String source = toString();
+
+		return (source == null) ? 0 : source.hashCode();
+	}
+
 	/**
 	* Compares this program to another based upon fitness. Returns a negative
 	* integer if this program has a worse (larger) fitness value, zero if they
@@ -23,6 +23,7 @@ package org.epochx.life;
 
 import java.util.List;
 
+import org.epochx.core.EvolutionContext;
 import org.epochx.ref.ListenerList;
 import org.epochx.representation.CandidateProgram;
 
@@ -59,8 +60,6 @@ import org.epochx.representation.CandidateProgram;
  */
 public class Life {
 
-	private static Life instance;
-
 	// The life cycle listeners.
 	private final ListenerList<ConfigListener> configListeners;
 	private final ListenerList<RunListener> runListeners;
@@ -75,10 +74,11 @@ public class Life {
 	// Hooks.
 	private final ListenerList<Hook> hooks;
 
-	/*
-	 * Construct a new life cycle manager.
+	/**
+	 * Constructs a new life cycle manager. Each <code>EvolutionContext</code>
+	 * has one, which should be used instead of constructing others.
 	 */
-	private Life() {
+	public Life() {
 		// Initialise listener lists.
 		configListeners = new ListenerList<ConfigListener>();
 		runListeners = new ListenerList<RunListener>();
@@ -93,12 +93,16 @@ public class Life {
 		hooks = new ListenerList<Hook>();
 	}
 
+	/**
+	 * Returns the life cycle of the current <code>EvolutionContext</code> of
+	 * the calling thread. While a model is being run, this is the life cycle
+	 * of that model's context.
+	 * 
+	 * @return the life cycle for the calling thread.
+	 * @see EvolutionContext#get()
+	 */
 	public static Life get() {
-		if (instance == null) {
-			instance = new Life();
-		}
-
-		return instance;
+		return EvolutionContext.get().getLife();
 	}
 
 	/**
@@ -21,7 +21,7 @@
  */
 package org.epochx.op;
 
-import org.epochx.core.Model;
+import org.epochx.core.*;
 import org.epochx.life.*;
 
 /**
@@ -32,6 +32,9 @@ public abstract class ConfigOperator<T extends Model> implements Operator, Confi
 	// The controlling model.
 	private T model;
 
+	// The life cycle that this operator is registered with for configure events.
+	private Life life;
+
 	/**
 	 * Constructs a <code>ConfigOperator</code> with a model.
 	 * 
@@ -69,6 +72,17 @@ public abstract class ConfigOperator<T extends Model> implements Operator, Confi
 		return model;
 	}
 
+	/**
+	 * Returns the context that this operator records its stats into, which is
+	 * the context of the model if one is set, or otherwise the context current
+	 * on the calling thread.
+	 * 
+	 * @return the context of this operator's model.
+	 */
+	public EvolutionContext getContext() {
+		return (model == null) ? EvolutionContext.get() : model.getContext();
+	}
+
 	/**
 	 * Sets a model that will provide the configuration for this operator.
 	 * The necessary parameters will be obtained from the model the next time,
@@ -94,10 +108,13 @@ public abstract class ConfigOperator<T extends Model> implements Operator, Confi
 	 */
 	private void updateListener() {
 		// Ensure config listeners are kept up to date.
-		if (model == null) {
-			Life.get().removeConfigListener(this);
-		} else {
-			Life.get().addConfigListener(this, false);
+		if (life != null) {
+			life.removeConfigListener(this);
+			life = null;
+		}
+		if (model != null) {
+			life = model.getContext().getLife();
+			life.addConfigListener(this, false);
 		}
 	}
 }
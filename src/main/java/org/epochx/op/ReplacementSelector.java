@@ -0,0 +1,45 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.op;
+
+import java.util.List;
+
+import org.epochx.representation.CandidateProgram;
+
+/**
+ * Replacement selector operators choose the program of a population that a
+ * new program should take the place of, in steady-state evolution. The
+ * population is always given in the order in which its programs were
+ * inserted, oldest first, and every program in it has been evaluated.
+ */
+public interface ReplacementSelector {
+
+	/**
+	 * Chooses the program to be replaced.
+	 * 
+	 * @param pop the population, in order of insertion with the oldest
+	 *        program first.
+	 * @return the index of the program to be replaced.
+	 */
+	public int getReplacementIndex(List<CandidateProgram> pop);
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.op.replacement;
+
+import java.util.List;
+
+import org.epochx.core.Model;
+import org.epochx.op.*;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * A replacement selector which chooses the worst of a number of randomly
+ * chosen programs, so that worse programs are more likely to be replaced but
+ * any program but the best may be.
+ * 
+ * <p>
+ * If a model is provided then the following parameters are loaded upon every
+ * configure event:
+ * 
+ * <ul>
+ * <li>random number generator</li>
+ * </ul>
+ * 
+ * @see WorstReplacementSelector
+ * @see OldestReplacementSelector
+ */
+public class InverseTournamentReplacementSelector extends ConfigOperator<Model> implements ReplacementSelector {
+
+	// Random number generator.
+	private RandomNumberGenerator rng;
+
+	// The number of programs from which the worst is taken.
+	private int tournamentSize;
+
+	/**
+	 * Constructs an instance of <code>InverseTournamentReplacementSelector</code>
+	 * with the necessary parameters given.
+	 * 
+	 * @param rng the random number generator used to choose the programs in
+	 *        each tournament.
+	 * @param tournamentSize the number of programs in each tournament.
+	 */
+	public InverseTournamentReplacementSelector(final RandomNumberGenerator rng, final int tournamentSize) {
+		this((Model) null, tournamentSize);
+
+		this.rng = rng;
+	}
+
+	/**
+	 * Constructs an instance of <code>InverseTournamentReplacementSelector</code>.
+	 * 
+	 * @param model the Model which defines the run parameters such as the
+	 *        random number generator to use.
+	 * @param tournamentSize the number of programs in each tournament.
+	 */
+	public InverseTournamentReplacementSelector(final Model model, final int tournamentSize) {
+		super(model);
+
+		this.tournamentSize = tournamentSize;
+	}
+
+	/**
+	 * Configures the operator with parameters from the model.
+	 */
+	@Override
+	public void onConfigure() {
+		rng = getModel().getRNG();
+	}
+
+	@Override
+	public int getReplacementIndex(final List<CandidateProgram> pop) {
+		if ((pop == null) || pop.isEmpty()) {
+			throw new IllegalArgumentException("population must not be null nor empty");
+		} else if (rng == null) {
+			throw new IllegalStateException("random number generator not set");
+		}
+
+		int worst = -1;
+		double worstFitness = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < tournamentSize; i++) {
+			final int index = rng.nextInt(pop.size());
+			final double fitness = pop.get(index).getFitness();
+			if ((worst == -1) || (fitness > worstFitness)) {
+				worstFitness = fitness;
+				worst = index;
+			}
+		}
+
+		return worst;
+	}
+
+	public int getTournamentSize() {
+		return tournamentSize;
+	}
+
+	public void setTournamentSize(final int tournamentSize) {
+		this.tournamentSize = tournamentSize;
+	}
+
+	public RandomNumberGenerator getRNG() {
+		return rng;
+	}
+
+	public void setRNG(final RandomNumberGenerator rng) {
+		this.rng = rng;
+	}
+}
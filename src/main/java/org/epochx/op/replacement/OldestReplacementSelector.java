@@ -0,0 +1,47 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.op.replacement;
+
+import java.util.List;
+
+import org.epochx.op.ReplacementSelector;
+import org.epochx.representation.CandidateProgram;
+
+/**
+ * A replacement selector which always chooses the program that has been in
+ * the population longest, regardless of fitness.
+ * 
+ * @see WorstReplacementSelector
+ * @see InverseTournamentReplacementSelector
+ */
+public class OldestReplacementSelector implements ReplacementSelector {
+
+	@Override
+	public int getReplacementIndex(final List<CandidateProgram> pop) {
+		if ((pop == null) || pop.isEmpty()) {
+			throw new IllegalArgumentException("population must not be null nor empty");
+		}
+
+		// The population is in order of insertion.
+		return 0;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.op.replacement;
+
+import java.util.List;
+
+import org.epochx.op.ReplacementSelector;
+import org.epochx.representation.CandidateProgram;
+
+/**
+ * A replacement selector which always chooses the program with the worst
+ * fitness, so that the best programs of a population are never lost. Of
+ * programs with equal fitness, the oldest is chosen.
+ * 
+ * @see InverseTournamentReplacementSelector
+ * @see OldestReplacementSelector
+ */
+public class WorstReplacementSelector implements ReplacementSelector {
+
+	@Override
+	public int getReplacementIndex(final List<CandidateProgram> pop) {
+		if ((pop == null) || pop.isEmpty()) {
+			throw new IllegalArgumentException("population must not be null nor empty");
+		}
+
+		int worst = 0;
+		double worstFitness = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < pop.size(); i++) {
+			final double fitness = pop.get(i).getFitness();
+			if (fitness > worstFitness) {
+				worstFitness = fitness;
+				worst = i;
+			}
+		}
+
+		return worst;
+	}
+}
@@ -21,6 +21,10 @@
  */
 package org.epochx.representation;
 
+import java.io.*;
+
+import org.epochx.core.Model;
+
 /**
  * An instance of <code>CandidateProgram</code> represents an individual
  * candidate solution to a problem. Specific subclasses represent the programs
@@ -93,6 +97,41 @@ public abstract class CandidateProgram implements Cloneable, Comparable<Candidat
 		return clone;
 	}
 
+	/**
+	 * Creates a copy of this candidate program which belongs to the given
+	 * model, and which shares no mutable state with this program, so that it
+	 * may be handed to a model running on another thread. The fitness of the
+	 * copy is calculated afresh by the given model. Subclasses must override
+	 * this method to support migration between islands.
+	 * 
+	 * @param model the model that the copy should belong to, which must be
+	 *        of the type that this program's representation requires.
+	 * @return a new instance of <code>CandidateProgram</code> that is equal to
+	 *         this program.
+	 * @throws UnsupportedOperationException if the representation cannot be
+	 *         copied to another model.
+	 */
+	public CandidateProgram copyTo(final Model model) {
+		throw new UnsupportedOperationException("programs of " + getClass().getName() + " cannot be copied to another model");
+	}
+
+	/**
+	 * Writes this program in a compact binary form, from which an identical
+	 * program can be read by the <code>readProgram</code> method of its model.
+	 * The fitness of the program is written with it, so that the program read
+	 * back only calculates its fitness again if this program would have.
+	 * Subclasses must override this method to support checkpointing.
+	 * 
+	 * @param out the output to write to.
+	 * @throws IOException if there was a problem writing to the output.
+	 * @throws UnsupportedOperationException if the representation cannot be
+	 *         written.
+	 * @see Model#readProgram(DataInput)
+	 */
+	public void writeTo(final DataOutput out) throws IOException {
+		throw new UnsupportedOperationException("programs of " + getClass().getName() + " cannot be written");
+	}
+
 	/**
 	 * Compares this program to another based upon fitness. Returns a negative
 	 * integer if this program has a worse (larger) fitness value, zero if they
@@ -156,6 +156,13 @@ public class StatField {
 	 */
 	public static final Stat INIT_REVERSIONS = new AbstractStat(INITIALISATION) {};
 
+	/**
+	 * Returns an <code>Integer</code> which is the number of programs that
+	 * were discarded as duplicates and constructed again during the last
+	 * initialisation, when duplicates are not accepted.
+	 */
+	public static final Stat INIT_DUPLICATE_RETRIES = new AbstractStat(INITIALISATION) {};
+
 	/**
 	 * Returns an <code>Integer</code> which is the sequential identifier of the
 	 * last generation where generation 0 is the initialisation phase.
@@ -618,6 +625,34 @@ public class StatField {
 		};
 	};
 
+	/**
+	 * Returns a <code>Long</code> which is the length of time in nanoseconds
+	 * that the fitness evaluation of the last generation's population took to
+	 * complete.
+	 */
+	public static final Stat GEN_EVAL_TIME = new AbstractStat(GENERATION) {};
+
+	/**
+	 * Returns a <code>Long</code> which is the number of fitness lookups that
+	 * were answered by the model's fitness cache during the last generation.
+	 * Only available if the model has a fitness cache.
+	 */
+	public static final Stat GEN_FITNESS_CACHE_HITS = new AbstractStat(GENERATION) {};
+
+	/**
+	 * Returns a <code>Long</code> which is the number of fitness lookups that
+	 * were not answered by the model's fitness cache during the last
+	 * generation. Only available if the model has a fitness cache.
+	 */
+	public static final Stat GEN_FITNESS_CACHE_MISSES = new AbstractStat(GENERATION) {};
+
+	/**
+	 * Returns a <code>Long</code> which is the number of entries that were
+	 * evicted from the model's fitness cache during the last generation. Only
+	 * available if the model has a fitness cache.
+	 */
+	public static final Stat GEN_FITNESS_CACHE_EVICTIONS = new AbstractStat(GENERATION) {};
+
 	/**
 	 * Returns a <code>CandidateProgram</code> which is a copy of the program
 	 * which underwent mutation as it was <b>before</b> the mutation operation
@@ -24,6 +24,7 @@ package org.epochx.stats;
 import java.io.*;
 import java.util.*;
 
+import org.epochx.core.EvolutionContext;
 import org.epochx.life.*;
 
 /**
@@ -41,8 +42,8 @@ import org.epochx.life.*;
  */
 public class Stats {
 
-	// Singleton instance.
-	private static Stats instance;
+	// The context that these stats belong to.
+	private final EvolutionContext context;
 
 	// Map of all stats data, by event at which they should be cleared.
 	private final Map<ExpiryEvent, Map<Stat, Object>> data;
@@ -57,12 +58,17 @@ public class Stats {
 		RUN, GENERATION, INITIALISATION, ELITISM, POOL_SELECTION, CROSSOVER, MUTATION, REPRODUCTION
 	}
 
-	/*
-	 * Constructs a <code>Stats</code> - this class uses the singleton pattern
-	 * so this constructor is private. An instance can be obtained using the
-	 * get() method.
+	/**
+	 * Constructs a <code>Stats</code> for the given context, which clears its
+	 * data on the events of the context's life cycle. Each
+	 * <code>EvolutionContext</code> constructs its own, which should be used
+	 * instead of constructing others.
+	 * 
+	 * @param context the context that the stats belong to.
 	 */
-	private Stats() {
+	public Stats(final EvolutionContext context) {
+		this.context = context;
+
 		// Setup the stats manager.
 		data = new HashMap<ExpiryEvent, Map<Stat, Object>>();
 
@@ -78,15 +84,15 @@ public class Stats {
 	}
 
 	/**
-	 * Returns the singleton instance of Stats.
+	 * Returns the Stats of the current <code>EvolutionContext</code> of the
+	 * calling thread. While a model is being run, these are the stats of that
+	 * model's context.
 	 * 
-	 * @return the only Stats instance.
+	 * @return the Stats instance for the calling thread.
+	 * @see EvolutionContext#get()
 	 */
 	public static Stats get() {
-		if (instance == null) {
-			instance = new Stats();
-		}
-		return instance;
+		return EvolutionContext.get().getStats();
 	}
 
 	/**
@@ -125,7 +131,13 @@ public class Stats {
 
 		// If stat not stored then ask the stat if it can generate the value.
 		if (value == null) {
-			value = field.getStatValue();
+			// Stats that depend upon others request them from Stats.get().
+			final EvolutionContext previous = context.bind();
+			try {
+				value = field.getStatValue();
+			} finally {
+				EvolutionContext.restore(previous);
+			}
 
 			if (value != null) {
 				addData(field, value);
@@ -246,7 +258,7 @@ public class Stats {
 	 */
 	private void setupListeners() {
 		// Clear the run data.
-		Life.get().addRunListener(new RunAdapter() {
+		context.getLife().addRunListener(new RunAdapter() {
 
 			@Override
 			public void onRunStart() {
@@ -255,7 +267,7 @@ public class Stats {
 		});
 
 		// Clear the generation data.
-		Life.get().addGenerationListener(new GenerationAdapter() {
+		context.getLife().addGenerationListener(new GenerationAdapter() {
 
 			@Override
 			public void onGenerationStart() {
@@ -264,7 +276,7 @@ public class Stats {
 		});
 
 		// Clear the initialisation data.
-		Life.get().addInitialisationListener(new InitialisationAdapter() {
+		context.getLife().addInitialisationListener(new InitialisationAdapter() {
 
 			@Override
 			public void onInitialisationStart() {
@@ -273,7 +285,7 @@ public class Stats {
 		});
 
 		// Clear the elitism data.
-		Life.get().addElitismListener(new ElitismAdapter() {
+		context.getLife().addElitismListener(new ElitismAdapter() {
 
 			@Override
 			public void onElitismStart() {
@@ -282,7 +294,7 @@ public class Stats {
 		});
 
 		// Clear the elitism data.
-		Life.get().addElitismListener(new ElitismAdapter() {
+		context.getLife().addElitismListener(new ElitismAdapter() {
 
 			@Override
 			public void onElitismStart() {
@@ -291,7 +303,7 @@ public class Stats {
 		});
 
 		// Clear the pool selection data.
-		Life.get().addPoolSelectionListener(new PoolSelectionAdapter() {
+		context.getLife().addPoolSelectionListener(new PoolSelectionAdapter() {
 
 			@Override
 			public void onPoolSelectionStart() {
@@ -300,7 +312,7 @@ public class Stats {
 		});
 
 		// Clear the crossover data.
-		Life.get().addCrossoverListener(new CrossoverAdapter() {
+		context.getLife().addCrossoverListener(new CrossoverAdapter() {
 
 			@Override
 			public void onCrossoverStart() {
@@ -309,7 +321,7 @@ public class Stats {
 		});
 
 		// Clear the mutation data.
-		Life.get().addMutationListener(new MutationAdapter() {
+		context.getLife().addMutationListener(new MutationAdapter() {
 
 			@Override
 			public void onMutationStart() {
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.eval;
+
+/**
+ * Skeletal implementation of <code>PreparedProgram</code>, which implements
+ * the multiple case and primitive typed methods in terms of the single case
+ * <code>eval</code> and <code>exec</code> methods. Implementations which are
+ * able to evaluate more efficiently over many cases, or without boxing, may
+ * override these methods.
+ */
+public abstract class AbstractPreparedProgram implements PreparedProgram {
+
+	// The source code of the program.
+	private final String source;
+
+	// The argument names of the program.
+	private final String[] argNames;
+
+	/**
+	 * Constructs a prepared program for the given source and argument names.
+	 * 
+	 * @param source the source code of the program.
+	 * @param argNames the names of the arguments of the program.
+	 */
+	public AbstractPreparedProgram(final String source, final String[] argNames) {
+		this.source = source;
+		this.argNames = argNames;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object[] eval(final Object[][] argValues) throws MalformedProgramException {
+		final Object[] results = new Object[argValues.length];
+
+		for (int i = 0; i < argValues.length; i++) {
+			results[i] = eval(argValues[i]);
+		}
+
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double[] evalDouble(final Object[][] argValues) throws MalformedProgramException {
+		final double[] results = new double[argValues.length];
+
+		for (int i = 0; i < argValues.length; i++) {
+			final Object result = eval(argValues[i]);
+			if (!(result instanceof Number)) {
+				throw new MalformedProgramException("program did not evaluate to a number");
+			}
+			results[i] = ((Number) result).doubleValue();
+		}
+
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean[] evalBoolean(final Object[][] argValues) throws MalformedProgramException {
+		final boolean[] results = new boolean[argValues.length];
+
+		for (int i = 0; i < argValues.length; i++) {
+			final Object result = eval(argValues[i]);
+			if (!(result instanceof Boolean)) {
+				throw new MalformedProgramException("program did not evaluate to a boolean");
+			}
+			results[i] = (Boolean) result;
+		}
+
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void exec(final Object[][] argValues) throws MalformedProgramException {
+		for (int i = 0; i < argValues.length; i++) {
+			exec(argValues[i]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String[] getArgNames() {
+		return argNames;
+	}
+}
@@ -255,6 +255,119 @@ public class BrainfuckInterpreter implements Interpreter {
 		return -1;
 	}
 
+	/**
+	 * Prepares a Brainfuck program for repeated execution. The matching
+	 * brackets of the program's loops are located once, so each execution
+	 * jumps directly between them rather than searching for them. The
+	 * <code>eval</code> methods of the returned program are not supported.
+	 * 
+	 * @param source {@inheritDoc}
+	 * @param argNames not used in this implementation
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public PreparedProgram prepare(final String source, final String[] argNames) {
+		return new BrainfuckProgram(source, argNames);
+	}
+
+	/*
+	 * A program with a precomputed table of matching brackets.
+	 */
+	private class BrainfuckProgram extends AbstractPreparedProgram {
+
+		private char[] instructions;
+		private int[] jumps;
+
+		public BrainfuckProgram(final String source, final String[] argNames) {
+			super(source, argNames);
+		}
+
+		@Override
+		public Object eval(final Object[] argValues) {
+			throw new IllegalStateException("method not supported");
+		}
+
+		@Override
+		public void exec(final Object[] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return;
+			}
+			if (instructions == null) {
+				compile();
+			}
+
+			// Reset the environment.
+			reset();
+
+			// Set inputs as first x memory cells.
+			for (int i = 0; i < argValues.length; i++) {
+				memory[i] = (Byte) argValues[i];
+			}
+
+			for (int i = 0; i < instructions.length; i++) {
+				switch (instructions[i]) {
+					case '>':
+						pointer = ++pointer % memory.length;
+						break;
+					case '<':
+						pointer--;
+						if (pointer < 0) {
+							pointer = memory.length - 1;
+						}
+						break;
+					case '+':
+						memory[pointer]++;
+						break;
+					case '-':
+						memory[pointer]--;
+						break;
+					case '[':
+						if (memory[pointer] == 0) {
+							i = jumps[i];
+						}
+						break;
+					case ']':
+						if ((jumps[i] != -1) && (memory[pointer] != 0)) {
+							i = jumps[i];
+						}
+						break;
+					default:
+						// Ignore all other characters.
+						break;
+				}
+			}
+		}
+
+		/*
+		 * Locates the matching bracket of every bracket in the source.
+		 */
+		private void compile() throws MalformedProgramException {
+			final char[] source = getSource().toCharArray();
+			final int[] matches = new int[source.length];
+			final int[] open = new int[source.length];
+			int depth = 0;
+
+			for (int i = 0; i < source.length; i++) {
+				matches[i] = -1;
+				if (source[i] == '[') {
+					open[depth++] = i;
+				} else if ((source[i] == ']') && (depth > 0)) {
+					final int start = open[--depth];
+					matches[start] = i;
+					matches[i] = start;
+				}
+			}
+
+			if (depth > 0) {
+				// There is no closing bracket.
+				throw new MalformedProgramException("unmatched bracket");
+			}
+
+			instructions = source;
+			jumps = matches;
+		}
+	}
+
 	/**
 	 * Returns the byte array which is providing indexed memory for the
 	 * programs. The array will be cleared for each execution.
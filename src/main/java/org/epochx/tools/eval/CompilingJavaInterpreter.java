@@ -0,0 +1,788 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.eval;
+
+import java.io.*;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.tools.*;
+
+/**
+ * A <code>CompilingJavaInterpreter</code> evaluates Java expressions and
+ * executes Java statements by compiling them to bytecode with the system Java
+ * compiler, rather than interpreting them. Each distinct program is compiled
+ * once into a class with a typed <code>eval(Object[])</code> method, after
+ * which every further evaluation of the same program is a plain method call.
+ * This makes it far quicker than {@link JavaInterpreter} where the same
+ * program is evaluated over many fitness cases.
+ * 
+ * <p>
+ * The arguments are declared within the compiled method as local variables
+ * of the runtime type of the values supplied with the first evaluation, with
+ * wrapper types unboxed to their primitive equivalents. So a program compiled
+ * for a <code>Boolean</code> argument must always be supplied with a
+ * <code>Boolean</code> for that argument. The argument types must be
+ * accessible from the classpath the compiler is given, which defaults to the
+ * <code>java.class.path</code> system property.
+ * 
+ * <p>
+ * Compiled programs are cached by their source and argument signature. The
+ * cache is bounded and the oldest program is evicted when it is full. Each
+ * program is defined by its own class loader so evicted classes can be
+ * unloaded by the garbage collector. Programs which fail to compile are also
+ * cached so that they fail fast on subsequent evaluations. A compilation
+ * failure which is not caused by the program itself, such as an argument type
+ * that is missing from the classpath, is instead reported with the compiler's
+ * diagnostics as an <code>IllegalStateException</code>.
+ * 
+ * <p>
+ * Instances of this class are safe for use by multiple threads. Each thread
+ * compiles with its own file manager, so distinct programs are compiled
+ * concurrently, while threads which need the same program wait for the one
+ * compilation of it.
+ */
+public class CompilingJavaInterpreter implements Interpreter {
+
+	/**
+	 * The default number of compiled programs that are retained.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	// Name prefix of all generated classes.
+	private static final String CLASS_PREFIX = "EpochXCompiledProgram";
+
+	// The forms a program may be compiled in.
+	private static final char OBJECT = 'o';
+	private static final char DOUBLE = 'd';
+	private static final char BOOLEAN = 'b';
+	private static final char STATEMENTS = 's';
+
+	// Marks a cached source that failed to compile.
+	private static final CompiledProgram MALFORMED = new CompiledProgram() {
+
+		@Override
+		public Object eval(final Object[] argValues) {
+			return null;
+		}
+
+		@Override
+		public double evalDouble(final Object[] argValues) {
+			return 0;
+		}
+
+		@Override
+		public boolean evalBoolean(final Object[] argValues) {
+			return false;
+		}
+	};
+
+	// The system Java compiler.
+	private final JavaCompiler compiler;
+
+	// File manager of each thread, which captures the bytecode in memory.
+	private final ThreadLocal<MemoryFileManager> fileManagers;
+
+	// Options passed to the compiler.
+	private final List<String> options;
+
+	// Compilations keyed by source and signature, and their insertion order.
+	private final ConcurrentMap<String, Future<CompiledProgram>> cache;
+	private final Queue<String> cacheOrder;
+	private final int cacheSize;
+
+	// The class loader that generated classes are defined beneath.
+	private final ClassLoader parentLoader;
+
+	// Used to give each generated class a unique name.
+	private final AtomicLong classCount;
+
+	/**
+	 * Constructs a <code>CompilingJavaInterpreter</code> with a cache of the
+	 * default size, which compiles against the <code>java.class.path</code>.
+	 * 
+	 * @throws IllegalStateException if no system Java compiler is available,
+	 *         which will be the case when running on a JRE rather than a JDK.
+	 */
+	public CompilingJavaInterpreter() {
+		this(DEFAULT_CACHE_SIZE, null);
+	}
+
+	/**
+	 * Constructs a <code>CompilingJavaInterpreter</code> which retains at most
+	 * <code>cacheSize</code> compiled programs, and compiles against the
+	 * <code>java.class.path</code>.
+	 * 
+	 * @param cacheSize the maximum number of compiled programs to retain.
+	 * @throws IllegalStateException if no system Java compiler is available.
+	 */
+	public CompilingJavaInterpreter(final int cacheSize) {
+		this(cacheSize, null);
+	}
+
+	/**
+	 * Constructs a <code>CompilingJavaInterpreter</code> which retains at most
+	 * <code>cacheSize</code> compiled programs, and compiles against the given
+	 * classpath.
+	 * 
+	 * @param cacheSize the maximum number of compiled programs to retain.
+	 * @param classpath the classpath to compile programs against, which must
+	 *        include the types of any arguments. If <code>null</code> then the
+	 *        <code>java.class.path</code> system property is used.
+	 * @throws IllegalStateException if no system Java compiler is available.
+	 */
+	public CompilingJavaInterpreter(final int cacheSize, final String classpath) {
+		if (cacheSize < 1) {
+			throw new IllegalArgumentException("cache size must be 1 or greater");
+		}
+
+		compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("no system java compiler available");
+		}
+
+		fileManagers = new ThreadLocal<MemoryFileManager>() {
+
+			@Override
+			protected MemoryFileManager initialValue() {
+				return new MemoryFileManager(compiler.getStandardFileManager(null, null, null));
+			}
+		};
+		parentLoader = CompilingJavaInterpreter.class.getClassLoader();
+		classCount = new AtomicLong();
+
+		options = new ArrayList<String>();
+		options.add("-g:none");
+		options.add("-proc:none");
+		options.add("-nowarn");
+		options.add("-classpath");
+		options.add((classpath == null) ? System.getProperty("java.class.path") : classpath);
+
+		this.cacheSize = cacheSize;
+		cache = new ConcurrentHashMap<String, Future<CompiledProgram>>();
+		cacheOrder = new ConcurrentLinkedQueue<String>();
+	}
+
+	/**
+	 * Evaluates any valid Java expression which may optionally contain the use
+	 * of any argument named in the <code>argNames</code> array which will be
+	 * provided with the associated value from the <code>argValues</code> array.
+	 * The expression is compiled on the first call and reused thereafter.
+	 * 
+	 * @param expression a valid Java expression that is to be evaluated.
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @return the return value from evaluating the expression, with any
+	 *         primitive result boxed to its wrapper type.
+	 * @throws MalformedProgramException if the given expression is not valid
+	 *         Java, or if it throws an exception when evaluated.
+	 */
+	@Override
+	public Object eval(final String expression, final String[] argNames, final Object[] argValues)
+			throws MalformedProgramException {
+		if (expression == null) {
+			return null;
+		}
+
+		return invoke(getProgram(expression, argNames, argValues, OBJECT), argValues);
+	}
+
+	/**
+	 * Evaluates any valid Java expression multiple times, once with each of
+	 * the sets of argument values. The expression is compiled at most once.
+	 * 
+	 * @param expression a valid Java expression that is to be evaluated.
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @return the return values from evaluating the expression with each set
+	 *         of argument values.
+	 * @throws MalformedProgramException if the given expression is not valid
+	 *         Java, or if it throws an exception when evaluated.
+	 */
+	@Override
+	public Object[] eval(final String expression, final String[] argNames, final Object[][] argValues)
+			throws MalformedProgramException {
+		return prepare(expression, argNames).eval(argValues);
+	}
+
+	/**
+	 * Executes any valid sequence of Java statements which may optionally
+	 * contain the use of any argument named in the <code>argNames</code> array
+	 * which will be provided with the associated value from the
+	 * <code>argValues</code> array. The statements are compiled on the first
+	 * call and reused thereafter.
+	 * 
+	 * @param program a valid sequence of Java statements to be executed.
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @throws MalformedProgramException if the given statements are not valid
+	 *         Java, or if they throw an exception when executed.
+	 */
+	@Override
+	public void exec(final String program, final String[] argNames, final Object[] argValues)
+			throws MalformedProgramException {
+		if (program != null) {
+			invoke(getProgram(program, argNames, argValues, STATEMENTS), argValues);
+		}
+	}
+
+	/**
+	 * Executes any valid sequence of Java statements multiple times, once with
+	 * each of the sets of argument values. The statements are compiled at most
+	 * once.
+	 * 
+	 * @param program a valid sequence of Java statements to be executed.
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @throws MalformedProgramException if the given statements are not valid
+	 *         Java, or if they throw an exception when executed.
+	 */
+	@Override
+	public void exec(final String program, final String[] argNames, final Object[][] argValues)
+			throws MalformedProgramException {
+		prepare(program, argNames).exec(argValues);
+	}
+
+	/**
+	 * Prepares a Java expression or sequence of statements for repeated
+	 * evaluation. The program is compiled on first use, with the argument
+	 * types of the first set of argument values it is given, and the compiled
+	 * class is then invoked directly without any further lookups. The
+	 * <code>evalDouble</code> and <code>evalBoolean</code> methods of the
+	 * returned program compile the expression to return a primitive value, so
+	 * no result boxing takes place.
+	 * 
+	 * @param source {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public PreparedProgram prepare(final String source, final String[] argNames) {
+		return new CompiledPreparedProgram(source, argNames);
+	}
+
+	/**
+	 * Removes all compiled programs from the cache, allowing their classes to
+	 * be unloaded.
+	 */
+	public void clearCache() {
+		cacheOrder.clear();
+		cache.clear();
+	}
+
+	/*
+	 * Calls the compiled program, treating any exception it throws in the same
+	 * way as a malformed program.
+	 */
+	private Object invoke(final CompiledProgram program, final Object[] argValues)
+			throws MalformedProgramException {
+		try {
+			return program.eval(argValues);
+		} catch (final RuntimeException e) {
+			throw new MalformedProgramException(e.toString());
+		}
+	}
+
+	/*
+	 * Retrieves the compiled form of the source from the cache, compiling it
+	 * if necessary. Only the thread which adds the compilation to the cache
+	 * performs it, any others which need the same program wait for it.
+	 */
+	private CompiledProgram getProgram(final String source, final String[] argNames, final Object[] argValues,
+			final char form) throws MalformedProgramException {
+		final String[] argTypes = getArgTypes(argValues);
+		final String key = getKey(source, argNames, argTypes, form);
+
+		Future<CompiledProgram> future = cache.get(key);
+		if (future == null) {
+			final FutureTask<CompiledProgram> task = new FutureTask<CompiledProgram>(new Callable<CompiledProgram>() {
+
+				@Override
+				public CompiledProgram call() {
+					return compile(source, argNames, argTypes, form);
+				}
+			});
+
+			future = cache.putIfAbsent(key, task);
+			if (future == null) {
+				future = task;
+				cacheOrder.add(key);
+				evict();
+				task.run();
+			}
+		}
+
+		final CompiledProgram program;
+		try {
+			program = future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for compilation", e);
+		} catch (final ExecutionException e) {
+			// Do not cache failures of the environment, they may be resolved.
+			cache.remove(key, future);
+
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("unable to compile program", cause);
+		}
+
+		if (program == MALFORMED) {
+			throw new MalformedProgramException();
+		}
+
+		return program;
+	}
+
+	/*
+	 * Removes the oldest compilations until the cache is within its size.
+	 */
+	private void evict() {
+		while (cache.size() > cacheSize) {
+			final String eldest = cacheOrder.poll();
+			if (eldest == null) {
+				break;
+			}
+			cache.remove(eldest);
+		}
+	}
+
+	/*
+	 * Compiles the source into a new class which is defined in its own loader.
+	 */
+	private CompiledProgram compile(final String source, final String[] argNames, final String[] argTypes,
+			final char form) {
+		final String className = CLASS_PREFIX + classCount.getAndIncrement();
+		final String header = generateHeader(className, argNames, argTypes, form);
+		final String footer = (form == STATEMENTS) ? "\nreturn null;\n}\n}\n" : "\n);\n}\n}\n";
+
+		final MemoryFileManager fileManager = fileManagers.get();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		final JavaFileObject sourceFile = new SourceFile(className, header + source + footer);
+		final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+				Collections.singletonList(sourceFile));
+
+		final boolean success;
+		try {
+			success = task.call();
+		} catch (final RuntimeException e) {
+			fileManager.takeClasses();
+			return MALFORMED;
+		}
+
+		final Map<String, byte[]> classes = fileManager.takeClasses();
+		if (!success) {
+			checkDiagnostics(diagnostics.getDiagnostics(), header.length());
+			return MALFORMED;
+		}
+
+		try {
+			final Class<?> type = new ProgramClassLoader(parentLoader, classes).loadClass(className);
+			return (CompiledProgram) type.getDeclaredConstructor().newInstance();
+		} catch (final ReflectiveOperationException e) {
+			// The generated class is public with a default constructor.
+			throw new IllegalStateException("unable to load compiled program", e);
+		}
+	}
+
+	/*
+	 * Throws an exception describing the errors if any of them lies before the
+	 * program, in the code which was generated around it. Such errors cannot be
+	 * caused by the program, so it would be wrong to report it as malformed.
+	 */
+	private void checkDiagnostics(final List<Diagnostic<? extends JavaFileObject>> diagnostics,
+			final int programStart) {
+		boolean generated = false;
+		final StringBuilder message = new StringBuilder("unable to compile program:");
+		for (final Diagnostic<? extends JavaFileObject> diagnostic: diagnostics) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+				final long position = diagnostic.getPosition();
+				if ((position == Diagnostic.NOPOS) || (position < programStart)) {
+					generated = true;
+				}
+				message.append('\n').append(diagnostic.getMessage(null));
+			}
+		}
+
+		if (generated) {
+			throw new IllegalStateException(message.toString());
+		}
+	}
+
+	/*
+	 * Generates the source of a class which implements CompiledProgram, up to
+	 * the point that the program source is inserted. The program must then be
+	 * followed by the footer for its form to complete the class.
+	 */
+	private String generateHeader(final String className, final String[] argNames, final String[] argTypes,
+			final char form) {
+		final String interfaceName = CompiledProgram.class.getCanonicalName();
+		final String unsupported = "throw new UnsupportedOperationException();\n}\n";
+
+		final StringBuilder buffer = new StringBuilder();
+		buffer.append("public final class ").append(className).append(" implements ").append(interfaceName);
+		buffer.append(" {\n");
+
+		// Only the method for the requested form is given the program.
+		if (form != DOUBLE) {
+			buffer.append("public double evalDouble(final Object[] args) {\n").append(unsupported);
+		}
+		if (form != BOOLEAN) {
+			buffer.append("public boolean evalBoolean(final Object[] args) {\n").append(unsupported);
+		}
+		if ((form != OBJECT) && (form != STATEMENTS)) {
+			buffer.append("public Object eval(final Object[] args) {\n").append(unsupported);
+		}
+
+		if (form == DOUBLE) {
+			buffer.append("public double evalDouble(final Object[] args) {\n");
+		} else if (form == BOOLEAN) {
+			buffer.append("public boolean evalBoolean(final Object[] args) {\n");
+		} else {
+			buffer.append("public Object eval(final Object[] args) {\n");
+		}
+
+		for (int i = 0; i < argNames.length; i++) {
+			final String type = argTypes[i];
+			buffer.append("final ").append(type).append(' ').append(argNames[i]).append(" = ");
+
+			final String wrapper = getWrapperType(type);
+			if (wrapper != null) {
+				buffer.append("((").append(wrapper).append(") args[").append(i).append("]).").append(type)
+						.append("Value();\n");
+			} else {
+				buffer.append('(').append(type).append(") args[").append(i).append("];\n");
+			}
+		}
+
+		if (form != STATEMENTS) {
+			buffer.append("return (");
+		}
+
+		return buffer.toString();
+	}
+
+	/*
+	 * Determines the type each argument will be declared with.
+	 */
+	private String[] getArgTypes(final Object[] argValues) {
+		final String[] types = new String[argValues.length];
+		for (int i = 0; i < argValues.length; i++) {
+			types[i] = getDeclaredType(argValues[i]);
+		}
+		return types;
+	}
+
+	/*
+	 * Returns the name of the type to declare a variable holding the given
+	 * value as. Wrappers are declared as primitives and values of inaccessible
+	 * types as the nearest public superclass.
+	 */
+	private String getDeclaredType(final Object value) {
+		if (value == null) {
+			return "Object";
+		}
+
+		final Class<?> type = value.getClass();
+		if (type == Boolean.class) {
+			return "boolean";
+		} else if (type == Integer.class) {
+			return "int";
+		} else if (type == Double.class) {
+			return "double";
+		} else if (type == Long.class) {
+			return "long";
+		} else if (type == Float.class) {
+			return "float";
+		} else if (type == Character.class) {
+			return "char";
+		} else if (type == Short.class) {
+			return "short";
+		} else if (type == Byte.class) {
+			return "byte";
+		}
+
+		Class<?> declared = type;
+		while ((declared.getCanonicalName() == null) || !Modifier.isPublic(declared.getModifiers())) {
+			declared = declared.getSuperclass();
+		}
+		return declared.getCanonicalName();
+	}
+
+	/*
+	 * Returns the wrapper class of the named primitive type, or null if it is
+	 * not a primitive type.
+	 */
+	private String getWrapperType(final String type) {
+		if (type.equals("boolean")) {
+			return "Boolean";
+		} else if (type.equals("int")) {
+			return "Integer";
+		} else if (type.equals("double")) {
+			return "Double";
+		} else if (type.equals("long")) {
+			return "Long";
+		} else if (type.equals("float")) {
+			return "Float";
+		} else if (type.equals("char")) {
+			return "Character";
+		} else if (type.equals("short")) {
+			return "Short";
+		} else if (type.equals("byte")) {
+			return "Byte";
+		}
+		return null;
+	}
+
+	/*
+	 * Constructs the cache key for a program with the given signature.
+	 */
+	private String getKey(final String source, final String[] argNames, final String[] argTypes,
+			final char form) {
+		final StringBuilder key = new StringBuilder(source.length() + 16 * argNames.length + 2);
+		key.append(form);
+		for (int i = 0; i < argNames.length; i++) {
+			key.append(argTypes[i]).append(' ').append(argNames[i]).append(',');
+		}
+		key.append('\n').append(source);
+		return key.toString();
+	}
+
+	/**
+	 * The interface which the class generated for each compiled program
+	 * implements. It is public only so that generated classes are able to
+	 * implement it.
+	 */
+	public interface CompiledProgram {
+
+		/**
+		 * Evaluates the compiled program with the given argument values.
+		 * 
+		 * @param argValues the values of the arguments in the order of the
+		 *        argument names the program was compiled with.
+		 * @return the value of the expression, or <code>null</code> for
+		 *         programs compiled as statements.
+		 */
+		public Object eval(Object[] argValues);
+
+		/**
+		 * Evaluates the compiled numeric expression with the given argument
+		 * values.
+		 * 
+		 * @param argValues the values of the arguments in the order of the
+		 *        argument names the program was compiled with.
+		 * @return the value of the expression.
+		 */
+		public double evalDouble(Object[] argValues);
+
+		/**
+		 * Evaluates the compiled boolean expression with the given argument
+		 * values.
+		 * 
+		 * @param argValues the values of the arguments in the order of the
+		 *        argument names the program was compiled with.
+		 * @return the value of the expression.
+		 */
+		public boolean evalBoolean(Object[] argValues);
+	}
+
+	/*
+	 * A program which is compiled in each form on first use and then invoked
+	 * directly.
+	 */
+	private class CompiledPreparedProgram extends AbstractPreparedProgram {
+
+		private CompiledProgram object;
+		private CompiledProgram numeric;
+		private CompiledProgram logical;
+		private CompiledProgram statements;
+
+		public CompiledPreparedProgram(final String source, final String[] argNames) {
+			super(source, argNames);
+		}
+
+		@Override
+		public Object eval(final Object[] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return null;
+			}
+			if (object == null) {
+				object = getProgram(getSource(), getArgNames(), argValues, OBJECT);
+			}
+
+			return invoke(object, argValues);
+		}
+
+		@Override
+		public double[] evalDouble(final Object[][] argValues) throws MalformedProgramException {
+			final double[] results = new double[argValues.length];
+			if ((getSource() == null) || (argValues.length == 0)) {
+				return results;
+			}
+			if (numeric == null) {
+				numeric = getProgram(getSource(), getArgNames(), argValues[0], DOUBLE);
+			}
+
+			try {
+				for (int i = 0; i < argValues.length; i++) {
+					results[i] = numeric.evalDouble(argValues[i]);
+				}
+			} catch (final RuntimeException e) {
+				throw new MalformedProgramException(e.toString());
+			}
+
+			return results;
+		}
+
+		@Override
+		public boolean[] evalBoolean(final Object[][] argValues) throws MalformedProgramException {
+			final boolean[] results = new boolean[argValues.length];
+			if ((getSource() == null) || (argValues.length == 0)) {
+				return results;
+			}
+			if (logical == null) {
+				logical = getProgram(getSource(), getArgNames(), argValues[0], BOOLEAN);
+			}
+
+			try {
+				for (int i = 0; i < argValues.length; i++) {
+					results[i] = logical.evalBoolean(argValues[i]);
+				}
+			} catch (final RuntimeException e) {
+				throw new MalformedProgramException(e.toString());
+			}
+
+			return results;
+		}
+
+		@Override
+		public void exec(final Object[] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return;
+			}
+			if (statements == null) {
+				statements = getProgram(getSource(), getArgNames(), argValues, STATEMENTS);
+			}
+
+			invoke(statements, argValues);
+		}
+	}
+
+	/*
+	 * An in-memory source file.
+	 */
+	private static class SourceFile extends SimpleJavaFileObject {
+
+		private final String source;
+
+		public SourceFile(final String className, final String source) {
+			super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+
+	/*
+	 * An in-memory class file, written to by the compiler.
+	 */
+	private static class ClassFile extends SimpleJavaFileObject {
+
+		private final ByteArrayOutputStream bytes;
+
+		public ClassFile(final String className) {
+			super(URI.create("bytes:///" + className + Kind.CLASS.extension), Kind.CLASS);
+			bytes = new ByteArrayOutputStream();
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return bytes;
+		}
+	}
+
+	/*
+	 * File manager which directs compiler output into memory.
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+		private final Map<String, ClassFile> output;
+
+		public MemoryFileManager(final JavaFileManager fileManager) {
+			super(fileManager);
+			output = new HashMap<String, ClassFile>();
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(final Location location, final String className,
+				final JavaFileObject.Kind kind, final FileObject sibling) {
+			final ClassFile file = new ClassFile(className);
+			output.put(className, file);
+			return file;
+		}
+
+		/*
+		 * Returns the bytecode of all classes output since the last call.
+		 */
+		public Map<String, byte[]> takeClasses() {
+			final Map<String, byte[]> classes = new HashMap<String, byte[]>();
+			for (final Map.Entry<String, ClassFile> entry: output.entrySet()) {
+				classes.put(entry.getKey(), entry.getValue().bytes.toByteArray());
+			}
+			output.clear();
+			return classes;
+		}
+	}
+
+	/*
+	 * Class loader for the classes of one compiled program, so that they may
+	 * be unloaded once the program is evicted from the cache.
+	 */
+	private static class ProgramClassLoader extends ClassLoader {
+
+		private final Map<String, byte[]> classes;
+
+		public ProgramClassLoader(final ClassLoader parent, final Map<String, byte[]> classes) {
+			super(parent);
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> findClass(final String name) throws ClassNotFoundException {
+			final byte[] bytes = classes.remove(name);
+			if (bytes == null) {
+				throw new ClassNotFoundException(name);
+			}
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
@@ -21,6 +21,8 @@
  */
 package org.epochx.tools.eval;
 
+import java.util.*;
+
 import org.epochx.epox.*;
 
 /**
@@ -36,19 +38,49 @@ import org.epochx.epox.*;
  * will correctly evaluate any new functions or data-types which have been added
  * to the <code>EpoxParser</code> that is used here.
  * 
+ * <p>
+ * Parsed program trees are cached by their source and argument names, so that
+ * evaluating the same program again, for example on the next fitness case,
+ * only assigns the new values to the program's variables rather than parsing
+ * the source again. The cache is bounded and the least recently used program
+ * tree is evicted when it is full. A cached tree is only reused if the values
+ * are of the same data-types as the values it was parsed with. A cache size of
+ * <code>0</code> disables the cache so that every evaluation parses the
+ * source. Instances are not thread-safe.
+ * 
+ * <p>
+ * When a program is parsed its node tree is checked once to see whether every
+ * node returns Double or Boolean, or every node returns Integer. Trees that
+ * are closed over these types are evaluated with the primitive typed methods
+ * of <code>Node</code>, so that no intermediate results are boxed. The
+ * <code>evalDouble</code> and <code>evalBoolean</code> methods of prepared
+ * programs evaluate trees closed over Double and Boolean over all the cases at
+ * once with a <code>ColumnEvaluator</code>.
+ * 
  * @see EpoxParser
  */
 public class EpoxInterpreter implements Interpreter {
 
+	/**
+	 * The default maximum number of parsed program trees that are retained.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
 	// The Epox language parser.
 	private final EpoxParser parser;
 
+	// Parsed program trees, in least recently used order.
+	private final Map<String, ParsedProgram> cache;
+
+	// Evaluates prepared programs over all cases at once.
+	private ColumnEvaluator columns;
+
 	/**
 	 * Constructs a new <code>EpoxInterpreter</code> with a new
 	 * <code>EpoxParser</code>.
 	 */
 	public EpoxInterpreter() {
-		parser = new EpoxParser();
+		this(new EpoxParser());
 	}
 
 	/**
@@ -58,7 +90,34 @@ public class EpoxInterpreter implements Interpreter {
 	 * @param parser the Epox language parser.
 	 */
 	public EpoxInterpreter(final EpoxParser parser) {
+		this(parser, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructs a new <code>EpoxInterpreter</code> using the given parser to
+	 * parse the program strings into Epox program trees for evaluation, and
+	 * retaining up to <code>cacheSize</code> parsed program trees.
+	 * 
+	 * @param parser the Epox language parser.
+	 * @param cacheSize the maximum number of parsed program trees to retain,
+	 *        or <code>0</code> to parse the source on every evaluation.
+	 */
+	public EpoxInterpreter(final EpoxParser parser, final int cacheSize) {
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("cache size must not be negative");
+		}
+
 		this.parser = parser;
+
+		cache = new LinkedHashMap<String, ParsedProgram>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, ParsedProgram> eldest) {
+				return size() > cacheSize;
+			}
+		};
 	}
 
 	/**
@@ -71,33 +130,20 @@ public class EpoxInterpreter implements Interpreter {
 			return null;
 		}
 
-		// Remove any of the old variables.
-		parser.undeclareAllVariables();
-
-		for (int i = 0; i < argNames.length; i++) {
-			parser.declareVariable(new Variable(argNames[i], argValues[i]));
-		}
-
-		final Node programTree = parser.parse(source);
-
-		return programTree.evaluate();
+		return getProgram(source, argNames, argValues).evaluate();
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * The source is only parsed once, with the variable values of each case
+	 * being assigned to the same parsed program tree.
 	 */
 	@Override
 	public Object[] eval(final String source, final String[] argNames, final Object[][] argValues)
 			throws MalformedProgramException {
-
-		final Object[] results = new Object[argValues.length];
-
-		// Call the other eval method for each set of inputs.
-		for (int i = 0; i < argValues.length; i++) {
-			results[i] = eval(source, argNames, argValues[i]);
-		}
-
-		return results;
+		return prepare(source, argNames).eval(argValues);
 	}
 
 	/**
@@ -118,6 +164,23 @@ public class EpoxInterpreter implements Interpreter {
 		throw new IllegalStateException("method not supported");
 	}
 
+	/**
+	 * Prepares an Epox expression for repeated evaluation. The source is parsed
+	 * into a program tree on first evaluation, with a new <code>Variable</code>
+	 * for each argument, with the data-type of the value it is first given.
+	 * Each further evaluation just assigns the new values to those variables
+	 * before evaluating the same tree. The <code>exec</code> methods of the
+	 * returned program are not supported.
+	 * 
+	 * @param source {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public PreparedProgram prepare(final String source, final String[] argNames) {
+		return new EpoxProgram(source, argNames);
+	}
+
 	/**
 	 * Returns the <code>EpoxParser</code> used to parse the program strings.
 	 * 
@@ -126,4 +189,263 @@ public class EpoxInterpreter implements Interpreter {
 	public EpoxParser getParser() {
 		return parser;
 	}
+
+	/**
+	 * Removes all parsed program trees from the cache. This should be called if
+	 * the functions supported by the parser are changed.
+	 */
+	public void clearCache() {
+		cache.clear();
+	}
+
+	/*
+	 * Retrieves the parsed program tree from the cache with the given values
+	 * assigned to its variables, parsing the source if there is no cached tree
+	 * with matching variable data-types.
+	 */
+	private ParsedProgram getProgram(final String source, final String[] argNames, final Object[] argValues)
+			throws MalformedProgramException {
+		final String key = getKey(source, argNames);
+
+		ParsedProgram program = cache.get(key);
+		if ((program == null) || !program.bind(argValues)) {
+			program = parse(source, argNames, argValues);
+			cache.put(key, program);
+		}
+
+		return program;
+	}
+
+	/*
+	 * Parses the source with a new variable for each argument, typed by the
+	 * value it is given.
+	 */
+	private ParsedProgram parse(final String source, final String[] argNames, final Object[] argValues)
+			throws MalformedProgramException {
+		// Remove any of the old variables.
+		parser.undeclareAllVariables();
+
+		final Variable[] variables = new Variable[argNames.length];
+		for (int i = 0; i < argNames.length; i++) {
+			variables[i] = new Variable(argNames[i], argValues[i]);
+			parser.declareVariable(variables[i]);
+		}
+
+		return new ParsedProgram(parser.parse(source), variables);
+	}
+
+	/*
+	 * Constructs the cache key for a program with the given argument names.
+	 */
+	private String getKey(final String source, final String[] argNames) {
+		final StringBuilder key = new StringBuilder();
+		for (final String argName: argNames) {
+			key.append(argName);
+			key.append(',');
+		}
+		key.append('\n');
+		key.append(source);
+
+		return key.toString();
+	}
+
+	/*
+	 * A program tree together with the variables it was parsed with.
+	 */
+	private static class ParsedProgram {
+
+		private final Node programTree;
+		private final Variable[] variables;
+
+		// The primitive type the tree is evaluated as, or null if boxed.
+		private final Class<?> type;
+
+		public ParsedProgram(final Node programTree, final Variable[] variables) {
+			this.programTree = programTree;
+			this.variables = variables;
+
+			if (NodeUtils.isClosed(programTree, Double.class, Boolean.class)
+					|| NodeUtils.isClosed(programTree, Integer.class)) {
+				type = programTree.getReturnType();
+			} else {
+				type = null;
+			}
+		}
+
+		/*
+		 * Assigns the values to the variables, or returns false without
+		 * assigning any if they are not of the data-types parsed with.
+		 */
+		public boolean bind(final Object[] argValues) {
+			if (argValues.length != variables.length) {
+				return false;
+			}
+			for (int i = 0; i < variables.length; i++) {
+				if ((argValues[i] == null) || (argValues[i].getClass() != variables[i].getReturnType())) {
+					return false;
+				}
+			}
+			for (int i = 0; i < variables.length; i++) {
+				variables[i].setValue(argValues[i]);
+			}
+
+			return true;
+		}
+
+		public Object evaluate() {
+			if (type == Double.class) {
+				return programTree.evaluateDouble();
+			} else if (type == Boolean.class) {
+				return programTree.evaluateBoolean();
+			} else if (type == Integer.class) {
+				return programTree.evaluateInt();
+			} else {
+				return programTree.evaluate();
+			}
+		}
+
+	}
+
+	/*
+	 * A program parsed once into an Epox program tree.
+	 */
+	private class EpoxProgram extends AbstractPreparedProgram {
+
+		private ParsedProgram program;
+
+		public EpoxProgram(final String source, final String[] argNames) {
+			super(source, argNames);
+		}
+
+		@Override
+		public Object eval(final Object[] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return null;
+			}
+
+			bind(argValues);
+
+			return program.evaluate();
+		}
+
+		@Override
+		public double[] evalDouble(final Object[][] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return super.evalDouble(argValues);
+			}
+
+			if (argValues.length > 0) {
+				bind(argValues[0]);
+
+				if ((program.type == Double.class) && bindColumns(argValues)) {
+					return columns.evaluateDouble(program.programTree).clone();
+				}
+			}
+
+			final double[] results = new double[argValues.length];
+
+			for (int i = 0; i < argValues.length; i++) {
+				bind(argValues[i]);
+
+				if (program.type == Double.class) {
+					results[i] = program.programTree.evaluateDouble();
+				} else {
+					final Object result = program.evaluate();
+					if (!(result instanceof Number)) {
+						throw new MalformedProgramException("program did not evaluate to a number");
+					}
+					results[i] = ((Number) result).doubleValue();
+				}
+			}
+
+			return results;
+		}
+
+		@Override
+		public boolean[] evalBoolean(final Object[][] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return super.evalBoolean(argValues);
+			}
+
+			if (argValues.length > 0) {
+				bind(argValues[0]);
+
+				if ((program.type == Boolean.class) && bindColumns(argValues)) {
+					return columns.evaluateBoolean(program.programTree).clone();
+				}
+			}
+
+			final boolean[] results = new boolean[argValues.length];
+
+			for (int i = 0; i < argValues.length; i++) {
+				bind(argValues[i]);
+
+				if (program.type == Boolean.class) {
+					results[i] = program.programTree.evaluateBoolean();
+				} else {
+					final Object result = program.evaluate();
+					if (!(result instanceof Boolean)) {
+						throw new MalformedProgramException("program did not evaluate to a boolean");
+					}
+					results[i] = (Boolean) result;
+				}
+			}
+
+			return results;
+		}
+
+		@Override
+		public void exec(final Object[] argValues) {
+			throw new IllegalStateException("method not supported");
+		}
+
+		/*
+		 * Assigns the values to the program tree's variables, parsing the
+		 * source if the tree is not yet parsed for values of these data-types.
+		 */
+		private void bind(final Object[] argValues) throws MalformedProgramException {
+			if ((program == null) || !program.bind(argValues)) {
+				program = getProgram(getSource(), getArgNames(), argValues);
+			}
+		}
+
+		/*
+		 * Binds the program tree's Double and Boolean variables to columns of
+		 * the values, or returns false if any value is of a different type.
+		 */
+		private boolean bindColumns(final Object[][] argValues) {
+			if ((columns == null) || (columns.getNoCases() != argValues.length)) {
+				columns = new ColumnEvaluator(argValues.length);
+			} else {
+				columns.unbindAll();
+			}
+
+			final Variable[] variables = program.variables;
+			for (int i = 0; i < variables.length; i++) {
+				final Class<?> datatype = variables[i].getReturnType();
+
+				if (datatype == Double.class) {
+					final double[] column = new double[argValues.length];
+					for (int j = 0; j < argValues.length; j++) {
+						if (!(argValues[j][i] instanceof Double)) {
+							return false;
+						}
+						column[j] = (Double) argValues[j][i];
+					}
+					columns.bind(variables[i], column);
+				} else if (datatype == Boolean.class) {
+					final boolean[] column = new boolean[argValues.length];
+					for (int j = 0; j < argValues.length; j++) {
+						if (!(argValues[j][i] instanceof Boolean)) {
+							return false;
+						}
+						column[j] = (Boolean) argValues[j][i];
+					}
+					columns.bind(variables[i], column);
+				}
+			}
+
+			return true;
+		}
+	}
 }
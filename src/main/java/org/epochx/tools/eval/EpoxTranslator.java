@@ -0,0 +1,524 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.eval;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.epochx.epox.*;
+import org.epochx.tools.grammar.*;
+
+/**
+ * An <code>EpoxTranslator</code> translates grammar parse trees directly into
+ * Epox node trees, without rendering their source and parsing it again. The
+ * translation of each production is given by its <code>epox</code>
+ * attribute, which is a template for the node tree to construct from the
+ * translations of the production's non-terminals.
+ * 
+ * <p>
+ * A template is an Epox expression in which <code>$n</code> stands for the
+ * translation of the nth non-terminal of the production, counted from 1. A
+ * function name may also be given as <code>$n</code>, in which case the
+ * production of that non-terminal must have a template which is just the
+ * name of a function. Identifiers that are not applied to arguments are
+ * translated as variables or literals, as by the <code>EpoxParser</code>. For
+ * example:
+ * </p>
+ * 
+ * <blockquote><code>
+ * &lt;expr&gt; ::= &lt;expr&gt; &lt;op&gt; &lt;expr&gt; &lt;?epox=$2($1,$3)?&gt; | &lt;var&gt;<br>
+ * &lt;op&gt; ::= + &lt;?epox=ADD?&gt; | * &lt;?epox=MUL?&gt;<br>
+ * &lt;var&gt; ::= x | y | RANDFLOAT(0.0,1.0)
+ * </code></blockquote>
+ * 
+ * <p>
+ * A production without an <code>epox</code> attribute translates to its
+ * non-terminal's translation if it has exactly one non-terminal, or to the
+ * variable or literal named by its terminal if it has exactly one terminal
+ * and no non-terminals, which includes any generated value.
+ * 
+ * <p>
+ * The translation of each non-terminal is stored in the parse tree, so
+ * translating a tree again only translates those subtrees that have been
+ * modified, and subtrees shared between programs by cloning are translated
+ * once. The translated node trees may therefore share subtrees with each
+ * other, so must not be modified. A <code>FlatParseTree</code> only stores the
+ * translation of the whole tree, so a tree is translated in full the first
+ * time, and its translation is reused by the programs which share it.
+ * Templates are compiled once for each production.
+ * 
+ * <p>
+ * The only state of an instance is its cache of compiled templates, which is
+ * safe for concurrent use, and parse trees publish their translations safely,
+ * so any number of threads may translate with one instance at once. Two
+ * threads may then both translate an untranslated subtree, which is harmless.
+ * The translated trees refer to the variables declared with the parser, so
+ * should be evaluated with a <code>ColumnEvaluator</code> for each thread
+ * rather than by assigning values to the variables.
+ * 
+ * @see NonTerminalSymbol#getTranslation(Object)
+ * @see Grammar
+ */
+public class EpoxTranslator {
+
+	/**
+	 * The key of the production attribute which holds the template.
+	 */
+	public static final String EPOX_ATTRIBUTE = "epox";
+
+	// Constructs the nodes of the translated trees.
+	private final EpoxParser parser;
+
+	// The compiled template of each production.
+	private final ConcurrentMap<GrammarProduction, Template> templates;
+
+	/**
+	 * Constructs an <code>EpoxTranslator</code> which translates terminals and
+	 * functions as the given parser would. Any variables should be declared
+	 * with the parser before translating. If the parser's declarations are
+	 * changed afterwards, a new translator must be used, since the
+	 * translations stored in parse trees would be out of date.
+	 * 
+	 * @param parser the Epox language parser.
+	 */
+	public EpoxTranslator(final EpoxParser parser) {
+		if (parser == null) {
+			throw new IllegalArgumentException("parser must not be null");
+		}
+
+		this.parser = parser;
+
+		templates = new ConcurrentHashMap<GrammarProduction, Template>();
+	}
+
+	/**
+	 * Translates the given parse tree into an Epox node tree.
+	 * 
+	 * @param parseTree the root of the parse tree to translate.
+	 * @return the root of the equivalent node tree, or <code>null</code> if
+	 *         the parse tree is <code>null</code>.
+	 * @throws MalformedProgramException if a production has no valid
+	 *         translation.
+	 */
+	public Node translate(final NonTerminalSymbol parseTree) throws MalformedProgramException {
+		if (parseTree == null) {
+			return null;
+		}
+
+		Node node = (Node) parseTree.getTranslation(this);
+		if (node == null) {
+			final Template template = getTemplate(getProduction(parseTree));
+
+			node = instantiate(template, parseTree, getNonTerminals(parseTree));
+
+			parseTree.setTranslation(this, node);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Translates the given flat parse tree into an Epox node tree, in the same
+	 * way as the equivalent tree of symbol objects.
+	 * 
+	 * @param parseTree the parse tree to translate.
+	 * @return the root of the equivalent node tree, or <code>null</code> if
+	 *         the parse tree is <code>null</code> or empty.
+	 * @throws MalformedProgramException if a production has no valid
+	 *         translation.
+	 */
+	public Node translate(final FlatParseTree parseTree) throws MalformedProgramException {
+		if ((parseTree == null) || (parseTree.getNoNonTerminals() == 0)) {
+			return null;
+		}
+
+		Node node = (Node) parseTree.getTranslation(this);
+		if (node == null) {
+			node = translate(parseTree, 0);
+
+			parseTree.setTranslation(this, node);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Returns the Epox parser used to construct the nodes.
+	 * 
+	 * @return the Epox language parser.
+	 */
+	public EpoxParser getParser() {
+		return parser;
+	}
+
+	/*
+	 * Constructs the node tree for a template, for the given non-terminal
+	 * with the given non-terminal children.
+	 */
+	private Node instantiate(final Template template, final NonTerminalSymbol symbol,
+			final NonTerminalSymbol[] children) throws MalformedProgramException {
+		if (template.arguments == null) {
+			if (template.reference >= 0) {
+				return translate(getChild(children, template.reference));
+			} else if (template.name != null) {
+				return parser.newTerminal(template.name);
+			} else {
+				return parser.newTerminal(getTerminal(symbol));
+			}
+		}
+
+		final String name;
+		if (template.reference >= 0) {
+			final NonTerminalSymbol child = getChild(children, template.reference);
+			name = getFunctionName(getProduction(child), child.getGrammarRule());
+		} else {
+			name = template.name;
+		}
+
+		final Node[] arguments = new Node[template.arguments.length];
+		for (int i = 0; i < arguments.length; i++) {
+			arguments[i] = instantiate(template.arguments[i], symbol, children);
+		}
+
+		return parser.newFunction(name, arguments);
+	}
+
+	/*
+	 * Translates the subtree of the flat parse tree rooted at the non-terminal
+	 * with the given index.
+	 */
+	private Node translate(final FlatParseTree parseTree, final int index) throws MalformedProgramException {
+		final Template template = getTemplate(parseTree.getProduction(index));
+
+		return instantiate(template, parseTree, index, getNonTerminals(parseTree, index));
+	}
+
+	/*
+	 * Constructs the node tree for a template, for the non-terminal of the flat
+	 * parse tree with the given index, which has the given non-terminal
+	 * children.
+	 */
+	private Node instantiate(final Template template, final FlatParseTree parseTree, final int index,
+			final int[] children) throws MalformedProgramException {
+		if (template.arguments == null) {
+			if (template.reference >= 0) {
+				return translate(parseTree, getChild(children, template.reference));
+			} else if (template.name != null) {
+				return parser.newTerminal(template.name);
+			} else {
+				return parser.newTerminal(parseTree.getSource(index).trim());
+			}
+		}
+
+		final String name;
+		if (template.reference >= 0) {
+			final int child = getChild(children, template.reference);
+			name = getFunctionName(parseTree.getProduction(child), parseTree.getGrammarRule(child));
+		} else {
+			name = template.name;
+		}
+
+		final Node[] arguments = new Node[template.arguments.length];
+		for (int i = 0; i < arguments.length; i++) {
+			arguments[i] = instantiate(template.arguments[i], parseTree, index, children);
+		}
+
+		return parser.newFunction(name, arguments);
+	}
+
+	/*
+	 * Returns the function named by the template of the given production.
+	 */
+	private String getFunctionName(final GrammarProduction production, final GrammarRule rule)
+			throws MalformedProgramException {
+		final Template template = getTemplate(production);
+
+		if ((template.name == null) || (template.arguments != null)) {
+			throw new MalformedProgramException("<" + rule.getName() + "> does not translate to a function name");
+		}
+
+		return template.name;
+	}
+
+	/*
+	 * Returns the compiled template of the production, compiling it on first
+	 * use.
+	 */
+	private Template getTemplate(final GrammarProduction production) throws MalformedProgramException {
+		Template template = templates.get(production);
+		if (template == null) {
+			final Object attribute = production.getAttribute(EPOX_ATTRIBUTE);
+
+			if (attribute != null) {
+				template = new TemplateParser(attribute.toString()).parse();
+			} else {
+				int noRules = 0;
+				for (final GrammarNode node: production.getGrammarNodes()) {
+					if (node instanceof GrammarRule) {
+						noRules++;
+					}
+				}
+
+				if (noRules == 1) {
+					template = new Template(0, null, null);
+				} else if ((noRules == 0) && (production.getNoGrammarNodes() == 1)) {
+					template = new Template(-1, null, null);
+				} else {
+					throw new MalformedProgramException("No epox translation for production: " + production);
+				}
+			}
+
+			final Template existing = templates.putIfAbsent(production, template);
+			if (existing != null) {
+				template = existing;
+			}
+		}
+
+		return template;
+	}
+
+	/*
+	 * Determines which production of its rule the non-terminal was resolved
+	 * with, by matching its children against each production in turn.
+	 */
+	private GrammarProduction getProduction(final NonTerminalSymbol symbol) throws MalformedProgramException {
+		final int noChildren = symbol.getNoChildren();
+
+		for (final GrammarProduction production: symbol.getGrammarRule().getProductions()) {
+			if (production.getNoGrammarNodes() != noChildren) {
+				continue;
+			}
+
+			boolean matches = true;
+			for (int i = 0; (i < noChildren) && matches; i++) {
+				final GrammarNode node = production.getGrammarNode(i);
+				final Symbol child = symbol.getChild(i);
+
+				if (node instanceof GrammarRule) {
+					matches = (child instanceof NonTerminalSymbol)
+							&& (((NonTerminalSymbol) child).getGrammarRule() == node);
+				} else {
+					matches = (child instanceof TerminalSymbol)
+							&& (((GrammarLiteral) node).isGenerated() || child.toString().equals(node.toString()));
+				}
+			}
+
+			if (matches) {
+				return production;
+			}
+		}
+
+		throw new MalformedProgramException("No production of <" + symbol.getGrammarRule().getName()
+				+ "> matches " + symbol);
+	}
+
+	/*
+	 * Returns the non-terminal children of the non-terminal, in order.
+	 */
+	private NonTerminalSymbol[] getNonTerminals(final NonTerminalSymbol symbol) {
+		int noNonTerminals = 0;
+		for (final Symbol child: symbol.getChildren()) {
+			if (child instanceof NonTerminalSymbol) {
+				noNonTerminals++;
+			}
+		}
+
+		final NonTerminalSymbol[] nonTerminals = new NonTerminalSymbol[noNonTerminals];
+		int i = 0;
+		for (final Symbol child: symbol.getChildren()) {
+			if (child instanceof NonTerminalSymbol) {
+				nonTerminals[i++] = (NonTerminalSymbol) child;
+			}
+		}
+
+		return nonTerminals;
+	}
+
+	/*
+	 * Returns the indexes of the non-terminal children of the non-terminal of
+	 * the flat parse tree with the given index, in order.
+	 */
+	private int[] getNonTerminals(final FlatParseTree parseTree, final int index) {
+		int noNonTerminals = 0;
+		for (final GrammarNode node: parseTree.getProduction(index).getGrammarNodes()) {
+			if (node instanceof GrammarRule) {
+				noNonTerminals++;
+			}
+		}
+
+		// Each child's subtree immediately follows that of the previous child.
+		final int[] nonTerminals = new int[noNonTerminals];
+		int child = index + 1;
+		for (int i = 0; i < noNonTerminals; i++) {
+			nonTerminals[i] = child;
+			child += parseTree.getSubtreeSize(child);
+		}
+
+		return nonTerminals;
+	}
+
+	/*
+	 * Returns the referenced non-terminal child.
+	 */
+	private NonTerminalSymbol getChild(final NonTerminalSymbol[] children, final int reference)
+			throws MalformedProgramException {
+		checkReference(children.length, reference);
+
+		return children[reference];
+	}
+
+	/*
+	 * Returns the index of the referenced non-terminal child.
+	 */
+	private int getChild(final int[] children, final int reference) throws MalformedProgramException {
+		checkReference(children.length, reference);
+
+		return children[reference];
+	}
+
+	/*
+	 * Checks that a template reference is to one of the non-terminals.
+	 */
+	private void checkReference(final int noChildren, final int reference) throws MalformedProgramException {
+		if (reference >= noChildren) {
+			throw new MalformedProgramException("Template refers to $" + (reference + 1) + " but there are only "
+					+ noChildren + " non-terminals");
+		}
+	}
+
+	/*
+	 * Returns the value of the only terminal of the non-terminal.
+	 */
+	private String getTerminal(final NonTerminalSymbol symbol) {
+		return symbol.getChild(0).toString().trim();
+	}
+
+	/*
+	 * A compiled template. Either a reference to a non-terminal or a name,
+	 * applied to the arguments if there are any. If there is neither a
+	 * reference nor a name then it stands for the production's terminal.
+	 */
+	private static class Template {
+
+		private final int reference;
+		private final String name;
+		private final Template[] arguments;
+
+		public Template(final int reference, final String name, final Template[] arguments) {
+			this.reference = reference;
+			this.name = name;
+			this.arguments = arguments;
+		}
+	}
+
+	/*
+	 * Compiles a template by recursive descent.
+	 */
+	private static class TemplateParser {
+
+		private final String template;
+		private int position;
+
+		public TemplateParser(final String template) {
+			this.template = template;
+		}
+
+		public Template parse() throws MalformedProgramException {
+			final Template result = parseTemplate();
+
+			skipWhitespace();
+			if (position != template.length()) {
+				throw new MalformedProgramException("Unexpected character in template: " + template);
+			}
+
+			return result;
+		}
+
+		private Template parseTemplate() throws MalformedProgramException {
+			skipWhitespace();
+
+			int reference = -1;
+			String name = null;
+
+			final int start = position;
+			while ((position < template.length()) && !isSeparator(template.charAt(position))) {
+				position++;
+			}
+			final String token = template.substring(start, position);
+
+			if (token.length() == 0) {
+				throw new MalformedProgramException("Missing identifier in template: " + template);
+			} else if (token.startsWith("$")) {
+				try {
+					reference = Integer.parseInt(token.substring(1)) - 1;
+				} catch (final NumberFormatException e) {
+					reference = -1;
+				}
+				if (reference < 0) {
+					throw new MalformedProgramException("Invalid reference in template: " + template);
+				}
+			} else {
+				name = token;
+			}
+
+			skipWhitespace();
+			if ((position >= template.length()) || (template.charAt(position) != '(')) {
+				return new Template(reference, name, null);
+			}
+			position++;
+
+			final List<Template> arguments = new ArrayList<Template>();
+			skipWhitespace();
+			if ((position < template.length()) && (template.charAt(position) == ')')) {
+				position++;
+			} else {
+				while (true) {
+					arguments.add(parseTemplate());
+
+					skipWhitespace();
+					if (position >= template.length()) {
+						throw new MalformedProgramException("Unterminated arguments in template: " + template);
+					}
+
+					final char c = template.charAt(position++);
+					if (c == ')') {
+						break;
+					} else if (c != ',') {
+						throw new MalformedProgramException("Expected , or ) in template: " + template);
+					}
+				}
+			}
+
+			return new Template(reference, name, arguments.toArray(new Template[arguments.size()]));
+		}
+
+		private boolean isSeparator(final char c) {
+			return (c == '(') || (c == ')') || (c == ',') || Character.isWhitespace(c);
+		}
+
+		private void skipWhitespace() {
+			while ((position < template.length()) && Character.isWhitespace(template.charAt(position))) {
+				position++;
+			}
+		}
+	}
+}
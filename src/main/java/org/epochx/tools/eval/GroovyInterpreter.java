@@ -21,8 +21,6 @@
  */
 package org.epochx.tools.eval;
 
-import javax.script.*;
-
 /**
  * A GroovyInterpreter provides the facility to evaluate individual Groovy
  * expressions and execute multi-line Groovy statements. Groovy language
@@ -74,19 +72,13 @@ public class GroovyInterpreter extends ScriptingInterpreter {
 	public Object[] eval(final String expression, final String[] argNames, final Object[][] argValues) {
 		final Object[] results = new Object[argValues.length];
 
-		final String code = getEvalCode(expression, argNames);
-
-		final Invocable invocableEngine = (Invocable) getEngine();
+		final PreparedProgram program = prepare(expression, argNames);
 		try {
-			getEngine().eval(code);
-
 			// Evaluate each argument set.
 			for (int i = 0; i < results.length; i++) {
-				results[i] = invocableEngine.invokeFunction("expr", argValues[i]);
+				results[i] = program.eval(argValues[i]);
 			}
-		} catch (final ScriptException ex) {
-			ex.printStackTrace();
-		} catch (final NoSuchMethodException ex) {
+		} catch (final MalformedProgramException ex) {
 			ex.printStackTrace();
 		}
 
@@ -98,23 +90,27 @@ public class GroovyInterpreter extends ScriptingInterpreter {
 	 */
 	@Override
 	public void exec(final String program, final String[] argNames, final Object[][] argValues) {
-		final String code = getExecCode(program, argNames);
-
-		final Invocable invocableEngine = (Invocable) getEngine();
 		try {
-			getEngine().eval(code);
-
-			// Evaluate each argument set.
-			for (int i = 0; i < argValues.length; i++) {
-				invocableEngine.invokeFunction("expr", argValues[i]);
-			}
-		} catch (final ScriptException ex) {
-			ex.printStackTrace();
-		} catch (final NoSuchMethodException ex) {
+			prepare(program, argNames).exec(argValues);
+		} catch (final MalformedProgramException ex) {
 			ex.printStackTrace();
 		}
 	}
 
+	/**
+	 * Prepares a Groovy program for repeated evaluation. The program is
+	 * wrapped in a Groovy method which is defined once, and then invoked with
+	 * each set of argument values.
+	 * 
+	 * @param source {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public PreparedProgram prepare(final String source, final String[] argNames) {
+		return new FunctionProgram(source, argNames, getEvalCode(source, argNames), getExecCode(source, argNames));
+	}
+
 	/*
 	 * Helper method to the multiple eval.
 	 * 
@@ -41,6 +41,13 @@ package org.epochx.tools.eval;
  * The <code>exec</code> methods are for executing program strings that
  * represent one or more full program statements. No value will be returned by
  * these methods so the programs are expected to have other side effects.
+ * 
+ * <h4>Prepared programs</h4>
+ * 
+ * <p>
+ * The <code>prepare</code> method returns a {@link PreparedProgram} which can
+ * be evaluated or executed many times without the program being re-parsed on
+ * each occasion.
  */
 public interface Interpreter {
 
@@ -149,4 +156,20 @@ public interface Interpreter {
 	 *         according to the language's syntax rules.
 	 */
 	public void exec(String program, String[] argNames, Object[][] argValues) throws MalformedProgramException;
+
+	/**
+	 * Prepares a program for evaluation or execution with many different sets
+	 * of argument values. The returned <code>PreparedProgram</code> only pays
+	 * the cost of parsing or compiling the program once, however many times it
+	 * is then evaluated, so this should be preferred over the <code>eval</code>
+	 * and <code>exec</code> methods of this interpreter where the same program
+	 * is to be run against many fitness cases.
+	 * 
+	 * @param source the program source code that is to be prepared.
+	 * @param argNames an array of the names of the arguments the program may
+	 *        use. The argument values supplied to the prepared program must
+	 *        be given in the same order.
+	 * @return a prepared form of the program.
+	 */
+	public PreparedProgram prepare(String source, String[] argNames);
 }
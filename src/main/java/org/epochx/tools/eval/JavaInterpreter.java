@@ -21,7 +21,7 @@
  */
 package org.epochx.tools.eval;
 
-import bsh.EvalError;
+import bsh.*;
 
 /**
  * A JavaInterpreter provides the facility to evaluate individual Java
@@ -94,7 +94,8 @@ public class JavaInterpreter implements Interpreter {
 	 * argValues argument. Java variables with the specified names and values
 	 * are automatically declared and initialised before the generated code is
 	 * run. The argument names link up with the argument value in the same array
-	 * index, so both arguments must have the same length.
+	 * index, so both arguments must have the same length. The expression is
+	 * only parsed once.
 	 * 
 	 * @param expression a valid Java expression that is to be evaluated.
 	 * @param argNames {@inheritDoc}
@@ -111,13 +112,7 @@ public class JavaInterpreter implements Interpreter {
 	@Override
 	public Object[] eval(final String expression, final String[] argNames, final Object[][] argValues)
 			throws MalformedProgramException {
-		final Object[] results = new Object[argValues.length];
-
-		for (int i = 0; i < argValues.length; i++) {
-			results[i] = eval(expression, argNames, argValues[i]);
-		}
-
-		return results;
+		return prepare(expression, argNames).eval(argValues);
 	}
 
 	/**
@@ -135,7 +130,113 @@ public class JavaInterpreter implements Interpreter {
 	@Override
 	public void exec(final String program, final String[] argNames, final Object[][] argValues)
 			throws MalformedProgramException {
-		eval(program, argNames, argValues);
+		prepare(program, argNames).exec(argValues);
+	}
+
+	/**
+	 * Prepares a Java expression or sequence of statements for repeated
+	 * evaluation. The program is parsed once, as the body of a loosely typed
+	 * BeanShell method in its own namespace, and that method is then invoked
+	 * with each set of argument values.
+	 * 
+	 * @param source {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public PreparedProgram prepare(final String source, final String[] argNames) {
+		return new BeanShellProgram(source, argNames);
 	}
 
+	/*
+	 * A program parsed into a BeanShell method. The expression and statement
+	 * forms are each parsed on first use.
+	 */
+	private class BeanShellProgram extends AbstractPreparedProgram {
+
+		private BshMethod expression;
+		private BshMethod statements;
+
+		public BeanShellProgram(final String source, final String[] argNames) {
+			super(source, argNames);
+		}
+
+		@Override
+		public Object eval(final Object[] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return null;
+			}
+			if (expression == null) {
+				expression = define("return " + getSource() + ";");
+			}
+
+			return invoke(expression, argValues);
+		}
+
+		@Override
+		public void exec(final Object[] argValues) throws MalformedProgramException {
+			if (getSource() == null) {
+				return;
+			}
+			if (statements == null) {
+				statements = define(getSource());
+			}
+
+			invoke(statements, argValues);
+		}
+
+		/*
+		 * Parses the given method body into a new method.
+		 */
+		private BshMethod define(final String body) throws MalformedProgramException {
+			final String[] argNames = getArgNames();
+
+			final StringBuilder code = new StringBuilder();
+			code.append("expr(");
+			for (int i = 0; i < argNames.length; i++) {
+				if (i > 0) {
+					code.append(',');
+				}
+				code.append(argNames[i]);
+			}
+			code.append(") {\n");
+			code.append(body);
+			code.append("\n}\n");
+
+			try {
+				final NameSpace namespace = new NameSpace(beanShell.getNameSpace(), "prepared");
+				beanShell.eval(code.toString(), namespace);
+
+				return namespace.getMethod("expr", new Class<?>[argNames.length]);
+			} catch (final EvalError e) {
+				throw new MalformedProgramException();
+			} catch (final UtilEvalError e) {
+				throw new MalformedProgramException();
+			}
+		}
+
+		/*
+		 * Invokes the method, wrapping any primitive values as BeanShell
+		 * expects.
+		 */
+		private Object invoke(final BshMethod method, final Object[] argValues) throws MalformedProgramException {
+			final Object[] args = new Object[argValues.length];
+			for (int i = 0; i < args.length; i++) {
+				final Object value = argValues[i];
+				if (value == null) {
+					args[i] = Primitive.NULL;
+				} else if (Primitive.isWrapperType(value.getClass())) {
+					args[i] = new Primitive(value);
+				} else {
+					args[i] = value;
+				}
+			}
+
+			try {
+				return Primitive.unwrap(method.invoke(args, beanShell));
+			} catch (final EvalError e) {
+				throw new MalformedProgramException();
+			}
+		}
+	}
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.eval;
+
+/**
+ * A <code>PreparedProgram</code> is a program which an {@link Interpreter}
+ * has prepared for repeated evaluation or execution with different argument
+ * values, so that the cost of parsing or compiling the program is only paid
+ * once rather than once per set of arguments. Prepared programs are obtained
+ * with the <code>prepare</code> method of an interpreter.
+ * 
+ * <p>
+ * Preparation is typically performed lazily, on the first call to one of the
+ * <code>eval</code> or <code>exec</code> methods, so a malformed program will
+ * be reported by the first of those calls rather than by
+ * <code>prepare</code>.
+ * 
+ * <p>
+ * The argument values given to each method must be in the order of the
+ * argument names the program was prepared with.
+ * 
+ * @see Interpreter#prepare(String, String[])
+ */
+public interface PreparedProgram {
+
+	/**
+	 * Evaluates the program as an expression with the given argument values.
+	 * 
+	 * @param argValues an array of argument values to be assigned to the
+	 *        argument names the program was prepared with.
+	 * @return the return value from evaluating the expression.
+	 * @throws MalformedProgramException if the program is not valid according
+	 *         to the language's syntax rules.
+	 */
+	public Object eval(Object[] argValues) throws MalformedProgramException;
+
+	/**
+	 * Evaluates the program as an expression once with each of the sets of
+	 * argument values.
+	 * 
+	 * @param argValues argument values for each evaluation. Each element is
+	 *        an array of argument values for one evaluation.
+	 * @return an array of the return values from evaluating the expression
+	 *         with each set of argument values.
+	 * @throws MalformedProgramException if the program is not valid according
+	 *         to the language's syntax rules.
+	 */
+	public Object[] eval(Object[][] argValues) throws MalformedProgramException;
+
+	/**
+	 * Evaluates the program as a numeric expression once with each of the sets
+	 * of argument values, returning the results as primitive doubles.
+	 * 
+	 * @param argValues argument values for each evaluation. Each element is
+	 *        an array of argument values for one evaluation.
+	 * @return an array of the values of the expression with each set of
+	 *         argument values.
+	 * @throws MalformedProgramException if the program is not valid according
+	 *         to the language's syntax rules, or does not evaluate to a
+	 *         numeric value.
+	 */
+	public double[] evalDouble(Object[][] argValues) throws MalformedProgramException;
+
+	/**
+	 * Evaluates the program as a boolean expression once with each of the sets
+	 * of argument values, returning the results as primitive booleans.
+	 * 
+	 * @param argValues argument values for each evaluation. Each element is
+	 *        an array of argument values for one evaluation.
+	 * @return an array of the values of the expression with each set of
+	 *         argument values.
+	 * @throws MalformedProgramException if the program is not valid according
+	 *         to the language's syntax rules, or does not evaluate to a
+	 *         boolean value.
+	 */
+	public boolean[] evalBoolean(Object[][] argValues) throws MalformedProgramException;
+
+	/**
+	 * Executes the program as a sequence of statements with the given
+	 * argument values.
+	 * 
+	 * @param argValues an array of argument values to be assigned to the
+	 *        argument names the program was prepared with.
+	 * @throws MalformedProgramException if the program is not valid according
+	 *         to the language's syntax rules.
+	 */
+	public void exec(Object[] argValues) throws MalformedProgramException;
+
+	/**
+	 * Executes the program as a sequence of statements once with each of the
+	 * sets of argument values.
+	 * 
+	 * @param argValues argument values for each execution. Each element is
+	 *        an array of argument values for one execution.
+	 * @throws MalformedProgramException if the program is not valid according
+	 *         to the language's syntax rules.
+	 */
+	public void exec(Object[][] argValues) throws MalformedProgramException;
+
+	/**
+	 * Returns the source of the program.
+	 * 
+	 * @return the source code this program was prepared from.
+	 */
+	public String getSource();
+
+	/**
+	 * Returns the names of the arguments the program was prepared with.
+	 * 
+	 * @return the argument names of the program.
+	 */
+	public String[] getArgNames();
+}
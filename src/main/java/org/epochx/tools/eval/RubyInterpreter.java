@@ -21,8 +21,6 @@
  */
 package org.epochx.tools.eval;
 
-import javax.script.*;
-
 /**
  * A <code>RubyInterpreter</code> provides the facility to evaluate individual
  * Ruby expressions and execute multi-line Ruby statements.
@@ -46,21 +44,7 @@ public class RubyInterpreter extends ScriptingInterpreter {
 	@Override
 	public Object eval(final String expression, final String[] argNames, final Object[] argValues)
 			throws MalformedProgramException {
-		final String code = getEvalCode(expression, argNames);
-
-		Object result = null;
-
-		final Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
-			result = invocableEngine.invokeFunction("expr", argValues);
-		} catch (final ScriptException ex) {
-			throw new MalformedProgramException();
-		} catch (final NoSuchMethodException ex) {
-			throw new MalformedProgramException();
-		}
-
-		return result;
+		return prepare(expression, argNames).eval(argValues);
 	}
 
 	/**
@@ -69,25 +53,7 @@ public class RubyInterpreter extends ScriptingInterpreter {
 	@Override
 	public Object[] eval(final String expression, final String[] argNames, final Object[][] argValues)
 			throws MalformedProgramException {
-		final Object[] results = new Object[argValues.length];
-
-		final String code = getEvalCode(expression, argNames);
-
-		final Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
-
-			// Evaluate each argument set.
-			for (int i = 0; i < results.length; i++) {
-				results[i] = invocableEngine.invokeFunction("expr", argValues[i]);
-			}
-		} catch (final ScriptException ex) {
-			throw new MalformedProgramException();
-		} catch (final NoSuchMethodException ex) {
-			throw new MalformedProgramException();
-		}
-
-		return results;
+		return prepare(expression, argNames).eval(argValues);
 	}
 
 	/**
@@ -96,17 +62,7 @@ public class RubyInterpreter extends ScriptingInterpreter {
 	@Override
 	public void exec(final String program, final String[] argNames, final Object[] argValues)
 			throws MalformedProgramException {
-		final String code = getExecCode(program, argNames);
-
-		final Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
-			invocableEngine.invokeFunction("expr", argValues);
-		} catch (final ScriptException ex) {
-			throw new MalformedProgramException();
-		} catch (final NoSuchMethodException ex) {
-			throw new MalformedProgramException();
-		}
+		prepare(program, argNames).exec(argValues);
 	}
 
 	/**
@@ -115,21 +71,21 @@ public class RubyInterpreter extends ScriptingInterpreter {
 	@Override
 	public void exec(final String program, final String[] argNames, final Object[][] argValues)
 			throws MalformedProgramException {
-		final String code = getExecCode(program, argNames);
-
-		final Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
+		prepare(program, argNames).exec(argValues);
+	}
 
-			// Evaluate each argument set.
-			for (int i = 0; i < argValues.length; i++) {
-				invocableEngine.invokeFunction("expr", argValues[i]);
-			}
-		} catch (final ScriptException ex) {
-			throw new MalformedProgramException();
-		} catch (final NoSuchMethodException ex) {
-			throw new MalformedProgramException();
-		}
+	/**
+	 * Prepares a Ruby program for repeated evaluation. The program is wrapped
+	 * in a Ruby method which is defined once, and then invoked with each set of
+	 * argument values.
+	 * 
+	 * @param source {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public PreparedProgram prepare(final String source, final String[] argNames) {
+		return new FunctionProgram(source, argNames, getEvalCode(source, argNames), getExecCode(source, argNames));
 	}
 
 	/*
@@ -50,6 +50,9 @@ public class ScriptingInterpreter implements Interpreter {
 	// The language specific scripting engine.
 	private final ScriptEngine engine;
 
+	// The code which last defined the function invoked by prepared programs.
+	private String definedFunction;
+
 	/**
 	 * Constructs a ScriptingInterpreter for a named scripting engine. A list
 	 * of installed ScriptEngine names can be obtained with the following code:
@@ -107,14 +110,7 @@ public class ScriptingInterpreter implements Interpreter {
 	@Override
 	public Object[] eval(final String expression, final String[] argNames, final Object[][] argValues)
 			throws MalformedProgramException {
-		final Object[] results = new Object[argValues.length];
-
-		// Evaluate each argument set.
-		for (int i = 0; i < results.length; i++) {
-			results[i] = eval(expression, argNames, argValues[i]);
-		}
-
-		return results;
+		return prepare(expression, argNames).eval(argValues);
 	}
 
 	/**
@@ -132,10 +128,23 @@ public class ScriptingInterpreter implements Interpreter {
 	@Override
 	public void exec(final String program, final String[] argNames, final Object[][] argValues)
 			throws MalformedProgramException {
-		// Execute each argument set.
-		for (int i = 0; i < argValues.length; i++) {
-			exec(program, argNames, argValues[i]);
-		}
+		prepare(program, argNames).exec(argValues);
+	}
+
+	/**
+	 * Prepares a program for repeated evaluation. If the script engine
+	 * supports compilation then the program is compiled once on first use,
+	 * and the compiled script is then evaluated with the argument values of
+	 * each case assigned in the engine scope. Otherwise the program is
+	 * evaluated by the engine each time.
+	 * 
+	 * @param source {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public PreparedProgram prepare(final String source, final String[] argNames) {
+		return new ScriptProgram(source, argNames);
 	}
 
 	/**
@@ -146,4 +155,113 @@ public class ScriptingInterpreter implements Interpreter {
 	public ScriptEngine getEngine() {
 		return engine;
 	}
+
+	/*
+	 * A program which is compiled once if the engine supports it.
+	 */
+	private class ScriptProgram extends AbstractPreparedProgram {
+
+		private CompiledScript script;
+
+		public ScriptProgram(final String source, final String[] argNames) {
+			super(source, argNames);
+		}
+
+		@Override
+		public Object eval(final Object[] argValues) throws MalformedProgramException {
+			final String[] argNames = getArgNames();
+
+			try {
+				if ((script == null) && (engine instanceof Compilable)) {
+					script = ((Compilable) engine).compile(getSource());
+				}
+
+				for (int i = 0; i < argNames.length; i++) {
+					engine.put(argNames[i], argValues[i]);
+				}
+
+				if (script != null) {
+					return script.eval();
+				} else {
+					return engine.eval(getSource());
+				}
+			} catch (final ScriptException e) {
+				throw new MalformedProgramException();
+			}
+		}
+
+		@Override
+		public void exec(final Object[] argValues) throws MalformedProgramException {
+			eval(argValues);
+		}
+	}
+
+	/**
+	 * A prepared program for languages that support the <code>Invocable</code>
+	 * interface, where the program is wrapped in a function named
+	 * <code>expr</code> which is defined in the engine once and then invoked
+	 * with each set of argument values. If another program has since defined
+	 * the function then it is redefined before being invoked again.
+	 */
+	protected class FunctionProgram extends AbstractPreparedProgram {
+
+		// The code defining the function to evaluate or execute the program.
+		private final String evalCode;
+		private final String execCode;
+
+		/**
+		 * Constructs a prepared program that will be defined by the given
+		 * code.
+		 * 
+		 * @param source the source code of the program.
+		 * @param argNames the names of the arguments of the program.
+		 * @param evalCode code which defines a function named
+		 *        <code>expr</code> that returns the value of the program as an
+		 *        expression.
+		 * @param execCode code which defines a function named
+		 *        <code>expr</code> that executes the program as statements.
+		 */
+		public FunctionProgram(final String source, final String[] argNames, final String evalCode,
+				final String execCode) {
+			super(source, argNames);
+
+			this.evalCode = evalCode;
+			this.execCode = execCode;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object eval(final Object[] argValues) throws MalformedProgramException {
+			return invoke(evalCode, argValues);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void exec(final Object[] argValues) throws MalformedProgramException {
+			invoke(execCode, argValues);
+		}
+
+		/*
+		 * Defines the function if necessary and then invokes it.
+		 */
+		private Object invoke(final String code, final Object[] argValues) throws MalformedProgramException {
+			try {
+				if (definedFunction != code) {
+					definedFunction = null;
+					engine.eval(code);
+					definedFunction = code;
+				}
+
+				return ((Invocable) engine).invokeFunction("expr", argValues);
+			} catch (final ScriptException e) {
+				throw new MalformedProgramException();
+			} catch (final NoSuchMethodException e) {
+				throw new MalformedProgramException();
+			}
+		}
+	}
 }
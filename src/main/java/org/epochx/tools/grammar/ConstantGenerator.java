@@ -0,0 +1,74 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * A <code>ConstantGenerator</code> supplies the values of an ephemeral random
+ * constant in a grammar. Such a constant is written in the grammar as a
+ * terminal of the form <code>NAME(arguments)</code>, such as
+ * <code>RANDFLOAT(0.0,1.0)</code>, and each time it is used in a new parse tree
+ * it is replaced by a newly generated value.
+ * 
+ * <p>
+ * Generators are created when a grammar is parsed, by the
+ * <code>Factory</code> registered under the constant's name, so that the
+ * arguments are only parsed once. A generator is then shared by every use of
+ * that terminal. The generators for <code>RANDFLOAT</code>,
+ * <code>RANDINTEGER</code> and <code>RANDINT_TYPE0</code> to
+ * <code>RANDINT_TYPE6</code> are registered as standard.
+ * 
+ * @see Grammar#registerConstantGenerator(String, ConstantGenerator.Factory)
+ * @see GrammarConstant
+ */
+public interface ConstantGenerator {
+
+	/**
+	 * Returns a new value for the constant.
+	 * 
+	 * @param rng the random number generator to use.
+	 * @param noLabels the number of labels of the dataset, for generators
+	 *        whose range depends upon it.
+	 * @param noAttributes the number of attributes of the dataset, for
+	 *        generators whose range depends upon it.
+	 * @return the source of the generated value.
+	 */
+	public String generate(RandomNumberGenerator rng, int noLabels, int noAttributes);
+
+	/**
+	 * A <code>Factory</code> creates the generators for the constants with one
+	 * name from their arguments.
+	 */
+	public interface Factory {
+
+		/**
+		 * Returns a generator for a constant with the given arguments.
+		 * 
+		 * @param arguments the comma separated arguments given between the
+		 *        brackets of the constant in the grammar.
+		 * @return a generator for the constant.
+		 * @throws MalformedGrammarException if the arguments are not valid.
+		 */
+		public ConstantGenerator newGenerator(String[] arguments);
+	}
+}
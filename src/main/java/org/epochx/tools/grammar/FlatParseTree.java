@@ -0,0 +1,662 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+import java.util.*;
+
+/**
+ * A <code>FlatParseTree</code> is a compact alternative to a parse tree made
+ * up of <code>NonTerminalSymbol</code> and <code>TerminalSymbol</code>
+ * objects. Rather than an object for every symbol, the non-terminals of the
+ * tree are held in preorder in a few primitive arrays: the number of the
+ * production each non-terminal was resolved with, the number of non-terminals
+ * in the subtree below each one and the distance of each from the root. The
+ * terminals are not stored at all, since they are determined by the
+ * productions, except for the values of those grammar literals which stand
+ * for generated values, which are held in a side table in the order they
+ * appear in the source.
+ * 
+ * <p>
+ * Instances are immutable, so may be shared freely between programs, and the
+ * subtree rooted at a non-terminal is always the contiguous range of
+ * non-terminals starting at its index. Operations which modify a tree, such
+ * as <code>replaceSubtree</code>, return a new tree built with array copies.
+ * The source and depth of a tree, and the indexes of its non-terminals with
+ * each grammar rule, are calculated once, when first requested. A translation
+ * of the tree may also be stored with it, which is then reused by every
+ * program that shares the tree.
+ * 
+ * <p>
+ * Trees are constructed with a <code>FlatParseTree.Builder</code>, and
+ * production numbers are those assigned by the <code>Grammar</code>.
+ * 
+ * @see Grammar#getProductionNumber(GrammarProduction)
+ * @see GrammarLiteral#isGenerated()
+ */
+public final class FlatParseTree {
+
+	// The grammar the production numbers refer to.
+	private final Grammar grammar;
+
+	// The production number of each non-terminal, in preorder.
+	private final int[] productions;
+
+	// The number of non-terminals in the subtree rooted at each non-terminal.
+	private final int[] sizes;
+
+	// The distance of each non-terminal from the root.
+	private final short[] depths;
+
+	// The index of the first generated literal at or below each non-terminal.
+	private final int[] literalOffsets;
+
+	// The values of the generated literals, in source order.
+	private final String[] literals;
+
+	// Calculated when first requested.
+	private String source;
+	private int hash;
+	private int depth;
+	private Map<GrammarRule, int[]> ruleIndexes;
+
+	// The cached translation of the tree, or null if there is none.
+	private volatile Translation translation;
+
+	/*
+	 * Constructs a tree from arrays which are not copied.
+	 */
+	private FlatParseTree(final Grammar grammar, final int[] productions, final int[] sizes, final short[] depths,
+			final int[] literalOffsets, final String[] literals) {
+		this.grammar = grammar;
+		this.productions = productions;
+		this.sizes = sizes;
+		this.depths = depths;
+		this.literalOffsets = literalOffsets;
+		this.literals = literals;
+
+		depth = -1;
+	}
+
+	/**
+	 * Returns the grammar that this tree is derived from.
+	 * 
+	 * @return the grammar which the production numbers of this tree refer to.
+	 */
+	public Grammar getGrammar() {
+		return grammar;
+	}
+
+	/**
+	 * Returns the number of non-terminals in this tree.
+	 * 
+	 * @return the number of non-terminal symbols.
+	 */
+	public int getNoNonTerminals() {
+		return productions.length;
+	}
+
+	/**
+	 * Returns the non-terminals in this tree with the given grammar rule, in
+	 * preorder. Each is given by its index amongst the non-terminals, as used
+	 * by the other methods of this class, rather than amongst all the symbols
+	 * as by <code>NonTerminalSymbol.getNonTerminalIndexes</code>. The indexes
+	 * are calculated when first requested, so repeated calls take constant
+	 * time, and the returned array must not be modified.
+	 * 
+	 * @param rule the grammar rule of the non-terminals.
+	 * @return an array of the preorder indexes of the non-terminals with the
+	 *         grammar rule, which is empty if there are none.
+	 */
+	public int[] getNonTerminalsWithRule(final GrammarRule rule) {
+		if (ruleIndexes == null) {
+			// Count the non-terminals with each rule.
+			final Map<GrammarRule, int[]> counts = new IdentityHashMap<GrammarRule, int[]>();
+			for (int i = 0; i < productions.length; i++) {
+				final GrammarRule r = getGrammarRule(i);
+				final int[] count = counts.get(r);
+				if (count == null) {
+					counts.put(r, new int[]{1});
+				} else {
+					count[0]++;
+				}
+			}
+
+			final Map<GrammarRule, int[]> byRule = new IdentityHashMap<GrammarRule, int[]>();
+			for (final Map.Entry<GrammarRule, int[]> e: counts.entrySet()) {
+				byRule.put(e.getKey(), new int[e.getValue()[0]]);
+				e.getValue()[0] = 0;
+			}
+			for (int i = 0; i < productions.length; i++) {
+				final GrammarRule r = getGrammarRule(i);
+				byRule.get(r)[counts.get(r)[0]++] = i;
+			}
+
+			ruleIndexes = byRule;
+		}
+
+		final int[] indexes = ruleIndexes.get(rule);
+
+		return (indexes == null) ? new int[0] : indexes;
+	}
+
+	/**
+	 * Returns the number of the production that the non-terminal at the given
+	 * index was resolved with.
+	 * 
+	 * @param index the preorder index of a non-terminal.
+	 * @return the production number of the non-terminal.
+	 */
+	public int getProductionNumber(final int index) {
+		return productions[index];
+	}
+
+	/**
+	 * Returns the production that the non-terminal at the given index was
+	 * resolved with.
+	 * 
+	 * @param index the preorder index of a non-terminal.
+	 * @return the production of the non-terminal.
+	 */
+	public GrammarProduction getProduction(final int index) {
+		return grammar.getProduction(productions[index]);
+	}
+
+	/**
+	 * Returns the grammar rule of the non-terminal at the given index.
+	 * 
+	 * @param index the preorder index of a non-terminal.
+	 * @return the grammar rule that the non-terminal is an instance of.
+	 */
+	public GrammarRule getGrammarRule(final int index) {
+		return grammar.getProductionRule(productions[index]);
+	}
+
+	/**
+	 * Returns the number of non-terminals in the subtree rooted at the
+	 * non-terminal at the given index, including itself. The subtree is made
+	 * up of the non-terminals from <code>index</code> up to, but not
+	 * including, <code>index + getSubtreeSize(index)</code>.
+	 * 
+	 * @param index the preorder index of a non-terminal.
+	 * @return the number of non-terminals in its subtree.
+	 */
+	public int getSubtreeSize(final int index) {
+		return sizes[index];
+	}
+
+	/**
+	 * Returns the number of steps from the root of this tree to the
+	 * non-terminal at the given index.
+	 * 
+	 * @param index the preorder index of a non-terminal.
+	 * @return the distance of the non-terminal from the root.
+	 */
+	public int getLevel(final int index) {
+		return depths[index];
+	}
+
+	/**
+	 * Returns the depth of this tree, as defined by the <code>getDepth</code>
+	 * method of <code>NonTerminalSymbol</code>.
+	 * 
+	 * @return the depth of this parse tree.
+	 */
+	public int getDepth() {
+		if (depth == -1) {
+			depth = getDepth(0);
+		}
+
+		return depth;
+	}
+
+	/**
+	 * Returns the depth of the subtree rooted at the non-terminal at the given
+	 * index, as defined by the <code>getDepth</code> method of
+	 * <code>NonTerminalSymbol</code>.
+	 * 
+	 * @param index the preorder index of a non-terminal.
+	 * @return the depth of the subtree.
+	 */
+	public int getDepth(final int index) {
+		final int end = index + sizes[index];
+
+		int max = 0;
+		for (int i = index; i < end; i++) {
+			int d = depths[i] - depths[index];
+			if (hasLiterals(productions[i])) {
+				d++;
+			}
+			if (d > max) {
+				max = d;
+			}
+		}
+
+		return max;
+	}
+
+	/**
+	 * Returns a new tree made up of the subtree rooted at the non-terminal at
+	 * the given index.
+	 * 
+	 * @param index the preorder index of a non-terminal.
+	 * @return a copy of the subtree.
+	 */
+	public FlatParseTree getSubtree(final int index) {
+		final int size = sizes[index];
+		final int literalStart = literalOffsets[index];
+		final int literalEnd = getLiteralEnd(index);
+
+		final int[] newProductions = Arrays.copyOfRange(productions, index, index + size);
+		final int[] newSizes = Arrays.copyOfRange(sizes, index, index + size);
+		final short[] newDepths = new short[size];
+		final int[] newOffsets = new int[size];
+		for (int i = 0; i < size; i++) {
+			newDepths[i] = (short) (depths[index + i] - depths[index]);
+			newOffsets[i] = literalOffsets[index + i] - literalStart;
+		}
+		final String[] newLiterals = Arrays.copyOfRange(literals, literalStart, literalEnd);
+
+		return new FlatParseTree(grammar, newProductions, newSizes, newDepths, newOffsets, newLiterals);
+	}
+
+	/**
+	 * Returns a new tree which is a copy of this tree, with the subtree rooted
+	 * at the non-terminal at the given index replaced by the given tree. This
+	 * tree is not modified.
+	 * 
+	 * @param index the preorder index of the non-terminal to replace.
+	 * @param subtree the tree to insert, whose root must be of the same
+	 *        grammar rule as the non-terminal it replaces.
+	 * @return the tree with the subtree replaced.
+	 */
+	public FlatParseTree replaceSubtree(final int index, final FlatParseTree subtree) {
+		if (subtree.grammar != grammar) {
+			throw new IllegalArgumentException("subtree must be derived from the same grammar");
+		} else if (subtree.getGrammarRule(0) != getGrammarRule(index)) {
+			throw new IllegalArgumentException("subtree must be rooted at the same grammar rule");
+		}
+
+		final int oldSize = sizes[index];
+		final int newSize = subtree.productions.length;
+		final int end = index + oldSize;
+		final int tail = productions.length - end;
+		final int delta = newSize - oldSize;
+
+		final int literalStart = literalOffsets[index];
+		final int literalEnd = getLiteralEnd(index);
+		final int literalTail = literals.length - literalEnd;
+		final int literalDelta = subtree.literals.length - (literalEnd - literalStart);
+
+		final int length = productions.length + delta;
+		final int[] newProductions = new int[length];
+		final int[] newSizes = new int[length];
+		final short[] newDepths = new short[length];
+		final int[] newOffsets = new int[length];
+		final String[] newLiterals = new String[literals.length + literalDelta];
+
+		// The non-terminals before the subtree are unchanged.
+		System.arraycopy(productions, 0, newProductions, 0, index);
+		System.arraycopy(sizes, 0, newSizes, 0, index);
+		System.arraycopy(depths, 0, newDepths, 0, index);
+		System.arraycopy(literalOffsets, 0, newOffsets, 0, index);
+		System.arraycopy(literals, 0, newLiterals, 0, literalStart);
+
+		// Except that the ancestors of the subtree change size.
+		int i = 0;
+		while (i < index) {
+			if (i + sizes[i] > index) {
+				newSizes[i] += delta;
+				i++;
+			} else {
+				i += sizes[i];
+			}
+		}
+
+		// The subtree is moved down to the level of the one it replaces.
+		System.arraycopy(subtree.productions, 0, newProductions, index, newSize);
+		System.arraycopy(subtree.sizes, 0, newSizes, index, newSize);
+		for (int j = 0; j < newSize; j++) {
+			newDepths[index + j] = (short) (subtree.depths[j] + depths[index]);
+			newOffsets[index + j] = subtree.literalOffsets[j] + literalStart;
+		}
+		System.arraycopy(subtree.literals, 0, newLiterals, literalStart, subtree.literals.length);
+
+		// The non-terminals after the subtree are shifted along.
+		System.arraycopy(productions, end, newProductions, index + newSize, tail);
+		System.arraycopy(sizes, end, newSizes, index + newSize, tail);
+		System.arraycopy(depths, end, newDepths, index + newSize, tail);
+		for (int j = 0; j < tail; j++) {
+			newOffsets[index + newSize + j] = literalOffsets[end + j] + literalDelta;
+		}
+		System.arraycopy(literals, literalEnd, newLiterals, literalStart + subtree.literals.length, literalTail);
+
+		return new FlatParseTree(grammar, newProductions, newSizes, newDepths, newOffsets, newLiterals);
+	}
+
+	/**
+	 * Constructs a parse tree of <code>NonTerminalSymbol</code> and
+	 * <code>TerminalSymbol</code> objects that is equivalent to this tree.
+	 * Changes to the returned tree are not reflected in this tree.
+	 * 
+	 * @return the root of an equivalent parse tree of symbol objects.
+	 */
+	public NonTerminalSymbol toNonTerminalSymbol() {
+		return toNonTerminalSymbol(new int[2]);
+	}
+
+	/*
+	 * Recursive helper for toNonTerminalSymbol, where the cursor holds the
+	 * index of the next non-terminal and of the next generated literal.
+	 */
+	private NonTerminalSymbol toNonTerminalSymbol(final int[] cursor) {
+		final int index = cursor[0]++;
+		final GrammarProduction production = grammar.getProduction(productions[index]);
+		final NonTerminalSymbol symbol = new NonTerminalSymbol(grammar.getProductionRule(productions[index]));
+
+		for (final GrammarNode node: production.getGrammarNodes()) {
+			if (node instanceof GrammarRule) {
+				symbol.addChild(toNonTerminalSymbol(cursor));
+			} else if (((GrammarLiteral) node).isGenerated()) {
+				final GrammarLiteral literal = new GrammarLiteral("");
+				literal.setValue(literals[cursor[1]++]);
+				symbol.addChild(new TerminalSymbol(literal));
+			} else {
+				symbol.addChild(new TerminalSymbol((GrammarLiteral) node));
+			}
+		}
+
+		return symbol;
+	}
+
+	/**
+	 * Returns the source that this tree derives, which is the same as the
+	 * string representation of the equivalent tree of symbol objects.
+	 * 
+	 * @return a <code>String</code> representation of this object.
+	 */
+	@Override
+	public String toString() {
+		if (source == null) {
+			final StringBuilder buffer = new StringBuilder();
+			if (productions.length > 0) {
+				appendTo(buffer, new int[2]);
+			}
+			source = buffer.toString();
+		}
+
+		return source;
+	}
+
+	/**
+	 * Returns the source that the subtree rooted at the non-terminal with the
+	 * given index derives, which is the same as the string representation of
+	 * the equivalent symbol object.
+	 * 
+	 * @param index the preorder index of the non-terminal.
+	 * @return the source derived by the non-terminal.
+	 */
+	public String getSource(final int index) {
+		final StringBuilder buffer = new StringBuilder();
+		appendTo(buffer, new int[]{index, literalOffsets[index]});
+
+		return buffer.toString();
+	}
+
+	/*
+	 * Recursive helper for toString, where the cursor holds the index of the
+	 * next non-terminal and of the next generated literal.
+	 */
+	private void appendTo(final StringBuilder buffer, final int[] cursor) {
+		final GrammarProduction production = grammar.getProduction(productions[cursor[0]++]);
+
+		for (final GrammarNode node: production.getGrammarNodes()) {
+			if (node instanceof GrammarRule) {
+				appendTo(buffer, cursor);
+			} else if (((GrammarLiteral) node).isGenerated()) {
+				buffer.append(GrammarLiteral.escape(literals[cursor[1]++]));
+			} else {
+				buffer.append(node.toString());
+			}
+		}
+	}
+
+	/**
+	 * Returns the translation of this tree that was stored by the given
+	 * translator.
+	 * 
+	 * @param translator the object which translated the tree.
+	 * @return the stored translation, or <code>null</code> if there is none
+	 *         from that translator.
+	 * @see #setTranslation(Object, Object)
+	 */
+	public Object getTranslation(final Object translator) {
+		final Translation t = translation;
+
+		return (t == null) ? null : t.get(translator);
+	}
+
+	/**
+	 * Stores a translation of this tree into some other form, such as an
+	 * executable node tree, so that it need not be translated again. Only one
+	 * translation is held at a time.
+	 * 
+	 * @param translator the object which translated the tree.
+	 * @param translation the translation of the tree.
+	 */
+	public void setTranslation(final Object translator, final Object translation) {
+		this.translation = new Translation(translator, translation);
+	}
+
+	/**
+	 * Returns a hash code for this tree, which is consistent with
+	 * <code>equals</code>.
+	 * 
+	 * @return a hash code value for this object.
+	 */
+	@Override
+	public int hashCode() {
+		if (hash == 0) {
+			final int result = 31 * Arrays.hashCode(productions) + Arrays.hashCode(literals);
+			hash = (result == 0) ? 1 : result;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Tests the given object for equality with this tree. The objects are
+	 * equal if the argument is a <code>FlatParseTree</code> of the same
+	 * grammar, with the same productions and generated literal values.
+	 * 
+	 * @param obj the <code>Object</code> to test for equality.
+	 * @return <code>true</code> if the given object is equal to this tree and
+	 *         <code>false</code> otherwise.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj == this) {
+			return true;
+		} else if (!(obj instanceof FlatParseTree)) {
+			return false;
+		}
+
+		final FlatParseTree other = (FlatParseTree) obj;
+
+		return (grammar == other.grammar) && (hashCode() == other.hashCode())
+				&& Arrays.equals(productions, other.productions) && Arrays.equals(literals, other.literals);
+	}
+
+	/*
+	 * Returns the value of the generated literal at the given index, in source
+	 * order.
+	 */
+	String getLiteral(final int index) {
+		return literals[index];
+	}
+
+	/*
+	 * Returns the index after the last generated literal in the subtree rooted
+	 * at the given index.
+	 */
+	private int getLiteralEnd(final int index) {
+		final int end = index + sizes[index];
+
+		return (end < productions.length) ? literalOffsets[end] : literals.length;
+	}
+
+	/*
+	 * Tests whether the production has any literals, which add a level to the
+	 * depth of a tree.
+	 */
+	private boolean hasLiterals(final int production) {
+		for (final GrammarNode node: grammar.getProduction(production).getGrammarNodes()) {
+			if (node instanceof GrammarLiteral) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A <code>Builder</code> constructs a <code>FlatParseTree</code> in the
+	 * same order as a parse tree would be derived depth first. Each
+	 * non-terminal is started with the production it is resolved with, after
+	 * which the children of that production are added in order: non-terminals
+	 * by starting and ending them in turn and generated literals by adding
+	 * their values. Literals which do not stand for generated values are not
+	 * added.
+	 */
+	public static class Builder {
+
+		private final Grammar grammar;
+
+		private int[] productions;
+		private int[] sizes;
+		private short[] depths;
+		private int[] literalOffsets;
+		private String[] literals;
+
+		private int noNonTerminals;
+		private int noLiterals;
+
+		// The number of started non-terminals that have not been ended.
+		private int level;
+
+		/**
+		 * Constructs a <code>Builder</code> for a tree derived from the given
+		 * grammar.
+		 * 
+		 * @param grammar the grammar the tree is derived from.
+		 */
+		public Builder(final Grammar grammar) {
+			this.grammar = grammar;
+
+			productions = new int[16];
+			sizes = new int[16];
+			depths = new short[16];
+			literalOffsets = new int[16];
+			literals = new String[8];
+		}
+
+		/**
+		 * Starts a non-terminal resolved with the given production, as the
+		 * next child of the most recently started non-terminal that has not
+		 * yet been ended.
+		 * 
+		 * @param production the production the non-terminal is resolved with.
+		 * @return the preorder index of the new non-terminal, to be passed to
+		 *         <code>endNonTerminal</code>.
+		 */
+		public int startNonTerminal(final GrammarProduction production) {
+			final int number = grammar.getProductionNumber(production);
+			if (number == -1) {
+				throw new IllegalArgumentException("production is not numbered by the grammar");
+			} else if (level > Short.MAX_VALUE) {
+				throw new IllegalStateException("tree is too deep");
+			}
+
+			if (noNonTerminals == productions.length) {
+				final int capacity = noNonTerminals * 2;
+				productions = Arrays.copyOf(productions, capacity);
+				sizes = Arrays.copyOf(sizes, capacity);
+				depths = Arrays.copyOf(depths, capacity);
+				literalOffsets = Arrays.copyOf(literalOffsets, capacity);
+			}
+
+			productions[noNonTerminals] = number;
+			depths[noNonTerminals] = (short) level;
+			literalOffsets[noNonTerminals] = noLiterals;
+			level++;
+
+			return noNonTerminals++;
+		}
+
+		/**
+		 * Adds the value of a generated literal as the next child of the most
+		 * recently started non-terminal that has not yet been ended.
+		 * 
+		 * @param literal a literal holding the generated value.
+		 */
+		public void addLiteral(final GrammarLiteral literal) {
+			if (level == 0) {
+				throw new IllegalStateException("no non-terminal has been started");
+			}
+
+			if (noLiterals == literals.length) {
+				literals = Arrays.copyOf(literals, noLiterals * 2);
+			}
+
+			literals[noLiterals++] = literal.getValue();
+		}
+
+		/**
+		 * Ends the non-terminal at the given index, which must be the most
+		 * recently started non-terminal that has not yet been ended.
+		 * 
+		 * @param index the index returned when the non-terminal was started.
+		 */
+		public void endNonTerminal(final int index) {
+			if ((level == 0) || (depths[index] != level - 1)) {
+				throw new IllegalStateException("non-terminals must be ended in the reverse order they were started");
+			}
+
+			sizes[index] = noNonTerminals - index;
+			level--;
+		}
+
+		/**
+		 * Returns the tree that has been built. Every non-terminal must have
+		 * been ended.
+		 * 
+		 * @return the constructed tree.
+		 */
+		public FlatParseTree build() {
+			if (level != 0) {
+				throw new IllegalStateException("not all non-terminals have been ended");
+			}
+
+			return new FlatParseTree(grammar, Arrays.copyOf(productions, noNonTerminals), Arrays.copyOf(sizes,
+					noNonTerminals), Arrays.copyOf(depths, noNonTerminals), Arrays.copyOf(literalOffsets,
+					noNonTerminals), Arrays.copyOf(literals, noLiterals));
+		}
+	}
+}
@@ -66,11 +66,30 @@ import java.util.*;
  * </code></blockquote>
  * 
  * <p>
+ * Terminals of the form <code>NAME(arguments)</code>, where a
+ * <code>ConstantGenerator</code> has been registered under the name, are
+ * ephemeral random constants, such as <code>RANDFLOAT(0.0,1.0)</code>. Their
+ * arguments are parsed once, when the grammar is, and they are represented as
+ * <code>GrammarConstants</code>, which are replaced with generated values in
+ * each new parse tree.
+ * 
+ * <p>
  * Most of the features known as EBNF (extended BNF) are not currently
  * supported.
  */
 public class Grammar {
 
+	// The factories of constant generators, indexed by constant name.
+	private static final Map<String, ConstantGenerator.Factory> constantGenerators = new HashMap<String, ConstantGenerator.Factory>();
+
+	static {
+		constantGenerators.put("RANDFLOAT", RandomFloatGenerator.FACTORY);
+		constantGenerators.put("RANDINTEGER", RandomIntegerGenerator.getFactory(0));
+		for (int i = 0; i <= 6; i++) {
+			constantGenerators.put("RANDINT_TYPE" + i, RandomIntegerGenerator.getFactory(i));
+		}
+	}
+
 	// Index into the rulesets.
 	private final Map<String, GrammarLiteral> literals;
 	private final Map<String, GrammarRule> rules;
@@ -78,6 +97,11 @@ public class Grammar {
 	// The starting symbol - the root of the parse tree.
 	private GrammarRule start;
 
+	// The productions of all the rules, indexed by their production number.
+	private final List<GrammarProduction> productions;
+	private final List<GrammarRule> productionRules;
+	private final Map<GrammarProduction, Integer> productionNumbers;
+
 	/**
 	 * Constructs a <code>Grammar</code> with the given string as the BNF
 	 * grammar to be parsed.
@@ -90,8 +114,12 @@ public class Grammar {
 	public Grammar(final String grammarStr) {
 		literals = new HashMap<String, GrammarLiteral>();
 		rules = new HashMap<String, GrammarRule>();
+		productions = new ArrayList<GrammarProduction>();
+		productionRules = new ArrayList<GrammarRule>();
+		productionNumbers = new IdentityHashMap<GrammarProduction, Integer>();
 
 		parseGrammar(grammarStr);
+		numberProductions();
 	}
 
 	/**
@@ -109,8 +137,31 @@ public class Grammar {
 
 		literals = new HashMap<String, GrammarLiteral>();
 		rules = new HashMap<String, GrammarRule>();
+		productions = new ArrayList<GrammarProduction>();
+		productionRules = new ArrayList<GrammarRule>();
+		productionNumbers = new IdentityHashMap<GrammarProduction, Integer>();
 
 		parseGrammar(grammar);
+		numberProductions();
+	}
+
+	/**
+	 * Registers a factory of generators for the constants with the given name,
+	 * which are written in a grammar as <code>name(arguments)</code>. Only
+	 * grammars constructed afterwards are affected. Any factory previously
+	 * registered under the name, including a standard one, is replaced.
+	 * 
+	 * @param name the name of the constants.
+	 * @param factory the factory to create a generator for each constant.
+	 */
+	public static void registerConstantGenerator(final String name, final ConstantGenerator.Factory factory) {
+		if ((name == null) || (factory == null)) {
+			throw new IllegalArgumentException("name and factory must not be null");
+		}
+
+		synchronized (constantGenerators) {
+			constantGenerators.put(name, factory);
+		}
 	}
 
 	/**
@@ -316,12 +367,7 @@ public class Grammar {
 						if (buffer.length() != 0) {
 							final String symbolName = buffer.toString();
 							if (terminal) {
-								GrammarLiteral newSymbol = literals.get(symbolName);
-								if (newSymbol == null) {
-									newSymbol = new GrammarLiteral(symbolName);
-									literals.put(symbolName, newSymbol);
-								}
-								grammarProduction.addGrammarNode(newSymbol);
+								grammarProduction.addGrammarNode(getLiteral(symbolName));
 							} else {
 								/*
 								 * GrammarNode newSymbol =
@@ -403,12 +449,7 @@ public class Grammar {
 						} else if (buffer.length() != 0) {
 							// Token separator.
 							final String symbolName = buffer.toString();
-							GrammarLiteral newSymbol = literals.get(symbolName);
-							if (newSymbol == null) {
-								newSymbol = new GrammarLiteral(symbolName);
-								literals.put(symbolName, newSymbol);
-							}
-							grammarProduction.addGrammarNode(newSymbol);
+							grammarProduction.addGrammarNode(getLiteral(symbolName));
 							// Clear buffer.
 							buffer = new StringBuilder();
 						} else {
@@ -475,6 +516,11 @@ public class Grammar {
 				throw new MalformedGrammarException("Grammar rule " + rule.getName() + " is infinitely recursive");
 			}
 		}
+
+		// The min depths are all set, so the valid productions can be listed.
+		for (final GrammarRule rule: ruleList) {
+			rule.compileProductionTables();
+		}
 	}
 
 	/**
@@ -527,6 +573,77 @@ public class Grammar {
 		return ref;
 	}
 
+	/*
+	 * Returns the literal for the given terminal, creating it if this is its
+	 * first use. A terminal of the form name(arguments) where a constant
+	 * generator is registered under the name becomes a grammar constant.
+	 */
+	private GrammarLiteral getLiteral(final String symbolName) {
+		GrammarLiteral literal = literals.get(symbolName);
+		if (literal == null) {
+			final int open = symbolName.indexOf('(');
+			ConstantGenerator.Factory factory = null;
+			if ((open > 0) && symbolName.endsWith(")")) {
+				synchronized (constantGenerators) {
+					factory = constantGenerators.get(symbolName.substring(0, open));
+				}
+			}
+
+			if (factory == null) {
+				literal = new GrammarLiteral(symbolName);
+			} else {
+				final String[] arguments = symbolName.substring(open + 1, symbolName.length() - 1).split(",");
+				literal = new GrammarConstant(symbolName, factory.newGenerator(arguments));
+			}
+			literals.put(symbolName, literal);
+		}
+
+		return literal;
+	}
+
+	/*
+	 * Numbers the productions of every rule, breadth first from the start rule
+	 * so that the numbering only depends upon the grammar itself.
+	 */
+	private void numberProductions() {
+		// Visit the rules in the order they are reachable from the start rule.
+		final Set<GrammarRule> visited = new HashSet<GrammarRule>();
+		final Deque<GrammarRule> pending = new ArrayDeque<GrammarRule>();
+		pending.addLast(start);
+		visited.add(start);
+
+		final List<GrammarRule> ordered = new ArrayList<GrammarRule>();
+		while (!pending.isEmpty()) {
+			final GrammarRule rule = pending.removeFirst();
+			ordered.add(rule);
+
+			for (final GrammarProduction p: rule.getProductions()) {
+				for (final GrammarNode node: p.getGrammarNodes()) {
+					if ((node instanceof GrammarRule) && visited.add((GrammarRule) node)) {
+						pending.addLast((GrammarRule) node);
+					}
+				}
+			}
+		}
+
+		// Then any unreachable rules, in name order.
+		final List<String> names = new ArrayList<String>(rules.keySet());
+		Collections.sort(names);
+		for (final String name: names) {
+			if (visited.add(rules.get(name))) {
+				ordered.add(rules.get(name));
+			}
+		}
+
+		for (final GrammarRule rule: ordered) {
+			for (final GrammarProduction p: rule.getProductions()) {
+				productionNumbers.put(p, productions.size());
+				productions.add(p);
+				productionRules.add(rule);
+			}
+		}
+	}
+
 	/*
 	 * Iterates through the grammar and searches for cases of recursiveness and
 	 * sets symbol's recursive flag accordingly. A rule is recursive if any of
@@ -680,6 +797,54 @@ public class Grammar {
 		return rules.get(name);
 	}
 
+	/**
+	 * Returns the number of productions of all the rules in this grammar.
+	 * Each production is given a number from <code>0</code> to one less than
+	 * this value when the grammar is constructed, so that parse trees may
+	 * refer to productions compactly. Productions added to the rules of this
+	 * grammar afterwards are not numbered.
+	 * 
+	 * @return the number of productions in this grammar.
+	 */
+	public int getNoProductions() {
+		return productions.size();
+	}
+
+	/**
+	 * Returns the production with the given production number.
+	 * 
+	 * @param productionNumber the number of the production to return.
+	 * @return the <code>GrammarProduction</code> with the given number.
+	 */
+	public GrammarProduction getProduction(final int productionNumber) {
+		return productions.get(productionNumber);
+	}
+
+	/**
+	 * Returns the rule that the production with the given production number
+	 * belongs to.
+	 * 
+	 * @param productionNumber the number of a production.
+	 * @return the <code>GrammarRule</code> which has the production as one of
+	 *         its options.
+	 */
+	public GrammarRule getProductionRule(final int productionNumber) {
+		return productionRules.get(productionNumber);
+	}
+
+	/**
+	 * Returns the number of the given production.
+	 * 
+	 * @param production a production of one of the rules in this grammar.
+	 * @return the production number of the given production, or
+	 *         <code>-1</code> if it is not numbered in this grammar.
+	 */
+	public int getProductionNumber(final GrammarProduction production) {
+		final Integer number = productionNumbers.get(production);
+
+		return (number == null) ? -1 : number;
+	}
+
 	/**
 	 * Returns the minimum depth of this grammr. The minimum depth of a grammar
 	 * is equal to the minimum depth of its start symbol, which is the minimum
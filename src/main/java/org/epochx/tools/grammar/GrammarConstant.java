@@ -0,0 +1,88 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * A <code>GrammarConstant</code> is a grammar literal which stands for an
+ * ephemeral random constant, such as <code>RANDFLOAT(0.0,1.0)</code>, rather
+ * than for its own value. It holds the generator created for it when the
+ * grammar was parsed, and wherever it is used in a new parse tree it is
+ * replaced by a literal with a value from that generator.
+ * 
+ * @see ConstantGenerator
+ */
+public class GrammarConstant extends GrammarLiteral {
+
+	// Supplies the values that this constant is replaced by.
+	private final ConstantGenerator generator;
+
+	/**
+	 * Constructs a grammar constant with the specified value and generator.
+	 * 
+	 * @param value the constant as written in the grammar.
+	 * @param generator the generator of values for the constant.
+	 */
+	public GrammarConstant(final String value, final ConstantGenerator generator) {
+		super(value);
+
+		if (generator == null) {
+			throw new IllegalArgumentException("generator must not be null");
+		}
+
+		this.generator = generator;
+	}
+
+	/**
+	 * Returns the generator of values for this constant.
+	 * 
+	 * @return this constant's generator.
+	 */
+	public ConstantGenerator getGenerator() {
+		return generator;
+	}
+
+	/**
+	 * Returns a new grammar literal with a value from this constant's
+	 * generator.
+	 * 
+	 * @param rng the random number generator to use.
+	 * @param noLabels the number of labels of the dataset.
+	 * @param noAttributes the number of attributes of the dataset.
+	 * @return a literal to use in place of this constant.
+	 */
+	public GrammarLiteral generate(final RandomNumberGenerator rng, final int noLabels, final int noAttributes) {
+		return new GrammarLiteral(generator.generate(rng, noLabels, noAttributes));
+	}
+
+	/**
+	 * Returns <code>true</code>, since a constant is always replaced with a
+	 * generated value.
+	 * 
+	 * @return true.
+	 */
+	@Override
+	public boolean isGenerated() {
+		return true;
+	}
+}
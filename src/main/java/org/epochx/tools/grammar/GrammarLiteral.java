@@ -63,6 +63,19 @@ public class GrammarLiteral implements GrammarNode {
 		this.value = value;
 	}
 
+	/**
+	 * Returns whether this grammar literal stands for a value that is randomly
+	 * generated when a parse tree is constructed, such as
+	 * <code>RANDINT_TYPE0(1,10)</code>, rather than for its own value.
+	 * 
+	 * @return true if the initialisers replace this literal with a generated
+	 *         value, false otherwise.
+	 * @see GrammarConstant
+	 */
+	public boolean isGenerated() {
+		return false;
+	}
+
 	/**
 	 * Returns a <code>String</code> representation of this grammar literal.
 	 * 
@@ -78,7 +91,7 @@ public class GrammarLiteral implements GrammarNode {
 	 * wrapped in quotes and returned. Otherwise the original string is
 	 * returned unmodified.
 	 */
-	private String escape(String input) {
+	static String escape(String input) {
 		final char[] escapeChars = {'>', '<', '|'};
 		if (StringUtils.containsAny(input, escapeChars)) {
 			final StringBuilder buffer = new StringBuilder();
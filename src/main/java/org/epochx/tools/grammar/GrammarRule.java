@@ -31,6 +31,9 @@ import java.util.*;
  */
 public class GrammarRule implements GrammarNode, Cloneable {
 
+	// Returned when there are no valid productions.
+	private static final int[] NO_PRODUCTIONS = new int[0];
+
 	// The available options this rule may resolve to.
 	private final List<GrammarProduction> productions;
 
@@ -43,6 +46,11 @@ public class GrammarRule implements GrammarNode, Cloneable {
 	// The minimum depth required for this rule to be fully resolved.
 	private int minDepth;
 
+	// The indexes of the productions that are valid within each depth, and
+	// of those which are recursive, or null if not yet calculated.
+	private int[][] validProductions;
+	private int[][] validRecursiveProductions;
+
 	/**
 	 * Constructs a <code>GrammarRule</code> with the specified name label and
 	 * the production choices.
@@ -84,6 +92,8 @@ public class GrammarRule implements GrammarNode, Cloneable {
 	 */
 	public void addProduction(final GrammarProduction production) {
 		productions.add(production);
+
+		clearProductionTables();
 	}
 
 	/**
@@ -98,6 +108,8 @@ public class GrammarRule implements GrammarNode, Cloneable {
 	 */
 	public void addProduction(final int index, final GrammarProduction production) {
 		productions.add(index, production);
+
+		clearProductionTables();
 	}
 
 	/**
@@ -111,6 +123,8 @@ public class GrammarRule implements GrammarNode, Cloneable {
 	 */
 	public void setProduction(final int index, final GrammarProduction production) {
 		productions.set(index, production);
+
+		clearProductionTables();
 	}
 
 	/**
@@ -181,6 +195,8 @@ public class GrammarRule implements GrammarNode, Cloneable {
 	 */
 	public void setRecursive(final boolean recursive) {
 		this.recursive = recursive;
+
+		clearProductionTables();
 	}
 
 	/**
@@ -200,6 +216,119 @@ public class GrammarRule implements GrammarNode, Cloneable {
 	 */
 	public void setMinDepth(final int minDepth) {
 		this.minDepth = minDepth;
+
+		clearProductionTables();
+	}
+
+	/**
+	 * Returns the indexes of this rule's productions which may be fully
+	 * resolved within the given depth, in ascending order. The indexes are
+	 * calculated for every depth when first requested, so the same array is
+	 * returned on every call for a depth, and it must not be modified.
+	 * 
+	 * @param maxDepth the maximum depth available below this rule.
+	 * @return the indexes of the productions with a minimum depth no greater
+	 *         than <code>maxDepth</code>.
+	 */
+	public int[] getValidProductionIndexes(final int maxDepth) {
+		if (validProductions == null) {
+			compileProductionTables();
+		}
+
+		return getTable(validProductions, maxDepth);
+	}
+
+	/**
+	 * Returns the indexes of this rule's recursive productions which may be
+	 * fully resolved within the given depth, in ascending order. The indexes
+	 * are calculated for every depth when first requested, so the same array
+	 * is returned on every call for a depth, and it must not be modified.
+	 * 
+	 * @param maxDepth the maximum depth available below this rule.
+	 * @return the indexes of the recursive productions with a minimum depth no
+	 *         greater than <code>maxDepth</code>.
+	 */
+	public int[] getValidRecursiveProductionIndexes(final int maxDepth) {
+		if (validRecursiveProductions == null) {
+			compileProductionTables();
+		}
+
+		return getTable(validRecursiveProductions, maxDepth);
+	}
+
+	/*
+	 * Returns the entry of the table for the given depth. Every production is
+	 * valid beyond the end of the table, and none at a negative depth.
+	 */
+	private static int[] getTable(final int[][] table, final int maxDepth) {
+		if (maxDepth < 0) {
+			return NO_PRODUCTIONS;
+		}
+
+		return table[Math.min(maxDepth, table.length - 1)];
+	}
+
+	/**
+	 * Calculates the tables of valid productions for every depth up to that
+	 * at which all of the productions are valid. This is performed by the
+	 * grammar once the minimum depths of its rules are known, and again if
+	 * the rule is later modified.
+	 */
+	void compileProductionTables() {
+		final int noProductions = productions.size();
+
+		final int[] minDepths = new int[noProductions];
+		final boolean[] recursives = new boolean[noProductions];
+		int maxMinDepth = 0;
+		for (int i = 0; i < noProductions; i++) {
+			final GrammarProduction p = productions.get(i);
+			minDepths[i] = p.getMinDepth();
+			recursives[i] = p.isRecursive();
+
+			if (minDepths[i] > maxMinDepth) {
+				maxMinDepth = minDepths[i];
+			}
+		}
+
+		final int[][] all = new int[maxMinDepth + 1][];
+		final int[][] recursive = new int[maxMinDepth + 1][];
+		for (int d = 0; d <= maxMinDepth; d++) {
+			int noValid = 0;
+			int noRecursive = 0;
+			for (int i = 0; i < noProductions; i++) {
+				if (minDepths[i] <= d) {
+					noValid++;
+					if (recursives[i]) {
+						noRecursive++;
+					}
+				}
+			}
+
+			all[d] = new int[noValid];
+			recursive[d] = new int[noRecursive];
+			noValid = 0;
+			noRecursive = 0;
+			for (int i = 0; i < noProductions; i++) {
+				if (minDepths[i] <= d) {
+					all[d][noValid++] = i;
+					if (recursives[i]) {
+						recursive[d][noRecursive++] = i;
+					}
+				}
+			}
+		}
+
+		validProductions = all;
+		validRecursiveProductions = recursive;
+	}
+
+	/*
+	 * Discards the tables of valid productions, which are recalculated when
+	 * next requested.
+	 */
+	private void clearProductionTables() {
+		validProductions = null;
+		validRecursiveProductions = null;
 	}
 
 	/**
@@ -217,6 +346,7 @@ public class GrammarRule implements GrammarNode, Cloneable {
 		clone.name = name;
 		clone.recursive = recursive;
 		clone.minDepth = minDepth;
+		clone.clearProductionTables();
 
 		// Clone the grammar productions (but this will not clone their rules).
 		for (final GrammarProduction p: productions) {
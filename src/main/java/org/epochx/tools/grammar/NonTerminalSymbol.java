@@ -32,8 +32,45 @@ import org.apache.commons.lang.ObjectUtils;
  * <code>Symbol</code> objects that the non-terminal resolves to, as supported
  * by the grammar rule.
  * 
+ * <p>
+ * Each non-terminal keeps a reference to the non-terminal it is a child of, so
+ * that its rendered source, hash code, depth and numbers of symbols can be
+ * cached and only discarded, along with those of its ancestors, when the tree
+ * below it is changed through one of its mutating methods. They are then
+ * recalculated on request from the cached values of the unchanged subtrees.
+ * The indexes of the non-terminals with each grammar rule are also cached, for
+ * the symbols they are requested from, so that operators may repeatedly choose
+ * amongst the non-terminals of a program without traversing its tree. Changes
+ * made directly to the list returned by <code>getChildren()</code> are not
+ * detected, so <code>invalidate()</code> must be called after making them.
+ * 
+ * <p>
+ * Parse trees share structure rather than being copied in full. Cloning a
+ * non-terminal only copies the symbol itself, and its children become shared
+ * between the original and the copy. A shared non-terminal, or any symbol
+ * below one, must not be modified, and its mutating methods throw an
+ * <code>IllegalStateException</code>. Instead, <code>setNthSymbol</code> and
+ * <code>removeNthNonTerminal</code> copy each shared non-terminal on the path
+ * from this symbol down to the one that changes, and leave the rest of the
+ * tree shared. Cloning a tree is therefore proportional to the number of
+ * children of its root, and changing it to the depth of the change. The
+ * shared status is not tracked through the list returned by
+ * <code>getChildren()</code>, which must not be modified if
+ * <code>isShared()</code> is true. A <code>ParseTreeCursor</code> may be used
+ * to find and replace a symbol with a single descent of the tree.
+ * 
+ * <p>
+ * Since shared subtrees are in more than one program, they may be read by
+ * several threads at once, such as when programs are evaluated in parallel
+ * while others are bred from them. The cached values are calculated from the
+ * unchanging subtree, and each is published as a whole, so any number of
+ * threads may read a tree which is not being modified. A tree must not be
+ * modified while another thread reads it, which the path copying ensures for
+ * the trees of other programs.
+ * 
  * @see TerminalSymbol
  * @see GrammarRule
+ * @see ParseTreeCursor
  */
 public class NonTerminalSymbol implements Symbol {
 
@@ -43,6 +80,28 @@ public class NonTerminalSymbol implements Symbol {
 	// The associated grammar node.
 	private GrammarRule grammarRule;
 
+	// The non-terminal this symbol is a child of, or null if it is a root.
+	private NonTerminalSymbol parent;
+
+	// Whether this symbol may be in more than one parse tree.
+	private boolean shared;
+
+	// The cached source and hash code, or null and 0 if not yet calculated.
+	private String source;
+	private int hash;
+
+	// The cached depth and sizes of the tree, or -1 if not yet calculated.
+	private int depth;
+	private int noSymbols;
+	private int noNonTerminals;
+
+	// The cached indexes of the non-terminals, or null if not yet
+	// calculated.
+	private volatile NonTerminalIndex nonTerminalIndex;
+
+	// The cached translation of the tree, or null if there is none.
+	private volatile Translation translation;
+
 	/**
 	 * Constructs a <code>NonTerminalSymbol</code> for the given
 	 * <code>GrammarRule</code>.
@@ -68,6 +127,14 @@ public class NonTerminalSymbol implements Symbol {
 	public NonTerminalSymbol(final GrammarRule grammarRule, final List<Symbol> children) {
 		this.grammarRule = grammarRule;
 		this.children = children;
+
+		depth = -1;
+		noSymbols = -1;
+		noNonTerminals = -1;
+
+		for (final Symbol child: children) {
+			adopt(child);
+		}
 	}
 
 	/**
@@ -76,10 +143,16 @@ public class NonTerminalSymbol implements Symbol {
 	 * 
 	 * @param index the index of the <code>Symbol</code> to change.
 	 * @param child the <code>Symbol</code> to set at the specified index.
+	 * @throws IllegalStateException if this symbol is shared.
 	 */
 	public void setChild(final int index, final Symbol child) {
+		checkUnshared();
+
 		// Make the change.
-		children.set(index, child);
+		orphan(children.set(index, child));
+		adopt(child);
+
+		invalidate();
 	}
 
 	/**
@@ -96,10 +169,16 @@ public class NonTerminalSymbol implements Symbol {
 	 * Appends the given <code>Symbol</code> to the list of child nodes.
 	 * 
 	 * @param child the <code>Symbol</code> instance to append.
+	 * @throws IllegalStateException if this symbol is shared.
 	 */
 	public void addChild(final Symbol child) {
+		checkUnshared();
+
 		// Make the change.
 		children.add(child);
+		adopt(child);
+
+		invalidate();
 	}
 
 	/**
@@ -107,11 +186,19 @@ public class NonTerminalSymbol implements Symbol {
 	 * 
 	 * @return a <code>List</code> of the child <code>Symbol</code> instances
 	 *         that were removed.
+	 * @throws IllegalStateException if this symbol is shared.
 	 */
 	public List<Symbol> removeChildren() {
+		checkUnshared();
+
 		// Make the change.
+		for (final Symbol child: children) {
+			orphan(child);
+		}
 		children.clear();
 
+		invalidate();
+
 		return children;
 	}
 
@@ -120,15 +207,25 @@ public class NonTerminalSymbol implements Symbol {
 	 * 
 	 * @param index the index of the <code>Symbol</code> to remove.
 	 * @return the <code>Symbol</code> instance that was removed.
+	 * @throws IllegalStateException if this symbol is shared.
 	 */
 	public Symbol removeChild(final int index) {
-		return children.remove(index);
+		checkUnshared();
+
+		final Symbol child = children.remove(index);
+		orphan(child);
+
+		invalidate();
+
+		return child;
 	}
 
 	/**
 	 * Returns a reference to the underlying <code>List</code> of child
 	 * <code>Symbol</code> instances for this non-terminal. Any changes to the
-	 * returned list will be reflected in this symbol.
+	 * returned list will be reflected in this symbol, but
+	 * <code>invalidate()</code> must then be called to discard the cached
+	 * source, hash code, depth and sizes.
 	 * 
 	 * @return a <code>List</code> of the child <code>Symbol</code> instances.
 	 */
@@ -142,10 +239,150 @@ public class NonTerminalSymbol implements Symbol {
 	 * 
 	 * @param newChildren the <code>List</code> of child <code>Symbol</code>
 	 *        instances to set.
+	 * @throws IllegalStateException if this symbol is shared.
 	 */
 	public void setChildren(final List<Symbol> newChildren) {
+		checkUnshared();
+
 		// Make the change.
+		for (final Symbol child: children) {
+			orphan(child);
+		}
 		children = newChildren;
+		for (final Symbol child: children) {
+			adopt(child);
+		}
+
+		invalidate();
+	}
+
+	/**
+	 * Returns the non-terminal symbol that this symbol is a child of.
+	 * 
+	 * @return the parent of this symbol, or <code>null</code> if it is the root
+	 *         of its parse tree.
+	 */
+	public NonTerminalSymbol getParent() {
+		return parent;
+	}
+
+	/**
+	 * Returns whether this symbol may be in more than one parse tree, because
+	 * it or one of its ancestors is shared. Shared symbols must not be
+	 * modified.
+	 * 
+	 * @return true if this symbol is shared, false otherwise.
+	 */
+	public boolean isShared() {
+		for (NonTerminalSymbol nt = this; nt != null; nt = nt.parent) {
+			if (nt.shared) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Discards the cached source, hash code, depth and sizes of this symbol
+	 * and of all its ancestors. This is called automatically by the methods
+	 * which modify the children of a non-terminal, but must be called after
+	 * the list returned by <code>getChildren()</code> is modified directly.
+	 */
+	public void invalidate() {
+		for (NonTerminalSymbol nt = this; nt != null; nt = nt.parent) {
+			nt.source = null;
+			nt.hash = 0;
+			nt.depth = -1;
+			nt.noSymbols = -1;
+			nt.noNonTerminals = -1;
+			nt.nonTerminalIndex = null;
+			nt.translation = null;
+		}
+	}
+
+	/**
+	 * Returns the translation of the tree rooted at this symbol that was
+	 * stored by the given translator, if the tree has not been modified since.
+	 * Since a shared subtree cannot be modified, its translation is reused by
+	 * every tree that it is in.
+	 * 
+	 * @param translator the object which translated the tree.
+	 * @return the stored translation, or <code>null</code> if there is none
+	 *         from that translator.
+	 * @see #setTranslation(Object, Object)
+	 */
+	public Object getTranslation(final Object translator) {
+		final Translation t = translation;
+
+		return (t == null) ? null : t.get(translator);
+	}
+
+	/**
+	 * Stores a translation of the tree rooted at this symbol into some other
+	 * form, such as an executable node tree, so that it need not be
+	 * translated again. Only one translation is held at a time, and it is
+	 * discarded when the tree is modified.
+	 * 
+	 * @param translator the object which translated the tree.
+	 * @param translation the translation of the tree.
+	 */
+	public void setTranslation(final Object translator, final Object translation) {
+		this.translation = new Translation(translator, translation);
+	}
+
+	/*
+	 * Makes this symbol the parent of the given child. A child that already
+	 * has another parent is then in two places, so becomes shared.
+	 */
+	private void adopt(final Symbol child) {
+		if (child instanceof NonTerminalSymbol) {
+			final NonTerminalSymbol nt = (NonTerminalSymbol) child;
+			if (nt.parent == null) {
+				nt.parent = this;
+			} else if (nt.parent != this) {
+				nt.shared = true;
+			}
+		}
+	}
+
+	/*
+	 * Detaches the given child from this symbol, if this is its parent and it
+	 * is not also in another tree.
+	 */
+	private void orphan(final Symbol child) {
+		if (child instanceof NonTerminalSymbol) {
+			final NonTerminalSymbol nt = (NonTerminalSymbol) child;
+			if ((nt.parent == this) && !nt.shared) {
+				nt.parent = null;
+			}
+		}
+	}
+
+	/*
+	 * Throws an exception if this symbol must not be modified.
+	 */
+	private void checkUnshared() {
+		if (isShared()) {
+			throw new IllegalStateException("shared non-terminal symbols must not be modified");
+		}
+	}
+
+	/*
+	 * Returns the non-terminal child at the given index, first replacing it
+	 * with a copy if it is shared, so that it may be modified. This symbol
+	 * must not itself be shared.
+	 */
+	NonTerminalSymbol getUnsharedChild(final int index) {
+		final NonTerminalSymbol child = (NonTerminalSymbol) children.get(index);
+		if (!child.shared && (child.parent == this)) {
+			return child;
+		}
+
+		final NonTerminalSymbol copy = child.clone();
+		copy.parent = this;
+		children.set(index, copy);
+
+		return copy;
 	}
 
 	/**
@@ -158,14 +395,18 @@ public class NonTerminalSymbol implements Symbol {
 	 *         at this <code>Symbol</code>, inclusive of this symbol.
 	 */
 	public int getNoNonTerminalSymbols() {
-		// Start by adding self.
-		int noNonTerminals = 1;
-
-		// Count all the non-terminals below each child.
-		for (final Symbol child: children) {
-			if (child instanceof NonTerminalSymbol) {
-				noNonTerminals += ((NonTerminalSymbol) child).getNoNonTerminalSymbols();
+		if (noNonTerminals == -1) {
+			// Start by adding self.
+			int count = 1;
+
+			// Count all the non-terminals below each child.
+			for (final Symbol child: children) {
+				if (child instanceof NonTerminalSymbol) {
+					count += ((NonTerminalSymbol) child).getNoNonTerminalSymbols();
+				}
 			}
+
+			noNonTerminals = count;
 		}
 
 		assert (noNonTerminals >= 1);
@@ -218,18 +459,7 @@ public class NonTerminalSymbol implements Symbol {
 	 *         in this parse tree.
 	 */
 	public int getNoTerminalSymbols() {
-		int noTerminals = 0;
-
-		// Count all the terminals below each child.
-		for (final Symbol child: children) {
-			if (child instanceof TerminalSymbol) {
-				noTerminals++;
-			} else if (child instanceof NonTerminalSymbol) {
-				noTerminals += ((NonTerminalSymbol) child).getNoTerminalSymbols();
-			}
-		}
-
-		return noTerminals;
+		return getNoSymbols() - getNoNonTerminalSymbols();
 	}
 
 	/**
@@ -243,16 +473,20 @@ public class NonTerminalSymbol implements Symbol {
 	 *         at this <code>Symbol</code>.
 	 */
 	public int getNoSymbols() {
-		// Start by adding self.
-		int noSymbols = 1;
-
-		// Count all the symbols below each child.
-		for (final Symbol child: children) {
-			if (child instanceof TerminalSymbol) {
-				noSymbols++;
-			} else if (child instanceof NonTerminalSymbol) {
-				noSymbols += ((NonTerminalSymbol) child).getNoSymbols();
+		if (noSymbols == -1) {
+			// Start by adding self.
+			int count = 1;
+
+			// Count all the symbols below each child.
+			for (final Symbol child: children) {
+				if (child instanceof TerminalSymbol) {
+					count++;
+				} else if (child instanceof NonTerminalSymbol) {
+					count += ((NonTerminalSymbol) child).getNoSymbols();
+				}
 			}
+
+			noSymbols = count;
 		}
 
 		return noSymbols;
@@ -283,6 +517,8 @@ public class NonTerminalSymbol implements Symbol {
 	 *         <code>null</code> if none were removed.
 	 */
 	public NonTerminalSymbol removeNthNonTerminal(final int n) {
+		checkUnshared();
+
 		return removeNthNonTerminal(n, 0, null);
 	}
 
@@ -304,15 +540,16 @@ public class NonTerminalSymbol implements Symbol {
 				if (valid && (n == current + 1)) {
 					// It is this child.
 					return (NonTerminalSymbol) removeChild(i);
-				} else {
-					final NonTerminalSymbol nth = nt.removeNthNonTerminal(n, (valid ? current + 1 : current), rule);
+				}
 
-					if (nth != null) {
-						return nth;
-					}
+				final int noNonTerminals = nt.getNoNonTerminalSymbols(rule);
 
-					current += nt.getNoNonTerminalSymbols(rule);
+				// Only copy and look in the subtree if it contains the nth.
+				if (n <= current + noNonTerminals) {
+					return getUnsharedChild(i).removeNthNonTerminal(n, (valid ? current + 1 : current), rule);
 				}
+
+				current += noNonTerminals;
 			}
 		}
 
@@ -338,6 +575,8 @@ public class NonTerminalSymbol implements Symbol {
 	 *         <code>null</code> if none were removed.
 	 */
 	public NonTerminalSymbol removeNthNonTerminal(final int n, final GrammarRule grammarRule) {
+		checkUnshared();
+
 		return removeNthNonTerminal(n, 0, grammarRule);
 	}
 
@@ -367,13 +606,14 @@ public class NonTerminalSymbol implements Symbol {
 			if (child instanceof NonTerminalSymbol) {
 				final NonTerminalSymbol nt = (NonTerminalSymbol) child;
 
-				final NonTerminalSymbol nth = nt.getNthNonTerminal(n, current + 1);
+				final int noChildNonTerminals = nt.getNoNonTerminalSymbols();
 
-				if (nth != null) {
-					return nth;
+				// Only look in the subtree if it contains the nth.
+				if (n <= current + noChildNonTerminals) {
+					return nt.getNthNonTerminal(n, current + 1);
 				}
 
-				current += nt.getNoNonTerminalSymbols();
+				current += noChildNonTerminals;
 			}
 		}
 
@@ -421,13 +661,14 @@ public class NonTerminalSymbol implements Symbol {
 			if (child instanceof NonTerminalSymbol) {
 				final NonTerminalSymbol nt = (NonTerminalSymbol) child;
 
-				final Symbol nth = nt.getNthSymbol(n, current + 1);
+				final int noChildSymbols = nt.getNoSymbols();
 
-				if (nth != null) {
-					return nth;
+				// Only look in the subtree if it contains the nth.
+				if (n <= current + noChildSymbols) {
+					return nt.getNthSymbol(n, current + 1);
 				}
 
-				current += nt.getNoSymbols();
+				current += noChildSymbols;
 			} else {
 				if (n == ++current) {
 					return child;
@@ -453,6 +694,8 @@ public class NonTerminalSymbol implements Symbol {
 	 *        position.
 	 */
 	public void setNthSymbol(final int n, final Symbol newSymbol) {
+		checkUnshared();
+
 		setNthSymbol(n, newSymbol, 0);
 	}
 
@@ -474,7 +717,8 @@ public class NonTerminalSymbol implements Symbol {
 				// Only look at the subtree if it contains the right range of
 				// nodes.
 				if (n <= current + noChildSymbols) {
-					child.setNthSymbol(n, symbol, current + 1);
+					getUnsharedChild(i).setNthSymbol(n, symbol, current + 1);
+					break;
 				}
 
 				current += noChildSymbols;
@@ -518,30 +762,119 @@ public class NonTerminalSymbol implements Symbol {
 	 *         this symbol.
 	 */
 	public List<Integer> getNonTerminalIndexes() {
-		return getNonTerminalIndexes(0);
+		final int[] indexes = getNonTerminalIndex().all;
+
+		final List<Integer> nonTerminals = new ArrayList<Integer>(indexes.length);
+		for (final int index: indexes) {
+			nonTerminals.add(index);
+		}
+
+		return nonTerminals;
+	}
+
+	/**
+	 * Returns the index amongst all the symbols in the parse tree rooted at
+	 * this symbol of the nth non-terminal symbol. Both are counted in a
+	 * pre-order traversal from zero for this symbol. The indexes are cached
+	 * until the parse tree is modified, so repeated calls take constant time.
+	 * 
+	 * @param n the index of the non-terminal amongst the non-terminals.
+	 * @return the index of the nth non-terminal amongst all the symbols, as
+	 *         used by <code>getNthSymbol</code> and <code>setNthSymbol</code>.
+	 */
+	public int getNthNonTerminalIndex(final int n) {
+		return getNonTerminalIndex().all[n];
+	}
+
+	/**
+	 * Returns the indexes of all the non-terminal symbols in the parse tree
+	 * rooted at this symbol which have the given grammar rule, in the order of
+	 * a pre-order traversal. The indexes are amongst all the symbols, as used
+	 * by <code>getNthSymbol</code> and <code>setNthSymbol</code>. They are
+	 * cached until the parse tree is modified, so repeated calls take constant
+	 * time, and the returned array must not be modified.
+	 * 
+	 * @param rule the grammar rule of the non-terminals.
+	 * @return an array of the indexes of the non-terminals with the grammar
+	 *         rule, which is empty if there are none.
+	 */
+	public int[] getNonTerminalIndexes(final GrammarRule rule) {
+		final int[] indexes = getNonTerminalIndex().byRule.get(rule);
+
+		return (indexes == null) ? new int[0] : indexes;
+	}
+
+	/*
+	 * Returns the cached indexes of the non-terminals, calculating them if
+	 * necessary.
+	 */
+	private NonTerminalIndex getNonTerminalIndex() {
+		NonTerminalIndex index = nonTerminalIndex;
+		if (index == null) {
+			index = indexNonTerminals();
+			nonTerminalIndex = index;
+		}
+
+		return index;
 	}
 
 	/*
-	 * Recursive helper method for the getNonTerminalIndexes method.
+	 * Calculates the indexes of all the non-terminals in the parse tree and
+	 * groups them by grammar rule.
 	 */
-	private List<Integer> getNonTerminalIndexes(int index) {
-		final List<Integer> nonTerminals = new ArrayList<Integer>();
+	private NonTerminalIndex indexNonTerminals() {
+		final int noNonTerminals = getNoNonTerminalSymbols();
+		final int[] indexes = new int[noNonTerminals];
+		final GrammarRule[] rules = new GrammarRule[noNonTerminals];
+
+		indexNonTerminals(indexes, rules, 0, 0);
+
+		// Count the non-terminals with each rule.
+		final Map<GrammarRule, int[]> counts = new IdentityHashMap<GrammarRule, int[]>();
+		for (final GrammarRule rule: rules) {
+			final int[] count = counts.get(rule);
+			if (count == null) {
+				counts.put(rule, new int[]{1});
+			} else {
+				count[0]++;
+			}
+		}
+
+		final Map<GrammarRule, int[]> byRule = new IdentityHashMap<GrammarRule, int[]>();
+		for (final Map.Entry<GrammarRule, int[]> e: counts.entrySet()) {
+			byRule.put(e.getKey(), new int[e.getValue()[0]]);
+			e.getValue()[0] = 0;
+		}
+		for (int i = 0; i < noNonTerminals; i++) {
+			final int[] count = counts.get(rules[i]);
+			byRule.get(rules[i])[count[0]++] = indexes[i];
+		}
+
+		return new NonTerminalIndex(indexes, byRule);
+	}
 
+	/*
+	 * Recursive helper method for the indexNonTerminals method. Returns the
+	 * position to record the next non-terminal at.
+	 */
+	private int indexNonTerminals(final int[] indexes, final GrammarRule[] rules, int next, int index) {
 		// Start by adding self.
-		nonTerminals.add(index);
+		indexes[next] = index;
+		rules[next] = grammarRule;
+		next++;
 
 		// Add all the non-terminals below each child.
 		for (final Symbol child: children) {
 			if (child instanceof NonTerminalSymbol) {
 				final NonTerminalSymbol nt = (NonTerminalSymbol) child;
-				nonTerminals.addAll(nt.getNonTerminalIndexes(index + 1));
+				next = nt.indexNonTerminals(indexes, rules, next, index + 1);
 				index += nt.getNoSymbols();
 			} else {
 				index++;
 			}
 		}
 
-		return nonTerminals;
+		return next;
 	}
 
 	/**
@@ -609,44 +942,125 @@ public class NonTerminalSymbol implements Symbol {
 	 * @return the depth of the parse tree rooted at this symbol.
 	 */
 	public int getDepth() {
-		int maxChildDepth = 0;
+		if (depth == -1) {
+			int maxChildDepth = 0;
 
+			for (final Symbol child: children) {
+				int childDepth;
+				if (child instanceof NonTerminalSymbol) {
+					childDepth = ((NonTerminalSymbol) child).getDepth() + 1;
+				} else {
+					childDepth = 1;
+				}
+
+				if (childDepth > maxChildDepth) {
+					maxChildDepth = childDepth;
+				}
+			}
+
+			depth = maxChildDepth;
+		}
+
+		return depth;
+	}
+
+	/**
+	 * Returns the level of the nth symbol in the parse tree rooted at this
+	 * symbol, which is the number of steps down the tree from this symbol to
+	 * it. Indexing starts at zero for this, the root, and proceeds in a
+	 * pre-order traversal of the tree. Only the symbols on the path down to
+	 * the nth symbol are visited.
+	 * 
+	 * @param n the index of the symbol.
+	 * @return the level of the nth symbol, or <code>-1</code> if there are not
+	 *         that many symbols in this parse tree.
+	 */
+	public int getLevel(final int n) {
+		if (n == 0) {
+			return 0;
+		}
+
+		int current = 1;
 		for (final Symbol child: children) {
-			int childDepth;
 			if (child instanceof NonTerminalSymbol) {
-				childDepth = ((NonTerminalSymbol) child).getDepth() + 1;
-			} else {
-				childDepth = 1;
-			}
+				final NonTerminalSymbol nt = (NonTerminalSymbol) child;
+				final int noChildSymbols = nt.getNoSymbols();
 
-			if (childDepth > maxChildDepth) {
-				maxChildDepth = childDepth;
+				if (n < current + noChildSymbols) {
+					return nt.getLevel(n - current) + 1;
+				}
+
+				current += noChildSymbols;
+			} else if (n == current++) {
+				return 1;
 			}
 		}
 
-		return maxChildDepth;
+		return -1;
 	}
 
 	/**
 	 * Returns a string representation of this non-terminal symbol, which is a
-	 * conjunction of the string representations of each child symbol.
+	 * conjunction of the string representations of each child symbol. The
+	 * result is cached until the parse tree below this symbol is modified.
 	 * 
 	 * @return a <code>String</code> representation of this object.
 	 */
 	@Override
 	public String toString() {
-		final StringBuilder buffer = new StringBuilder(children.size());
+		if (source == null) {
+			final StringBuilder buffer = new StringBuilder();
+			appendTo(buffer);
+			source = buffer.toString();
+		}
+
+		return source;
+	}
+
+	/*
+	 * Appends the string representation of each child to the buffer, reusing
+	 * any that are already cached.
+	 */
+	private void appendTo(final StringBuilder buffer) {
 		for (final Symbol c: children) {
-			buffer.append(c.toString());
+			if (c instanceof NonTerminalSymbol) {
+				final NonTerminalSymbol nt = (NonTerminalSymbol) c;
+				if (nt.source != null) {
+					buffer.append(nt.source);
+				} else {
+					nt.appendTo(buffer);
+				}
+			} else {
+				buffer.append(c.toString());
+			}
+		}
+	}
+
+	/**
+	 * Returns a hash code for this non-terminal symbol, which is consistent
+	 * with <code>equals</code>. The result is cached until the parse tree below
+	 * this symbol is modified.
+	 * 
+	 * @return a hash code value for this object.
+	 */
+	@Override
+	public int hashCode() {
+		if (hash == 0) {
+			int result = System.identityHashCode(grammarRule);
+			for (final Symbol c: children) {
+				result = 31 * result + ((c == null) ? 0 : c.hashCode());
+			}
+			hash = (result == 0) ? 1 : result;
 		}
 
-		return buffer.toString();
+		return hash;
 	}
 
 	/**
-	 * Constructs and returns a copy of this non-terminal symbol. Each child
-	 * <code>Symbol</code> is itself cloned, but the grammar rule is shallow
-	 * copied.
+	 * Constructs and returns a copy of this non-terminal symbol. The copy has
+	 * the same child symbols, which become shared between this symbol and the
+	 * copy, so must not be modified other than through the path copying
+	 * methods. The grammar rule is shallow copied.
 	 * 
 	 * @return a copy of this non-terminal symbol.
 	 */
@@ -661,12 +1075,18 @@ public class NonTerminalSymbol implements Symbol {
 			assert false;
 		}
 
-		// Copy cloned child symbols.
-		clone.children = new ArrayList<Symbol>();
+		// Share the child symbols.
+		clone.children = new ArrayList<Symbol>(children);
 		for (final Symbol c: children) {
-			clone.children.add(c.clone());
+			if (c instanceof NonTerminalSymbol) {
+				((NonTerminalSymbol) c).shared = true;
+			}
 		}
 
+		// The copy is the root of its own tree, but has the same source.
+		clone.parent = null;
+		clone.shared = false;
+
 		// Shallow copy the grammar rules.
 		clone.grammarRule = grammarRule;
 
@@ -711,4 +1131,19 @@ public class NonTerminalSymbol implements Symbol {
 
 		return equal;
 	}
+
+	/*
+	 * The indexes of all the non-terminals in a tree and of those with each
+	 * grammar rule, which are not modified once calculated.
+	 */
+	private static final class NonTerminalIndex {
+
+		private final int[] all;
+		private final Map<GrammarRule, int[]> byRule;
+
+		private NonTerminalIndex(final int[] all, final Map<GrammarRule, int[]> byRule) {
+			this.all = all;
+			this.byRule = byRule;
+		}
+	}
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+import static org.epochx.tools.util.IOUtils.*;
+
+import java.io.*;
+
+/**
+ * This class provides static methods for writing parse trees in a compact
+ * binary form, and reading them back against the same grammar. A tree is
+ * written as the production number of each of its non-terminals in preorder,
+ * each as a variable length int, so most take a single byte. The terminals
+ * are determined by the productions, so are not written, except for the
+ * values of generated literals, which follow the production they belong to.
+ * 
+ * <p>
+ * The encoding is the same whether the tree is made up of symbol objects or
+ * is a <code>FlatParseTree</code>, so a tree may be read back in either form.
+ * Production numbers are those assigned by the <code>Grammar</code>, so a tree
+ * must be read with a grammar constructed from the same grammar string that
+ * the tree was derived from.
+ * 
+ * @see Grammar#getProductionNumber(GrammarProduction)
+ * @see org.epochx.tools.util.IOUtils#writeVarInt(DataOutput, int)
+ */
+public final class ParseTreeCodec {
+
+	private ParseTreeCodec() {}
+
+	/**
+	 * Writes a parse tree of symbol objects. The production of each
+	 * non-terminal is the first of its rule that its children are an
+	 * instantiation of.
+	 * 
+	 * @param out the output to write to.
+	 * @param root the root of the parse tree.
+	 * @param grammar the grammar that the parse tree is derived from.
+	 * @throws IOException if there was a problem writing to the output.
+	 * @throws IllegalArgumentException if the tree is not derived from the
+	 *         grammar.
+	 */
+	public static void write(final DataOutput out, final NonTerminalSymbol root, final Grammar grammar)
+			throws IOException {
+		final GrammarProduction production = getProduction(root);
+		final int number = (production == null) ? -1 : grammar.getProductionNumber(production);
+		if (number == -1) {
+			throw new IllegalArgumentException("parse tree is not derived from the grammar");
+		}
+
+		writeVarInt(out, number);
+
+		final int noChildren = root.getNoChildren();
+		for (int i = 0; i < noChildren; i++) {
+			final Symbol child = root.getChild(i);
+			if (child instanceof NonTerminalSymbol) {
+				write(out, (NonTerminalSymbol) child, grammar);
+			} else if (((GrammarLiteral) production.getGrammarNode(i)).isGenerated()) {
+				out.writeUTF(((TerminalSymbol) child).getGrammarLiteral().getValue());
+			}
+		}
+	}
+
+	/**
+	 * Writes a flat parse tree.
+	 * 
+	 * @param out the output to write to.
+	 * @param tree the parse tree.
+	 * @throws IOException if there was a problem writing to the output.
+	 */
+	public static void write(final DataOutput out, final FlatParseTree tree) throws IOException {
+		final Grammar grammar = tree.getGrammar();
+
+		int literal = 0;
+		final int noNonTerminals = tree.getNoNonTerminals();
+		for (int i = 0; i < noNonTerminals; i++) {
+			final int number = tree.getProductionNumber(i);
+			writeVarInt(out, number);
+
+			// Generated literals are in source order, so they are in preorder
+			// of the productions they belong to.
+			for (final GrammarNode node: grammar.getProduction(number).getGrammarNodes()) {
+				if ((node instanceof GrammarLiteral) && ((GrammarLiteral) node).isGenerated()) {
+					out.writeUTF(tree.getLiteral(literal++));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a parse tree of symbol objects, which is derived from the start
+	 * rule of the grammar.
+	 * 
+	 * @param in the input to read from.
+	 * @param grammar the grammar that the parse tree is derived from.
+	 * @return the root of the parse tree.
+	 * @throws IOException if there was a problem reading from the input, or it
+	 *         does not hold a tree derived from the grammar.
+	 */
+	public static NonTerminalSymbol readParseTree(final DataInput in, final Grammar grammar) throws IOException {
+		return readParseTree(in, grammar, grammar.getStartRule());
+	}
+
+	/*
+	 * Recursive helper for readParseTree, which reads a subtree that is an
+	 * instantiation of the given rule.
+	 */
+	private static NonTerminalSymbol readParseTree(final DataInput in, final Grammar grammar, final GrammarRule rule)
+			throws IOException {
+		final int number = readProductionNumber(in, grammar, rule);
+		final NonTerminalSymbol symbol = new NonTerminalSymbol(rule);
+
+		for (final GrammarNode node: grammar.getProduction(number).getGrammarNodes()) {
+			if (node instanceof GrammarRule) {
+				symbol.addChild(readParseTree(in, grammar, (GrammarRule) node));
+			} else if (((GrammarLiteral) node).isGenerated()) {
+				final GrammarLiteral literal = new GrammarLiteral("");
+				literal.setValue(in.readUTF());
+				symbol.addChild(new TerminalSymbol(literal));
+			} else {
+				symbol.addChild(new TerminalSymbol((GrammarLiteral) node));
+			}
+		}
+
+		return symbol;
+	}
+
+	/**
+	 * Reads a flat parse tree, which is derived from the start rule of the
+	 * grammar.
+	 * 
+	 * @param in the input to read from.
+	 * @param grammar the grammar that the parse tree is derived from.
+	 * @return the parse tree.
+	 * @throws IOException if there was a problem reading from the input, or it
+	 *         does not hold a tree derived from the grammar.
+	 */
+	public static FlatParseTree readFlatParseTree(final DataInput in, final Grammar grammar) throws IOException {
+		final FlatParseTree.Builder builder = new FlatParseTree.Builder(grammar);
+
+		readFlatParseTree(in, grammar, grammar.getStartRule(), builder);
+
+		return builder.build();
+	}
+
+	/*
+	 * Recursive helper for readFlatParseTree, which reads a subtree that is an
+	 * instantiation of the given rule into the builder.
+	 */
+	private static void readFlatParseTree(final DataInput in, final Grammar grammar, final GrammarRule rule,
+			final FlatParseTree.Builder builder) throws IOException {
+		final int number = readProductionNumber(in, grammar, rule);
+		final GrammarProduction production = grammar.getProduction(number);
+		final int index = builder.startNonTerminal(production);
+
+		for (final GrammarNode node: production.getGrammarNodes()) {
+			if (node instanceof GrammarRule) {
+				readFlatParseTree(in, grammar, (GrammarRule) node, builder);
+			} else if (((GrammarLiteral) node).isGenerated()) {
+				final GrammarLiteral literal = new GrammarLiteral("");
+				literal.setValue(in.readUTF());
+				builder.addLiteral(literal);
+			}
+		}
+
+		builder.endNonTerminal(index);
+	}
+
+	/*
+	 * Reads a production number, which must be of a production of the given
+	 * rule.
+	 */
+	private static int readProductionNumber(final DataInput in, final Grammar grammar, final GrammarRule rule)
+			throws IOException {
+		final int number = readVarInt(in);
+		if ((number < 0) || (number >= grammar.getNoProductions()) || (grammar.getProductionRule(number) != rule)) {
+			throw new IOException("parse tree does not match the grammar");
+		}
+
+		return number;
+	}
+
+	/*
+	 * Finds the first production of the symbol's rule that its children are
+	 * an instantiation of.
+	 */
+	private static GrammarProduction getProduction(final NonTerminalSymbol symbol) {
+		final int noChildren = symbol.getNoChildren();
+
+		for (final GrammarProduction production: symbol.getGrammarRule().getProductions()) {
+			if (production.getNoGrammarNodes() != noChildren) {
+				continue;
+			}
+
+			boolean matches = true;
+			for (int i = 0; (i < noChildren) && matches; i++) {
+				final GrammarNode node = production.getGrammarNode(i);
+				final Symbol child = symbol.getChild(i);
+
+				if (node instanceof GrammarRule) {
+					matches = (child instanceof NonTerminalSymbol)
+							&& (((NonTerminalSymbol) child).getGrammarRule() == node);
+				} else if (((GrammarLiteral) node).isGenerated()) {
+					matches = (child instanceof TerminalSymbol);
+				} else {
+					matches = (child instanceof TerminalSymbol)
+							&& ((TerminalSymbol) child).getGrammarLiteral().getValue().equals(
+									((GrammarLiteral) node).getValue());
+				}
+			}
+
+			if (matches) {
+				return production;
+			}
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+import java.util.Arrays;
+
+/**
+ * A <code>ParseTreeCursor</code> points at one symbol of a parse tree and
+ * remembers the path down to it from the root, so that the symbol can be
+ * inspected and replaced without searching the tree again. The cursor is
+ * moved by index with one descent from the root, which uses the sizes cached
+ * by each <code>NonTerminalSymbol</code> to step over the subtrees that do not
+ * contain the target, rather than traversing them.
+ * 
+ * <p>
+ * Replacing the symbol copies any shared non-terminals on the path, as
+ * <code>setNthSymbol</code> does, so the cursor may be used on a cloned tree.
+ * The root itself must not be shared. A cursor is only valid until its tree is
+ * modified other than through the cursor, after which it must be moved again.
+ * 
+ * @see NonTerminalSymbol#isShared()
+ */
+public class ParseTreeCursor {
+
+	// The root of the parse tree.
+	private NonTerminalSymbol root;
+
+	// The non-terminals from the root down to the parent of the current
+	// symbol, and the index of the next symbol on the path in each.
+	private NonTerminalSymbol[] path;
+	private int[] childIndexes;
+
+	// The number of steps from the root to the current symbol.
+	private int level;
+
+	// The current symbol and its index in a pre-order traversal.
+	private Symbol symbol;
+	private int index;
+
+	/**
+	 * Constructs a <code>ParseTreeCursor</code> pointing at the root of the
+	 * given parse tree.
+	 * 
+	 * @param root the root of the parse tree.
+	 */
+	public ParseTreeCursor(final NonTerminalSymbol root) {
+		if (root == null) {
+			throw new IllegalArgumentException("root must not be null");
+		}
+
+		this.root = root;
+
+		path = new NonTerminalSymbol[8];
+		childIndexes = new int[8];
+		symbol = root;
+	}
+
+	/**
+	 * Moves the cursor to the nth non-terminal of the parse tree, counted from
+	 * zero for the root in a pre-order traversal, as by
+	 * <code>getNthNonTerminal</code>.
+	 * 
+	 * @param n the index of the non-terminal amongst the non-terminals.
+	 * @return the non-terminal the cursor now points at.
+	 * @throws IndexOutOfBoundsException if there are not that many
+	 *         non-terminals.
+	 */
+	public NonTerminalSymbol moveToNthNonTerminal(final int n) {
+		if ((n < 0) || (n >= root.getNoNonTerminalSymbols())) {
+			throw new IndexOutOfBoundsException("no non-terminal at index " + n);
+		}
+
+		reset();
+
+		NonTerminalSymbol current = root;
+		int remaining = n;
+		while (remaining > 0) {
+			// Step over this symbol.
+			remaining--;
+			index++;
+
+			final int noChildren = current.getNoChildren();
+			for (int i = 0; i < noChildren; i++) {
+				final Symbol child = current.getChild(i);
+
+				if (child instanceof NonTerminalSymbol) {
+					final NonTerminalSymbol nt = (NonTerminalSymbol) child;
+					final int noChildNonTerminals = nt.getNoNonTerminalSymbols();
+
+					if (remaining < noChildNonTerminals) {
+						push(current, i);
+						current = nt;
+						break;
+					}
+
+					remaining -= noChildNonTerminals;
+					index += nt.getNoSymbols();
+				} else {
+					index++;
+				}
+			}
+		}
+
+		symbol = current;
+
+		return current;
+	}
+
+	/**
+	 * Moves the cursor to the nth symbol of the parse tree, counted from zero
+	 * for the root in a pre-order traversal, as by <code>getNthSymbol</code>.
+	 * 
+	 * @param n the index of the symbol.
+	 * @return the symbol the cursor now points at.
+	 * @throws IndexOutOfBoundsException if there are not that many symbols.
+	 */
+	public Symbol moveToNthSymbol(final int n) {
+		if ((n < 0) || (n >= root.getNoSymbols())) {
+			throw new IndexOutOfBoundsException("no symbol at index " + n);
+		}
+
+		reset();
+
+		Symbol current = root;
+		while (index < n) {
+			final NonTerminalSymbol parent = (NonTerminalSymbol) current;
+
+			// Step over this symbol.
+			index++;
+
+			final int noChildren = parent.getNoChildren();
+			for (int i = 0; i < noChildren; i++) {
+				final Symbol child = parent.getChild(i);
+				final int noChildSymbols = (child instanceof NonTerminalSymbol) ? ((NonTerminalSymbol) child)
+						.getNoSymbols() : 1;
+
+				if (n < index + noChildSymbols) {
+					push(parent, i);
+					current = child;
+					break;
+				}
+
+				index += noChildSymbols;
+			}
+		}
+
+		symbol = current;
+
+		return current;
+	}
+
+	/**
+	 * Returns the symbol that the cursor points at.
+	 * 
+	 * @return the current symbol.
+	 */
+	public Symbol getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Returns the index of the symbol that the cursor points at, amongst all
+	 * the symbols of the parse tree in a pre-order traversal, as used by
+	 * <code>getNthSymbol</code>.
+	 * 
+	 * @return the index of the current symbol.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the number of steps down the parse tree from the root to the
+	 * symbol that the cursor points at.
+	 * 
+	 * @return the level of the current symbol.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Returns the non-terminal which the symbol that the cursor points at is a
+	 * child of in this parse tree.
+	 * 
+	 * @return the parent of the current symbol, or <code>null</code> if the
+	 *         cursor points at the root.
+	 */
+	public NonTerminalSymbol getParent() {
+		return (level == 0) ? null : path[level - 1];
+	}
+
+	/**
+	 * Returns the root of the parse tree.
+	 * 
+	 * @return the root of the parse tree the cursor moves over.
+	 */
+	public NonTerminalSymbol getRoot() {
+		return root;
+	}
+
+	/**
+	 * Replaces the symbol that the cursor points at with the given symbol,
+	 * which the cursor then points at. Any shared non-terminals on the path
+	 * down to it are copied first. If the cursor points at the root, then the
+	 * replacement becomes the root of the cursor's tree, but the original tree
+	 * is not changed, and the replacement must be a non-terminal.
+	 * 
+	 * @param replacement the symbol to put in place of the current symbol.
+	 * @return the root of the parse tree after the replacement.
+	 * @throws IllegalStateException if the root of the tree is shared.
+	 */
+	public NonTerminalSymbol replace(final Symbol replacement) {
+		if (level == 0) {
+			root = (NonTerminalSymbol) replacement;
+		} else {
+			if (root.isShared()) {
+				throw new IllegalStateException("shared non-terminal symbols must not be modified");
+			}
+
+			// Copy any shared non-terminals on the path.
+			for (int i = 1; i < level; i++) {
+				path[i] = path[i - 1].getUnsharedChild(childIndexes[i - 1]);
+			}
+			path[level - 1].setChild(childIndexes[level - 1], replacement);
+		}
+
+		symbol = replacement;
+
+		return root;
+	}
+
+	/*
+	 * Moves the cursor back to the root.
+	 */
+	private void reset() {
+		Arrays.fill(path, 0, level, null);
+		level = 0;
+		index = 0;
+		symbol = root;
+	}
+
+	/*
+	 * Adds a step down from the given non-terminal to the path.
+	 */
+	private void push(final NonTerminalSymbol parent, final int childIndex) {
+		if (level == path.length) {
+			path = Arrays.copyOf(path, level * 2);
+			childIndexes = Arrays.copyOf(childIndexes, level * 2);
+		}
+
+		path[level] = parent;
+		childIndexes[level] = childIndex;
+		level++;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * Generates the values of <code>RANDFLOAT(min,max)</code> constants, which
+ * are uniformly distributed between the minimum (inclusive) and the maximum
+ * (exclusive).
+ */
+class RandomFloatGenerator implements ConstantGenerator {
+
+	/**
+	 * Creates the generators of <code>RANDFLOAT</code> constants.
+	 */
+	static final ConstantGenerator.Factory FACTORY = new ConstantGenerator.Factory() {
+
+		@Override
+		public ConstantGenerator newGenerator(final String[] arguments) {
+			if (arguments.length < 2) {
+				throw new MalformedGrammarException("RANDFLOAT requires a minimum and a maximum");
+			}
+
+			try {
+				return new RandomFloatGenerator(Double.parseDouble(arguments[0]), Double.parseDouble(arguments[1]));
+			} catch (final NumberFormatException e) {
+				throw new MalformedGrammarException("Invalid RANDFLOAT range: " + e.getMessage());
+			}
+		}
+	};
+
+	private final double rangeMin;
+	private final double rangeMax;
+
+	RandomFloatGenerator(final double rangeMin, final double rangeMax) {
+		this.rangeMin = rangeMin;
+		this.rangeMax = rangeMax;
+	}
+
+	@Override
+	public String generate(final RandomNumberGenerator rng, final int noLabels, final int noAttributes) {
+		final double randomValue = rangeMin + (rangeMax - rangeMin) * rng.nextDouble();
+
+		return randomValue + "";
+	}
+}
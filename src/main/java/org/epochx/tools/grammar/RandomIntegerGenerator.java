@@ -0,0 +1,136 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+import org.epochx.tools.random.RandomNumberGenerator;
+
+/**
+ * Generates the values of <code>RANDINTEGER(min,max)</code> constants and of
+ * the <code>RANDINT_TYPE0</code> to <code>RANDINT_TYPE6</code> constants,
+ * which are uniformly distributed integers between a minimum and a maximum,
+ * both inclusive. Except for <code>RANDINTEGER</code> and
+ * <code>RANDINT_TYPE0</code>, the maximum is calculated from the number of
+ * labels or attributes of the dataset, and any maximum given in the grammar is
+ * ignored.
+ */
+class RandomIntegerGenerator implements ConstantGenerator {
+
+	// Whose maximum is given in the grammar.
+	private static final int TYPE0 = 0;
+
+	// Whose maximum is the square root of the number of labels, plus one.
+	private static final int TYPE1 = 1;
+
+	// Whose maximum is half the number of labels.
+	private static final int TYPE2 = 2;
+
+	// Whose maximum is twice the number of labels, up to 100.
+	private static final int TYPE3 = 3;
+
+	// Which are 0.2 to 1.0 of the number of attributes.
+	private static final int TYPE4 = 4;
+
+	// Whose maximum is the number of labels.
+	private static final int TYPE5 = 5;
+
+	// Whose maximum is one less than the number of labels.
+	private static final int TYPE6 = 6;
+
+	private final int type;
+	private final int rangeMin;
+	private final int rangeMax;
+
+	RandomIntegerGenerator(final int type, final int rangeMin, final int rangeMax) {
+		this.type = type;
+		this.rangeMin = rangeMin;
+		this.rangeMax = rangeMax;
+	}
+
+	/**
+	 * Returns a factory for the generators of constants of the given type.
+	 * 
+	 * @param type the number of the <code>RANDINT_TYPE</code>, or 0 for
+	 *        <code>RANDINTEGER</code>.
+	 * @return the factory for constants of that type.
+	 */
+	static ConstantGenerator.Factory getFactory(final int type) {
+		return new ConstantGenerator.Factory() {
+
+			@Override
+			public ConstantGenerator newGenerator(final String[] arguments) {
+				if (type == TYPE4) {
+					return new RandomIntegerGenerator(type, 0, 0);
+				}
+
+				final int noArguments = (type == TYPE0) ? 2 : 1;
+				if (arguments.length < noArguments) {
+					throw new MalformedGrammarException("RANDINT_TYPE" + type + " requires " + noArguments
+							+ " arguments");
+				}
+
+				try {
+					final int rangeMin = Integer.parseInt(arguments[0].trim());
+					final int rangeMax = (type == TYPE0) ? Integer.parseInt(arguments[1].trim()) : 0;
+
+					return new RandomIntegerGenerator(type, rangeMin, rangeMax);
+				} catch (final NumberFormatException e) {
+					throw new MalformedGrammarException("Invalid RANDINT_TYPE" + type + " range: "
+							+ e.getMessage());
+				}
+			}
+		};
+	}
+
+	@Override
+	public String generate(final RandomNumberGenerator rng, final int noLabels, final int noAttributes) {
+		if (type == TYPE4) {
+			final double doubleValue = 0.2 + (1.0 - 0.2) * rng.nextDouble();
+
+			return ((int) (doubleValue * noAttributes)) + "";
+		}
+
+		final int max;
+		switch (type) {
+			case TYPE1:
+				max = (int) (Math.round(Math.sqrt(noLabels)) + 1);
+				break;
+			case TYPE2:
+				max = noLabels / 2;
+				break;
+			case TYPE3:
+				max = Math.min(100, 2 * noLabels);
+				break;
+			case TYPE5:
+				max = noLabels;
+				break;
+			case TYPE6:
+				max = noLabels - 1;
+				break;
+			default:
+				max = rangeMax;
+		}
+
+		final int randomValue = rangeMin + rng.nextInt((max - rangeMin) + 1);
+
+		return randomValue + "";
+	}
+}
@@ -43,6 +43,17 @@ public class TerminalSymbol implements Symbol {
 		this.literal = literal;
 	}
 
+	/**
+	 * Returns the grammar literal that this symbol is an instantiation of,
+	 * which for a generated value is a literal holding that value rather than
+	 * the literal of the grammar.
+	 * 
+	 * @return the underlying grammar literal.
+	 */
+	public GrammarLiteral getGrammarLiteral() {
+		return literal;
+	}
+
 	/**
 	 * Returns a <code>String</code> representation of this terminal symbol,
 	 * which is the value of the underlying grammar literal.
@@ -99,4 +110,15 @@ public class TerminalSymbol implements Symbol {
 			return false;
 		}
 	}
+
+	/**
+	 * Returns a hash code for this terminal symbol, which is consistent with
+	 * <code>equals</code>.
+	 * 
+	 * @return a hash code value for this object.
+	 */
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.grammar;
+
+/**
+ * A translation of a parse tree into some other form and the translator that
+ * made it. Parse trees cache the pair as one immutable object, so that a
+ * thread which reads it sees both or neither.
+ */
+final class Translation {
+
+	private final Object translator;
+	private final Object value;
+
+	Translation(final Object translator, final Object value) {
+		this.translator = translator;
+		this.value = value;
+	}
+
+	/*
+	 * Returns the translation if it was made by the given translator.
+	 */
+	Object get(final Object translator) {
+		return (translator == this.translator) ? value : null;
+	}
+}
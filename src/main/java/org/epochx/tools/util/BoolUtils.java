@@ -120,4 +120,38 @@ public final class BoolUtils {
 
 		return inputs;
 	}
+
+	/**
+	 * Generates all possible combinations of <code>true</code>/
+	 * <code>false</code> values for the given number of elements in bit-sliced
+	 * form. Rather than an array for each combination, an array of bits is
+	 * returned for each element, where the bit at index <code>n</code> is the
+	 * value of that element in the nth combination. The bit at index
+	 * <code>n</code> is stored in the word at index <code>n / 64</code> as the
+	 * bit <code>1L &lt;&lt; (n % 64)</code>. The order of the combinations is
+	 * identical to <code>BoolUtils.generateBoolSequences(int)</code>, so that
+	 * the nth bit of the ith array is equal to <code>inputs[n][i]</code> of
+	 * that method's result.
+	 * 
+	 * @param noBits The number of <code>boolean</code> values in which
+	 *        different combinations are made.
+	 * @return An array of <code>noBits</code> bit arrays, each holding
+	 *         2<sup>noBits</sup> bits.
+	 */
+	public static long[][] generateBitSequences(final int noBits) {
+		final long noInputs = 1L << noBits;
+		final int noWords = (int) ((noInputs + 63) / 64);
+
+		final long[][] inputs = new long[noBits][noWords];
+
+		for (int i = 0; i < noBits; i++) {
+			for (long j = 0; j < noInputs; j++) {
+				if (((j >>> i) & 1) == 1) {
+					inputs[i][(int) (j >>> 6)] |= 1L << j;
+				}
+			}
+		}
+
+		return inputs;
+	}
 }
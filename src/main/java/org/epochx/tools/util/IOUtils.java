@@ -0,0 +1,73 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.tools.util;
+
+import java.io.*;
+
+/**
+ * This class provides static utility methods for reading and writing compact
+ * binary data.
+ */
+public final class IOUtils {
+
+	private IOUtils() {}
+
+	/**
+	 * Writes an <code>int</code> as a variable length quantity of between one
+	 * and five bytes, seven bits to a byte with the lowest bits first, so that
+	 * small non-negative values take a single byte. Negative values are
+	 * written as unsigned and take five bytes.
+	 * 
+	 * @param out the output to write to.
+	 * @param value the value to write.
+	 * @throws IOException if there was a problem writing to the output.
+	 */
+	public static void writeVarInt(final DataOutput out, final int value) throws IOException {
+		int remaining = value;
+		while ((remaining & ~0x7f) != 0) {
+			out.writeByte((remaining & 0x7f) | 0x80);
+			remaining >>>= 7;
+		}
+		out.writeByte(remaining);
+	}
+
+	/**
+	 * Reads an <code>int</code> written by <code>writeVarInt</code>.
+	 * 
+	 * @param in the input to read from.
+	 * @return the value that was read.
+	 * @throws IOException if there was a problem reading from the input, or it
+	 *         does not hold a valid value.
+	 */
+	public static int readVarInt(final DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			final int b = in.readByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new IOException("malformed variable length int");
+	}
+}
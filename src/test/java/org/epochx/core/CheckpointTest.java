@@ -0,0 +1,271 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.epochx.ge.model.GEModel;
+import org.epochx.ge.representation.GECandidateProgram;
+import org.epochx.gr.model.GRModel;
+import org.epochx.life.*;
+import org.epochx.representation.CandidateProgram;
+import org.epochx.stats.*;
+import org.epochx.tools.grammar.Grammar;
+import org.junit.*;
+
+/**
+ * Tests for checkpointing, in particular that a run resumed from a checkpoint
+ * continues exactly as the run would have without being interrupted.
+ */
+public class CheckpointTest {
+
+	private static final String GRAMMAR = "<e> ::= <e> + <e> | <e> * <e> | <c> | ( <e> )\n"
+			+ "<c> ::= RANDINTEGER(3,7) | x\n";
+
+	private static final int NO_RUNS = 2;
+	private static final int NO_GENERATIONS = 20;
+	private static final int CHECKPOINT_INTERVAL = 3;
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("checkpoint", ".bin");
+		file.delete();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+		new File(file.getPath() + ".tmp").delete();
+	}
+
+	/**
+	 * Tests that a GR run which is interrupted and resumed twice produces the
+	 * same generations as an uninterrupted run.
+	 */
+	@Test
+	public void testResumeGR() throws IOException {
+		assertResumeEquivalent(new ModelFactory() {
+
+			public Model create() {
+				return newGRModel();
+			}
+		});
+	}
+
+	/**
+	 * Tests that a GE run which is interrupted and resumed twice produces the
+	 * same generations as an uninterrupted run.
+	 */
+	@Test
+	public void testResumeGE() throws IOException {
+		assertResumeEquivalent(new ModelFactory() {
+
+			public Model create() {
+				final GEModel model = new GEModel() {
+
+					@Override
+					public double getFitness(final CandidateProgram program) {
+						return Math.abs(((GECandidateProgram) program).getSourceCode().length() - 30);
+					}
+				};
+				model.setGrammar(new Grammar(GRAMMAR));
+				model.setPopulationSize(100);
+				model.setMaxCodonSize(256);
+				return model;
+			}
+		});
+	}
+
+	/**
+	 * Tests that no checkpoint is taken at the end of the last generation,
+	 * when the interval divides the number of generations.
+	 */
+	@Test
+	public void testNoCheckpointAtEnd() throws IOException {
+		final GRModel model = newGRModel();
+		model.setNoRuns(1);
+		model.setNoGenerations(NO_GENERATIONS);
+		model.setTerminationFitness(-1);
+		model.setSeed(99L);
+		model.setCheckpointFile(file);
+		model.setCheckpointInterval(5);
+		model.run();
+
+		final Checkpoint checkpoint = Checkpoint.read(file, model);
+		assertEquals(0, checkpoint.getRunNo());
+		assertEquals(NO_GENERATIONS - 5, checkpoint.getGeneration());
+	}
+
+	/**
+	 * Tests that a failure to write the last checkpoint does not hide the
+	 * failure which ended the run.
+	 */
+	@Test
+	public void testCloseFailureIsSuppressed() {
+		final File missing = new File(file, "checkpoint.bin");
+		final EvolutionContext previous = new EvolutionContext().bind();
+		try {
+			final GRModel model = newGRModel();
+			model.setPopulationSize(20);
+			model.setNoGenerations(NO_GENERATIONS);
+			model.setSeed(99L);
+			model.setCheckpointFile(missing);
+			model.setCheckpointInterval(CHECKPOINT_INTERVAL);
+			stopAt(0, CHECKPOINT_INTERVAL + 1, null);
+
+			try {
+				model.run();
+				fail("run should have been stopped");
+			} catch (final StopException e) {
+				assertEquals(1, e.getSuppressed().length);
+				assertTrue(e.getSuppressed()[0] instanceof IllegalStateException);
+			}
+		} finally {
+			EvolutionContext.restore(previous);
+		}
+	}
+
+	/*
+	 * Constructs a GR model whose programs are scored by their source.
+	 */
+	private static GRModel newGRModel() {
+		final GRModel model = new GRModel() {
+
+			@Override
+			public double getFitness(final CandidateProgram program) {
+				final String source = program.toString();
+				return Math.abs(source.length() - 40) + (source.contains("5") ? 0 : 1);
+			}
+		};
+		model.setGrammar(new Grammar(GRAMMAR));
+		model.setPopulationSize(100);
+		model.setMaxDepth(8);
+		model.setMaxInitialDepth(5);
+		return model;
+	}
+
+	/*
+	 * Runs the model without interruption, then again stopped after a
+	 * checkpoint in the first run, resumed and stopped after a checkpoint in
+	 * the second run, and resumed to the end. The generations after each
+	 * resumed checkpoint must be those of the uninterrupted run.
+	 */
+	private void assertResumeEquivalent(final ModelFactory factory) throws IOException {
+		final List<String> expected = run(factory, -1, -1, false);
+
+		// Checkpoints at generation 9, stops before finishing generation 11.
+		final List<String> first = run(factory, 0, 11, false);
+		// Resumes at generation 10, checkpoints at generation 6 of run 1.
+		final List<String> second = run(factory, 1, 8, true);
+		final List<String> third = run(factory, -1, -1, true);
+
+		// The last generation before each stop is repeated after resuming.
+		final List<String> actual = new ArrayList<String>();
+		actual.addAll(first.subList(0, first.size() - 1));
+		actual.addAll(second.subList(0, second.size() - 1));
+		actual.addAll(third);
+
+		assertEquals(expected, actual);
+	}
+
+	/*
+	 * Performs the runs in their own evolution context, stopping at the end of
+	 * the given generation, and returns a summary of every generation.
+	 */
+	private List<String> run(final ModelFactory factory, final int stopRun, final int stopGen, final boolean resume)
+			throws IOException {
+		final List<String> generations = new ArrayList<String>();
+
+		final EvolutionContext previous = new EvolutionContext().bind();
+		try {
+			final Model model = factory.create();
+			model.setNoRuns(NO_RUNS);
+			model.setNoGenerations(NO_GENERATIONS);
+			model.setTerminationFitness(-1);
+			model.setSeed(99L);
+			if ((stopRun >= 0) || resume) {
+				model.setCheckpointFile(file);
+				model.setCheckpointInterval(CHECKPOINT_INTERVAL);
+			}
+			stopAt(stopRun, stopGen, generations);
+
+			try {
+				if (resume) {
+					model.resume(file);
+				} else {
+					model.run();
+				}
+			} catch (final StopException e) {
+				// Simulates the process being killed.
+			}
+		} finally {
+			EvolutionContext.restore(previous);
+		}
+
+		return generations;
+	}
+
+	/*
+	 * Stops the current context's run at the end of the given generation,
+	 * recording each earlier generation if a list is given.
+	 */
+	private static void stopAt(final int stopRun, final int stopGen, final List<String> generations) {
+		Life.get().addGenerationListener(new GenerationAdapter() {
+
+			@Override
+			public void onGenerationEnd() {
+				final Stats stats = Stats.get();
+				final int run = (Integer) stats.getStat(StatField.RUN_NUMBER);
+				final int gen = (Integer) stats.getStat(StatField.GEN_NUMBER);
+				if ((run == stopRun) && (gen == stopGen)) {
+					throw new StopException();
+				}
+
+				if (generations != null) {
+					generations.add(run + "/" + gen + "/" + stats.getStat(StatField.GEN_FITNESS_MIN) + "/"
+							+ stats.getStat(StatField.GEN_POP));
+				}
+			}
+		});
+	}
+
+	/*
+	 * Creates a new model each time the runs are performed.
+	 */
+	private interface ModelFactory {
+
+		Model create();
+	}
+
+	/*
+	 * Thrown from a listener to interrupt a run.
+	 */
+	private static class StopException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.core;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+/**
+ * Tests for <code>FitnessStore</code>, in particular that records survive
+ * incomplete and corrupt data written by a failed process.
+ */
+public class FitnessStoreTest {
+
+	private static final String DATASET = "dataset";
+
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_SIZE = 32;
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("fitness", ".store");
+		file.delete();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+		new File(file.getPath() + ".compact").delete();
+	}
+
+	/**
+	 * Tests that scores are read back when the store is reopened.
+	 */
+	@Test
+	public void testReopen() throws IOException {
+		final FitnessStore store = new FitnessStore(file, DATASET, false);
+		store.put("p1", 1.0);
+		store.put("p2", 2.0);
+		store.close();
+
+		final FitnessStore reopened = new FitnessStore(file, DATASET, false);
+		assertEquals(1.0, reopened.get("p1"), 0.0);
+		assertEquals(2.0, reopened.get("p2"), 0.0);
+		assertNull(reopened.get("p3"));
+		reopened.close();
+
+		final FitnessStore other = new FitnessStore(file, "other", false);
+		assertNull(other.get("p1"));
+		other.close();
+	}
+
+	/**
+	 * Tests that a record appended after an incomplete record, left by another
+	 * process that failed while writing, is not lost when the store is
+	 * reopened.
+	 */
+	@Test
+	public void testPutAfterTornTail() throws IOException {
+		final FitnessStore store = new FitnessStore(file, DATASET, false);
+		store.put("p1", 1.0);
+		store.put("p2", 2.0);
+		append(file, new byte[13]);
+		store.put("p3", 3.0);
+		store.put("p4", 4.0);
+		store.close();
+
+		final FitnessStore reopened = new FitnessStore(file, DATASET, false);
+		assertEquals(1.0, reopened.get("p1"), 0.0);
+		assertEquals(2.0, reopened.get("p2"), 0.0);
+		assertEquals(3.0, reopened.get("p3"), 0.0);
+		assertEquals(4.0, reopened.get("p4"), 0.0);
+		assertEquals(HEADER_SIZE + (4 * RECORD_SIZE), file.length());
+		reopened.close();
+	}
+
+	/**
+	 * Tests that an incomplete record at the end of the file is discarded
+	 * when the store is opened.
+	 */
+	@Test
+	public void testOpenTruncatesTornTail() throws IOException {
+		final FitnessStore store = new FitnessStore(file, DATASET, false);
+		store.put("p1", 1.0);
+		store.close();
+		append(file, new byte[RECORD_SIZE - 1]);
+
+		final FitnessStore reopened = new FitnessStore(file, DATASET, false);
+		assertEquals(1.0, reopened.get("p1"), 0.0);
+		assertEquals(HEADER_SIZE + RECORD_SIZE, file.length());
+		reopened.close();
+	}
+
+	/**
+	 * Tests that only the score of a corrupt record in the middle of the file
+	 * is lost, and that the records after it are kept.
+	 */
+	@Test
+	public void testCorruptRecordKeepsLaterRecords() throws IOException {
+		final FitnessStore store = new FitnessStore(file, DATASET, false);
+		store.put("p1", 1.0);
+		store.put("p2", 2.0);
+		store.put("p3", 3.0);
+		store.close();
+
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(HEADER_SIZE + RECORD_SIZE + 20);
+			raf.write(0xFF);
+		} finally {
+			raf.close();
+		}
+
+		final FitnessStore reopened = new FitnessStore(file, DATASET, false);
+		assertEquals(1.0, reopened.get("p1"), 0.0);
+		assertNull(reopened.get("p2"));
+		assertEquals(3.0, reopened.get("p3"), 0.0);
+		assertEquals(HEADER_SIZE + (3 * RECORD_SIZE), file.length());
+
+		reopened.compact();
+		assertEquals(HEADER_SIZE + (2 * RECORD_SIZE), file.length());
+		assertEquals(3.0, reopened.get("p3"), 0.0);
+		reopened.close();
+	}
+
+	/**
+	 * Tests that records which were appended after junk, and so are not at a
+	 * multiple of the record size, are still found.
+	 */
+	@Test
+	public void testUnalignedRecords() throws IOException {
+		final FitnessStore store = new FitnessStore(file, DATASET, false);
+		store.put("p1", 1.0);
+		store.put("p2", 2.0);
+		store.close();
+
+		final File other = File.createTempFile("fitness", ".store");
+		other.delete();
+		try {
+			final FitnessStore otherStore = new FitnessStore(other, DATASET, false);
+			otherStore.put("p3", 3.0);
+			otherStore.put("p4", 4.0);
+			otherStore.close();
+
+			final byte[] records = new byte[2 * RECORD_SIZE];
+			final RandomAccessFile raf = new RandomAccessFile(other, "r");
+			try {
+				raf.seek(HEADER_SIZE);
+				raf.readFully(records);
+			} finally {
+				raf.close();
+			}
+
+			append(file, new byte[13]);
+			append(file, records);
+		} finally {
+			other.delete();
+		}
+
+		final FitnessStore reopened = new FitnessStore(file, DATASET, false);
+		assertEquals(1.0, reopened.get("p1"), 0.0);
+		assertEquals(2.0, reopened.get("p2"), 0.0);
+		assertEquals(3.0, reopened.get("p3"), 0.0);
+		assertEquals(4.0, reopened.get("p4"), 0.0);
+		assertEquals(4, reopened.size());
+		reopened.close();
+	}
+
+	/**
+	 * Tests that unaligned records are found when there are more of them than
+	 * are read from the file at a time, so that some cross the boundaries
+	 * between the reads.
+	 */
+	@Test
+	public void testUnalignedRecordsAcrossChunks() throws IOException {
+		final int noRecords = 40000;
+
+		final FitnessStore store = new FitnessStore(file, DATASET, false);
+		store.put("p", -1.0);
+		store.close();
+
+		final File other = File.createTempFile("fitness", ".store");
+		other.delete();
+		try {
+			final FitnessStore otherStore = new FitnessStore(other, DATASET, false);
+			for (int i = 0; i < noRecords; i++) {
+				otherStore.put("p" + i, i);
+			}
+			otherStore.close();
+
+			final byte[] records = new byte[noRecords * RECORD_SIZE];
+			final RandomAccessFile raf = new RandomAccessFile(other, "r");
+			try {
+				raf.seek(HEADER_SIZE);
+				raf.readFully(records);
+			} finally {
+				raf.close();
+			}
+
+			append(file, new byte[13]);
+			append(file, records);
+		} finally {
+			other.delete();
+		}
+
+		final FitnessStore reopened = new FitnessStore(file, DATASET, false);
+		assertEquals(-1.0, reopened.get("p"), 0.0);
+		for (int i = 0; i < noRecords; i++) {
+			assertEquals(i, reopened.get("p" + i), 0.0);
+		}
+		assertEquals(noRecords + 1, reopened.size());
+		reopened.close();
+	}
+
+	/*
+	 * Appends the bytes to the end of the file, as another process would.
+	 */
+	private static void append(final File file, final byte[] bytes) throws IOException {
+		final FileOutputStream out = new FileOutputStream(file, true);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+}
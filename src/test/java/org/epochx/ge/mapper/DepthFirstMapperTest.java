@@ -0,0 +1,67 @@
+/*
+ * Copyright 2007-2011 Tom Castle & Lawrence Beadle
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.mapper;
+
+import static org.junit.Assert.*;
+
+import org.epochx.ge.mapper.DepthFirstMapper.Derivation;
+import org.epochx.tools.grammar.Grammar;
+import org.junit.Test;
+
+/**
+ * Tests for <code>DepthFirstMapper</code>, in particular that generated values
+ * whose range depends on the dataset are given its numbers of labels and
+ * attributes.
+ */
+public class DepthFirstMapperTest {
+
+	private static final int MAX_CODON_SIZE = 256;
+
+	/**
+	 * Tests that a <code>RANDINT_TYPE1</code> value ranges up to the square
+	 * root of the number of labels, plus one.
+	 */
+	@Test
+	public void testRandIntType1() {
+		final Grammar grammar = new Grammar("<e> ::= x + <c>\n<c> ::= RANDINT_TYPE1(0)\n");
+		final DepthFirstMapper mapper = new DepthFirstMapper(grammar, MAX_CODON_SIZE, 16, 0);
+
+		// The maximum is 5, so the value is the codon modulo 6.
+		for (int codon = 0; codon < 12; codon++) {
+			final Derivation derivation = mapper.map(new int[]{codon}, 0);
+			assertTrue(derivation.isComplete());
+			assertEquals("x + " + (codon % 6), derivation.getParseTree().toString().trim());
+		}
+	}
+
+	/**
+	 * Tests that a <code>RANDINT_TYPE6</code> value without any labels, which
+	 * has an empty range, is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyRange() {
+		final Grammar grammar = new Grammar("<e> ::= RANDINT_TYPE6(0)\n");
+		final DepthFirstMapper mapper = new DepthFirstMapper(grammar, MAX_CODON_SIZE);
+
+		mapper.map(new int[]{1}, 0);
+	}
+}